@@ -0,0 +1,148 @@
+package br.com.product.nextdomtest.admissao;
+
+import br.com.product.nextdomtest.datasource.ContextoConexao;
+import br.com.product.nextdomtest.datasource.MetricasPoolConexoes;
+import br.com.product.nextdomtest.exception.ServicoSobrecarregadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.function.HandlerFunction;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admissão das requisições de produtos, movimentações e GraphQL conforme a pressão sobre o pool de conexões.
+ * <p>
+ * Uma requisição é recusada com 503 e {@code Retry-After} quando:
+ * <ul>
+ *     <li>o pool está saturado: há threads esperando conexão e a espera recente passa de
+ *     {@code estoque.admissao.orcamento-espera-conexao};</li>
+ *     <li>já há {@code estoque.admissao.maximo-simultaneas} requisições em andamento e nenhuma vaga
+ *     abre em {@code estoque.admissao.espera-fila}.</li>
+ * </ul>
+ * Recusar cedo mantém a fila do pool curta, então as requisições admitidas continuam dentro do tempo em vez
+ * de todas estourarem o {@code connectionTimeout}. Recusas são contadas em {@code estoque.admissao.recusadas}
+ * com as tags {@code endpoint} e {@code motivo}.
+ * <p>
+ * Também define o endpoint em {@link ContextoConexao} para as métricas de aquisição de conexão.
+ */
+@Component
+public class AdmissaoRequisicaoInterceptor implements AsyncHandlerInterceptor
+{
+    private static final String ATRIBUTO_VAGA = AdmissaoRequisicaoInterceptor.class.getName() + ".vaga";
+
+    private final MetricasPoolConexoes metricasPoolConexoes;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore vagas;
+    private final Duration orcamentoEsperaConexao;
+    private final Duration esperaFila;
+    private final Duration tentarNovamenteEm;
+
+    @Autowired
+    public AdmissaoRequisicaoInterceptor(MetricasPoolConexoes metricasPoolConexoes,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${estoque.admissao.maximo-simultaneas:50}") int maximoSimultaneas,
+                                         @Value("${estoque.admissao.orcamento-espera-conexao:100ms}") Duration orcamentoEsperaConexao,
+                                         @Value("${estoque.admissao.espera-fila:200ms}") Duration esperaFila,
+                                         @Value("${estoque.admissao.retry-after:1s}") Duration tentarNovamenteEm)
+    {
+        this.metricasPoolConexoes = metricasPoolConexoes;
+        this.meterRegistry = meterRegistry;
+        this.vagas = new Semaphore(maximoSimultaneas);
+        this.orcamentoEsperaConexao = orcamentoEsperaConexao;
+        this.esperaFila = esperaFila;
+        this.tentarNovamenteEm = tentarNovamenteEm;
+
+        Gauge.builder("estoque.admissao.em-andamento", vagas, v -> maximoSimultaneas - v.availablePermits())
+                .description("Requisições admitidas em andamento")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        // Controllers anotados e rotas funcionais, como o /graphql; recursos estáticos e o /error ficam de fora
+        if (!(handler instanceof HandlerMethod) && !(handler instanceof HandlerFunction<?>))
+        {
+            return true;
+        }
+
+        String endpoint = endpoint(request);
+        if (metricasPoolConexoes.saturado(orcamentoEsperaConexao))
+        {
+            throw recusar(endpoint, "pool-saturado", "há " + metricasPoolConexoes.pendentes()
+                    + " requisições aguardando conexão com o banco");
+        }
+
+        try
+        {
+            if (!vagas.tryAcquire(esperaFila.toNanos(), TimeUnit.NANOSECONDS))
+            {
+                throw recusar(endpoint, "fila-cheia", "limite de requisições simultâneas atingido");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw recusar(endpoint, "interrompida", "requisição interrompida aguardando vaga");
+        }
+
+        request.setAttribute(ATRIBUTO_VAGA, Boolean.TRUE);
+        ContextoConexao.definirEndpoint(endpoint);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        // O restante da resposta é produzido fora da thread da requisição
+        liberar(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
+    {
+        liberar(request);
+    }
+
+    int vagasDisponiveis()
+    {
+        return vagas.availablePermits();
+    }
+
+    private void liberar(HttpServletRequest request)
+    {
+        if (request.getAttribute(ATRIBUTO_VAGA) != null)
+        {
+            request.removeAttribute(ATRIBUTO_VAGA);
+            vagas.release();
+        }
+        ContextoConexao.limparEndpoint();
+    }
+
+    private ServicoSobrecarregadoException recusar(String endpoint, String motivo, String mensagem)
+    {
+        Counter.builder("estoque.admissao.recusadas")
+                .description("Requisições recusadas pela admissão")
+                .tags("endpoint", endpoint, "motivo", motivo)
+                .register(meterRegistry)
+                .increment();
+        return new ServicoSobrecarregadoException(mensagem, tentarNovamenteEm);
+    }
+
+    private static String endpoint(HttpServletRequest request)
+    {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (padrao != null ? padrao : request.getRequestURI());
+    }
+}
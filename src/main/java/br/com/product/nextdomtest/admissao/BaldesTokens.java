@@ -0,0 +1,82 @@
+package br.com.product.nextdomtest.admissao;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Um balde de tokens por cliente, todos com a mesma taxa e rajada.
+ * <p>
+ * Cada balde guarda só o instante teórico em que estaria cheio de novo (GCRA): consumir um token avança esse
+ * instante em {@code 1 / taxa}, e o pedido é recusado se ele ficar mais de {@code rajada / taxa} à frente de
+ * agora. O estado é um {@link AtomicLong} atualizado por compare-and-set, sem lock e sem tarefa de reposição.
+ * <p>
+ * Um balde cujo instante já passou está cheio e equivale a um cliente novo, então {@link #limpar(long)} o remove
+ * sem perder nada. Acima de {@code maximoClientes} baldes, clientes ainda não vistos dividem um único balde de
+ * excedente até a próxima limpeza, para que uma enxurrada de endereços novos não faça o mapa crescer sem limite.
+ */
+final class BaldesTokens
+{
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final int maximoClientes;
+    private final ConcurrentHashMap<String, AtomicLong> clientes = new ConcurrentHashMap<>();
+    private final AtomicLong excedente = new AtomicLong(Long.MIN_VALUE);
+
+    BaldesTokens(double taxaPorSegundo, int rajada, int maximoClientes)
+    {
+        if (taxaPorSegundo <= 0 || rajada < 1)
+        {
+            throw new IllegalArgumentException("Taxa deve ser positiva e rajada de pelo menos 1: taxa="
+                    + taxaPorSegundo + ", rajada=" + rajada);
+        }
+        this.intervaloNanos = Math.max(1, Math.round(1_000_000_000 / taxaPorSegundo));
+        this.toleranciaNanos = intervaloNanos * rajada;
+        this.maximoClientes = maximoClientes;
+    }
+
+    /**
+     * Consome um token do cliente.
+     *
+     * @param agora instante de {@link System#nanoTime()}
+     * @return {@code 0} se o token foi consumido, ou quantos nanossegundos faltam para haver um
+     */
+    long consumir(String cliente, long agora)
+    {
+        AtomicLong balde = clientes.get(cliente);
+        if (balde == null)
+        {
+            balde = clientes.size() < maximoClientes
+                    ? clientes.computeIfAbsent(cliente, c -> new AtomicLong(Long.MIN_VALUE))
+                    : excedente;
+        }
+
+        while (true)
+        {
+            long cheio = balde.get();
+            long novo = Math.max(cheio, agora) + intervaloNanos;
+            long falta = novo - agora - toleranciaNanos;
+            if (falta > 0)
+            {
+                return falta;
+            }
+            if (balde.compareAndSet(cheio, novo))
+            {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Remove os baldes cheios. Um pedido que pegou o balde antes da remoção e o atualiza depois dela não é
+     * contado, o que no pior caso dá a esse cliente um token a mais.
+     */
+    void limpar(long agora)
+    {
+        clientes.values().removeIf(balde -> balde.get() <= agora);
+    }
+
+    int clientes()
+    {
+        return clientes.size();
+    }
+}
@@ -0,0 +1,228 @@
+package br.com.product.nextdomtest.admissao;
+
+import br.com.product.nextdomtest.exception.LimiteRequisicoesExcedidoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Limite de taxa por cliente, para que uma integração descontrolada não tome o banco das demais.
+ * <p>
+ * O cliente é o valor do cabeçalho {@code estoque.limite.cabecalho-chave} ({@code X-API-Key}) quando ele é uma
+ * das chaves de {@code estoque.limite.chaves}; sem cabeçalho ou com uma chave desconhecida, é o endereço remoto,
+ * com endereços IPv6 agrupados pelo prefixo /64 que um único host costuma ter inteiro. Assim trocar de chave ou
+ * de endereço dentro do prefixo não cria baldes novos: cada endereço tem no máximo um balde por orçamento, e
+ * as chaves configuradas têm baldes próprios, que nunca caem no excedente de {@link BaldesTokens}.
+ * <p>
+ * Cada cliente tem dois orçamentos independentes:
+ * <ul>
+ *     <li>{@code escrita}: requisições que alteram dados ({@code POST}, {@code PUT}, {@code DELETE});</li>
+ *     <li>{@code leitura-pesada}: lucro, estatísticas do catálogo, listagens completas, busca por IDs e GraphQL.</li>
+ * </ul>
+ * As demais leituras saem dos caches e não são limitadas. Acima do limite, a requisição é recusada com 429 e
+ * {@code Retry-After} antes de chegar à admissão, sem ocupar vaga nem conexão. Recusas são contadas em
+ * {@code estoque.limite.recusadas} com a tag {@code orcamento}.
+ * <p>
+ * O lote ({@code POST /api/batch}) não é cobrado na entrada: cada operação é cobrada por {@link #cobrar} antes
+ * de executar, do orçamento do endpoint individual equivalente.
+ */
+@Component
+public class LimiteRequisicoesInterceptor implements HandlerInterceptor
+{
+    private static final Set<String> LEITURAS_PESADAS = Set.of(
+            "GET /api/produtos",
+            "GET /api/produtos/{id}/lucro",
+            "GET /api/produtos/estatisticas",
+            "GET /api/produtos/relatorio-lucro",
+            "POST /api/produtos/busca",
+            "GET /api/movimentos",
+            "POST /graphql");
+
+    private static final String LOTE = "POST /api/batch";
+    private static final String CLIENTE_LOTE = LimiteRequisicoesInterceptor.class.getName() + ".lote";
+
+    private final String cabecalhoChave;
+    private final Set<String> chaves;
+    private final Orcamento escrita;
+    private final Orcamento leituraPesada;
+
+    @Autowired
+    public LimiteRequisicoesInterceptor(MeterRegistry meterRegistry,
+                                        @Value("${estoque.limite.cabecalho-chave:X-API-Key}") String cabecalhoChave,
+                                        @Value("${estoque.limite.chaves:}") Set<String> chaves,
+                                        @Value("${estoque.limite.escrita.taxa:20}") double taxaEscrita,
+                                        @Value("${estoque.limite.escrita.rajada:40}") int rajadaEscrita,
+                                        @Value("${estoque.limite.leitura-pesada.taxa:5}") double taxaLeituraPesada,
+                                        @Value("${estoque.limite.leitura-pesada.rajada:10}") int rajadaLeituraPesada,
+                                        @Value("${estoque.limite.maximo-clientes:100000}") int maximoClientes)
+    {
+        this.cabecalhoChave = cabecalhoChave;
+        this.chaves = Set.copyOf(chaves);
+        this.escrita = new Orcamento("escrita",
+                new BaldesTokens(taxaEscrita, rajadaEscrita, this.chaves.size()),
+                new BaldesTokens(taxaEscrita, rajadaEscrita, maximoClientes), meterRegistry);
+        this.leituraPesada = new Orcamento("leitura-pesada",
+                new BaldesTokens(taxaLeituraPesada, rajadaLeituraPesada, this.chaves.size()),
+                new BaldesTokens(taxaLeituraPesada, rajadaLeituraPesada, maximoClientes), meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        // O despacho assíncrono que conclui um stream é a mesma requisição e já foi cobrado
+        if (request.getDispatcherType() != DispatcherType.REQUEST)
+        {
+            return true;
+        }
+
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String rota = request.getMethod() + " " + (padrao != null ? padrao : request.getRequestURI());
+        if (LOTE.equals(rota))
+        {
+            request.setAttribute(CLIENTE_LOTE, Boolean.TRUE);
+            return true;
+        }
+
+        consumir(request, orcamento(request.getMethod(), rota));
+        return true;
+    }
+
+    /**
+     * Cobra uma operação do lote como se ela tivesse chegado sozinha em {@code metodo rota}. Só cobra se a
+     * requisição do lote passou por esta interceptor; com o limite desligado não faz nada.
+     *
+     * @throws LimiteRequisicoesExcedidoException se o orçamento da operação estiver esgotado
+     */
+    public void cobrar(HttpServletRequest request, String metodo, String rota)
+    {
+        if (request.getAttribute(CLIENTE_LOTE) != null)
+        {
+            consumir(request, orcamento(metodo, metodo + " " + rota));
+        }
+    }
+
+    /**
+     * Descarta os baldes cheios, que não guardam nada além do que um cliente novo teria.
+     */
+    @Scheduled(fixedDelayString = "${estoque.limite.intervalo-limpeza:1m}")
+    public void limpar()
+    {
+        long agora = System.nanoTime();
+        escrita.limpar(agora);
+        leituraPesada.limpar(agora);
+    }
+
+    private void consumir(HttpServletRequest request, Orcamento orcamento)
+    {
+        if (orcamento == null)
+        {
+            return;
+        }
+
+        long agora = System.nanoTime();
+        String chave = request.getHeader(cabecalhoChave);
+        long faltaNanos = chave != null && chaves.contains(chave)
+                ? orcamento.porChave.consumir(chave, agora)
+                : orcamento.porEndereco.consumir(endereco(request), agora);
+        if (faltaNanos > 0)
+        {
+            orcamento.recusadas.increment();
+            throw new LimiteRequisicoesExcedidoException("orçamento de " + orcamento.nome + " do cliente esgotado",
+                    Duration.ofNanos(faltaNanos));
+        }
+    }
+
+    private Orcamento orcamento(String metodo, String rota)
+    {
+        if (LEITURAS_PESADAS.contains(rota))
+        {
+            return leituraPesada;
+        }
+
+        return switch (metodo)
+        {
+            case "GET", "HEAD", "OPTIONS" -> null;
+            default -> escrita;
+        };
+    }
+
+    /**
+     * Endereço remoto do cliente; endereços IPv6 são reduzidos ao prefixo /64.
+     */
+    private static String endereco(HttpServletRequest request)
+    {
+        String endereco = request.getRemoteAddr();
+        if (endereco.indexOf(':') < 0)
+        {
+            return endereco;
+        }
+
+        try
+        {
+            byte[] bytes = InetAddress.getByName(endereco).getAddress();
+            if (bytes.length != 16)
+            {
+                return endereco;
+            }
+            StringBuilder prefixo = new StringBuilder(24);
+            for (int i = 0; i < 8; i += 2)
+            {
+                prefixo.append(Integer.toHexString(((bytes[i] & 0xFF) << 8) | (bytes[i + 1] & 0xFF))).append(':');
+            }
+            return prefixo.append(":/64").toString();
+        }
+        catch (UnknownHostException e)
+        {
+            // getRemoteAddr devolve sempre um literal, que é convertido sem consulta de nomes
+            return endereco;
+        }
+    }
+
+    private static final class Orcamento
+    {
+        final String nome;
+        final BaldesTokens porChave;
+        final BaldesTokens porEndereco;
+        final Counter recusadas;
+
+        Orcamento(String nome, BaldesTokens porChave, BaldesTokens porEndereco, MeterRegistry meterRegistry)
+        {
+            this.nome = nome;
+            this.porChave = porChave;
+            this.porEndereco = porEndereco;
+            this.recusadas = Counter.builder("estoque.limite.recusadas")
+                    .description("Requisições recusadas pelo limite de taxa por cliente")
+                    .tag("orcamento", nome)
+                    .register(meterRegistry);
+            Gauge.builder("estoque.limite.clientes", this, Orcamento::clientes)
+                    .description("Clientes com balde de tokens em uso")
+                    .tag("orcamento", nome)
+                    .register(meterRegistry);
+        }
+
+        void limpar(long agora)
+        {
+            porChave.limpar(agora);
+            porEndereco.limpar(agora);
+        }
+
+        int clientes()
+        {
+            return porChave.clientes() + porEndereco.clientes();
+        }
+    }
+}
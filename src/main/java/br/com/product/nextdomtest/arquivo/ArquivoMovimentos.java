@@ -0,0 +1,426 @@
+package br.com.product.nextdomtest.arquivo;
+
+import br.com.product.nextdomtest.dto.MovimentoCompactacaoDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Camada fria das movimentações ({@code estoque.arquivo.habilitado}): a compactação grava as linhas que vai
+ * apagar de {@code movimento_estoque} em {@link SegmentoMovimentos} no disco, e as listagens e a busca por
+ * ID continuam encontrando essas movimentações.
+ * <p>
+ * O segmento é gravado dentro da transação da compactação, antes do {@code DELETE}: se a gravação falha, as
+ * linhas não são apagadas; se a transação é desfeita, o arquivo é removido. Uma queda entre a gravação e o
+ * commit deixa as mesmas linhas nas duas camadas, então as leituras descartam IDs repetidos.
+ * <p>
+ * Cada lote da compactação vira um segmento pequeno; ao final da compactação {@link #consolidar} junta
+ * segmentos pequenos vizinhos em segmentos de até {@code estoque.arquivo.movimentos-por-segmento} linhas.
+ */
+@Component
+public class ArquivoMovimentos
+{
+    private static final Logger log = LoggerFactory.getLogger(ArquivoMovimentos.class);
+
+    private static final String PREFIXO = "movimentos-";
+    private static final String SUFIXO = ".seg";
+
+    private final Path diretorio;
+    private final int movimentosPorSegmento;
+    private final AtomicLong sequencia = new AtomicLong(System.currentTimeMillis());
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile List<SegmentoMovimentos.Segmento> segmentos = List.of();
+
+    @Autowired
+    public ArquivoMovimentos(@Value("${estoque.arquivo.habilitado:false}") boolean habilitado,
+                             @Value("${estoque.arquivo.diretorio:./data/arquivo}") String diretorio,
+                             @Value("${estoque.arquivo.movimentos-por-segmento:100000}") int movimentosPorSegmento)
+            throws IOException
+    {
+        this.movimentosPorSegmento = movimentosPorSegmento;
+        if (!habilitado)
+        {
+            this.diretorio = null;
+            return;
+        }
+
+        this.diretorio = Path.of(diretorio);
+        Files.createDirectories(this.diretorio);
+
+        List<SegmentoMovimentos.Segmento> abertos = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(this.diretorio))
+        {
+            for (Path arquivo : arquivos.sorted().toList())
+            {
+                String nome = arquivo.getFileName().toString();
+                if (nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO + ".tmp"))
+                {
+                    // Gravação interrompida antes do rename: as linhas continuam na tabela
+                    Files.delete(arquivo);
+                }
+                else if (nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO))
+                {
+                    abertos.add(SegmentoMovimentos.abrir(arquivo));
+                }
+            }
+        }
+        this.segmentos = ordenar(abertos);
+        log.info("Arquivo de movimentações em {}: {} segmentos, {} movimentações",
+                diretorio, abertos.size(), abertos.stream().mapToLong(SegmentoMovimentos.Segmento::movimentos).sum());
+    }
+
+    public static ArquivoMovimentos desabilitado()
+    {
+        try
+        {
+            return new ArquivoMovimentos(false, null, 1);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean habilitado()
+    {
+        return diretorio != null;
+    }
+
+    public List<SegmentoMovimentos.Segmento> segmentos()
+    {
+        return segmentos;
+    }
+
+    /**
+     * Grava as movimentações num novo segmento. Com transação ativa, o segmento só passa a ser lido após o
+     * commit e é apagado se a transação for desfeita.
+     */
+    public void arquivar(List<MovimentoCompactacaoDto> movimentos)
+    {
+        if (diretorio == null || movimentos.isEmpty())
+        {
+            return;
+        }
+
+        SegmentoMovimentos.Segmento segmento = gravar(movimentos);
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            substituir(List.of(), segmento);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+        {
+            @Override
+            public void afterCompletion(int status)
+            {
+                if (status == STATUS_COMMITTED)
+                {
+                    substituir(List.of(), segmento);
+                }
+                else
+                {
+                    apagar(segmento);
+                }
+            }
+        });
+    }
+
+    /**
+     * Junta segmentos vizinhos menores que {@code movimentos-por-segmento}, descartando IDs repetidos.
+     *
+     * @return quantidade de segmentos substituídos
+     */
+    public synchronized int consolidar()
+    {
+        if (diretorio == null)
+        {
+            return 0;
+        }
+
+        int substituidos = 0;
+        List<SegmentoMovimentos.Segmento> grupo = new ArrayList<>();
+        long linhasGrupo = 0;
+        for (SegmentoMovimentos.Segmento segmento : segmentos)
+        {
+            if (segmento.movimentos() >= movimentosPorSegmento)
+            {
+                substituidos += consolidarGrupo(grupo);
+                grupo = new ArrayList<>();
+                linhasGrupo = 0;
+                continue;
+            }
+            if (linhasGrupo + segmento.movimentos() > movimentosPorSegmento)
+            {
+                substituidos += consolidarGrupo(grupo);
+                grupo = new ArrayList<>();
+                linhasGrupo = 0;
+            }
+            grupo.add(segmento);
+            linhasGrupo += segmento.movimentos();
+        }
+        substituidos += consolidarGrupo(grupo);
+
+        if (substituidos > 0)
+        {
+            log.info("Arquivo de movimentações consolidado: {} segmentos substituídos, {} restantes",
+                    substituidos, segmentos.size());
+        }
+        return substituidos;
+    }
+
+    /**
+     * Movimentações arquivadas do produto, em ordem de ID.
+     */
+    public List<MovimentoCompactacaoDto> listarPorProduto(long produtoId)
+    {
+        if (diretorio == null)
+        {
+            return List.of();
+        }
+
+        Map<Long, MovimentoCompactacaoDto> porId = new TreeMap<>();
+        lock.readLock().lock();
+        try
+        {
+            for (SegmentoMovimentos.Segmento segmento : segmentos)
+            {
+                SegmentoMovimentos.ler(segmento, produtoId).forEach(movimento -> porId.putIfAbsent(movimento.id(), movimento));
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Falha ao ler o arquivo de movimentações do produto " + produtoId, e);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(porId.values());
+    }
+
+    /**
+     * Até {@code limite} movimentações arquivadas com ID maior que {@code aposId}, em ordem de ID, de todos os
+     * produtos ou só do {@code produtoId}.
+     * <p>
+     * Os segmentos são percorridos pelo menor ID e só são descomprimidos os blocos cuja faixa passa de
+     * {@code aposId}; com a página cheia, a leitura para no primeiro segmento que começa depois do último ID
+     * da página. A memória fica limitada à página e aos blocos de um segmento, e as listagens percorrem o
+     * arquivo inteiro página a página.
+     */
+    public List<MovimentoCompactacaoDto> listarPagina(Long produtoId, long aposId, int limite)
+    {
+        if (diretorio == null || limite <= 0)
+        {
+            return List.of();
+        }
+
+        TreeMap<Long, MovimentoCompactacaoDto> pagina = new TreeMap<>();
+        lock.readLock().lock();
+        try
+        {
+            for (SegmentoMovimentos.Segmento segmento : segmentos)
+            {
+                if (pagina.size() == limite && segmento.primeiroId() > pagina.lastKey())
+                {
+                    break;
+                }
+                if (segmento.ultimoId() <= aposId)
+                {
+                    continue;
+                }
+
+                List<SegmentoMovimentos.Bloco> blocos = new ArrayList<>();
+                for (SegmentoMovimentos.Bloco bloco : blocosDoSegmento(segmento, produtoId))
+                {
+                    boolean depoisDaPagina = pagina.size() == limite && bloco.primeiroId() > pagina.lastKey();
+                    if (bloco.ultimoId() > aposId && !depoisDaPagina)
+                    {
+                        blocos.add(bloco);
+                    }
+                }
+                for (MovimentoCompactacaoDto movimento : SegmentoMovimentos.ler(segmento, blocos))
+                {
+                    if (movimento.id() <= aposId || pagina.containsKey(movimento.id()))
+                    {
+                        continue;
+                    }
+                    if (pagina.size() == limite)
+                    {
+                        if (movimento.id() > pagina.lastKey())
+                        {
+                            continue;
+                        }
+                        pagina.pollLastEntry();
+                    }
+                    pagina.put(movimento.id(), movimento);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Falha ao ler o arquivo de movimentações após o ID " + aposId, e);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(pagina.values());
+    }
+
+    public Optional<MovimentoCompactacaoDto> buscarPorId(long id)
+    {
+        if (diretorio == null)
+        {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try
+        {
+            for (SegmentoMovimentos.Segmento segmento : segmentos)
+            {
+                if (!segmento.contem(id))
+                {
+                    continue;
+                }
+                for (SegmentoMovimentos.Bloco bloco : segmento.blocos().values())
+                {
+                    if (!bloco.contem(id))
+                    {
+                        continue;
+                    }
+                    Optional<MovimentoCompactacaoDto> encontrado = SegmentoMovimentos.ler(segmento, bloco.produtoId()).stream()
+                            .filter(movimento -> movimento.id() == id)
+                            .findFirst();
+                    if (encontrado.isPresent())
+                    {
+                        return encontrado;
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Falha ao buscar a movimentação " + id + " no arquivo", e);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Collection<SegmentoMovimentos.Bloco> blocosDoSegmento(SegmentoMovimentos.Segmento segmento, Long produtoId)
+    {
+        if (produtoId == null)
+        {
+            return segmento.blocos().values();
+        }
+        SegmentoMovimentos.Bloco bloco = segmento.blocos().get(produtoId);
+        return bloco == null ? List.of() : List.of(bloco);
+    }
+
+    private int consolidarGrupo(List<SegmentoMovimentos.Segmento> grupo)
+    {
+        if (grupo.size() < 2)
+        {
+            return 0;
+        }
+
+        // Segmentos só são removidos por este método, que é synchronized: o grupo pode ser lido sem o lock
+        SegmentoMovimentos.Segmento consolidado = gravar(lerSemRepetidos(grupo).values());
+        substituir(grupo, consolidado);
+        grupo.forEach(this::apagar);
+        return grupo.size();
+    }
+
+    private Map<Long, MovimentoCompactacaoDto> lerSemRepetidos(List<SegmentoMovimentos.Segmento> origem)
+    {
+        Map<Long, MovimentoCompactacaoDto> porId = new TreeMap<>();
+        try
+        {
+            for (SegmentoMovimentos.Segmento segmento : origem)
+            {
+                SegmentoMovimentos.lerTodos(segmento).forEach(movimento -> porId.putIfAbsent(movimento.id(), movimento));
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Falha ao ler o arquivo de movimentações", e);
+        }
+        return porId;
+    }
+
+    private SegmentoMovimentos.Segmento gravar(Collection<MovimentoCompactacaoDto> movimentos)
+    {
+        long primeiroId = movimentos.stream().mapToLong(MovimentoCompactacaoDto::id).min().orElseThrow();
+        long ultimoId = movimentos.stream().mapToLong(MovimentoCompactacaoDto::id).max().orElseThrow();
+        Path arquivo = diretorio.resolve(String.format("%s%020d-%020d-%d%s",
+                PREFIXO, primeiroId, ultimoId, sequencia.incrementAndGet(), SUFIXO));
+        try
+        {
+            return SegmentoMovimentos.gravar(arquivo, movimentos);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Falha ao gravar o segmento " + arquivo, e);
+        }
+    }
+
+    private void substituir(List<SegmentoMovimentos.Segmento> removidos, SegmentoMovimentos.Segmento novo)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            List<SegmentoMovimentos.Segmento> atualizados = new ArrayList<>(segmentos);
+            atualizados.removeAll(removidos);
+            atualizados.add(novo);
+            segmentos = ordenar(atualizados);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apagar(SegmentoMovimentos.Segmento segmento)
+    {
+        try
+        {
+            Files.deleteIfExists(segmento.arquivo());
+        }
+        catch (IOException e)
+        {
+            // As linhas continuam em outro segmento ou na tabela; o arquivo só ocupa espaço
+            log.warn("Não foi possível apagar o segmento {}", segmento.arquivo(), e);
+        }
+    }
+
+    private static List<SegmentoMovimentos.Segmento> ordenar(List<SegmentoMovimentos.Segmento> segmentos)
+    {
+        return segmentos.stream()
+                .sorted(Comparator.comparingLong(SegmentoMovimentos.Segmento::primeiroId))
+                .toList();
+    }
+}
@@ -0,0 +1,443 @@
+package br.com.product.nextdomtest.arquivo;
+
+import br.com.product.nextdomtest.dto.MovimentoCompactacaoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Arquivo imutável com movimentações arquivadas, agrupadas em um bloco comprimido por produto.
+ * <p>
+ * Layout: cabeçalho {@code [magico][versao][produtos][movimentos][primeiroId][ultimoId]}, índice com uma
+ * entrada por produto em ordem de ID ({@code produtoId}, faixa de IDs, posição, tamanho comprimido e
+ * original, CRC32 do bloco) e os blocos. Só o cabeçalho e o índice são lidos na abertura; a consulta de um
+ * produto lê e descomprime apenas o seu bloco.
+ * <p>
+ * Dentro do bloco as linhas estão em ordem de ID e gravadas por coluna, cada uma como uma sequência de
+ * varints: IDs em delta do anterior, datas em microssegundos com delta em zigzag, tipo, quantidade e
+ * valor de venda (escala e valor sem escala). Colunas homogêneas com deltas pequenos são o que faz o
+ * Deflate comprimir bem.
+ */
+public final class SegmentoMovimentos
+{
+    static final int MAGICO = 0x454D4152;
+    static final int VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 4 + 4 + 4 + 4 + 8 + 8;
+    static final int TAMANHO_ENTRADA_INDICE = 8 + 8 + 8 + 4 + 8 + 4 + 4 + 4;
+
+    private static final int SEM_VALOR = 0xFF;
+
+    private SegmentoMovimentos()
+    {
+    }
+
+    /**
+     * Posição e faixa de IDs do bloco de um produto.
+     */
+    public record Bloco(long produtoId, long primeiroId, long ultimoId, int movimentos, long posicao, int tamanho,
+                        int tamanhoOriginal, int crc)
+    {
+        boolean contem(long id)
+        {
+            return id >= primeiroId && id <= ultimoId;
+        }
+    }
+
+    /**
+     * Cabeçalho e índice de um segmento, mantidos em memória pelo {@link ArquivoMovimentos}.
+     */
+    public record Segmento(Path arquivo, long primeiroId, long ultimoId, int movimentos, Map<Long, Bloco> blocos)
+    {
+        boolean contem(long id)
+        {
+            return id >= primeiroId && id <= ultimoId;
+        }
+    }
+
+    /**
+     * Grava o segmento num arquivo temporário, força para o disco e renomeia para {@code arquivo},
+     * então um segmento com esse nome está sempre completo.
+     */
+    public static Segmento gravar(Path arquivo, Collection<MovimentoCompactacaoDto> movimentos) throws IOException
+    {
+        if (movimentos.isEmpty())
+        {
+            throw new IllegalArgumentException("Segmento sem movimentações");
+        }
+
+        Map<Long, List<MovimentoCompactacaoDto>> porProduto = new TreeMap<>();
+        movimentos.stream()
+                .sorted(Comparator.comparing(MovimentoCompactacaoDto::id))
+                .forEach(movimento -> porProduto.computeIfAbsent(movimento.produtoId(), id -> new ArrayList<>()).add(movimento));
+
+        ByteArrayOutputStream dados = new ByteArrayOutputStream();
+        List<Bloco> blocos = new ArrayList<>(porProduto.size());
+        long inicioDados = TAMANHO_CABECALHO + (long) TAMANHO_ENTRADA_INDICE * porProduto.size();
+        for (Map.Entry<Long, List<MovimentoCompactacaoDto>> produto : porProduto.entrySet())
+        {
+            List<MovimentoCompactacaoDto> linhas = produto.getValue();
+            byte[] original = codificar(linhas);
+            byte[] comprimido = comprimir(original);
+            blocos.add(new Bloco(produto.getKey(), linhas.get(0).id(), linhas.get(linhas.size() - 1).id(), linhas.size(),
+                    inicioDados + dados.size(), comprimido.length, original.length, crc(comprimido)));
+            dados.write(comprimido);
+        }
+
+        long primeiroId = blocos.stream().mapToLong(Bloco::primeiroId).min().orElseThrow();
+        long ultimoId = blocos.stream().mapToLong(Bloco::ultimoId).max().orElseThrow();
+
+        ByteBuffer indice = ByteBuffer.allocate((int) inicioDados);
+        indice.putInt(MAGICO).putInt(VERSAO).putInt(blocos.size()).putInt(movimentos.size())
+                .putLong(primeiroId).putLong(ultimoId);
+        for (Bloco bloco : blocos)
+        {
+            indice.putLong(bloco.produtoId()).putLong(bloco.primeiroId()).putLong(bloco.ultimoId())
+                    .putInt(bloco.movimentos()).putLong(bloco.posicao()).putInt(bloco.tamanho())
+                    .putInt(bloco.tamanhoOriginal()).putInt(bloco.crc());
+        }
+        indice.flip();
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE))
+        {
+            ByteBuffer[] conteudo = {indice, ByteBuffer.wrap(dados.toByteArray())};
+            while (conteudo[1].hasRemaining())
+            {
+                canal.write(conteudo);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+
+        return new Segmento(arquivo, primeiroId, ultimoId, movimentos.size(), indexar(blocos));
+    }
+
+    /**
+     * Lê o cabeçalho e o índice do segmento.
+     */
+    public static Segmento abrir(Path arquivo) throws IOException
+    {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ))
+        {
+            long tamanhoArquivo = canal.size();
+            ByteBuffer cabecalho = ler(canal, 0, TAMANHO_CABECALHO, arquivo);
+            if (cabecalho.getInt() != MAGICO || cabecalho.getInt() != VERSAO)
+            {
+                throw new IllegalStateException("Arquivo " + arquivo + " não é um segmento de movimentações");
+            }
+
+            int produtos = cabecalho.getInt();
+            int movimentos = cabecalho.getInt();
+            long primeiroId = cabecalho.getLong();
+            long ultimoId = cabecalho.getLong();
+
+            ByteBuffer indice = ler(canal, TAMANHO_CABECALHO, Math.multiplyExact(produtos, TAMANHO_ENTRADA_INDICE), arquivo);
+            List<Bloco> blocos = new ArrayList<>(produtos);
+            for (int i = 0; i < produtos; i++)
+            {
+                Bloco bloco = new Bloco(indice.getLong(), indice.getLong(), indice.getLong(), indice.getInt(),
+                        indice.getLong(), indice.getInt(), indice.getInt(), indice.getInt());
+                if (bloco.posicao() + bloco.tamanho() > tamanhoArquivo)
+                {
+                    throw new IllegalStateException("Segmento " + arquivo + " truncado no bloco do produto " + bloco.produtoId());
+                }
+                blocos.add(bloco);
+            }
+            return new Segmento(arquivo, primeiroId, ultimoId, movimentos, indexar(blocos));
+        }
+    }
+
+    /**
+     * Movimentações do produto no segmento, em ordem de ID.
+     */
+    public static List<MovimentoCompactacaoDto> ler(Segmento segmento, long produtoId) throws IOException
+    {
+        Bloco bloco = segmento.blocos().get(produtoId);
+        if (bloco == null)
+        {
+            return List.of();
+        }
+
+        try (FileChannel canal = FileChannel.open(segmento.arquivo(), StandardOpenOption.READ))
+        {
+            return lerBloco(canal, segmento.arquivo(), bloco);
+        }
+    }
+
+    /**
+     * Todas as movimentações do segmento, agrupadas por produto.
+     */
+    public static List<MovimentoCompactacaoDto> lerTodos(Segmento segmento) throws IOException
+    {
+        return ler(segmento, segmento.blocos().values());
+    }
+
+    /**
+     * Movimentações dos blocos informados, agrupadas por bloco, abrindo o arquivo uma única vez.
+     */
+    public static List<MovimentoCompactacaoDto> ler(Segmento segmento, Collection<Bloco> blocos) throws IOException
+    {
+        List<MovimentoCompactacaoDto> movimentos = new ArrayList<>();
+        if (blocos.isEmpty())
+        {
+            return movimentos;
+        }
+
+        try (FileChannel canal = FileChannel.open(segmento.arquivo(), StandardOpenOption.READ))
+        {
+            for (Bloco bloco : blocos)
+            {
+                movimentos.addAll(lerBloco(canal, segmento.arquivo(), bloco));
+            }
+        }
+        return movimentos;
+    }
+
+    private static List<MovimentoCompactacaoDto> lerBloco(FileChannel canal, Path arquivo, Bloco bloco) throws IOException
+    {
+        ByteBuffer comprimido = ler(canal, bloco.posicao(), bloco.tamanho(), arquivo);
+        if (crc(comprimido.array()) != bloco.crc())
+        {
+            throw new IllegalStateException("CRC inválido no bloco do produto " + bloco.produtoId() + " em " + arquivo);
+        }
+        return decodificar(bloco, ByteBuffer.wrap(descomprimir(comprimido.array(), bloco.tamanhoOriginal())));
+    }
+
+    private static ByteBuffer ler(FileChannel canal, long posicao, int tamanho, Path arquivo) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        while (buffer.hasRemaining())
+        {
+            if (canal.read(buffer, posicao + buffer.position()) < 0)
+            {
+                throw new IllegalStateException("Segmento " + arquivo + " truncado na posição " + posicao);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static Map<Long, Bloco> indexar(List<Bloco> blocos)
+    {
+        Map<Long, Bloco> indice = new LinkedHashMap<>();
+        blocos.forEach(bloco -> indice.put(bloco.produtoId(), bloco));
+        return indice;
+    }
+
+    private static byte[] codificar(List<MovimentoCompactacaoDto> linhas)
+    {
+        ByteArrayOutputStream ids = new ByteArrayOutputStream();
+        ByteArrayOutputStream datas = new ByteArrayOutputStream();
+        ByteArrayOutputStream tipos = new ByteArrayOutputStream();
+        ByteArrayOutputStream quantidades = new ByteArrayOutputStream();
+        ByteArrayOutputStream escalas = new ByteArrayOutputStream();
+        ByteArrayOutputStream valores = new ByteArrayOutputStream();
+
+        long idAnterior = 0;
+        long dataAnterior = 0;
+        for (MovimentoCompactacaoDto linha : linhas)
+        {
+            escreverVarLong(ids, linha.id() - idAnterior);
+            idAnterior = linha.id();
+
+            long data = microssegundos(linha.dataMovimentacao());
+            escreverVarLong(datas, zigzag(data - dataAnterior));
+            dataAnterior = data;
+
+            tipos.write(linha.tipo() == TipoMovimentacao.ENTRADA ? 0 : 1);
+            escreverVarLong(quantidades, zigzag(linha.quantidade()));
+
+            BigDecimal valor = linha.valorVenda();
+            if (valor == null)
+            {
+                escalas.write(SEM_VALOR);
+            }
+            else
+            {
+                if (valor.scale() < 0 || valor.scale() >= SEM_VALOR)
+                {
+                    throw new IllegalArgumentException("Escala de valor não suportada no movimento " + linha.id());
+                }
+                escalas.write(valor.scale());
+                escreverVarLong(valores, zigzag(valor.unscaledValue().longValueExact()));
+            }
+        }
+
+        ByteArrayOutputStream bloco = new ByteArrayOutputStream();
+        for (ByteArrayOutputStream coluna : List.of(ids, datas, tipos, quantidades, escalas, valores))
+        {
+            bloco.writeBytes(coluna.toByteArray());
+        }
+        return bloco.toByteArray();
+    }
+
+    private static List<MovimentoCompactacaoDto> decodificar(Bloco bloco, ByteBuffer dados)
+    {
+        int n = bloco.movimentos();
+        long[] ids = new long[n];
+        long[] datas = new long[n];
+        for (int i = 0; i < n; i++)
+        {
+            ids[i] = (i == 0 ? 0 : ids[i - 1]) + lerVarLong(dados);
+        }
+        for (int i = 0; i < n; i++)
+        {
+            datas[i] = (i == 0 ? 0 : datas[i - 1]) + unzigzag(lerVarLong(dados));
+        }
+        TipoMovimentacao[] tipos = new TipoMovimentacao[n];
+        for (int i = 0; i < n; i++)
+        {
+            tipos[i] = dados.get() == 0 ? TipoMovimentacao.ENTRADA : TipoMovimentacao.SAIDA;
+        }
+        int[] quantidades = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            quantidades[i] = Math.toIntExact(unzigzag(lerVarLong(dados)));
+        }
+        int[] escalas = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            escalas[i] = Byte.toUnsignedInt(dados.get());
+        }
+
+        List<MovimentoCompactacaoDto> linhas = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+        {
+            BigDecimal valor = escalas[i] == SEM_VALOR
+                    ? null
+                    : new BigDecimal(BigInteger.valueOf(unzigzag(lerVarLong(dados))), escalas[i]);
+            linhas.add(new MovimentoCompactacaoDto(ids[i], bloco.produtoId(), tipos[i], valor, quantidades[i],
+                    dataHora(datas[i])));
+        }
+        return linhas;
+    }
+
+    private static byte[] comprimir(byte[] original)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try
+        {
+            deflater.setInput(original);
+            deflater.finish();
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(64, original.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished())
+            {
+                saida.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return saida.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    private static byte[] descomprimir(byte[] comprimido, int tamanhoOriginal)
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(comprimido);
+            byte[] original = new byte[tamanhoOriginal];
+            int lidos = 0;
+            while (lidos < tamanhoOriginal && !inflater.finished())
+            {
+                int n = inflater.inflate(original, lidos, tamanhoOriginal - lidos);
+                if (n == 0 && inflater.needsInput())
+                {
+                    break;
+                }
+                lidos += n;
+            }
+            if (lidos != tamanhoOriginal)
+            {
+                throw new IllegalStateException("Bloco descomprimido com " + lidos + " de " + tamanhoOriginal + " bytes");
+            }
+            return original;
+        }
+        catch (DataFormatException e)
+        {
+            throw new IllegalStateException("Bloco de segmento corrompido", e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    private static int crc(byte[] dados)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(dados);
+        return (int) crc.getValue();
+    }
+
+    private static long microssegundos(LocalDateTime dataHora)
+    {
+        return dataHora.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dataHora.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dataHora(long microssegundos)
+    {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(microssegundos, 1_000_000L),
+                (int) Math.floorMod(microssegundos, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long valor)
+    {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long unzigzag(long valor)
+    {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static void escreverVarLong(ByteArrayOutputStream saida, long valor)
+    {
+        while ((valor & ~0x7FL) != 0)
+        {
+            saida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        saida.write((int) valor);
+    }
+
+    private static long lerVarLong(ByteBuffer dados)
+    {
+        long valor = 0;
+        for (int deslocamento = 0; deslocamento < 64; deslocamento += 7)
+        {
+            byte b = dados.get();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0)
+            {
+                return valor;
+            }
+        }
+        throw new IllegalStateException("Varint inválido no bloco");
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.product.nextdomtest.cache;
+
+import br.com.product.nextdomtest.journal.EstadoJournal;
+import br.com.product.nextdomtest.journal.JournalEstoque;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.ProdutoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Carrega o {@link EstoqueEmMemoria} durante a inicialização do contexto, antes de o servidor web começar
+ * a aceitar requisições.
+ * <p>
+ * Com o {@link JournalEstoque} habilitado, usa o estado reconstruído do journal se o processo anterior o
+ * fechou corretamente e ele confere com o banco (mesma quantidade de produtos e mesmo último movimento);
+ * caso contrário carrega do banco e grava um checkpoint no journal. A contagem e o último movimento sozinhos
+ * não bastam: um anexo perdido no meio de outros passa pelas duas comparações.
+ */
+@Component
+public class CarregadorEstoqueEmMemoria implements SmartInitializingSingleton
+{
+    private static final Logger log = LoggerFactory.getLogger(CarregadorEstoqueEmMemoria.class);
+
+    private final ProdutoRepository produtoRepository;
+    private final MovimentoEstoqueRepository movimentoEstoqueRepository;
+    private final EstoqueEmMemoria estoqueEmMemoria;
+    private final JournalEstoque journalEstoque;
+
+    public CarregadorEstoqueEmMemoria(ProdutoRepository produtoRepository,
+                                      MovimentoEstoqueRepository movimentoEstoqueRepository,
+                                      EstoqueEmMemoria estoqueEmMemoria,
+                                      JournalEstoque journalEstoque)
+    {
+        this.produtoRepository = produtoRepository;
+        this.movimentoEstoqueRepository = movimentoEstoqueRepository;
+        this.estoqueEmMemoria = estoqueEmMemoria;
+        this.journalEstoque = journalEstoque;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated()
+    {
+        long inicio = System.nanoTime();
+        String origem;
+
+        Optional<EstadoJournal> estado = journalEstoque.estadoRecuperado();
+        if (estado.isPresent() && confereComBanco(estado.get()))
+        {
+            estado.get().quantidades().forEach(estoqueEmMemoria::carregar);
+            origem = "journal";
+        }
+        else
+        {
+            carregarDoBanco();
+            origem = "banco";
+        }
+
+        log.info("Estoque em memória carregado do {}: {} produtos em {} ms",
+                origem, estoqueEmMemoria.tamanho(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private void carregarDoBanco()
+    {
+        Map<Long, Integer> estoques = new HashMap<>();
+        produtoRepository.findAllEstoques().forEach(estoque -> {
+            estoqueEmMemoria.carregar(estoque.produtoId(), estoque.quantidadeEstoque());
+            estoques.put(estoque.produtoId(), estoque.quantidadeEstoque());
+        });
+
+        if (journalEstoque.habilitado())
+        {
+            log.warn("Journal de estoque não fechado corretamente ou divergente do banco; gravando checkpoint com {} produtos",
+                    estoques.size());
+            journalEstoque.checkpoint(estoques, movimentoEstoqueRepository.findUltimoId());
+        }
+    }
+
+    private boolean confereComBanco(EstadoJournal estado)
+    {
+        return estado.fechadoCorretamente()
+                && estado.quantidades().size() == produtoRepository.count()
+                && estado.ultimoMovimentoId() == movimentoEstoqueRepository.findUltimoId();
+    }
+}
@@ -0,0 +1,145 @@
+package br.com.product.nextdomtest.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Junta chamadas simultâneas da mesma consulta cara numa única execução.
+ * <p>
+ * A primeira chamada de uma chave executa o carregador na própria thread; as que chegam enquanto ela roda
+ * esperam e recebem o mesmo resultado, ou a mesma exceção. Com {@code estoque.consultas.ttl} maior que zero,
+ * o resultado ainda é reaproveitado por esse tempo depois de pronto.
+ * <p>
+ * Quem chama deve incluir na chave a versão de {@link VersaoCatalogo} dos dados lidos. Como a versão só avança
+ * após o commit, uma chamada feita depois de uma escrita nunca recebe um resultado calculado antes dela, nem do
+ * cache. O carregador deve abrir a própria transação: quem espera não deve segurar conexão com o banco.
+ * Chamadas feitas dentro de uma transação já aberta executam direto, sem compartilhar nem usar o cache: a
+ * transação pode enxergar escritas ainda não confirmadas ou um snapshot anterior à versão da chave.
+ * <p>
+ * Publica {@code estoque.consultas} com as tags {@code consulta} e {@code resultado}: {@code executada},
+ * {@code compartilhada} (esperou uma execução em andamento), {@code cache} ou {@code transacao}.
+ */
+@Component
+public class ConsultasCompartilhadas
+{
+    private final ConcurrentHashMap<Chave, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<>();
+    private final Cache<Chave, Object> resultados;
+    private final MeterRegistry meterRegistry;
+
+    public ConsultasCompartilhadas(@Value("${estoque.consultas.ttl:0s}") Duration ttl,
+                                   @Value("${estoque.consultas.tamanho-maximo:10000}") long tamanhoMaximo,
+                                   MeterRegistry meterRegistry)
+    {
+        this.resultados = ttl.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Executa a consulta ou espera a execução em andamento com a mesma chave.
+     *
+     * @param consulta   nome da consulta, usado na chave e nas métricas
+     * @param parametros parâmetros e versão dos dados; precisa de {@code equals} e {@code hashCode}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T executar(String consulta, Object parametros, Supplier<T> carregador)
+    {
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+        {
+            contar(consulta, "transacao");
+            return carregador.get();
+        }
+
+        Chave chave = new Chave(consulta, parametros);
+        if (resultados != null)
+        {
+            Object resultado = resultados.getIfPresent(chave);
+            if (resultado != null)
+            {
+                contar(consulta, "cache");
+                return (T) resultado;
+            }
+        }
+
+        CompletableFuture<Object> execucao = new CompletableFuture<>();
+        CompletableFuture<Object> existente = emAndamento.putIfAbsent(chave, execucao);
+        if (existente != null)
+        {
+            contar(consulta, "compartilhada");
+            return (T) aguardar(existente);
+        }
+
+        contar(consulta, "executada");
+        try
+        {
+            T resultado = carregador.get();
+            if (resultados != null && resultado != null)
+            {
+                resultados.put(chave, resultado);
+            }
+            execucao.complete(resultado);
+            return resultado;
+        }
+        catch (RuntimeException | Error e)
+        {
+            execucao.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            // Só depois de o resultado estar no cache, para não abrir uma janela sem nenhum dos dois
+            emAndamento.remove(chave, execucao);
+        }
+    }
+
+    int emAndamento()
+    {
+        return emAndamento.size();
+    }
+
+    private static Object aguardar(CompletableFuture<Object> execucao)
+    {
+        try
+        {
+            return execucao.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException causa)
+            {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa)
+            {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private void contar(String consulta, String resultado)
+    {
+        Counter.builder("estoque.consultas")
+                .description("Chamadas de consultas caras por resultado: executada, compartilhada, cache ou transacao")
+                .tags("consulta", consulta, "resultado", resultado)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record Chave(String consulta, Object parametros)
+    {
+    }
+}
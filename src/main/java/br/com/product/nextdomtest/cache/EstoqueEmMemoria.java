@@ -0,0 +1,245 @@
+package br.com.product.nextdomtest.cache;
+
+import br.com.product.nextdomtest.util.AposCommit;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Quantidade em estoque de cada produto mantida em memória, num mapa primitivo
+ * (id {@code long} → quantidade {@code int}) com endereçamento aberto.
+ * <p>
+ * Leituras usam leitura otimista do {@link StampedLock} e não alocam objetos; escritas são raras
+ * (uma por movimentação confirmada) e tomam o lock exclusivo. Cada entrada guarda também o ID do
+ * último movimento aplicado, para que commits concorrentes aplicados fora de ordem não sobrescrevam
+ * uma quantidade mais nova com uma mais antiga.
+ */
+@Component
+public class EstoqueEmMemoria
+{
+    public static final int AUSENTE = Integer.MIN_VALUE;
+
+    private static final long VAZIO = 0L;
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Tabela tabela = new Tabela(CAPACIDADE_INICIAL);
+
+    /**
+     * Retorna a quantidade em estoque do produto ou {@link #AUSENTE} se ele não estiver no mapa.
+     */
+    public int quantidade(long produtoId)
+    {
+        long stamp = lock.tryOptimisticRead();
+        int quantidade = tabela.buscar(produtoId);
+        if (lock.validate(stamp))
+        {
+            return quantidade;
+        }
+
+        stamp = lock.readLock();
+        try
+        {
+            return tabela.buscar(produtoId);
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int tamanho()
+    {
+        return tabela.tamanho;
+    }
+
+    /**
+     * Define a quantidade após o commit do cadastro do produto.
+     */
+    public void registrarCadastro(long produtoId, int quantidade)
+    {
+        AposCommit.executar(() -> gravar(produtoId, quantidade, 0L, true));
+    }
+
+    /**
+     * Define a quantidade após o commit de uma movimentação. Movimentos com ID menor que o último
+     * já aplicado ao produto são ignorados.
+     */
+    public void registrarMovimento(long produtoId, int quantidade, long movimentoId)
+    {
+        AposCommit.executar(() -> gravar(produtoId, quantidade, movimentoId, true));
+    }
+
+    public void registrarExclusao(long produtoId)
+    {
+        AposCommit.executar(() -> remover(produtoId));
+    }
+
+    /**
+     * Carga inicial: não sobrescreve entradas já gravadas por commits concorrentes à carga.
+     */
+    public void carregar(long produtoId, int quantidade)
+    {
+        gravar(produtoId, quantidade, 0L, false);
+    }
+
+    private void gravar(long produtoId, int quantidade, long movimentoId, boolean sobrescrever)
+    {
+        if (produtoId == VAZIO)
+        {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+        try
+        {
+            Tabela atual = tabela;
+            if ((atual.tamanho + 1) * 2 > atual.chaves.length)
+            {
+                atual = atual.redimensionar();
+                tabela = atual;
+            }
+            atual.gravar(produtoId, quantidade, movimentoId, sobrescrever);
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void remover(long produtoId)
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            tabela.remover(produtoId);
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Tabela com sondagem linear. A capacidade é sempre potência de dois e a ocupação
+     * fica abaixo de 50%, então toda sondagem encontra uma posição vazia.
+     */
+    private static final class Tabela
+    {
+        private final long[] chaves;
+        private final int[] quantidades;
+        private final long[] movimentos;
+        private final int mascara;
+        private int tamanho;
+
+        private Tabela(int capacidade)
+        {
+            this.chaves = new long[capacidade];
+            this.quantidades = new int[capacidade];
+            this.movimentos = new long[capacidade];
+            this.mascara = capacidade - 1;
+        }
+
+        private int posicao(long chave)
+        {
+            long h = chave * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mascara;
+        }
+
+        private int buscar(long chave)
+        {
+            if (chave == VAZIO)
+            {
+                return AUSENTE;
+            }
+
+            int i = posicao(chave);
+            for (int sondagens = 0; sondagens <= mascara; sondagens++)
+            {
+                long atual = chaves[i];
+                if (atual == chave)
+                {
+                    return quantidades[i];
+                }
+                if (atual == VAZIO)
+                {
+                    return AUSENTE;
+                }
+                i = (i + 1) & mascara;
+            }
+            return AUSENTE;
+        }
+
+        private void gravar(long chave, int quantidade, long movimentoId, boolean sobrescrever)
+        {
+            int i = posicao(chave);
+            while (chaves[i] != VAZIO)
+            {
+                if (chaves[i] == chave)
+                {
+                    if (sobrescrever && movimentoId >= movimentos[i])
+                    {
+                        quantidades[i] = quantidade;
+                        movimentos[i] = movimentoId;
+                    }
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+
+            quantidades[i] = quantidade;
+            movimentos[i] = movimentoId;
+            chaves[i] = chave;
+            tamanho++;
+        }
+
+        private void remover(long chave)
+        {
+            int i = posicao(chave);
+            while (chaves[i] != chave)
+            {
+                if (chaves[i] == VAZIO)
+                {
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+
+            // Remoção por deslocamento: puxa para trás as entradas seguintes do mesmo agrupamento
+            int vaga = i;
+            int j = i;
+            while (true)
+            {
+                j = (j + 1) & mascara;
+                if (chaves[j] == VAZIO)
+                {
+                    break;
+                }
+                int ideal = posicao(chaves[j]);
+                boolean alcancaVaga = vaga <= j ? (ideal <= vaga || ideal > j) : (ideal <= vaga && ideal > j);
+                if (alcancaVaga)
+                {
+                    chaves[vaga] = chaves[j];
+                    quantidades[vaga] = quantidades[j];
+                    movimentos[vaga] = movimentos[j];
+                    vaga = j;
+                }
+            }
+            chaves[vaga] = VAZIO;
+            tamanho--;
+        }
+
+        private Tabela redimensionar()
+        {
+            Tabela nova = new Tabela(chaves.length * 2);
+            for (int i = 0; i < chaves.length; i++)
+            {
+                if (chaves[i] != VAZIO)
+                {
+                    nova.gravar(chaves[i], quantidades[i], movimentos[i], true);
+                }
+            }
+            return nova;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package br.com.product.nextdomtest.cache;
+
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.util.AposCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache de leitura em memória na frente das consultas de {@code ProdutoRepository}.
+ * <p>
+ * Guarda apenas DTOs imutáveis, limitados por tamanho e por tempo de vida. As invalidações são
+ * feitas após o commit da escrita; como o Caffeine serializa carga e invalidação da mesma chave,
+ * uma leitura concorrente que carregou o valor antigo é descartada pela invalidação seguinte.
+ * Estatísticas de acerto e falha são publicadas em {@code /actuator/metrics/cache.gets}.
+ * <p>
+ * Além dos DTOs, guarda a resposta JSON já serializada do produto e da listagem por tipo, escrita direto
+ * na resposta HTTP. Ela é invalidada junto e logo depois do DTO de origem, então nunca sobrevive a ele.
+ * <p>
+ * Dentro de uma transação de escrita o cache é ignorado: a leitura pode enxergar alterações da própria
+ * transação, que ainda não invalidaram o cache e que não podem entrar nele antes do commit.
+ */
+@Component
+public class ProdutoCache
+{
+    private final Cache<Long, ProdutoDto> produtosPorId;
+    private final Cache<TipoProduto, List<ProdutoDto>> produtosPorTipo;
+    private final Cache<Long, byte[]> jsonPorId;
+    private final Cache<TipoProduto, byte[]> jsonPorTipo;
+
+    public ProdutoCache(@Value("${estoque.cache.produtos.tamanho-maximo:10000}") long tamanhoMaximo,
+                        @Value("${estoque.cache.produtos.ttl:5m}") Duration ttl,
+                        MeterRegistry meterRegistry)
+    {
+        this.produtosPorId = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.produtosPorTipo = Caffeine.newBuilder()
+                .maximumSize(TipoProduto.values().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.jsonPorId = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.jsonPorTipo = Caffeine.newBuilder()
+                .maximumSize(TipoProduto.values().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, produtosPorId, "produtos.porId");
+        CaffeineCacheMetrics.monitor(meterRegistry, produtosPorTipo, "produtos.porTipo");
+        CaffeineCacheMetrics.monitor(meterRegistry, jsonPorId, "produtos.json.porId");
+        CaffeineCacheMetrics.monitor(meterRegistry, jsonPorTipo, "produtos.json.porTipo");
+    }
+
+    /**
+     * Retorna o produto em cache ou o carrega. Um carregador que devolve {@code null}
+     * (produto inexistente) não deixa entrada no cache.
+     */
+    public ProdutoDto buscarPorId(Long id, Function<Long, ProdutoDto> carregador)
+    {
+        return emTransacaoDeEscrita() ? carregador.apply(id) : produtosPorId.get(id, carregador);
+    }
+
+    /**
+     * Retorna apenas os produtos já em cache. Cargas em lote não alimentam o cache, porque não são
+     * atômicas por chave e poderiam reinserir um valor antigo depois de uma invalidação.
+     */
+    public Map<Long, ProdutoDto> buscarPresentes(Iterable<Long> ids)
+    {
+        return emTransacaoDeEscrita() ? Map.of() : produtosPorId.getAllPresent(ids);
+    }
+
+    public List<ProdutoDto> listarPorTipo(TipoProduto tipo, Function<TipoProduto, List<ProdutoDto>> carregador)
+    {
+        return emTransacaoDeEscrita() ? carregador.apply(tipo) : produtosPorTipo.get(tipo, carregador);
+    }
+
+    /**
+     * Retorna o JSON em cache do produto ou o serializa. O serializador deve ler o produto por
+     * {@link #buscarPorId}, para que a invalidação do DTO sempre preceda a do JSON.
+     */
+    public byte[] buscarJsonPorId(Long id, Function<Long, byte[]> serializador)
+    {
+        return emTransacaoDeEscrita() ? serializador.apply(id) : jsonPorId.get(id, serializador);
+    }
+
+    public byte[] listarJsonPorTipo(TipoProduto tipo, Function<TipoProduto, byte[]> serializador)
+    {
+        return emTransacaoDeEscrita() ? serializador.apply(tipo) : jsonPorTipo.get(tipo, serializador);
+    }
+
+    private static boolean emTransacaoDeEscrita()
+    {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * Invalida o produto e a listagem do seu tipo após o commit da transação corrente.
+     * Sem o tipo (exclusão, troca de tipo), todas as listagens por tipo são descartadas.
+     */
+    public void invalidar(Long produtoId, TipoProduto tipo)
+    {
+        AposCommit.executar(() -> {
+            produtosPorId.invalidate(produtoId);
+            jsonPorId.invalidate(produtoId);
+            if (tipo == null)
+            {
+                produtosPorTipo.invalidateAll();
+                jsonPorTipo.invalidateAll();
+            }
+            else
+            {
+                produtosPorTipo.invalidate(tipo);
+                jsonPorTipo.invalidate(tipo);
+            }
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.product.nextdomtest.cache;
+
+import br.com.product.nextdomtest.util.AposCommit;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantém versões em memória do catálogo e de cada produto, usadas como ETag nas consultas.
+ * <p>
+ * As versões só avançam após o commit da escrita, então um ETag nunca é mais novo que os dados
+ * lidos junto com ele. A época de inicialização faz parte do token para que versões de uma
+ * execução anterior da aplicação não coincidam com as atuais.
+ * <p>
+ * Guarda também o instante do último avanço, registrado antes do incremento: quem leu uma versão enxerga um
+ * instante posterior ao commit que a gerou. O roteamento para a réplica usa esse instante para só ler dela
+ * depois que a replicação alcançou a versão servida.
+ */
+@Component
+public class VersaoCatalogo
+{
+    private final String epoca = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong versaoCatalogo = new AtomicLong();
+    private final ConcurrentHashMap<Long, AtomicLong> versoesProduto = new ConcurrentHashMap<>();
+    private final AtomicLong ultimaAlteracaoEm = new AtomicLong(Long.MIN_VALUE);
+
+    public String etagCatalogo()
+    {
+        return "\"c-" + epoca + "-" + versaoCatalogo.get() + "\"";
+    }
+
+    public String etagProduto(Long produtoId)
+    {
+        AtomicLong versao = versoesProduto.get(produtoId);
+        return "\"p" + produtoId + "-" + epoca + "-" + (versao == null ? 0 : versao.get()) + "\"";
+    }
+
+    public String etagMovimento(Long movimentoId)
+    {
+        return "\"m" + movimentoId + "-" + epoca + "-" + versaoCatalogo.get() + "\"";
+    }
+
+    public long versaoCatalogo()
+    {
+        return versaoCatalogo.get();
+    }
+
+    public long versaoProduto(Long produtoId)
+    {
+        AtomicLong versao = versoesProduto.get(produtoId);
+        return versao == null ? 0 : versao.get();
+    }
+
+    /**
+     * Instante, em {@link System#currentTimeMillis()}, do último avanço de versão; {@link Long#MIN_VALUE} se não
+     * houve nenhum desde a inicialização.
+     */
+    public long ultimaAlteracaoEm()
+    {
+        return ultimaAlteracaoEm.get();
+    }
+
+    /**
+     * Registra a alteração de um produto (cadastro, atualização, exclusão ou movimentação).
+     * O incremento acontece somente após o commit da transação corrente.
+     */
+    public void registrarAlteracao(Long produtoId)
+    {
+        AposCommit.executar(() -> incrementar(produtoId));
+    }
+
+    /**
+     * Registra uma alteração que afeta o catálogo como um todo, sem produto específico.
+     */
+    public void registrarAlteracaoCatalogo()
+    {
+        AposCommit.executar(() -> {
+            marcarAlteracao();
+            versaoCatalogo.incrementAndGet();
+        });
+    }
+
+    private void incrementar(Long produtoId)
+    {
+        marcarAlteracao();
+        if (produtoId != null)
+        {
+            versoesProduto.computeIfAbsent(produtoId, id -> new AtomicLong()).incrementAndGet();
+        }
+        versaoCatalogo.incrementAndGet();
+    }
+
+    private void marcarAlteracao()
+    {
+        // Máximo, para que dois avanços concorrentes não façam o instante voltar
+        ultimaAlteracaoEm.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+}
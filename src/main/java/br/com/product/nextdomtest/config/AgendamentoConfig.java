@@ -0,0 +1,10 @@
+package br.com.product.nextdomtest.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class AgendamentoConfig
+{
+}
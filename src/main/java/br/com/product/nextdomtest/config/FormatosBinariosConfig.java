@@ -0,0 +1,37 @@
+package br.com.product.nextdomtest.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos binários negociados pelo cabeçalho {@code Accept} (e {@code Content-Type} nas requisições com corpo),
+ * além de JSON: CBOR ({@code application/cbor}) e Smile ({@code application/x-jackson-smile}).
+ * <p>
+ * Os conversores usam o mesmo {@link Jackson2ObjectMapperBuilder} do JSON, então módulos e propriedades
+ * {@code spring.jackson.*} valem para os três formatos e os DTOs não mudam. Substituem os conversores padrão
+ * do Spring MVC para os mesmos formatos, que usariam um {@code ObjectMapper} sem essa configuração.
+ */
+@Configuration
+public class FormatosBinariosConfig
+{
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder)
+    {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter conversorSmile(Jackson2ObjectMapperBuilder builder)
+    {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,67 @@
+package br.com.product.nextdomtest.config;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.scalars.ExtendedScalars;
+import graphql.schema.GraphQLTypeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escalares e limites do endpoint {@code /graphql}.
+ * <p>
+ * Uma consulta é recusada antes de executar se passar de {@code estoque.graphql.profundidade-maxima} níveis ou
+ * de {@code estoque.graphql.complexidade-maxima}. Cada campo custa 1 mais o custo dos seus filhos; um campo de
+ * lista multiplica esse custo pelo tamanho de página pedido em {@code first} (já com o valor padrão do schema),
+ * pelo número de IDs pedidos em {@code ids} ou, sem nenhum dos dois, por {@code estoque.graphql.fator-lista}, a
+ * estimativa de itens de uma lista sem tamanho conhecido. O custo de um campo para logo acima do máximo, para
+ * que um {@code first} enorme não estoure o {@code int} e volte como custo negativo.
+ */
+@Configuration
+public class GraphQlConfig
+{
+    @Bean
+    public RuntimeWiringConfigurer escalaresGraphQl()
+    {
+        return wiring -> wiring.scalar(ExtendedScalars.GraphQLBigDecimal);
+    }
+
+    @Bean
+    public MaxQueryDepthInstrumentation profundidadeMaximaGraphQl(
+            @Value("${estoque.graphql.profundidade-maxima:5}") int profundidadeMaxima)
+    {
+        return new MaxQueryDepthInstrumentation(profundidadeMaxima);
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation complexidadeMaximaGraphQl(
+            @Value("${estoque.graphql.complexidade-maxima:5000}") int complexidadeMaxima,
+            @Value("${estoque.graphql.fator-lista:10}") int fatorLista)
+    {
+        return new MaxQueryComplexityInstrumentation(complexidadeMaxima,
+                calculadoraComplexidade(fatorLista, complexidadeMaxima));
+    }
+
+    static FieldComplexityCalculator calculadoraComplexidade(int fatorLista, int complexidadeMaxima)
+    {
+        long teto = complexidadeMaxima + 1L;
+        return (ambiente, complexidadeFilhos) -> {
+            long custo = Math.min(1L + complexidadeFilhos, teto);
+            if (!GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(ambiente.getFieldDefinition().getType())))
+            {
+                return (int) custo;
+            }
+            Map<String, Object> argumentos = ambiente.getArguments();
+            long itens = argumentos.get("first") instanceof Integer first ? Math.max(first, 0)
+                    : argumentos.get("ids") instanceof List<?> ids ? ids.size()
+                    : fatorLista;
+            return (int) Math.min(custo * itens, teto);
+        };
+    }
+}
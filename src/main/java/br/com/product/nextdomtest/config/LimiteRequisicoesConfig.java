@@ -0,0 +1,40 @@
+package br.com.product.nextdomtest.config;
+
+import br.com.product.nextdomtest.admissao.LimiteRequisicoesInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Coloca a {@link LimiteRequisicoesInterceptor} na frente da API e do GraphQL ({@code estoque.limite.habilitado}).
+ * Ela roda antes da admissão de {@link PoolConexoesConfig}, para que um cliente acima do limite seja recusado
+ * sem esperar na fila de vagas.
+ */
+@Configuration
+public class LimiteRequisicoesConfig implements WebMvcConfigurer
+{
+    private final LimiteRequisicoesInterceptor limiteRequisicoesInterceptor;
+    private final boolean habilitado;
+
+    @Autowired
+    public LimiteRequisicoesConfig(LimiteRequisicoesInterceptor limiteRequisicoesInterceptor,
+                                   @Value("${estoque.limite.habilitado:true}") boolean habilitado)
+    {
+        this.limiteRequisicoesInterceptor = limiteRequisicoesInterceptor;
+        this.habilitado = habilitado;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry)
+    {
+        if (habilitado)
+        {
+            registry.addInterceptor(limiteRequisicoesInterceptor)
+                    .addPathPatterns("/api/**", "/graphql")
+                    .order(Ordered.HIGHEST_PRECEDENCE);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.product.nextdomtest.config;
+
+import br.com.product.nextdomtest.admissao.AdmissaoRequisicaoInterceptor;
+import br.com.product.nextdomtest.datasource.MetricasPoolConexoes;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Instala {@link MetricasPoolConexoes} em todo {@code HikariDataSource} antes de o pool iniciar e
+ * coloca a {@link AdmissaoRequisicaoInterceptor} na frente dos endpoints de produtos, movimentações, lote e GraphQL
+ * ({@code estoque.admissao.habilitada}).
+ * <p>
+ * Com threads virtuais ({@code spring.threads.virtual.enabled}) o Tomcat deixa de limitar as requisições
+ * simultâneas ao tamanho do seu pool de threads, e a admissão passa a ser o único limite antes da fila do pool
+ * de conexões.
+ */
+@Configuration
+public class PoolConexoesConfig implements WebMvcConfigurer
+{
+    private static final Logger log = LoggerFactory.getLogger(PoolConexoesConfig.class);
+
+    private final AdmissaoRequisicaoInterceptor admissaoRequisicaoInterceptor;
+    private final boolean admissaoHabilitada;
+
+    @Autowired
+    public PoolConexoesConfig(AdmissaoRequisicaoInterceptor admissaoRequisicaoInterceptor,
+                              @Value("${estoque.admissao.habilitada:true}") boolean admissaoHabilitada,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais)
+    {
+        this.admissaoRequisicaoInterceptor = admissaoRequisicaoInterceptor;
+        this.admissaoHabilitada = admissaoHabilitada;
+
+        if (threadsVirtuais && !admissaoHabilitada)
+        {
+            log.warn("Threads virtuais habilitadas sem admissão de requisições: nada limita quantas requisições "
+                    + "aguardam ao mesmo tempo na fila do pool de conexões");
+        }
+    }
+
+    @Bean
+    public static BeanPostProcessor instrumentacaoPoolConexoes(ObjectProvider<MetricasPoolConexoes> metricasPoolConexoes)
+    {
+        return new BeanPostProcessor()
+        {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName)
+            {
+                if (bean instanceof HikariDataSource hikari && hikari.getMetricsTrackerFactory() == null
+                        && hikari.getMetricRegistry() == null)
+                {
+                    hikari.setMetricsTrackerFactory(metricasPoolConexoes.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry)
+    {
+        if (admissaoHabilitada)
+        {
+            registry.addInterceptor(admissaoRequisicaoInterceptor)
+                    .addPathPatterns("/api/produtos/**", "/api/movimentos/**", "/api/batch", "/graphql")
+                    // O stream não segura conexão com o banco, e o EventSource não reconecta depois de um 503
+                    .excludePathPatterns("/api/movimentos/stream");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.product.nextdomtest.config;
+
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
+import br.com.product.nextdomtest.datasource.MonitorAtrasoReplica;
+import br.com.product.nextdomtest.datasource.RoteamentoDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Réplica de leitura opcional ({@code estoque.replica.habilitada=true}). Substitui o {@code DataSource}
+ * do Spring Boot por dois pools Hikari, {@code primario} (configurado por {@code spring.datasource.*}) e
+ * {@code replica} (por {@code estoque.replica.datasource.*}), e um {@link RoteamentoDataSource} que envia
+ * os métodos {@code @Transactional(readOnly = true)} à réplica, desde que ela já tenha recebido a última
+ * alteração registrada em {@link VersaoCatalogo}. O uso de cada pool aparece nas métricas
+ * {@code hikaricp.connections.*} com a tag {@code pool}.
+ * <p>
+ * A replicação em si é feita pelo banco. Para testar localmente com duas instâncias H2 independentes,
+ * {@code estoque.replica.migrar=true} aplica as migrações do Flyway também na réplica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "estoque.replica.habilitada", havingValue = "true")
+public class ReplicaLeituraConfig
+{
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties dataSourceProperties)
+    {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("estoque.replica.datasource")
+    public HikariDataSource dataSourceReplica()
+    {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public MonitorAtrasoReplica monitorAtrasoReplica(@Qualifier("dataSourcePrimario") DataSource primario,
+                                                     @Qualifier("dataSourceReplica") DataSource replica,
+                                                     @Value("${estoque.replica.atraso-maximo:5s}") Duration atrasoMaximo,
+                                                     MeterRegistry meterRegistry)
+    {
+        return new MonitorAtrasoReplica(primario, replica, atrasoMaximo, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+                                 @Qualifier("dataSourceReplica") DataSource replica,
+                                 MonitorAtrasoReplica monitorAtrasoReplica,
+                                 VersaoCatalogo versaoCatalogo,
+                                 MeterRegistry meterRegistry)
+    {
+        return new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, replica, monitorAtrasoReplica,
+                versaoCatalogo::ultimaAlteracaoEm, meterRegistry));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "estoque.replica.migrar", havingValue = "true")
+    public InitializingBean migracaoReplica(@Qualifier("dataSourceReplica") DataSource replica,
+                                            @Value("${spring.flyway.locations:classpath:db/migration}") String[] locais)
+    {
+        return () -> Flyway.configure().dataSource(replica).locations(locais).load().migrate();
+    }
+}
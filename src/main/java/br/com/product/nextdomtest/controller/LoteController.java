@@ -0,0 +1,62 @@
+package br.com.product.nextdomtest.controller;
+
+import br.com.product.nextdomtest.admissao.LimiteRequisicoesInterceptor;
+import br.com.product.nextdomtest.dto.LoteDto;
+import br.com.product.nextdomtest.dto.ResultadoLoteDto;
+import br.com.product.nextdomtest.service.LoteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/batch")
+@Tag(name = "Lote", description = "Várias operações de produtos e movimentações numa única requisição")
+public class LoteController
+{
+    private final LoteService loteService;
+    private final LimiteRequisicoesInterceptor limiteRequisicoes;
+
+    @Autowired
+    public LoteController(LoteService loteService, LimiteRequisicoesInterceptor limiteRequisicoes)
+    {
+        this.loteService = loteService;
+        this.limiteRequisicoes = limiteRequisicoes;
+    }
+
+    @PostMapping
+    @Operation(
+            summary = "Executar lote de operações",
+            description = "Executa em ordem operações de produtos e movimentações, com o resultado de cada uma. "
+                    + "Uma operação pode usar o ID de uma anterior com $n.id. Com transacional = true, a primeira "
+                    + "falha desfaz todo o lote. Cada operação é cobrada do limite por cliente como o endpoint "
+                    + "individual equivalente"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote executado; sem transação, o status de cada operação "
+                    + "indica se ela teve sucesso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ResultadoLoteDto.class))),
+            @ApiResponse(responseCode = "400", description = "Lote inválido, acima do limite de operações ou, com "
+                    + "transação, operação com dados inválidos"),
+            @ApiResponse(responseCode = "404", description = "Com transação, produto ou movimento não encontrado"),
+            @ApiResponse(responseCode = "429", description = "Com transação, limite por cliente esgotado numa operação"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<ResultadoLoteDto> executar(@Valid @RequestBody LoteDto lote, HttpServletRequest request)
+    {
+        ResultadoLoteDto resultado = loteService.executar(lote,
+                operacao -> limiteRequisicoes.cobrar(request, operacao.metodo(), operacao.rota()));
+        return ResponseEntity.status(resultado.status()).body(resultado);
+    }
+}
@@ -1,8 +1,17 @@
 package br.com.product.nextdomtest.controller;
 
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
 import br.com.product.nextdomtest.dto.CreatedMovimentoEstoqueDto;
 import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.AlteracaoEstoqueDto;
+import br.com.product.nextdomtest.enums.CampoMovimento;
+import br.com.product.nextdomtest.enums.TipoProduto;
 import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.util.CamposResposta;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -13,11 +22,17 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/movimentos")
@@ -25,11 +40,21 @@ import java.util.List;
 public class MovimentoEstoqueController
 {
     private final MovimentoEstoqueService movimentoService;
+    private final VersaoCatalogo versaoCatalogo;
+    private final ObjectWriter escritorNdjson;
+    private final int tamanhoPaginaStream;
 
     @Autowired
-    public MovimentoEstoqueController(MovimentoEstoqueService movimentoService)
+    public MovimentoEstoqueController(MovimentoEstoqueService movimentoService, VersaoCatalogo versaoCatalogo,
+                                      ObjectMapper objectMapper,
+                                      @Value("${estoque.listagem.tamanho-pagina-stream:500}") int tamanhoPaginaStream)
     {
         this.movimentoService = movimentoService;
+        this.versaoCatalogo = versaoCatalogo;
+        // O flush é feito uma vez por página, não a cada movimentação escrita
+        this.escritorNdjson = objectMapper.writerFor(CreatedMovimentoEstoqueDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.tamanhoPaginaStream = tamanhoPaginaStream;
     }
 
     @PostMapping
@@ -60,13 +85,20 @@ public class MovimentoEstoqueController
             @ApiResponse(responseCode = "200", description = "Movimento encontrado com sucesso",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = MovimentoEstoqueDto.class))),
+            @ApiResponse(responseCode = "304", description = "Movimento não modificado desde o ETag informado"),
             @ApiResponse(responseCode = "404", description = "Movimento não encontrado"),
             @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
     })
     public ResponseEntity<MovimentoEstoqueDto> buscarPorId(
             @Parameter(description = "ID do movimento de estoque", required = true, example = "1")
-            @PathVariable Long id)
+            @PathVariable Long id,
+            @Parameter(hidden = true) WebRequest request)
     {
+        if (request.checkNotModified(versaoCatalogo.etagMovimento(id)))
+        {
+            return null;
+        }
+
         MovimentoEstoqueDto movimento = movimentoService.buscarPorId(id);
         return ResponseEntity.ok(movimento);
     }
@@ -80,14 +112,65 @@ public class MovimentoEstoqueController
             @ApiResponse(responseCode = "200", description = "Lista de movimentos retornada com sucesso",
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = CreatedMovimentoEstoqueDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Movimentos não modificados desde o ETag informado"),
             @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
     })
-    public ResponseEntity<List<CreatedMovimentoEstoqueDto>> listarTodos()
+    public ResponseEntity<List<CreatedMovimentoEstoqueDto>> listarTodos(@Parameter(hidden = true) WebRequest request)
     {
+        if (request.checkNotModified(versaoCatalogo.etagCatalogo()))
+        {
+            return null;
+        }
+
         List<CreatedMovimentoEstoqueDto> movimentos = movimentoService.listarTodos();
         return ResponseEntity.ok(movimentos);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Listar todos os movimentos em stream",
+            description = "Com Accept: application/x-ndjson, escreve um movimento JSON por linha à medida que as "
+                    + "páginas são lidas do banco, sem montar a lista inteira na memória. A próxima página só é lida "
+                    + "depois que a anterior foi entregue à conexão"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movimentos em ordem de ID, um por linha",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = CreatedMovimentoEstoqueDto.class))),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<StreamingResponseBody> listarTodosEmStream()
+    {
+        return transmitir(null);
+    }
+
+    @GetMapping(params = "fields")
+    @Operation(
+            summary = "Listar todos os movimentos com campos selecionados",
+            description = "Retorna só os campos pedidos de cada movimento; apenas as colunas correspondentes são lidas do banco"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de movimentos retornada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Movimentos não modificados desde o ETag informado"),
+            @ApiResponse(responseCode = "400", description = "Campo desconhecido"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<List<Map<String, Object>>> listarTodosComCampos(
+            @Parameter(description = "Campos separados por vírgula: id, produtoId, produto, tipo, valorVenda, "
+                    + "quantidade, dataMovimentacao", required = true, example = "id,quantidade,tipo")
+            @RequestParam String fields,
+            @Parameter(hidden = true) WebRequest request)
+    {
+        if (request.checkNotModified(versaoCatalogo.etagCatalogo()))
+        {
+            return null;
+        }
+
+        List<Map<String, Object>> movimentos = movimentoService.listarCampos(
+                CamposResposta.interpretar(fields, CampoMovimento.class, CampoMovimento::nome));
+        return ResponseEntity.ok(movimentos);
+    }
+
     @GetMapping("/produto/{produtoId}")
     @Operation(
             summary = "Listar movimentos por produto",
@@ -97,14 +180,122 @@ public class MovimentoEstoqueController
             @ApiResponse(responseCode = "200", description = "Lista de movimentos do produto retornada com sucesso",
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = CreatedMovimentoEstoqueDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Movimentos não modificados desde o ETag informado"),
             @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
             @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
     })
     public ResponseEntity<List<CreatedMovimentoEstoqueDto>> listarPorProduto(
             @Parameter(description = "ID do produto", required = true, example = "1")
-            @PathVariable Long produtoId)
+            @PathVariable Long produtoId,
+            @Parameter(hidden = true) WebRequest request)
     {
+        if (request.checkNotModified(versaoCatalogo.etagProduto(produtoId)))
+        {
+            return null;
+        }
+
         List<CreatedMovimentoEstoqueDto> movimentos = movimentoService.listarPorProduto(produtoId);
         return ResponseEntity.ok(movimentos);
     }
-}
\ No newline at end of file
+
+    @GetMapping(value = "/produto/{produtoId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Listar movimentos por produto em stream",
+            description = "Com Accept: application/x-ndjson, escreve um movimento JSON por linha à medida que as "
+                    + "páginas são lidas do banco, sem montar a lista inteira na memória"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movimentos do produto em ordem de ID, um por linha",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = CreatedMovimentoEstoqueDto.class))),
+            @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<StreamingResponseBody> listarPorProdutoEmStream(
+            @Parameter(description = "ID do produto", required = true, example = "1")
+            @PathVariable Long produtoId)
+    {
+        // Depois do primeiro byte o status já foi enviado: o 404 precisa sair antes do stream começar
+        movimentoService.verificarProduto(produtoId);
+        return transmitir(produtoId);
+    }
+
+    @GetMapping(value = "/produto/{produtoId}", params = "fields")
+    @Operation(
+            summary = "Listar movimentos por produto com campos selecionados",
+            description = "Retorna só os campos pedidos de cada movimento do produto; apenas as colunas correspondentes são lidas do banco"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de movimentos do produto retornada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Movimentos não modificados desde o ETag informado"),
+            @ApiResponse(responseCode = "400", description = "Campo desconhecido"),
+            @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<List<Map<String, Object>>> listarPorProdutoComCampos(
+            @Parameter(description = "ID do produto", required = true, example = "1")
+            @PathVariable Long produtoId,
+            @Parameter(description = "Campos separados por vírgula: id, produtoId, produto, tipo, valorVenda, "
+                    + "quantidade, dataMovimentacao", required = true, example = "id,quantidade,tipo")
+            @RequestParam String fields,
+            @Parameter(hidden = true) WebRequest request)
+    {
+        if (request.checkNotModified(versaoCatalogo.etagProduto(produtoId)))
+        {
+            return null;
+        }
+
+        List<Map<String, Object>> movimentos = movimentoService.listarCamposPorProduto(produtoId,
+                CamposResposta.interpretar(fields, CampoMovimento.class, CampoMovimento::nome));
+        return ResponseEntity.ok(movimentos);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Acompanhar movimentações em tempo real",
+            description = "Server-Sent Events com cada movimentação confirmada (evento 'estoque', com a nova quantidade "
+                    + "em estoque do produto). Alterações pendentes de um mesmo produto são agrupadas na mais recente; "
+                    + "se o cliente não acompanhar, as mais antigas são descartadas e o evento 'descartadas' indica "
+                    + "que a lista deve ser recarregada. Um comentário de heartbeat é enviado periodicamente"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream aberto",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = AlteracaoEstoqueDto.class))),
+            @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public SseEmitter acompanharAlteracoes(
+            @Parameter(description = "Só movimentações deste produto", example = "1")
+            @RequestParam(required = false) Long produtoId,
+            @Parameter(description = "Só movimentações de produtos deste tipo", example = "ELETRONICO")
+            @RequestParam(required = false) TipoProduto tipo)
+    {
+        return movimentoService.assinarAlteracoes(produtoId, tipo);
+    }
+
+    /**
+     * Escreve as páginas do serviço como NDJSON. O corpo roda numa thread do executor assíncrono do MVC, então
+     * a requisição não segura a thread do contêiner nem a vaga da admissão enquanto o cliente lê.
+     */
+    private ResponseEntity<StreamingResponseBody> transmitir(Long produtoId)
+    {
+        StreamingResponseBody corpo = saida -> {
+            JsonGenerator gerador = escritorNdjson.createGenerator(saida);
+            gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gerador.setRootValueSeparator(null);
+            movimentoService.percorrer(produtoId, tamanhoPaginaStream, pagina -> {
+                for (CreatedMovimentoEstoqueDto movimento : pagina)
+                {
+                    escritorNdjson.writeValue(gerador, movimento);
+                    gerador.writeRaw('\n');
+                }
+                gerador.flush();
+            });
+            gerador.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
+    }
+}
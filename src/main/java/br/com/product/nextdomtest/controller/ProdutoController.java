@@ -1,9 +1,23 @@
 package br.com.product.nextdomtest.controller;
 
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
+import br.com.product.nextdomtest.config.FormatosBinariosConfig;
+import br.com.product.nextdomtest.dto.EstatisticaMovimentoDto;
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
+import br.com.product.nextdomtest.dto.ProdutoBuscaDto;
 import br.com.product.nextdomtest.dto.ProdutoDto;
 import br.com.product.nextdomtest.dto.LucroProdutoDto;
+import br.com.product.nextdomtest.dto.ProdutoResumoDto;
+import br.com.product.nextdomtest.dto.ReconstrucaoResumoDto;
+import br.com.product.nextdomtest.dto.RelatorioLucroDto;
+import br.com.product.nextdomtest.dto.SaldoEstoqueDto;
+import br.com.product.nextdomtest.enums.CampoProduto;
 import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.ProdutoResumoService;
 import br.com.product.nextdomtest.service.ProdutoService;
+import br.com.product.nextdomtest.service.RelatorioLucroService;
+import br.com.product.nextdomtest.service.SaldoEstoqueService;
+import br.com.product.nextdomtest.util.CamposResposta;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -14,11 +28,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/produtos")
@@ -26,11 +45,23 @@ import java.util.List;
 public class ProdutoController
 {
     private final ProdutoService produtoService;
+    private final SaldoEstoqueService saldoEstoqueService;
+    private final ProdutoResumoService produtoResumoService;
+    private final RelatorioLucroService relatorioLucroService;
+    private final VersaoCatalogo versaoCatalogo;
 
     @Autowired
-    public ProdutoController(ProdutoService produtoService)
+    public ProdutoController(ProdutoService produtoService,
+                             SaldoEstoqueService saldoEstoqueService,
+                             ProdutoResumoService produtoResumoService,
+                             RelatorioLucroService relatorioLucroService,
+                             VersaoCatalogo versaoCatalogo)
     {
         this.produtoService = produtoService;
+        this.saldoEstoqueService = saldoEstoqueService;
+        this.produtoResumoService = produtoResumoService;
+        this.relatorioLucroService = relatorioLucroService;
+        this.versaoCatalogo = versaoCatalogo;
     }
 
     @PostMapping
@@ -61,17 +92,142 @@ public class ProdutoController
             @ApiResponse(responseCode = "200", description = "Produto encontrado com sucesso",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ProdutoDto.class))),
+            @ApiResponse(responseCode = "304", description = "Produto não modificado desde o ETag informado"),
             @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
             @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
     })
-    public ResponseEntity<ProdutoDto> buscarPorId(
+    public ResponseEntity<byte[]> buscarPorId(
             @Parameter(description = "ID do produto", required = true, example = "1")
-            @PathVariable Long id)
+            @PathVariable Long id,
+            @Parameter(hidden = true) WebRequest request)
     {
+        if (request.checkNotModified(versaoCatalogo.etagProduto(id)))
+        {
+            return null;
+        }
+
+        // JSON já serializado em cache, escrito direto na resposta
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(produtoService.buscarJsonPorId(id));
+    }
+
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_CBOR_VALUE, FormatosBinariosConfig.APPLICATION_SMILE_VALUE})
+    @Operation(hidden = true)
+    public ResponseEntity<ProdutoDto> buscarPorIdBinario(@PathVariable Long id, WebRequest request)
+    {
+        if (request.checkNotModified(versaoCatalogo.etagProduto(id)))
+        {
+            return null;
+        }
+
         ProdutoDto produto = produtoService.buscarPorId(id);
         return ResponseEntity.ok(produto);
     }
 
+    @GetMapping(params = "ids")
+    @Operation(
+            summary = "Buscar vários produtos por ID",
+            description = "Retorna os produtos na ordem dos IDs informados, indicando os que não foram encontrados"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Produtos retornados com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = ProdutoBuscaDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs inválida ou acima do limite"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<List<ProdutoBuscaDto>> buscarPorIds(
+            @Parameter(description = "IDs dos produtos separados por vírgula", required = true, example = "1,2,3")
+            @RequestParam List<Long> ids)
+    {
+        List<ProdutoBuscaDto> produtos = produtoService.buscarPorIds(ids);
+        return ResponseEntity.ok(produtos);
+    }
+
+    @PostMapping("/busca")
+    @Operation(
+            summary = "Buscar vários produtos por ID (corpo da requisição)",
+            description = "Variante para listas grandes: recebe os IDs no corpo e retorna os produtos na mesma ordem"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Produtos retornados com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = ProdutoBuscaDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs inválida ou acima do limite"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<List<ProdutoBuscaDto>> buscarPorIdsNoCorpo(@RequestBody List<Long> ids)
+    {
+        List<ProdutoBuscaDto> produtos = produtoService.buscarPorIds(ids);
+        return ResponseEntity.ok(produtos);
+    }
+
+    @GetMapping("/{id}/estoque")
+    @Operation(
+            summary = "Consultar estoque do produto",
+            description = "Retorna apenas a quantidade em estoque do produto, servida da memória sem acesso ao banco"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estoque retornado com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EstoqueProdutoDto.class))),
+            @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<EstoqueProdutoDto> consultarEstoque(
+            @Parameter(description = "ID do produto", required = true, example = "1")
+            @PathVariable Long id)
+    {
+        EstoqueProdutoDto estoque = produtoService.consultarEstoque(id);
+        return ResponseEntity.ok(estoque);
+    }
+
+    @GetMapping("/{id}/estoque/historico")
+    @Operation(
+            summary = "Consultar estoque do produto em uma data",
+            description = "Retorna a quantidade em estoque do produto ao final do dia informado, calculada a partir "
+                    + "do saldo diário registrado mais próximo e dos movimentos entre o registro e a data"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estoque na data retornado com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SaldoEstoqueDto.class))),
+            @ApiResponse(responseCode = "400", description = "Data inválida"),
+            @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<SaldoEstoqueDto> consultarEstoqueEm(
+            @Parameter(description = "ID do produto", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Data no formato ISO (aaaa-mm-dd)", required = true, example = "2024-05-10")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data)
+    {
+        SaldoEstoqueDto saldo = saldoEstoqueService.consultarSaldoEm(id, data);
+        return ResponseEntity.ok(saldo);
+    }
+
+    @GetMapping("/estoque")
+    @Operation(
+            summary = "Consultar estoque de vários produtos",
+            description = "Retorna as quantidades em estoque na ordem dos IDs informados; "
+                    + "produtos inexistentes retornam quantidade nula"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estoques retornados com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = EstoqueProdutoDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs inválida"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<List<EstoqueProdutoDto>> consultarEstoques(
+            @Parameter(description = "IDs dos produtos separados por vírgula", required = true, example = "1,2,3")
+            @RequestParam List<Long> ids)
+    {
+        List<EstoqueProdutoDto> estoques = produtoService.consultarEstoques(ids);
+        return ResponseEntity.ok(estoques);
+    }
+
     @GetMapping
     @Operation(
             summary = "Listar todos os produtos",
@@ -81,14 +237,47 @@ public class ProdutoController
             @ApiResponse(responseCode = "200", description = "Lista de produtos retornada com sucesso",
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = ProdutoDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Catálogo não modificado desde o ETag informado"),
             @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
     })
-    public ResponseEntity<List<ProdutoDto>> listarTodos()
+    public ResponseEntity<List<ProdutoDto>> listarTodos(@Parameter(hidden = true) WebRequest request)
     {
+        if (request.checkNotModified(versaoCatalogo.etagCatalogo()))
+        {
+            return null;
+        }
+
         List<ProdutoDto> produtos = produtoService.listarTodos();
         return ResponseEntity.ok(produtos);
     }
 
+    @GetMapping(params = "fields")
+    @Operation(
+            summary = "Listar todos os produtos com campos selecionados",
+            description = "Retorna só os campos pedidos de cada produto; apenas as colunas correspondentes são lidas do banco"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de produtos retornada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Catálogo não modificado desde o ETag informado"),
+            @ApiResponse(responseCode = "400", description = "Campo desconhecido"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<List<Map<String, Object>>> listarTodosComCampos(
+            @Parameter(description = "Campos separados por vírgula: id, codigo, descricao, tipo, valorFornecedor, "
+                    + "quantidadeEstoque", required = true, example = "id,codigo,quantidadeEstoque")
+            @RequestParam String fields,
+            @Parameter(hidden = true) WebRequest request)
+    {
+        if (request.checkNotModified(versaoCatalogo.etagCatalogo()))
+        {
+            return null;
+        }
+
+        List<Map<String, Object>> produtos = produtoService.listarCampos(
+                CamposResposta.interpretar(fields, CampoProduto.class, CampoProduto::nome));
+        return ResponseEntity.ok(produtos);
+    }
+
     @PutMapping("/{id}")
     @Operation(
             summary = "Atualizar produto",
@@ -139,14 +328,36 @@ public class ProdutoController
             @ApiResponse(responseCode = "200", description = "Lista de produtos por tipo retornada com sucesso",
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = ProdutoDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Catálogo não modificado desde o ETag informado"),
             @ApiResponse(responseCode = "400", description = "Tipo de produto inválido"),
             @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
     })
-    public ResponseEntity<List<ProdutoDto>> buscarPorTipo(
+    public ResponseEntity<byte[]> buscarPorTipo(
             @Parameter(description = "Tipo do produto", required = true,
                     schema = @Schema(implementation = TipoProduto.class))
-            @PathVariable TipoProduto tipo)
+            @PathVariable TipoProduto tipo,
+            @Parameter(hidden = true) WebRequest request)
+    {
+        if (request.checkNotModified(versaoCatalogo.etagCatalogo()))
+        {
+            return null;
+        }
+
+        // JSON já serializado em cache, escrito direto na resposta
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(produtoService.listarJsonPorTipo(tipo));
+    }
+
+    @GetMapping(value = "/tipo/{tipo}", produces = {MediaType.APPLICATION_CBOR_VALUE, FormatosBinariosConfig.APPLICATION_SMILE_VALUE})
+    @Operation(hidden = true)
+    public ResponseEntity<List<ProdutoDto>> buscarPorTipoBinario(@PathVariable TipoProduto tipo, WebRequest request)
     {
+        if (request.checkNotModified(versaoCatalogo.etagCatalogo()))
+        {
+            return null;
+        }
+
         List<ProdutoDto> produtos = produtoService.listarPorTipo(tipo);
         return ResponseEntity.ok(produtos);
     }
@@ -160,14 +371,139 @@ public class ProdutoController
             @ApiResponse(responseCode = "200", description = "Dados de lucro retornados com sucesso",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = LucroProdutoDto.class))),
+            @ApiResponse(responseCode = "304", description = "Lucro não modificado desde o ETag informado"),
             @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
             @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
     })
     public ResponseEntity<LucroProdutoDto> consultarLucro(
             @Parameter(description = "ID do produto", required = true, example = "1")
-            @PathVariable Long id)
+            @PathVariable Long id,
+            @Parameter(hidden = true) WebRequest request)
     {
+        if (request.checkNotModified(versaoCatalogo.etagProduto(id)))
+        {
+            return null;
+        }
+
         LucroProdutoDto lucro = produtoService.consultarLucro(id);
         return ResponseEntity.ok(lucro);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{id}/estatisticas")
+    @Operation(
+            summary = "Consultar estatísticas de movimentação do produto",
+            description = "Retorna quantidade de movimentos, total de entradas, total de saídas e data da última movimentação"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EstatisticaMovimentoDto.class))),
+            @ApiResponse(responseCode = "304", description = "Estatísticas não modificadas desde o ETag informado"),
+            @ApiResponse(responseCode = "404", description = "Produto não encontrado"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<EstatisticaMovimentoDto> consultarEstatisticas(
+            @Parameter(description = "ID do produto", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(hidden = true) WebRequest request)
+    {
+        if (request.checkNotModified(versaoCatalogo.etagProduto(id)))
+        {
+            return null;
+        }
+
+        EstatisticaMovimentoDto estatisticas = produtoService.consultarEstatisticas(id);
+        return ResponseEntity.ok(estatisticas);
+    }
+
+    @GetMapping("/estatisticas")
+    @Operation(
+            summary = "Listar estatísticas de movimentação por página de produtos",
+            description = "Retorna as estatísticas de movimentação de uma página de produtos, ordenados por ID. "
+                    + "A próxima página começa após o último ID recebido"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = EstatisticaMovimentoDto.class)))),
+            @ApiResponse(responseCode = "304", description = "Catálogo não modificado desde o ETag informado"),
+            @ApiResponse(responseCode = "400", description = "Parâmetros de paginação inválidos"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<List<EstatisticaMovimentoDto>> listarEstatisticas(
+            @Parameter(description = "Último ID da página anterior (0 na primeira página)", example = "0")
+            @RequestParam(defaultValue = "0") long aposId,
+            @Parameter(description = "Quantidade de produtos por página (máximo 500)", example = "50")
+            @RequestParam(defaultValue = "50") int tamanho,
+            @Parameter(hidden = true) WebRequest request)
+    {
+        if (request.checkNotModified(versaoCatalogo.etagCatalogo()))
+        {
+            return null;
+        }
+
+        List<EstatisticaMovimentoDto> estatisticas = produtoService.listarEstatisticas(aposId, tamanho);
+        return ResponseEntity.ok(estatisticas);
+    }
+
+    @GetMapping("/resumos")
+    @Operation(
+            summary = "Listar resumos de produtos",
+            description = "Retorna uma página de produtos com estoque, vendas e lucro já consolidados, uma linha por "
+                    + "produto. O resumo é atualizado logo após cada alteração, com atraso de até alguns instantes"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resumos retornados com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = ProdutoResumoDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Tipo ou parâmetros de paginação inválidos"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<List<ProdutoResumoDto>> listarResumos(
+            @Parameter(description = "Tipo do produto (opcional)", schema = @Schema(implementation = TipoProduto.class))
+            @RequestParam(required = false) TipoProduto tipo,
+            @Parameter(description = "Número da página (a partir de 0)", example = "0")
+            @RequestParam(defaultValue = "0") int pagina,
+            @Parameter(description = "Quantidade de produtos por página (máximo 500)", example = "50")
+            @RequestParam(defaultValue = "50") int tamanho)
+    {
+        List<ProdutoResumoDto> resumos = produtoResumoService.listar(tipo, pagina, tamanho);
+        return ResponseEntity.ok(resumos);
+    }
+
+    @GetMapping("/relatorio-lucro")
+    @Operation(
+            summary = "Gerar relatório de lucro do catálogo",
+            description = "Calcula vendas e lucro de todos os produtos a partir das movimentações, "
+                    + "numa leitura consistente que não bloqueia novas movimentações"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Relatório gerado com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RelatorioLucroDto.class))),
+            @ApiResponse(responseCode = "503", description = "Relatório excedeu o tempo limite"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<RelatorioLucroDto> gerarRelatorioLucro()
+    {
+        RelatorioLucroDto relatorio = relatorioLucroService.gerar();
+        return ResponseEntity.ok(relatorio);
+    }
+
+    @PostMapping("/resumos/reconstrucao")
+    @Operation(
+            summary = "Reconstruir resumos de produtos",
+            description = "Recalcula o resumo de todos os produtos a partir das tabelas de produto e movimentação"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resumos reconstruídos com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ReconstrucaoResumoDto.class))),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    public ResponseEntity<ReconstrucaoResumoDto> reconstruirResumos()
+    {
+        ReconstrucaoResumoDto resultado = produtoResumoService.reconstruir();
+        return ResponseEntity.ok(resultado);
+    }
+}
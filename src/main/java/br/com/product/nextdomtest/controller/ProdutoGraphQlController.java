@@ -0,0 +1,152 @@
+package br.com.product.nextdomtest.controller;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoBuscaDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.dto.ProdutoResumoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.exception.OperacaoNaoPermitidaException;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoResumoService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.GraphQlExceptionHandler;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Endpoint {@code /graphql} sobre produtos, movimentações e lucro ({@code graphql/schema.graphqls}).
+ * <p>
+ * Os produtos vêm do {@code ProdutoCache}, como na API REST. {@code movimentos} e {@code lucro} são carregados
+ * em lote: o GraphQL junta os produtos da resposta e carrega cada campo uma vez para todos eles, então a página
+ * de N produtos custa uma consulta agrupada por campo, e não N.
+ * <p>
+ * As listas sem tamanho conhecido, {@code produtosPorTipo} e {@code movimentos}, são paginadas por
+ * {@code first} e {@code after}, e o custo da consulta ({@code GraphQlConfig}) conta {@code first} itens em cada
+ * uma. {@code movimentos} recebe argumentos, que um {@link BatchMapping} não enxerga: a chave do lote é o
+ * produto com a página pedida, e cada combinação de página distinta custa uma consulta.
+ */
+@Controller
+public class ProdutoGraphQlController
+{
+    private final ProdutoService produtoService;
+    private final MovimentoEstoqueService movimentoService;
+    private final ProdutoResumoService produtoResumoService;
+    private final int maximoPagina;
+
+    @Autowired
+    public ProdutoGraphQlController(ProdutoService produtoService, MovimentoEstoqueService movimentoService,
+                                    ProdutoResumoService produtoResumoService, BatchLoaderRegistry batchLoaderRegistry,
+                                    @Value("${estoque.graphql.maximo-pagina:100}") int maximoPagina)
+    {
+        this.produtoService = produtoService;
+        this.movimentoService = movimentoService;
+        this.produtoResumoService = produtoResumoService;
+        this.maximoPagina = maximoPagina;
+        batchLoaderRegistry.forTypePair(PaginaMovimentos.class, MovimentosDaPagina.class)
+                .registerMappedBatchLoader((paginas, ambiente) -> Mono.fromSupplier(() -> carregarMovimentos(paginas)));
+    }
+
+    @QueryMapping
+    public ProdutoDto produto(@Argument Long id)
+    {
+        return produtoService.buscarPorIds(List.of(id)).get(0).produto();
+    }
+
+    @QueryMapping
+    public List<ProdutoDto> produtos(@Argument List<Long> ids)
+    {
+        return produtoService.buscarPorIds(ids).stream().map(ProdutoBuscaDto::produto).toList();
+    }
+
+    @QueryMapping
+    public List<ProdutoDto> produtosPorTipo(@Argument TipoProduto tipo, @Argument int first, @Argument Long after)
+    {
+        return produtoService.listarPorTipo(tipo, after == null ? 0L : after, validarPagina(first));
+    }
+
+    @SchemaMapping(typeName = "Produto")
+    public CompletableFuture<List<MovimentoEstoqueDto>> movimentos(ProdutoDto produto, @Argument int first,
+                                                                   @Argument Long after,
+                                                                   DataLoader<PaginaMovimentos, MovimentosDaPagina> carregador)
+    {
+        return carregador.load(new PaginaMovimentos(produto.id(), validarPagina(first), after == null ? 0L : after))
+                .thenApply(MovimentosDaPagina::movimentos);
+    }
+
+    @BatchMapping(typeName = "Produto")
+    public Map<ProdutoDto, ProdutoResumoDto> lucro(List<ProdutoDto> produtos)
+    {
+        Map<Long, ProdutoResumoDto> porProduto = produtoResumoService.calcular(produtos.stream().map(ProdutoDto::id).toList())
+                .stream()
+                .collect(Collectors.toMap(ProdutoResumoDto::produtoId, Function.identity()));
+        // Produto removido depois de carregado: fica sem entrada e o campo, que aceita null, volta vazio
+        return produtos.stream()
+                .filter(produto -> porProduto.containsKey(produto.id()))
+                .collect(Collectors.toMap(Function.identity(), produto -> porProduto.get(produto.id()),
+                        (primeiro, repetido) -> primeiro));
+    }
+
+    private int validarPagina(int first)
+    {
+        if (first < 1 || first > maximoPagina)
+        {
+            throw new OperacaoNaoPermitidaException("first deve estar entre 1 e " + maximoPagina);
+        }
+        return first;
+    }
+
+    /**
+     * Uma consulta para cada página distinta pedida; normalmente há uma só, porque os produtos da mesma lista
+     * compartilham os argumentos de {@code movimentos}.
+     */
+    private Map<PaginaMovimentos, MovimentosDaPagina> carregarMovimentos(Set<PaginaMovimentos> paginas)
+    {
+        Map<PaginaMovimentos, MovimentosDaPagina> resultado = new HashMap<>();
+        paginas.stream()
+                .collect(Collectors.groupingBy(pagina -> List.of(pagina.limite(), pagina.aposId())))
+                .forEach((argumentos, doGrupo) -> {
+                    PaginaMovimentos primeira = doGrupo.get(0);
+                    Map<Long, List<MovimentoEstoqueDto>> porProduto = movimentoService.listarPorProdutos(
+                            doGrupo.stream().map(PaginaMovimentos::produtoId).toList(), primeira.aposId(), primeira.limite());
+                    doGrupo.forEach(pagina -> resultado.put(pagina, new MovimentosDaPagina(porProduto.get(pagina.produtoId()))));
+                });
+        return resultado;
+    }
+
+    record PaginaMovimentos(Long produtoId, int limite, long aposId)
+    {
+    }
+
+    record MovimentosDaPagina(List<MovimentoEstoqueDto> movimentos)
+    {
+    }
+
+    @GraphQlExceptionHandler
+    public GraphQLError tratarOperacaoNaoPermitida(OperacaoNaoPermitidaException ex, DataFetchingEnvironment ambiente)
+    {
+        return GraphqlErrorBuilder.newError(ambiente)
+                .errorType(ErrorType.BAD_REQUEST)
+                .message(ex.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.product.nextdomtest.datasource;
+
+/**
+ * Origem da thread corrente, usada como tag nas métricas de aquisição de conexão: o endpoint HTTP
+ * (definido pelo {@code AdmissaoRequisicaoInterceptor}) e o método de serviço mais externo
+ * (definido pelo {@link MetodoServicoAspect}).
+ */
+public final class ContextoConexao
+{
+    public static final String NENHUM = "nenhum";
+
+    private static final ThreadLocal<String> ENDPOINT = new ThreadLocal<>();
+    private static final ThreadLocal<String> METODO = new ThreadLocal<>();
+
+    private ContextoConexao()
+    {
+    }
+
+    public static String endpoint()
+    {
+        String endpoint = ENDPOINT.get();
+        return endpoint != null ? endpoint : NENHUM;
+    }
+
+    public static void definirEndpoint(String endpoint)
+    {
+        ENDPOINT.set(endpoint);
+    }
+
+    public static void limparEndpoint()
+    {
+        ENDPOINT.remove();
+    }
+
+    public static String metodo()
+    {
+        String metodo = METODO.get();
+        return metodo != null ? metodo : NENHUM;
+    }
+
+    /**
+     * Define o método apenas se nenhum outro estiver em andamento, para que chamadas internas entre
+     * serviços fiquem atribuídas ao método de entrada.
+     *
+     * @return {@code true} se o método foi definido e deve ser limpo por quem chamou
+     */
+    public static boolean definirMetodoSeAusente(String metodo)
+    {
+        if (METODO.get() != null)
+        {
+            return false;
+        }
+        METODO.set(metodo);
+        return true;
+    }
+
+    public static void limparMetodo()
+    {
+        METODO.remove();
+    }
+}
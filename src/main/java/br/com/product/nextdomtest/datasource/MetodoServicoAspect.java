@@ -0,0 +1,38 @@
+package br.com.product.nextdomtest.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registra em {@link ContextoConexao} o método público de serviço em execução, no formato
+ * {@code Classe.metodo}, para atribuir a ele o tempo de espera por conexão. Roda antes do
+ * {@code @Transactional}, que obtém a conexão ao abrir a transação.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetodoServicoAspect
+{
+    @Around("execution(public * br.com.product.nextdomtest.service..*(..))")
+    public Object registrarMetodo(ProceedingJoinPoint joinPoint) throws Throwable
+    {
+        String metodo = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        if (!ContextoConexao.definirMetodoSeAusente(metodo))
+        {
+            return joinPoint.proceed();
+        }
+
+        try
+        {
+            return joinPoint.proceed();
+        }
+        finally
+        {
+            ContextoConexao.limparMetodo();
+        }
+    }
+}
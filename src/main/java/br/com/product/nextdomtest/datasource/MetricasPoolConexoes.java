@@ -0,0 +1,142 @@
+package br.com.product.nextdomtest.datasource;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fábrica de métricas instalada em todos os pools Hikari. Mantém as métricas padrão
+ * {@code hikaricp.connections.*} (ativas, ociosas, pendentes e tempo de aquisição por pool) e acrescenta:
+ * <ul>
+ *     <li>{@code estoque.conexao.aquisicao}: histograma do tempo de espera por conexão com as tags
+ *     {@code pool}, {@code endpoint} e {@code metodo} de {@link ContextoConexao};</li>
+ *     <li>{@code estoque.conexao.timeout}: esperas que estouraram o {@code connectionTimeout}, com as mesmas tags.</li>
+ * </ul>
+ * Também expõe o sinal de saturação usado pela admissão de requisições: threads esperando conexão
+ * e a média móvel exponencial das últimas esperas.
+ */
+@Component
+public class MetricasPoolConexoes implements MetricsTrackerFactory
+{
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<String, PoolStats> pools = new ConcurrentHashMap<>();
+    private final AtomicLong esperaRecenteNanos = new AtomicLong();
+
+    @Autowired
+    public MetricasPoolConexoes(ObjectProvider<MeterRegistry> meterRegistry)
+    {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats)
+    {
+        pools.put(poolName, poolStats);
+        MeterRegistry registry = meterRegistry.getObject();
+        return new Rastreador(poolName, registry, new MicrometerMetricsTrackerFactory(registry).create(poolName, poolStats));
+    }
+
+    /**
+     * Soma das threads aguardando conexão em todos os pools.
+     */
+    public int pendentes()
+    {
+        int pendentes = 0;
+        for (PoolStats pool : pools.values())
+        {
+            pendentes += pool.getPendingThreads();
+        }
+        return pendentes;
+    }
+
+    /**
+     * Média móvel exponencial (peso 1/8) do tempo de espera das últimas conexões obtidas.
+     */
+    public Duration esperaRecente()
+    {
+        return Duration.ofNanos(esperaRecenteNanos.get());
+    }
+
+    /**
+     * O pool está saturado quando há threads na fila e as esperas recentes passam do orçamento.
+     */
+    public boolean saturado(Duration orcamentoEspera)
+    {
+        return pendentes() > 0 && esperaRecenteNanos.get() >= orcamentoEspera.toNanos();
+    }
+
+    private void registrarEspera(long nanos)
+    {
+        esperaRecenteNanos.accumulateAndGet(nanos, (media, amostra) -> media + (amostra - media) / 8);
+    }
+
+    private final class Rastreador implements IMetricsTracker
+    {
+        private final String pool;
+        private final MeterRegistry registry;
+        private final IMetricsTracker padrao;
+
+        private Rastreador(String pool, MeterRegistry registry, IMetricsTracker padrao)
+        {
+            this.pool = pool;
+            this.registry = registry;
+            this.padrao = padrao;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos)
+        {
+            padrao.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+            registrarEspera(elapsedAcquiredNanos);
+            Timer.builder("estoque.conexao.aquisicao")
+                    .description("Tempo de espera por uma conexão do pool")
+                    .tags("pool", pool, "endpoint", ContextoConexao.endpoint(), "metodo", ContextoConexao.metodo())
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void recordConnectionTimeout()
+        {
+            padrao.recordConnectionTimeout();
+            Counter.builder("estoque.conexao.timeout")
+                    .description("Esperas por conexão que estouraram o connectionTimeout")
+                    .tags("pool", pool, "endpoint", ContextoConexao.endpoint(), "metodo", ContextoConexao.metodo())
+                    .register(registry)
+                    .increment();
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis)
+        {
+            padrao.recordConnectionCreatedMillis(connectionCreatedMillis);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis)
+        {
+            padrao.recordConnectionUsageMillis(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void close()
+        {
+            pools.remove(pool);
+            padrao.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.product.nextdomtest.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Mede o atraso da réplica de leitura pela tabela {@code replica_heartbeat}: a cada verificação grava o
+ * horário atual no primário e lê o último horário que a replicação entregou à réplica. Os dois horários
+ * vêm do relógio desta aplicação, então diferenças de relógio entre os servidores não afetam a medida.
+ * <p>
+ * A resolução é o intervalo entre verificações, que deve ser menor que o atraso máximo. Até a primeira
+ * verificação, ou se a réplica não responde, ela é considerada atrasada e as leituras vão ao primário.
+ * O atraso medido é publicado em {@code estoque.replica.atraso}.
+ * <p>
+ * O horário lido na réplica também serve de marca d'água: como a replicação aplica os commits em ordem, a
+ * réplica contém toda escrita confirmada antes de o heartbeat com esse horário ser gravado
+ * ({@link #alcancou(long)}).
+ */
+public class MonitorAtrasoReplica
+{
+    private static final Logger log = LoggerFactory.getLogger(MonitorAtrasoReplica.class);
+
+    private final JdbcTemplate primario;
+    private final JdbcTemplate replica;
+    private final long atrasoMaximoMillis;
+    private volatile long atrasoMillis = Long.MAX_VALUE;
+    private volatile long marcadoNaReplica = Long.MIN_VALUE;
+
+    public MonitorAtrasoReplica(DataSource primario, DataSource replica, Duration atrasoMaximo, MeterRegistry meterRegistry)
+    {
+        this.primario = new JdbcTemplate(primario);
+        this.replica = new JdbcTemplate(replica);
+        this.atrasoMaximoMillis = atrasoMaximo.toMillis();
+
+        Gauge.builder("estoque.replica.atraso", this, monitor -> monitor.atrasoMillis == Long.MAX_VALUE ? Double.NaN : monitor.atrasoMillis)
+                .description("Atraso da réplica de leitura em relação ao primário")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${estoque.replica.intervalo-verificacao:1s}")
+    public void verificar()
+    {
+        long agora = System.currentTimeMillis();
+        try
+        {
+            primario.update("UPDATE replica_heartbeat SET marcado_em = ? WHERE id = 1", agora);
+        }
+        catch (DataAccessException e)
+        {
+            log.warn("Falha ao gravar o heartbeat da réplica no primário: {}", e.getMessage());
+        }
+
+        try
+        {
+            Long marcadoNaReplica = replica.queryForObject("SELECT marcado_em FROM replica_heartbeat WHERE id = 1", Long.class);
+            atrasoMillis = Math.max(0, agora - marcadoNaReplica);
+            this.marcadoNaReplica = marcadoNaReplica;
+        }
+        catch (DataAccessException e)
+        {
+            atrasoMillis = Long.MAX_VALUE;
+            this.marcadoNaReplica = Long.MIN_VALUE;
+            log.warn("Réplica de leitura indisponível, leituras seguem para o primário: {}", e.getMessage());
+        }
+    }
+
+    public boolean replicaEmDia()
+    {
+        return atrasoMillis <= atrasoMaximoMillis;
+    }
+
+    /**
+     * Se a réplica já recebeu tudo o que foi confirmado no primário até {@code instante}, em
+     * {@link System#currentTimeMillis()}. O heartbeat é gravado depois de tomado o horário, então um horário
+     * estritamente maior garante que a gravação dele veio depois de qualquer commit até {@code instante}.
+     */
+    public boolean alcancou(long instante)
+    {
+        return marcadoNaReplica > instante;
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.product.nextdomtest.datasource;
+
+public enum RotaDataSource
+{
+    PRIMARIO,
+    REPLICA
+}
@@ -0,0 +1,81 @@
+package br.com.product.nextdomtest.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Envia as conexões de transações {@code readOnly} para a réplica de leitura e as demais para o primário.
+ * Se o {@link MonitorAtrasoReplica} indica que a réplica está atrasada além do limite, as leituras também
+ * vão para o primário.
+ * <p>
+ * A leitura também vai para o primário enquanto a réplica não alcançou a última escrita registrada em
+ * {@code ultimaAlteracao} (o instante do último avanço de {@code VersaoCatalogo}). Sem isso, uma resposta com o
+ * ETag novo, ou um resultado de consulta compartilhada guardado sob a versão nova, poderia trazer dados de antes
+ * da escrita, e o cliente receberia 304 sobre eles até a próxima alteração.
+ * <p>
+ * A rota é decidida quando a conexão é obtida, então este {@code DataSource} precisa estar atrás de um
+ * {@code LazyConnectionDataSourceProxy}: o gerenciador de transações só marca a transação como somente
+ * leitura depois de pedir a conexão, e o proxy adia a obtenção real até o primeiro comando.
+ * Cada decisão é contada em {@code estoque.datasource.roteamento}, com as tags {@code rota} e {@code motivo}.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource
+{
+    private final MonitorAtrasoReplica monitorAtrasoReplica;
+    private final LongSupplier ultimaAlteracao;
+    private final Counter escritas;
+    private final Counter leiturasNaReplica;
+    private final Counter leiturasDesviadas;
+    private final Counter leiturasAposEscrita;
+
+    public RoteamentoDataSource(DataSource primario, DataSource replica, MonitorAtrasoReplica monitorAtrasoReplica,
+                                LongSupplier ultimaAlteracao, MeterRegistry meterRegistry)
+    {
+        this.monitorAtrasoReplica = monitorAtrasoReplica;
+        this.ultimaAlteracao = ultimaAlteracao;
+        this.escritas = contador(meterRegistry, RotaDataSource.PRIMARIO, "escrita");
+        this.leiturasNaReplica = contador(meterRegistry, RotaDataSource.REPLICA, "leitura");
+        this.leiturasDesviadas = contador(meterRegistry, RotaDataSource.PRIMARIO, "replica-atrasada");
+        this.leiturasAposEscrita = contador(meterRegistry, RotaDataSource.PRIMARIO, "escrita-nao-replicada");
+
+        setTargetDataSources(Map.of(RotaDataSource.PRIMARIO, primario, RotaDataSource.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey()
+    {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+        {
+            escritas.increment();
+            return RotaDataSource.PRIMARIO;
+        }
+        if (!monitorAtrasoReplica.replicaEmDia())
+        {
+            leiturasDesviadas.increment();
+            return RotaDataSource.PRIMARIO;
+        }
+        if (!monitorAtrasoReplica.alcancou(ultimaAlteracao.getAsLong()))
+        {
+            leiturasAposEscrita.increment();
+            return RotaDataSource.PRIMARIO;
+        }
+        leiturasNaReplica.increment();
+        return RotaDataSource.REPLICA;
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, RotaDataSource rota, String motivo)
+    {
+        return Counter.builder("estoque.datasource.roteamento")
+                .description("Conexões obtidas por rota do DataSource")
+                .tag("rota", rota.name().toLowerCase())
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
+}
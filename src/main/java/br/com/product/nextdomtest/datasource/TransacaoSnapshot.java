@@ -0,0 +1,86 @@
+package br.com.product.nextdomtest.datasource;
+
+import br.com.product.nextdomtest.exception.TempoLimiteExcedidoException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Executa leituras longas, como relatórios, numa transação somente leitura que enxerga uma única foto
+ * consistente do banco, sem bloquear nem ser bloqueada pelas escritas.
+ * <p>
+ * A transação é sempre nova e usa {@code REPEATABLE_READ}, que em bancos MVCC como o PostgreSQL já é um
+ * snapshot do banco inteiro. No H2, {@code REPEATABLE_READ} fixa cada tabela (com as ligadas a ela por chave
+ * estrangeira) só no primeiro acesso, então uma leitura que começa por outra tabela veria em {@code produto}
+ * e {@code movimento_estoque} escritas confirmadas depois do seu início; por isso a conexão H2 é elevada
+ * para o nível {@code SNAPSHOT}, que fixa todas as tabelas no primeiro comando. O nível anterior é restaurado pelo gerenciador de transações ao final.
+ * <p>
+ * {@code estoque.relatorio.timeout} limita a transação inteira: cada comando recebe como timeout o tempo
+ * restante, e o estouro vira {@link TempoLimiteExcedidoException}.
+ */
+@Component
+public class TransacaoSnapshot
+{
+    // org.h2.engine.Constants.TRANSACTION_SNAPSHOT
+    static final int ISOLAMENTO_SNAPSHOT_H2 = 6;
+
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+
+    @Autowired
+    public TransacaoSnapshot(PlatformTransactionManager transactionManager,
+                             DataSource dataSource,
+                             @Value("${estoque.relatorio.timeout:60s}") Duration timeout)
+    {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout(Math.toIntExact(Math.max(1, timeout.toSeconds())));
+        this.dataSource = dataSource;
+    }
+
+    public <T> T executar(String operacao, TransactionCallback<T> leitura)
+    {
+        try
+        {
+            return transactionTemplate.execute(status -> {
+                fixarSnapshot();
+                return leitura.doInTransaction(status);
+            });
+        }
+        catch (TransactionTimedOutException | QueryTimeoutException e)
+        {
+            throw new TempoLimiteExcedidoException(operacao, e);
+        }
+    }
+
+    private void fixarSnapshot()
+    {
+        Connection conexao = DataSourceUtils.getConnection(dataSource);
+        try
+        {
+            if ("H2".equals(conexao.getMetaData().getDatabaseProductName()))
+            {
+                conexao.setTransactionIsolation(ISOLAMENTO_SNAPSHOT_H2);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new CannotGetJdbcConnectionException("Falha ao abrir snapshot de leitura", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.product.nextdomtest.dto;
+
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movimentação confirmada e a quantidade em estoque do produto logo após ela, enviada aos assinantes do stream.
+ */
+public record AlteracaoEstoqueDto(
+        Long movimentoId,
+        Long produtoId,
+        TipoProduto tipoProduto,
+        TipoMovimentacao tipo,
+        Integer quantidade,
+        BigDecimal valorVenda,
+        LocalDateTime dataMovimentacao,
+        Integer quantidadeEstoque
+) {
+}
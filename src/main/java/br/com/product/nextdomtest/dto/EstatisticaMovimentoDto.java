@@ -0,0 +1,15 @@
+package br.com.product.nextdomtest.dto;
+
+import java.time.LocalDateTime;
+
+public record EstatisticaMovimentoDto(
+        Long produtoId,
+
+        Long quantidadeMovimentos,
+
+        Long totalEntrada,
+
+        Long totalSaida,
+
+        LocalDateTime ultimaMovimentacao
+) {}
@@ -0,0 +1,7 @@
+package br.com.product.nextdomtest.dto;
+
+public record EstoqueProdutoDto(
+        Long produtoId,
+
+        Integer quantidadeEstoque
+) {}
@@ -0,0 +1,14 @@
+package br.com.product.nextdomtest.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record LoteDto
+(
+    boolean transacional,
+
+    @NotEmpty(message = "O lote deve ter ao menos uma operação")
+    List<@Valid OperacaoLoteDto> operacoes
+) {}
@@ -0,0 +1,20 @@
+package br.com.product.nextdomtest.dto;
+
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record MovimentoCompactacaoDto(
+        Long id,
+
+        Long produtoId,
+
+        TipoMovimentacao tipo,
+
+        BigDecimal valorVenda,
+
+        Integer quantidade,
+
+        LocalDateTime dataMovimentacao
+) {}
@@ -0,0 +1,18 @@
+package br.com.product.nextdomtest.dto;
+
+import br.com.product.nextdomtest.enums.TipoOperacaoLote;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+
+public record OperacaoLoteDto
+(
+    @NotNull(message = "Operação é obrigatória")
+    TipoOperacaoLote operacao,
+
+    @Schema(description = "ID do produto, ou $n.id para o ID resultante da operação n do lote", example = "$0.id")
+    String id,
+
+    @Schema(description = "Corpo da operação: ProdutoDto ou MovimentoEstoqueDto; campos de texto $n.id são substituídos")
+    JsonNode corpo
+) {}
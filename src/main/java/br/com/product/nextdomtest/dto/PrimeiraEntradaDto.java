@@ -0,0 +1,10 @@
+package br.com.product.nextdomtest.dto;
+
+/**
+ * Quantidade da primeira entrada de um produto, base do valor unitário de compra.
+ */
+public record PrimeiraEntradaDto(
+        Long produtoId,
+        Integer quantidade
+) {
+}
@@ -0,0 +1,9 @@
+package br.com.product.nextdomtest.dto;
+
+public record ProdutoBuscaDto(
+        Long id,
+
+        boolean encontrado,
+
+        ProdutoDto produto
+) {}
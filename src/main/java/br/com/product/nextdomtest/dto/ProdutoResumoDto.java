@@ -0,0 +1,32 @@
+package br.com.product.nextdomtest.dto;
+
+import br.com.product.nextdomtest.enums.TipoProduto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record ProdutoResumoDto(
+        Long produtoId,
+
+        String codigo,
+
+        String descricao,
+
+        TipoProduto tipo,
+
+        BigDecimal valorFornecedor,
+
+        Integer quantidadeEstoque,
+
+        Long quantidadeVendida,
+
+        BigDecimal valorVendas,
+
+        BigDecimal valorCompraUnitario,
+
+        BigDecimal lucroTotal,
+
+        LocalDateTime ultimaVenda,
+
+        LocalDateTime atualizadoEm
+) {}
@@ -0,0 +1,7 @@
+package br.com.product.nextdomtest.dto;
+
+public record ReconstrucaoResumoDto(
+        Long produtosProcessados,
+
+        Long duracaoMs
+) {}
@@ -0,0 +1,21 @@
+package br.com.product.nextdomtest.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record RelatorioLucroDto(
+        LocalDateTime geradoEm,
+
+        Integer totalProdutos,
+
+        Long quantidadeVendida,
+
+        BigDecimal valorVendas,
+
+        BigDecimal lucroTotal,
+
+        Long duracaoMs,
+
+        List<ProdutoResumoDto> produtos
+) {}
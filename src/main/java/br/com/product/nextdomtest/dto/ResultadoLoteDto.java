@@ -0,0 +1,14 @@
+package br.com.product.nextdomtest.dto;
+
+import java.util.List;
+
+public record ResultadoLoteDto
+(
+    boolean transacional,
+
+    boolean sucesso,
+
+    int status,
+
+    List<ResultadoOperacaoLoteDto> resultados
+) {}
@@ -0,0 +1,18 @@
+package br.com.product.nextdomtest.dto;
+
+import br.com.product.nextdomtest.enums.TipoOperacaoLote;
+
+public record ResultadoOperacaoLoteDto
+(
+    int indice,
+
+    TipoOperacaoLote operacao,
+
+    int status,
+
+    Long id,
+
+    Object corpo,
+
+    Object erro
+) {}
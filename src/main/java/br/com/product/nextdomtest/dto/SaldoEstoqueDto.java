@@ -0,0 +1,13 @@
+package br.com.product.nextdomtest.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Quantidade em estoque do produto ao final do dia informado.
+ */
+public record SaldoEstoqueDto(
+        Long produtoId,
+        LocalDate data,
+        Integer quantidadeEstoque
+) {
+}
@@ -0,0 +1,10 @@
+package br.com.product.nextdomtest.dto;
+
+/**
+ * Variação líquida do estoque de um produto num período: entradas menos saídas.
+ */
+public record SaldoMovimentoDto(
+        Long produtoId,
+        Long saldo
+) {
+}
@@ -0,0 +1,15 @@
+package br.com.product.nextdomtest.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saídas de um produto somadas: quantidade, valor ({@code valorVenda * quantidade}) e data da última.
+ */
+public record VendaProdutoDto(
+        Long produtoId,
+        Long quantidade,
+        BigDecimal valor,
+        LocalDateTime ultimaVenda
+) {
+}
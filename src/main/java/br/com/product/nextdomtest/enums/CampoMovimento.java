@@ -0,0 +1,27 @@
+package br.com.product.nextdomtest.enums;
+
+/**
+ * Campos de movimentação que podem ser pedidos em {@code ?fields=}, com o nome usado na resposta.
+ */
+public enum CampoMovimento
+{
+    ID("id"),
+    PRODUTO_ID("produtoId"),
+    PRODUTO("produto"),
+    TIPO("tipo"),
+    VALOR_VENDA("valorVenda"),
+    QUANTIDADE("quantidade"),
+    DATA_MOVIMENTACAO("dataMovimentacao");
+
+    private final String nome;
+
+    CampoMovimento(String nome)
+    {
+        this.nome = nome;
+    }
+
+    public String nome()
+    {
+        return nome;
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.product.nextdomtest.enums;
+
+/**
+ * Campos de produto que podem ser pedidos em {@code ?fields=}, com o nome usado na resposta.
+ */
+public enum CampoProduto
+{
+    ID("id"),
+    CODIGO("codigo"),
+    DESCRICAO("descricao"),
+    TIPO("tipo"),
+    VALOR_FORNECEDOR("valorFornecedor"),
+    QUANTIDADE_ESTOQUE("quantidadeEstoque");
+
+    private final String nome;
+
+    CampoProduto(String nome)
+    {
+        this.nome = nome;
+    }
+
+    public String nome()
+    {
+        return nome;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.product.nextdomtest.enums;
+
+/**
+ * Operações aceitas em {@code POST /api/batch}, cada uma correspondente a um endpoint de produtos ou movimentações.
+ * O método e a rota do endpoint decidem de qual orçamento do limite por cliente a operação é cobrada.
+ */
+public enum TipoOperacaoLote
+{
+    CRIAR_PRODUTO("POST", "/api/produtos"),
+    ATUALIZAR_PRODUTO("PUT", "/api/produtos/{id}"),
+    EXCLUIR_PRODUTO("DELETE", "/api/produtos/{id}"),
+    BUSCAR_PRODUTO("GET", "/api/produtos/{id}"),
+    REGISTRAR_MOVIMENTO("POST", "/api/movimentos"),
+    CONSULTAR_LUCRO("GET", "/api/produtos/{id}/lucro");
+
+    private final String metodo;
+    private final String rota;
+
+    TipoOperacaoLote(String metodo, String rota)
+    {
+        this.metodo = metodo;
+        this.rota = rota;
+    }
+
+    public String metodo()
+    {
+        return metodo;
+    }
+
+    public String rota()
+    {
+        return rota;
+    }
+}
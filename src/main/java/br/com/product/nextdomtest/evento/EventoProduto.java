@@ -0,0 +1,10 @@
+package br.com.product.nextdomtest.evento;
+
+/**
+ * Evento de domínio que altera o resumo de um produto. Publicado dentro da transação da escrita, que
+ * grava junto a marca de resumo pendente.
+ */
+public sealed interface EventoProduto permits ProdutoAlteradoEvento, MovimentoRegistradoEvento, MovimentosCompactadosEvento
+{
+    Long produtoId();
+}
@@ -0,0 +1,5 @@
+package br.com.product.nextdomtest.evento;
+
+public record MovimentoRegistradoEvento(Long produtoId, Long movimentoId) implements EventoProduto
+{
+}
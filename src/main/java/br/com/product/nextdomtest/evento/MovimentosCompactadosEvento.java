@@ -0,0 +1,9 @@
+package br.com.product.nextdomtest.evento;
+
+/**
+ * Movimentos do produto consolidados pela compactação. Os totais não mudam, mas um resumo calculado
+ * enquanto o lote era confirmado precisa ser refeito.
+ */
+public record MovimentosCompactadosEvento(Long produtoId) implements EventoProduto
+{
+}
@@ -0,0 +1,8 @@
+package br.com.product.nextdomtest.evento;
+
+/**
+ * Produto cadastrado, atualizado ou excluído.
+ */
+public record ProdutoAlteradoEvento(Long produtoId) implements EventoProduto
+{
+}
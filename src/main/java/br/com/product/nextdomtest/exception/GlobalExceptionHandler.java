@@ -1,12 +1,16 @@
 package br.com.product.nextdomtest.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException; // Importar esta
 import org.springframework.validation.FieldError; // Importar esta
 import org.springframework.web.bind.MethodArgumentNotValidException; // Importar esta
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -69,6 +73,18 @@ public class GlobalExceptionHandler
         return gerarErro(HttpStatus.BAD_REQUEST, message);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<?> handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException ex)
+    {
+        return gerarErro(HttpStatus.BAD_REQUEST, "Valor inválido para o parâmetro '" + ex.getName() + "': " + ex.getValue());
+    }
+
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<?> handleMissingServletRequestParameter(MissingServletRequestParameterException ex)
+    {
+        return gerarErro(HttpStatus.BAD_REQUEST, "Parâmetro obrigatório ausente: " + ex.getParameterName());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleGeneric(Exception ex)
     {
@@ -87,6 +103,34 @@ public class GlobalExceptionHandler
         return gerarErro(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(ServicoSobrecarregadoException.class)
+    public ResponseEntity<?> handleServicoSobrecarregado(ServicoSobrecarregadoException ex)
+    {
+        ResponseEntity<Map<String, Object>> erro = gerarErro(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        return ResponseEntity.status(erro.getStatusCode())
+                .headers(erro.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getTentarNovamenteEm().toSeconds())))
+                .body(erro.getBody());
+    }
+
+    @ExceptionHandler(LimiteRequisicoesExcedidoException.class)
+    public ResponseEntity<?> handleLimiteRequisicoesExcedido(LimiteRequisicoesExcedidoException ex)
+    {
+        ResponseEntity<Map<String, Object>> erro = gerarErro(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+        // Arredonda para cima: antes disso o token ainda não existe e o cliente seria recusado de novo
+        long segundos = ex.getTentarNovamenteEm().plusNanos(999_999_999).toSeconds();
+        return ResponseEntity.status(erro.getStatusCode())
+                .headers(erro.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, segundos)))
+                .body(erro.getBody());
+    }
+
+    @ExceptionHandler(TempoLimiteExcedidoException.class)
+    public ResponseEntity<?> handleTempoLimiteExcedido(TempoLimiteExcedidoException ex)
+    {
+        return gerarErro(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
     private ResponseEntity<Map<String, Object>> gerarErro(HttpStatus status, String mensagem)
     {
         Map<String, Object> body = new HashMap<>();
@@ -94,6 +138,9 @@ public class GlobalExceptionHandler
         body.put("status", status.value());
         body.put("error", status.getReasonPhrase());
         body.put("message", mensagem);
-        return new ResponseEntity<>(body, status);
+        // Erros são sempre JSON, mesmo quando o endpoint produz SSE ou formato binário e o Accept só aceita esse tipo
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
\ No newline at end of file
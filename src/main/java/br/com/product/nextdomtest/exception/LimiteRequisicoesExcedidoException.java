@@ -0,0 +1,20 @@
+package br.com.product.nextdomtest.exception;
+
+import java.time.Duration;
+
+public class LimiteRequisicoesExcedidoException extends RuntimeException
+{
+    private final Duration tentarNovamenteEm;
+
+    public LimiteRequisicoesExcedidoException(String motivo, Duration tentarNovamenteEm)
+    {
+        // Sem stack trace: sob uma rajada de recusas, preenchê-lo custaria mais que todo o resto do limite
+        super("Limite de requisições excedido: " + motivo, null, false, false);
+        this.tentarNovamenteEm = tentarNovamenteEm;
+    }
+
+    public Duration getTentarNovamenteEm()
+    {
+        return tentarNovamenteEm;
+    }
+}
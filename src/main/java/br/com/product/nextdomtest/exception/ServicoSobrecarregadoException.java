@@ -0,0 +1,19 @@
+package br.com.product.nextdomtest.exception;
+
+import java.time.Duration;
+
+public class ServicoSobrecarregadoException extends RuntimeException
+{
+    private final Duration tentarNovamenteEm;
+
+    public ServicoSobrecarregadoException(String motivo, Duration tentarNovamenteEm)
+    {
+        super("Serviço sobrecarregado: " + motivo);
+        this.tentarNovamenteEm = tentarNovamenteEm;
+    }
+
+    public Duration getTentarNovamenteEm()
+    {
+        return tentarNovamenteEm;
+    }
+}
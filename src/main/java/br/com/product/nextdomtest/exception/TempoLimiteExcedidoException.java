@@ -0,0 +1,9 @@
+package br.com.product.nextdomtest.exception;
+
+public class TempoLimiteExcedidoException extends RuntimeException
+{
+    public TempoLimiteExcedidoException(String operacao, Throwable causa)
+    {
+        super("Tempo limite excedido: " + operacao, causa);
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.product.nextdomtest.journal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estoque por produto reconstruído pela leitura do journal. Movimentos de um produto com ID menor que o
+ * último já aplicado são ignorados, a mesma regra do {@code EstoqueEmMemoria}.
+ * <p>
+ * {@link #fechadoCorretamente()} diz se o último registro lido é um {@link RegistroJournal.Tipo#FECHAMENTO}.
+ * Sem ele, o processo anterior parou sem garantir que todo commit chegou ao journal.
+ */
+public class EstadoJournal
+{
+    private final Map<Long, Integer> quantidades = new HashMap<>();
+    private final Map<Long, Long> ultimosMovimentos = new HashMap<>();
+    private long ultimoMovimentoId;
+    private long registros;
+    private boolean fechado;
+
+    public void aplicar(RegistroJournal registro)
+    {
+        registros++;
+        ultimoMovimentoId = Math.max(ultimoMovimentoId, registro.movimentoId());
+        fechado = registro.tipo() == RegistroJournal.Tipo.FECHAMENTO;
+
+        switch (registro.tipo())
+        {
+            case INICIO_CHECKPOINT ->
+            {
+                quantidades.clear();
+                ultimosMovimentos.clear();
+            }
+            case CADASTRO -> quantidades.put(registro.produtoId(), registro.quantidadeResultante());
+            case CHECKPOINT ->
+            {
+                quantidades.put(registro.produtoId(), registro.quantidadeResultante());
+                ultimosMovimentos.put(registro.produtoId(), registro.movimentoId());
+            }
+            case ENTRADA, SAIDA ->
+            {
+                long ultimo = ultimosMovimentos.getOrDefault(registro.produtoId(), 0L);
+                if (registro.movimentoId() >= ultimo)
+                {
+                    quantidades.put(registro.produtoId(), registro.quantidadeResultante());
+                    ultimosMovimentos.put(registro.produtoId(), registro.movimentoId());
+                }
+            }
+            case EXCLUSAO ->
+            {
+                quantidades.remove(registro.produtoId());
+                ultimosMovimentos.remove(registro.produtoId());
+            }
+            case FECHAMENTO ->
+            {
+            }
+        }
+    }
+
+    public Map<Long, Integer> quantidades()
+    {
+        return quantidades;
+    }
+
+    public long ultimoMovimentoId()
+    {
+        return ultimoMovimentoId;
+    }
+
+    public long registros()
+    {
+        return registros;
+    }
+
+    public boolean fechadoCorretamente()
+    {
+        return fechado;
+    }
+}
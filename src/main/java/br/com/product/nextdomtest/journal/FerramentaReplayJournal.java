@@ -0,0 +1,62 @@
+package br.com.product.nextdomtest.journal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ferramenta de linha de comando que lê um diretório de journal sem alterá-lo e imprime o estoque
+ * reconstruído de cada produto, ou cada registro com {@code --registros}.
+ * <p>
+ * Uso: {@code java -cp target/classes br.com.product.nextdomtest.journal.FerramentaReplayJournal <diretorio> [--registros]}
+ */
+public final class FerramentaReplayJournal
+{
+    private FerramentaReplayJournal()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Uso: FerramentaReplayJournal <diretorio> [--registros]");
+            System.exit(2);
+        }
+
+        boolean listarRegistros = args.length > 1 && "--registros".equals(args[1]);
+        System.exit(executar(Path.of(args[0]), listarRegistros, System.out));
+    }
+
+    static int executar(Path diretorio, boolean listarRegistros, PrintStream saida) throws IOException
+    {
+        EstadoJournal estado = new EstadoJournal();
+        JournalMovimentos.Leitura leitura = JournalMovimentos.ler(diretorio, registro -> {
+            estado.aplicar(registro);
+            if (listarRegistros)
+            {
+                saida.println(registro);
+            }
+        });
+
+        saida.printf("Segmentos: %d, registros válidos: %d, último movimento: %d, fechado corretamente: %s%n",
+                leitura.segmentos(), leitura.registros(), estado.ultimoMovimentoId(),
+                estado.fechadoCorretamente() ? "sim" : "não");
+        if (leitura.caudaDescartada())
+        {
+            saida.printf("Último segmento termina num registro incompleto na posição %d; ele será descartado na próxima abertura%n",
+                    leitura.posicaoFinal());
+        }
+
+        if (!listarRegistros)
+        {
+            for (Map.Entry<Long, Integer> estoque : new TreeMap<>(estado.quantidades()).entrySet())
+            {
+                saida.printf("%d\t%d%n", estoque.getKey(), estoque.getValue());
+            }
+        }
+        return leitura.caudaDescartada() ? 1 : 0;
+    }
+}
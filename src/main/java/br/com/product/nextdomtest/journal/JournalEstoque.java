@@ -0,0 +1,290 @@
+package br.com.product.nextdomtest.journal;
+
+import br.com.product.nextdomtest.model.MovimentoEstoque;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Modo opcional ({@code estoque.journal.habilitado}) em que toda alteração de estoque confirmada é anexada
+ * a um {@link JournalMovimentos}. O banco continua sendo o registro das escritas; o journal é um cache de
+ * inicialização: o estado é reconstruído dele por leitura sequencial e entregue ao
+ * {@code CarregadorEstoqueEmMemoria}, sem varrer a tabela de produtos.
+ * <p>
+ * O registro é anexado após o commit, sem {@code force()}, então o journal nunca contém eventos de
+ * transações desfeitas. Como o anexo acontece depois do commit, em cada thread, uma queda ou uma falha de
+ * gravação no meio deixa um buraco que nenhuma comparação de contagem ou de último ID garante encontrar.
+ * Por isso o journal só vale se terminar num {@link RegistroJournal.Tipo#FECHAMENTO}: {@link #fechar()}
+ * recusa novos registros, espera as transações que já registraram terminarem e só então o grava, e apenas
+ * se nenhum anexo falhou. Depois de uma queda ou de uma falha, a próxima inicialização carrega do banco e
+ * refaz o journal com um checkpoint.
+ */
+@Component
+public class JournalEstoque
+{
+    private static final Logger log = LoggerFactory.getLogger(JournalEstoque.class);
+    private static final Duration ESPERA_FECHAMENTO = Duration.ofSeconds(30);
+
+    private final JournalMovimentos journal;
+    private final EstadoJournal estadoRecuperado;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition semPendentes = lock.newCondition();
+    private int pendentes;
+    private boolean fechado;
+    private volatile boolean divergente;
+
+    @Autowired
+    public JournalEstoque(@Value("${estoque.journal.habilitado:false}") boolean habilitado,
+                          @Value("${estoque.journal.diretorio:./data/journal}") String diretorio,
+                          @Value("${estoque.journal.tamanho-segmento:64MB}") DataSize tamanhoSegmento) throws IOException
+    {
+        if (!habilitado)
+        {
+            this.journal = null;
+            this.estadoRecuperado = null;
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        EstadoJournal estado = new EstadoJournal();
+        this.journal = JournalMovimentos.abrir(Path.of(diretorio), Math.toIntExact(tamanhoSegmento.toBytes()), estado::aplicar);
+        this.estadoRecuperado = estado;
+        log.info("Journal de estoque em {} lido: {} produtos em {} ms",
+                diretorio, estado.quantidades().size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public static JournalEstoque desabilitado()
+    {
+        try
+        {
+            return new JournalEstoque(false, null, null);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean habilitado()
+    {
+        return journal != null;
+    }
+
+    /**
+     * Estado reconstruído do journal na inicialização; vazio com o journal desabilitado.
+     */
+    public Optional<EstadoJournal> estadoRecuperado()
+    {
+        return Optional.ofNullable(estadoRecuperado);
+    }
+
+    public void registrarCadastro(long produtoId, int quantidade)
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        registrar(new RegistroJournal(RegistroJournal.Tipo.CADASTRO, produtoId, 0L, quantidade, quantidade,
+                Instant.now().toEpochMilli(), null));
+    }
+
+    public void registrarMovimento(MovimentoEstoque movimento, int quantidadeResultante)
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        RegistroJournal.Tipo tipo = switch (movimento.getTipo())
+        {
+            case ENTRADA -> RegistroJournal.Tipo.ENTRADA;
+            case SAIDA -> RegistroJournal.Tipo.SAIDA;
+        };
+        registrar(new RegistroJournal(tipo, movimento.getProduto().getId(), movimento.getId(), movimento.getQuantidade(),
+                quantidadeResultante, Instant.now().toEpochMilli(), movimento.getValorVenda()));
+    }
+
+    public void registrarExclusao(long produtoId)
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        registrar(new RegistroJournal(RegistroJournal.Tipo.EXCLUSAO, produtoId, 0L, 0, 0,
+                Instant.now().toEpochMilli(), null));
+    }
+
+    /**
+     * Reescreve o journal com o estoque atual de cada produto, usado quando o journal diverge do banco.
+     */
+    public void checkpoint(Map<Long, Integer> estoques, long ultimoMovimentoId)
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        long agora = Instant.now().toEpochMilli();
+        List<RegistroJournal> registros = new ArrayList<>(estoques.size());
+        estoques.forEach((produtoId, quantidade) -> registros.add(new RegistroJournal(RegistroJournal.Tipo.CHECKPOINT,
+                produtoId, ultimoMovimentoId, 0, quantidade, agora, null)));
+
+        try
+        {
+            journal.checkpoint(new RegistroJournal(RegistroJournal.Tipo.INICIO_CHECKPOINT, 0L, ultimoMovimentoId, 0, 0,
+                    agora, null), registros);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Falha ao gravar checkpoint do journal de estoque", e);
+        }
+    }
+
+    /**
+     * Grava o {@link RegistroJournal.Tipo#FECHAMENTO} se todo commit registrado chegou ao journal. Transações
+     * que tentam registrar depois daqui são desfeitas; as que ainda não terminaram têm até
+     * {@code ESPERA_FECHAMENTO} e, se passarem disso, o fechamento não é gravado.
+     */
+    @PreDestroy
+    public void fechar() throws IOException
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        lock.lock();
+        try
+        {
+            fechado = true;
+            long restante = ESPERA_FECHAMENTO.toNanos();
+            while (pendentes > 0 && restante > 0)
+            {
+                restante = semPendentes.awaitNanos(restante);
+            }
+
+            if (pendentes == 0 && !divergente)
+            {
+                journal.anexar(new RegistroJournal(RegistroJournal.Tipo.FECHAMENTO, 0L, 0L, 0, 0,
+                        Instant.now().toEpochMilli(), null));
+            }
+            else
+            {
+                log.warn("Journal de estoque fechado sem registro de fechamento ({} transações pendentes, divergente: {}); "
+                        + "a próxima inicialização carrega do banco", pendentes, divergente);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            lock.unlock();
+            journal.close();
+        }
+    }
+
+    /**
+     * Chamado dentro da transação que altera o estoque: o anexo acontece no commit, e a transação conta como
+     * pendente para {@link #fechar()} até terminar, confirmada ou desfeita.
+     */
+    private void registrar(RegistroJournal registro)
+    {
+        iniciarRegistro();
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            try
+            {
+                anexar(registro);
+            }
+            finally
+            {
+                concluirRegistro();
+            }
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+        {
+            @Override
+            public void afterCommit()
+            {
+                anexar(registro);
+            }
+
+            @Override
+            public void afterCompletion(int status)
+            {
+                concluirRegistro();
+            }
+        });
+    }
+
+    private void anexar(RegistroJournal registro)
+    {
+        try
+        {
+            journal.anexar(registro);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // O banco já confirmou: sem o fechamento, a próxima inicialização refaz o journal com um checkpoint
+            divergente = true;
+            log.error("Falha ao gravar {} do produto {} no journal de estoque", registro.tipo(), registro.produtoId(), e);
+        }
+    }
+
+    private void iniciarRegistro()
+    {
+        lock.lock();
+        try
+        {
+            if (fechado)
+            {
+                throw new IllegalStateException("Journal de estoque fechado: a aplicação está sendo encerrada");
+            }
+            pendentes++;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void concluirRegistro()
+    {
+        lock.lock();
+        try
+        {
+            if (--pendentes == 0)
+            {
+                semPendentes.signalAll();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+}
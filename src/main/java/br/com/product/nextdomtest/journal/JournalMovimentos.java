@@ -0,0 +1,387 @@
+package br.com.product.nextdomtest.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal append-only de eventos de estoque em segmentos de tamanho fixo mapeados em memória.
+ * <p>
+ * Cada segmento começa com um cabeçalho (número mágico e versão) seguido de registros
+ * {@code [tamanho:int][crc32:int][payload]}. O fim dos dados é o primeiro registro com tamanho zero;
+ * um registro com tamanho ou CRC inválido no último segmento é tratado como escrita interrompida por
+ * queda e descartado, junto com o restante do segmento, na abertura. Em segmentos anteriores é corrupção.
+ * <p>
+ * {@link #anexar} só copia o registro para o mapeamento; {@link #sincronizar} força o segmento para o
+ * disco. Threads que chegam enquanto outra força aguardam e, na maioria dos casos, já encontram seus
+ * registros gravados, então um único {@code force()} cobre um grupo de escritas concorrentes.
+ * <p>
+ * A anexação, a troca de segmento, o checkpoint e o fechamento usam um segundo {@link ReentrantLock}, porque
+ * também forçam o segmento e abrem arquivos. Nenhum dos dois é {@code synchronized}, que no Java 21 prenderia
+ * a thread portadora de cada thread virtual parada aguardando o disco.
+ */
+public final class JournalMovimentos implements Closeable
+{
+    static final int MAGICO = 0x454A4E4C;
+    static final int VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 8;
+    static final int TAMANHO_REGISTRO = 8 + RegistroJournal.TAMANHO_PAYLOAD;
+
+    private static final String PREFIXO = "segmento-";
+    private static final String SUFIXO = ".journal";
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final ReentrantLock lockSincronizacao = new ReentrantLock();
+    private final ReentrantLock lockEscrita = new ReentrantLock();
+
+    private FileChannel canal;
+    private MappedByteBuffer mapeamento;
+    private long numeroSegmento;
+    private long anexados;
+    private volatile long duraveis;
+
+    private JournalMovimentos(Path diretorio, int tamanhoSegmento)
+    {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+    }
+
+    /**
+     * Abre o journal do diretório para escrita, entregando antes todos os registros válidos ao consumidor.
+     * Uma cauda interrompida no último segmento é apagada para que novos registros a sobrescrevam.
+     */
+    public static JournalMovimentos abrir(Path diretorio, int tamanhoSegmento, Consumer<RegistroJournal> consumidor)
+            throws IOException
+    {
+        if (tamanhoSegmento < TAMANHO_CABECALHO + TAMANHO_REGISTRO)
+        {
+            throw new IllegalArgumentException("Tamanho de segmento muito pequeno: " + tamanhoSegmento);
+        }
+
+        Files.createDirectories(diretorio);
+        Leitura leitura = ler(diretorio, consumidor);
+
+        JournalMovimentos journal = new JournalMovimentos(diretorio, tamanhoSegmento);
+        if (leitura.ultimoSegmento() == 0)
+        {
+            journal.criarSegmento(1);
+        }
+        else
+        {
+            journal.abrirSegmento(leitura.ultimoSegmento(), leitura.posicaoFinal(), leitura.caudaDescartada());
+        }
+        return journal;
+    }
+
+    /**
+     * Lê todos os registros válidos do diretório, sem alterar os arquivos.
+     */
+    public static Leitura ler(Path diretorio, Consumer<RegistroJournal> consumidor) throws IOException
+    {
+        List<Path> segmentos = listarSegmentos(diretorio);
+        long registros = 0;
+        int posicaoFinal = TAMANHO_CABECALHO;
+        boolean caudaDescartada = false;
+
+        for (int i = 0; i < segmentos.size(); i++)
+        {
+            boolean ultimo = i == segmentos.size() - 1;
+            try (FileChannel leitura = FileChannel.open(segmentos.get(i), StandardOpenOption.READ))
+            {
+                ByteBuffer dados = leitura.map(FileChannel.MapMode.READ_ONLY, 0, leitura.size());
+                int posicao = lerSegmento(segmentos.get(i), dados, ultimo, consumidor);
+                registros += (posicao - TAMANHO_CABECALHO) / TAMANHO_REGISTRO;
+                posicaoFinal = Math.max(posicao, TAMANHO_CABECALHO);
+                caudaDescartada = ultimo && temDadosApos(dados, posicao);
+            }
+        }
+
+        long ultimoSegmento = segmentos.isEmpty() ? 0 : numeroDoSegmento(segmentos.get(segmentos.size() - 1));
+        return new Leitura(segmentos.size(), ultimoSegmento, registros, posicaoFinal, caudaDescartada);
+    }
+
+    /**
+     * Copia o registro para o segmento corrente.
+     *
+     * @return número de sequência do registro, a ser passado para {@link #sincronizar}
+     */
+    public long anexar(RegistroJournal registro) throws IOException
+    {
+        lockEscrita.lock();
+        try
+        {
+            if (!canal.isOpen())
+            {
+                throw new IOException("Journal fechado");
+            }
+            if (mapeamento.position() + TAMANHO_REGISTRO > mapeamento.capacity())
+            {
+                rotacionar();
+            }
+
+            int inicio = mapeamento.position();
+            mapeamento.position(inicio + 8);
+            registro.escrever(mapeamento);
+
+            CRC32 crc = new CRC32();
+            crc.update(mapeamento.duplicate().position(inicio + 8).limit(inicio + TAMANHO_REGISTRO));
+            mapeamento.putInt(inicio + 4, (int) crc.getValue());
+            mapeamento.putInt(inicio, RegistroJournal.TAMANHO_PAYLOAD);
+            mapeamento.position(inicio + TAMANHO_REGISTRO);
+
+            return ++anexados;
+        }
+        finally
+        {
+            lockEscrita.unlock();
+        }
+    }
+
+    /**
+     * Garante que o registro de número {@code sequencia} e todos os anteriores estão no disco.
+     */
+    public void sincronizar(long sequencia)
+    {
+        if (duraveis >= sequencia)
+        {
+            return;
+        }
+
+        lockSincronizacao.lock();
+        try
+        {
+            if (duraveis >= sequencia)
+            {
+                return;
+            }
+
+            long alvo;
+            MappedByteBuffer segmento;
+            lockEscrita.lock();
+            try
+            {
+                alvo = anexados;
+                segmento = mapeamento;
+            }
+            finally
+            {
+                lockEscrita.unlock();
+            }
+            // Fora do lock de escrita: as anexações seguem enquanto o disco trabalha
+            segmento.force();
+            duraveis = alvo;
+        }
+        finally
+        {
+            lockSincronizacao.unlock();
+        }
+    }
+
+    /**
+     * Substitui o conteúdo do journal pelos registros informados, precedidos de um
+     * {@link RegistroJournal.Tipo#INICIO_CHECKPOINT}. O checkpoint é gravado num segmento novo antes de os
+     * anteriores serem apagados; se a remoção for interrompida, a leitura ainda descarta o que vem antes dele.
+     */
+    public void checkpoint(RegistroJournal inicio, List<RegistroJournal> registros) throws IOException
+    {
+        lockEscrita.lock();
+        try
+        {
+            long primeiroNovo = numeroSegmento + 1;
+            mapeamento.force();
+            canal.close();
+            criarSegmento(primeiroNovo);
+
+            anexar(inicio);
+            for (RegistroJournal registro : registros)
+            {
+                anexar(registro);
+            }
+            mapeamento.force();
+            duraveis = anexados;
+
+            for (Path segmento : listarSegmentos(diretorio))
+            {
+                if (numeroDoSegmento(segmento) < primeiroNovo)
+                {
+                    Files.deleteIfExists(segmento);
+                }
+            }
+        }
+        finally
+        {
+            lockEscrita.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        lockEscrita.lock();
+        try
+        {
+            if (canal != null && canal.isOpen())
+            {
+                mapeamento.force();
+                canal.close();
+            }
+        }
+        finally
+        {
+            lockEscrita.unlock();
+        }
+    }
+
+    private void rotacionar() throws IOException
+    {
+        mapeamento.force();
+        canal.close();
+        criarSegmento(numeroSegmento + 1);
+    }
+
+    private void criarSegmento(long numero) throws IOException
+    {
+        abrirCanal(numero);
+        mapeamento.putInt(0, MAGICO);
+        mapeamento.putInt(4, VERSAO);
+        mapeamento.position(TAMANHO_CABECALHO);
+    }
+
+    private void abrirSegmento(long numero, int posicao, boolean limparCauda) throws IOException
+    {
+        abrirCanal(numero);
+        if (mapeamento.getInt(0) != MAGICO)
+        {
+            mapeamento.putInt(0, MAGICO);
+            mapeamento.putInt(4, VERSAO);
+        }
+        if (limparCauda)
+        {
+            for (int i = posicao; i < mapeamento.capacity(); i++)
+            {
+                mapeamento.put(i, (byte) 0);
+            }
+            mapeamento.force();
+        }
+        mapeamento.position(posicao);
+    }
+
+    private void abrirCanal(long numero) throws IOException
+    {
+        numeroSegmento = numero;
+        canal = FileChannel.open(diretorio.resolve(nomeDoSegmento(numero)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long tamanho = Math.max(canal.size(), tamanhoSegmento);
+        mapeamento = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+    }
+
+    /**
+     * Entrega os registros válidos do segmento e retorna a posição logo após o último deles.
+     */
+    private static int lerSegmento(Path arquivo, ByteBuffer dados, boolean ultimo, Consumer<RegistroJournal> consumidor)
+    {
+        if (dados.limit() < TAMANHO_CABECALHO || dados.getInt(0) != MAGICO)
+        {
+            if (ultimo)
+            {
+                return 0;
+            }
+            throw new IllegalStateException("Cabeçalho inválido no segmento " + arquivo);
+        }
+        if (dados.getInt(4) != VERSAO)
+        {
+            throw new IllegalStateException("Versão " + dados.getInt(4) + " não suportada no segmento " + arquivo);
+        }
+
+        int posicao = TAMANHO_CABECALHO;
+        CRC32 crc = new CRC32();
+        while (posicao + 8 <= dados.limit())
+        {
+            int tamanho = dados.getInt(posicao);
+            if (tamanho == 0 && !temDadosApos(dados, posicao))
+            {
+                return posicao;
+            }
+
+            boolean valido = tamanho == RegistroJournal.TAMANHO_PAYLOAD && posicao + TAMANHO_REGISTRO <= dados.limit();
+            if (valido)
+            {
+                crc.reset();
+                crc.update(dados.duplicate().position(posicao + 8).limit(posicao + TAMANHO_REGISTRO));
+                valido = (int) crc.getValue() == dados.getInt(posicao + 4);
+            }
+            if (!valido)
+            {
+                if (ultimo)
+                {
+                    return posicao;
+                }
+                throw new IllegalStateException("Registro inválido no segmento " + arquivo + ", posição " + posicao);
+            }
+
+            consumidor.accept(RegistroJournal.ler(dados.duplicate().position(posicao + 8)));
+            posicao += TAMANHO_REGISTRO;
+        }
+        return posicao;
+    }
+
+    private static boolean temDadosApos(ByteBuffer dados, int posicao)
+    {
+        for (int i = Math.max(posicao, 0); i < dados.limit(); i++)
+        {
+            if (dados.get(i) != 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Path> listarSegmentos(Path diretorio) throws IOException
+    {
+        if (!Files.isDirectory(diretorio))
+        {
+            return List.of();
+        }
+
+        try (Stream<Path> arquivos = Files.list(diretorio))
+        {
+            return arquivos
+                    .filter(arquivo -> arquivo.getFileName().toString().startsWith(PREFIXO))
+                    .filter(arquivo -> arquivo.getFileName().toString().endsWith(SUFIXO))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String nomeDoSegmento(long numero)
+    {
+        return PREFIXO + String.format("%020d", numero) + SUFIXO;
+    }
+
+    private static long numeroDoSegmento(Path segmento)
+    {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+
+    /**
+     * Resultado da leitura do journal.
+     *
+     * @param caudaDescartada {@code true} quando o último segmento termina num registro incompleto ou inválido
+     */
+    public record Leitura(int segmentos, long ultimoSegmento, long registros, int posicaoFinal, boolean caudaDescartada)
+    {
+    }
+}
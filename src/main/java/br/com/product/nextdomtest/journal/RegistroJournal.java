@@ -0,0 +1,74 @@
+package br.com.product.nextdomtest.journal;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+
+/**
+ * Evento gravado no journal de estoque. {@code quantidadeResultante} é o estoque do produto depois do
+ * evento, então a reconstrução não depende da ordem em que commits concorrentes chegaram ao journal.
+ * <p>
+ * Formato binário do payload (41 bytes, big-endian): tipo (1), produtoId (8), movimentoId (8),
+ * quantidade (4), quantidadeResultante (4), instante em epoch millis (8) e valor de venda em centavos (8,
+ * {@link Long#MIN_VALUE} quando ausente).
+ */
+public record RegistroJournal(
+        Tipo tipo,
+        long produtoId,
+        long movimentoId,
+        int quantidade,
+        int quantidadeResultante,
+        long instante,
+        BigDecimal valorVenda
+) {
+    public static final int TAMANHO_PAYLOAD = 41;
+
+    private static final long SEM_VALOR = Long.MIN_VALUE;
+
+    public enum Tipo
+    {
+        CADASTRO,
+        ENTRADA,
+        SAIDA,
+        EXCLUSAO,
+        /** Início de um checkpoint: descarta o estado acumulado até aqui. */
+        INICIO_CHECKPOINT,
+        /** Estoque de um produto registrado por um checkpoint. */
+        CHECKPOINT,
+        /** Fechamento ordenado: todo registro confirmado até aqui foi anexado antes dele. */
+        FECHAMENTO
+    }
+
+    void escrever(ByteBuffer destino)
+    {
+        destino.put((byte) tipo.ordinal());
+        destino.putLong(produtoId);
+        destino.putLong(movimentoId);
+        destino.putInt(quantidade);
+        destino.putInt(quantidadeResultante);
+        destino.putLong(instante);
+        destino.putLong(valorVenda == null
+                ? SEM_VALOR
+                : valorVenda.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    static RegistroJournal ler(ByteBuffer origem)
+    {
+        int ordinal = origem.get();
+        Tipo[] tipos = Tipo.values();
+        if (ordinal < 0 || ordinal >= tipos.length)
+        {
+            throw new IllegalStateException("Tipo de registro desconhecido no journal: " + ordinal);
+        }
+
+        long produtoId = origem.getLong();
+        long movimentoId = origem.getLong();
+        int quantidade = origem.getInt();
+        int quantidadeResultante = origem.getInt();
+        long instante = origem.getLong();
+        long centavos = origem.getLong();
+
+        return new RegistroJournal(tipos[ordinal], produtoId, movimentoId, quantidade, quantidadeResultante, instante,
+                centavos == SEM_VALOR ? null : BigDecimal.valueOf(centavos, 2));
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.product.nextdomtest.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Movimentações de um produto em um dia, consolidadas pela compactação.
+ * {@code valorVendas} é a soma de {@code valorVenda * quantidade} das saídas do dia.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovimentoEstoqueResumo
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long produtoId;
+
+    private LocalDate data;
+
+    private Long quantidadeMovimentos;
+
+    private Long quantidadeEntrada;
+
+    private Long quantidadeSaida;
+
+    private BigDecimal valorVendas;
+
+    private LocalDateTime ultimaMovimentacao;
+}
@@ -0,0 +1,47 @@
+package br.com.product.nextdomtest.model;
+
+import br.com.product.nextdomtest.enums.TipoProduto;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Linha do modelo de leitura {@code produto_resumo}: dados do produto, estoque e vendas consolidados,
+ * recalculados a partir das tabelas de produto e movimentação sempre que o produto muda.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProdutoResumo
+{
+    @Id
+    private Long produtoId;
+
+    private String codigo;
+
+    private String descricao;
+
+    @Enumerated(EnumType.STRING)
+    private TipoProduto tipo;
+
+    private BigDecimal valorFornecedor;
+
+    private Integer quantidadeEstoque;
+
+    private Long quantidadeVendida;
+
+    private BigDecimal valorVendas;
+
+    private BigDecimal valorCompraUnitario;
+
+    private BigDecimal lucroTotal;
+
+    private LocalDateTime ultimaVenda;
+
+    private LocalDateTime atualizadoEm;
+}
@@ -0,0 +1,23 @@
+package br.com.product.nextdomtest.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Marca de que o resumo de um produto precisa ser recalculado. Cada escrita grava a sua, então um mesmo
+ * produto pode ter várias marcas pendentes.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProdutoResumoPendente
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long produtoId;
+}
@@ -0,0 +1,29 @@
+package br.com.product.nextdomtest.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Quantidade em estoque de um produto no instante {@code dataReferencia} (sempre o início de um dia),
+ * registrada periodicamente para que consultas históricas não precisem somar todo o histórico.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaldoEstoque
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long produtoId;
+
+    private LocalDateTime dataReferencia;
+
+    private Integer quantidade;
+}
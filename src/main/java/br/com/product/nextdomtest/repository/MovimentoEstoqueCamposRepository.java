@@ -0,0 +1,16 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.enums.CampoMovimento;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface MovimentoEstoqueCamposRepository
+{
+    /**
+     * Lista em ordem de ID só as colunas dos campos pedidos, de todos os produtos ou de {@code produtoId}.
+     * Cada linha traz os campos na ordem do enum, com o nome usado na resposta.
+     */
+    List<Map<String, Object>> findCampos(Set<CampoMovimento> campos, Long produtoId);
+}
@@ -0,0 +1,69 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.enums.CampoMovimento;
+import br.com.product.nextdomtest.model.MovimentoEstoque;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class MovimentoEstoqueCamposRepositoryImpl implements MovimentoEstoqueCamposRepository
+{
+    private final EntityManager entityManager;
+
+    @Autowired
+    MovimentoEstoqueCamposRepositoryImpl(EntityManager entityManager)
+    {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Map<String, Object>> findCampos(Set<CampoMovimento> campos, Long produtoId)
+    {
+        List<CampoMovimento> ordem = List.copyOf(campos);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<MovimentoEstoque> movimento = consulta.from(MovimentoEstoque.class);
+
+        consulta.multiselect(ordem.stream().<Selection<?>>map(campo -> selecao(campo, movimento)).toList());
+        if (produtoId != null)
+        {
+            consulta.where(cb.equal(movimento.get("produto").get("id"), produtoId));
+        }
+        consulta.orderBy(cb.asc(movimento.get("id")));
+
+        return entityManager.createQuery(consulta).getResultList().stream()
+                .map(tupla -> {
+                    Map<String, Object> linha = new LinkedHashMap<>();
+                    for (int i = 0; i < ordem.size(); i++)
+                    {
+                        linha.put(ordem.get(i).nome(), tupla.get(i));
+                    }
+                    return linha;
+                })
+                .toList();
+    }
+
+    private static Selection<?> selecao(CampoMovimento campo, Root<MovimentoEstoque> movimento)
+    {
+        return switch (campo)
+        {
+            case ID -> movimento.get("id");
+            // Lido da chave estrangeira, sem junção com produto
+            case PRODUTO_ID -> movimento.get("produto").get("id");
+            case PRODUTO -> movimento.join("produto");
+            case TIPO -> movimento.get("tipo");
+            case VALOR_VENDA -> movimento.get("valorVenda");
+            case QUANTIDADE -> movimento.get("quantidade");
+            case DATA_MOVIMENTACAO -> movimento.get("dataMovimentacao");
+        };
+    }
+}
@@ -1,16 +1,25 @@
 package br.com.product.nextdomtest.repository;
 
+import br.com.product.nextdomtest.dto.EstatisticaMovimentoDto;
+import br.com.product.nextdomtest.dto.MovimentoCompactacaoDto;
+import br.com.product.nextdomtest.dto.PrimeiraEntradaDto;
+import br.com.product.nextdomtest.dto.SaldoMovimentoDto;
+import br.com.product.nextdomtest.dto.VendaProdutoDto;
 import br.com.product.nextdomtest.model.MovimentoEstoque;
 import br.com.product.nextdomtest.model.Produto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface MovimentoEstoqueRepository extends JpaRepository<MovimentoEstoque, Long>
+public interface MovimentoEstoqueRepository extends JpaRepository<MovimentoEstoque, Long>, MovimentoEstoqueCamposRepository
 {
     List<MovimentoEstoque> findByProduto(Produto produto);
 
@@ -18,4 +27,135 @@ public interface MovimentoEstoqueRepository extends JpaRepository<MovimentoEstoq
 
     @Query("SELECT COUNT(m) FROM MovimentoEstoque m WHERE m.produto.id = :produtoId")
     long countByProdutoId(@Param("produtoId") Long produtoId);
-}
\ No newline at end of file
+
+    // Estatísticas agregadas no banco, sem materializar as movimentações
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.EstatisticaMovimentoDto(
+                m.produto.id,
+                COUNT(m),
+                SUM(CASE WHEN m.tipo = br.com.product.nextdomtest.enums.TipoMovimentacao.ENTRADA THEN m.quantidade ELSE 0L END),
+                SUM(CASE WHEN m.tipo = br.com.product.nextdomtest.enums.TipoMovimentacao.SAIDA THEN m.quantidade ELSE 0L END),
+                MAX(m.dataMovimentacao))
+            FROM MovimentoEstoque m
+            WHERE m.produto.id IN :produtoIds
+            GROUP BY m.produto.id
+            """)
+    List<EstatisticaMovimentoDto> calcularEstatisticasPorProdutos(@Param("produtoIds") Collection<Long> produtoIds);
+
+    // Movimentos anteriores ao limite, exceto a primeira entrada de cada produto (base do custo unitário)
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.MovimentoCompactacaoDto(
+                m.id, m.produto.id, m.tipo, m.valorVenda, m.quantidade, m.dataMovimentacao)
+            FROM MovimentoEstoque m
+            WHERE m.dataMovimentacao < :limite
+              AND (m.tipo <> br.com.product.nextdomtest.enums.TipoMovimentacao.ENTRADA
+                OR EXISTS (
+                  SELECT 1 FROM MovimentoEstoque e
+                  WHERE e.produto = m.produto
+                    AND e.tipo = br.com.product.nextdomtest.enums.TipoMovimentacao.ENTRADA
+                    AND e.id < m.id))
+            ORDER BY m.id
+            """)
+    List<MovimentoCompactacaoDto> findCompactaveis(@Param("limite") LocalDateTime limite, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM MovimentoEstoque m WHERE m.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(m.id), 0L) FROM MovimentoEstoque m")
+    Long findUltimoId();
+
+    // Entradas menos saídas do produto no intervalo [inicio, fim)
+    @Query("""
+            SELECT COALESCE(SUM(CASE WHEN m.tipo = br.com.product.nextdomtest.enums.TipoMovimentacao.ENTRADA
+                                     THEN m.quantidade ELSE -m.quantidade END), 0L)
+            FROM MovimentoEstoque m
+            WHERE m.produto.id = :produtoId
+              AND m.dataMovimentacao >= :inicio
+              AND m.dataMovimentacao < :fim
+            """)
+    Long somarSaldoNoPeriodo(@Param("produtoId") Long produtoId,
+                             @Param("inicio") LocalDateTime inicio,
+                             @Param("fim") LocalDateTime fim);
+
+    // Entradas menos saídas de cada produto a partir do instante informado
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.SaldoMovimentoDto(
+                m.produto.id,
+                SUM(CASE WHEN m.tipo = br.com.product.nextdomtest.enums.TipoMovimentacao.ENTRADA
+                         THEN m.quantidade ELSE -m.quantidade END))
+            FROM MovimentoEstoque m
+            WHERE m.produto.id IN :produtoIds
+              AND m.dataMovimentacao >= :inicio
+            GROUP BY m.produto.id
+            """)
+    List<SaldoMovimentoDto> somarSaldoPorProdutos(@Param("produtoIds") Collection<Long> produtoIds,
+                                                  @Param("inicio") LocalDateTime inicio);
+
+    // Quantidade, valor e data da última saída de cada produto, somando movimentos e dias compactados num
+    // só comando: a compactação que confirmar entre duas consultas separadas faria as saídas movidas de uma
+    // tabela para a outra serem contadas duas vezes ou nenhuma. Nos dias compactados a última venda tem a
+    // precisão da última movimentação do dia.
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.VendaProdutoDto(
+                v.produtoId, SUM(v.quantidade), SUM(v.valor), MAX(v.ultimaVenda))
+            FROM (
+                SELECT m.produto.id AS produtoId, CAST(m.quantidade AS Long) AS quantidade,
+                       m.valorVenda * m.quantidade AS valor, m.dataMovimentacao AS ultimaVenda
+                FROM MovimentoEstoque m
+                WHERE m.produto.id IN :produtoIds
+                  AND m.tipo = br.com.product.nextdomtest.enums.TipoMovimentacao.SAIDA
+                UNION ALL
+                SELECT r.produtoId, r.quantidadeSaida, r.valorVendas,
+                       CASE WHEN r.quantidadeSaida > 0 THEN r.ultimaMovimentacao END
+                FROM MovimentoEstoqueResumo r
+                WHERE r.produtoId IN :produtoIds
+            ) v
+            GROUP BY v.produtoId
+            """)
+    List<VendaProdutoDto> somarVendasPorProdutos(@Param("produtoIds") Collection<Long> produtoIds);
+
+    // Quantidade da primeira entrada de cada produto; a compactação nunca remove esse movimento
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.PrimeiraEntradaDto(m.produto.id, m.quantidade)
+            FROM MovimentoEstoque m
+            WHERE m.id IN (
+                SELECT MIN(e.id) FROM MovimentoEstoque e
+                WHERE e.produto.id IN :produtoIds
+                  AND e.tipo = br.com.product.nextdomtest.enums.TipoMovimentacao.ENTRADA
+                GROUP BY e.produto.id)
+            """)
+    List<PrimeiraEntradaDto> findPrimeirasEntradas(@Param("produtoIds") Collection<Long> produtoIds);
+
+    // Página de movimentações de cada produto numa consulta, para o carregamento em lote do GraphQL:
+    // até :limite por produto com ID maior que :aposId
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.MovimentoCompactacaoDto(
+                p.id, p.produtoId, p.tipo, p.valorVenda, p.quantidade, p.dataMovimentacao)
+            FROM (
+                SELECT m.id AS id, m.produto.id AS produtoId, m.tipo AS tipo, m.valorVenda AS valorVenda,
+                       m.quantidade AS quantidade, m.dataMovimentacao AS dataMovimentacao,
+                       ROW_NUMBER() OVER (PARTITION BY m.produto.id ORDER BY m.id) AS ordem
+                FROM MovimentoEstoque m
+                WHERE m.produto.id IN :produtoIds AND m.id > :aposId
+            ) p
+            WHERE p.ordem <= :limite
+            ORDER BY p.id
+            """)
+    List<MovimentoCompactacaoDto> findPorProdutos(@Param("produtoIds") Collection<Long> produtoIds,
+                                                  @Param("aposId") Long aposId,
+                                                  @Param("limite") long limite);
+
+    // Página seguinte da listagem em stream: continua do último ID enviado, com o produto na mesma consulta
+    @Query("SELECT m FROM MovimentoEstoque m JOIN FETCH m.produto WHERE m.id > :aposId ORDER BY m.id")
+    List<MovimentoEstoque> findAposId(@Param("aposId") Long aposId, Pageable pageable);
+
+    @Query("""
+            SELECT m FROM MovimentoEstoque m JOIN FETCH m.produto
+            WHERE m.produto.id = :produtoId AND m.id > :aposId
+            ORDER BY m.id
+            """)
+    List<MovimentoEstoque> findPorProdutoAposId(@Param("produtoId") Long produtoId,
+                                                @Param("aposId") Long aposId,
+                                                Pageable pageable);
+}
@@ -0,0 +1,58 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.dto.EstatisticaMovimentoDto;
+import br.com.product.nextdomtest.dto.SaldoMovimentoDto;
+import br.com.product.nextdomtest.model.MovimentoEstoqueResumo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MovimentoEstoqueResumoRepository extends JpaRepository<MovimentoEstoqueResumo, Long>
+{
+    List<MovimentoEstoqueResumo> findByProdutoId(Long produtoId);
+
+    boolean existsByProdutoId(Long produtoId);
+
+    List<MovimentoEstoqueResumo> findByProdutoIdInAndDataIn(Collection<Long> produtoIds, Collection<LocalDate> datas);
+
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.EstatisticaMovimentoDto(
+                r.produtoId,
+                SUM(r.quantidadeMovimentos),
+                SUM(r.quantidadeEntrada),
+                SUM(r.quantidadeSaida),
+                MAX(r.ultimaMovimentacao))
+            FROM MovimentoEstoqueResumo r
+            WHERE r.produtoId IN :produtoIds
+            GROUP BY r.produtoId
+            """)
+    List<EstatisticaMovimentoDto> calcularEstatisticasPorProdutos(@Param("produtoIds") Collection<Long> produtoIds);
+
+    // Entradas menos saídas dos dias compactados no intervalo [inicio, fim)
+    @Query("""
+            SELECT COALESCE(SUM(r.quantidadeEntrada - r.quantidadeSaida), 0L)
+            FROM MovimentoEstoqueResumo r
+            WHERE r.produtoId = :produtoId
+              AND r.data >= :inicio
+              AND r.data < :fim
+            """)
+    Long somarSaldoNoPeriodo(@Param("produtoId") Long produtoId,
+                             @Param("inicio") LocalDate inicio,
+                             @Param("fim") LocalDate fim);
+
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.SaldoMovimentoDto(r.produtoId, SUM(r.quantidadeEntrada - r.quantidadeSaida))
+            FROM MovimentoEstoqueResumo r
+            WHERE r.produtoId IN :produtoIds
+              AND r.data >= :inicio
+            GROUP BY r.produtoId
+            """)
+    List<SaldoMovimentoDto> somarSaldoPorProdutos(@Param("produtoIds") Collection<Long> produtoIds,
+                                                  @Param("inicio") LocalDate inicio);
+}
@@ -0,0 +1,16 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.enums.CampoProduto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ProdutoCamposRepository
+{
+    /**
+     * Lista em ordem de ID só as colunas dos campos pedidos. Cada linha traz os campos na ordem do enum,
+     * com o nome usado na resposta.
+     */
+    List<Map<String, Object>> findCampos(Set<CampoProduto> campos);
+}
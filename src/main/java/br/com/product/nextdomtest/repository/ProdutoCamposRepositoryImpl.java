@@ -0,0 +1,63 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.enums.CampoProduto;
+import br.com.product.nextdomtest.model.Produto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class ProdutoCamposRepositoryImpl implements ProdutoCamposRepository
+{
+    private final EntityManager entityManager;
+
+    @Autowired
+    ProdutoCamposRepositoryImpl(EntityManager entityManager)
+    {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Map<String, Object>> findCampos(Set<CampoProduto> campos)
+    {
+        List<CampoProduto> ordem = List.copyOf(campos);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Produto> produto = consulta.from(Produto.class);
+
+        consulta.multiselect(ordem.stream().<Selection<?>>map(campo -> selecao(campo, produto)).toList());
+        consulta.orderBy(cb.asc(produto.get("id")));
+
+        return entityManager.createQuery(consulta).getResultList().stream()
+                .map(tupla -> {
+                    Map<String, Object> linha = new LinkedHashMap<>();
+                    for (int i = 0; i < ordem.size(); i++)
+                    {
+                        linha.put(ordem.get(i).nome(), tupla.get(i));
+                    }
+                    return linha;
+                })
+                .toList();
+    }
+
+    private static Selection<?> selecao(CampoProduto campo, Root<Produto> produto)
+    {
+        return switch (campo)
+        {
+            case ID -> produto.get("id");
+            case CODIGO -> produto.get("codigo");
+            case DESCRICAO -> produto.get("descricao");
+            case TIPO -> produto.get("tipo");
+            case VALOR_FORNECEDOR -> produto.get("valorFornecedor");
+            case QUANTIDADE_ESTOQUE -> produto.get("quantidadeEstoque");
+        };
+    }
+}
@@ -1,15 +1,44 @@
 package br.com.product.nextdomtest.repository;
 
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
 import br.com.product.nextdomtest.enums.TipoProduto;
 import br.com.product.nextdomtest.model.Produto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProdutoRepository extends JpaRepository<Produto, Long>
+public interface ProdutoRepository extends JpaRepository<Produto, Long>, ProdutoCamposRepository
 {
     // Buscar produtos por tipo
     List<Produto> findByTipo(TipoProduto tipo);
+
+    // Página por chave dos produtos do tipo, para a listagem paginada do GraphQL
+    List<Produto> findByTipoAndIdGreaterThanOrderById(TipoProduto tipo, Long aposId, Pageable pageable);
+
+    // Página por chave só dos IDs, para as estatísticas por página de produtos
+    @Query("SELECT p.id FROM Produto p WHERE p.id > :aposId ORDER BY p.id")
+    List<Long> findIdsAposId(@Param("aposId") Long aposId, Pageable pageable);
+
+    // Apenas id e quantidade, para a carga do estoque em memória
+    @Query("SELECT new br.com.product.nextdomtest.dto.EstoqueProdutoDto(p.id, p.quantidadeEstoque) FROM Produto p")
+    List<EstoqueProdutoDto> findAllEstoques();
+
+    // Id e quantidade paginados por chave, para percorrer o catálogo em lotes
+    @Query("""
+            SELECT new br.com.product.nextdomtest.dto.EstoqueProdutoDto(p.id, p.quantidadeEstoque)
+            FROM Produto p
+            WHERE p.id > :ultimoId
+            ORDER BY p.id
+            """)
+    List<EstoqueProdutoDto> findEstoquesAposId(@Param("ultimoId") Long ultimoId, Pageable pageable);
+
+    // Quantidade atual, preservada na atualização cadastral do produto
+    @Query("SELECT p.quantidadeEstoque FROM Produto p WHERE p.id = :id")
+    Optional<Integer> findQuantidadeEstoqueById(@Param("id") Long id);
 }
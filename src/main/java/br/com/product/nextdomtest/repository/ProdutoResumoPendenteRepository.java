@@ -0,0 +1,15 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.model.ProdutoResumoPendente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProdutoResumoPendenteRepository extends JpaRepository<ProdutoResumoPendente, Long>
+{
+    // Marcas mais antigas primeiro, percorridas pela chave primária
+    List<ProdutoResumoPendente> findAllByOrderById(Pageable pageable);
+}
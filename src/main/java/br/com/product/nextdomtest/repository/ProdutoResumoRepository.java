@@ -0,0 +1,24 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.model.ProdutoResumo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProdutoResumoRepository extends JpaRepository<ProdutoResumo, Long>
+{
+    List<ProdutoResumo> findAllByOrderByProdutoId(Pageable pageable);
+
+    List<ProdutoResumo> findByTipoOrderByProdutoId(TipoProduto tipo, Pageable pageable);
+
+    // Resumos de produtos que não existem mais, removidos ao fim da reconstrução
+    @Modifying
+    @Query("DELETE FROM ProdutoResumo r WHERE NOT EXISTS (SELECT 1 FROM Produto p WHERE p.id = r.produtoId)")
+    int deleteSemProduto();
+}
@@ -0,0 +1,31 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.model.SaldoEstoque;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SaldoEstoqueRepository extends JpaRepository<SaldoEstoque, Long>
+{
+    // Saldo mais recente registrado até o instante informado
+    Optional<SaldoEstoque> findFirstByProdutoIdAndDataReferenciaLessThanEqualOrderByDataReferenciaDesc(
+            Long produtoId, LocalDateTime dataReferencia);
+
+    // Saldo mais antigo registrado depois do instante informado
+    Optional<SaldoEstoque> findFirstByProdutoIdAndDataReferenciaGreaterThanOrderByDataReferenciaAsc(
+            Long produtoId, LocalDateTime dataReferencia);
+
+    List<SaldoEstoque> findByProdutoIdInAndDataReferencia(Collection<Long> produtoIds, LocalDateTime dataReferencia);
+
+    @Modifying
+    @Query("DELETE FROM SaldoEstoque s WHERE s.produtoId = :produtoId")
+    int deleteByProdutoId(@Param("produtoId") Long produtoId);
+}
@@ -0,0 +1,205 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.arquivo.ArquivoMovimentos;
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
+import br.com.product.nextdomtest.dto.MovimentoCompactacaoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.evento.MovimentosCompactadosEvento;
+import br.com.product.nextdomtest.model.MovimentoEstoqueResumo;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueResumoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Consolida movimentações mais antigas que o horizonte de retenção em resumos diários por produto.
+ * <p>
+ * Cada lote roda em uma transação curta: soma os movimentos nos resumos e apaga as linhas originais
+ * na mesma transação, então lucro e estatísticas não mudam para quem lê as duas tabelas numa mesma foto do
+ * banco, como {@code ProdutoService} faz com {@code TransacaoSnapshot}. A primeira entrada de cada produto nunca
+ * é compactada, pois é a base do valor unitário de compra. {@code quantidadeEstoque} não é alterada.
+ * Os produtos do lote são marcados para o {@code ProdutoResumoService} recalcular, pois um resumo calculado
+ * durante o lote pode ter lido as duas tabelas de lados diferentes do commit.
+ * <p>
+ * Com o {@link ArquivoMovimentos} habilitado, cada lote também é gravado na camada fria antes de ser
+ * apagado, preservando o histórico individual das movimentações.
+ */
+@Service
+public class CompactacaoMovimentoService
+{
+    private static final Logger log = LoggerFactory.getLogger(CompactacaoMovimentoService.class);
+
+    private final MovimentoEstoqueRepository movimentoEstoqueRepository;
+    private final MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final VersaoCatalogo versaoCatalogo;
+    private final ArquivoMovimentos arquivoMovimentos;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int retencaoDias;
+    private final int tamanhoLote;
+
+    @Autowired
+    public CompactacaoMovimentoService(
+            MovimentoEstoqueRepository movimentoEstoqueRepository,
+            MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository,
+            TransactionTemplate transactionTemplate,
+            VersaoCatalogo versaoCatalogo,
+            ArquivoMovimentos arquivoMovimentos,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${estoque.compactacao.retencao-dias:365}") int retencaoDias,
+            @Value("${estoque.compactacao.tamanho-lote:1000}") int tamanhoLote
+    )
+    {
+        this.movimentoEstoqueRepository = movimentoEstoqueRepository;
+        this.movimentoEstoqueResumoRepository = movimentoEstoqueResumoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.versaoCatalogo = versaoCatalogo;
+        this.arquivoMovimentos = arquivoMovimentos;
+        this.eventPublisher = eventPublisher;
+        this.retencaoDias = retencaoDias;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    @Scheduled(cron = "${estoque.compactacao.cron:0 30 2 * * *}")
+    public void compactarAgendado()
+    {
+        compactar(LocalDate.now().minusDays(retencaoDias).atStartOfDay());
+    }
+
+    /**
+     * Compacta, em lotes, todos os movimentos com data anterior ao limite.
+     *
+     * @return quantidade de movimentos compactados
+     */
+    public long compactar(LocalDateTime limite)
+    {
+        long total = 0;
+        int compactados;
+        do
+        {
+            Integer resultado = transactionTemplate.execute(status -> compactarLote(limite));
+            compactados = resultado == null ? 0 : resultado;
+            total += compactados;
+        }
+        while (compactados > 0);
+
+        if (total > 0)
+        {
+            log.info("Compactação concluída: {} movimentos anteriores a {} consolidados", total, limite);
+            consolidarArquivo();
+        }
+        return total;
+    }
+
+    private int compactarLote(LocalDateTime limite)
+    {
+        List<MovimentoCompactacaoDto> movimentos =
+                movimentoEstoqueRepository.findCompactaveis(limite, PageRequest.of(0, tamanhoLote));
+        if (movimentos.isEmpty())
+        {
+            return 0;
+        }
+
+        Map<ChaveResumo, MovimentoEstoqueResumo> resumos = carregarResumos(movimentos);
+        for (MovimentoCompactacaoDto movimento : movimentos)
+        {
+            ChaveResumo chave = new ChaveResumo(movimento.produtoId(), movimento.dataMovimentacao().toLocalDate());
+            acumular(resumos.computeIfAbsent(chave, this::novoResumo), movimento);
+        }
+
+        movimentoEstoqueResumoRepository.saveAll(resumos.values());
+        arquivoMovimentos.arquivar(movimentos);
+        movimentoEstoqueRepository.deleteByIdIn(movimentos.stream().map(MovimentoCompactacaoDto::id).toList());
+
+        resumos.keySet().stream()
+                .map(ChaveResumo::produtoId)
+                .distinct()
+                .forEach(produtoId -> {
+                    versaoCatalogo.registrarAlteracao(produtoId);
+                    eventPublisher.publishEvent(new MovimentosCompactadosEvento(produtoId));
+                });
+        return movimentos.size();
+    }
+
+    private void consolidarArquivo()
+    {
+        try
+        {
+            arquivoMovimentos.consolidar();
+        }
+        catch (UncheckedIOException e)
+        {
+            // Os segmentos pequenos continuam válidos; a próxima compactação tenta de novo
+            log.error("Falha ao consolidar o arquivo de movimentações", e);
+        }
+    }
+
+    private Map<ChaveResumo, MovimentoEstoqueResumo> carregarResumos(List<MovimentoCompactacaoDto> movimentos)
+    {
+        Set<Long> produtoIds = movimentos.stream()
+                .map(MovimentoCompactacaoDto::produtoId)
+                .collect(Collectors.toSet());
+        Set<LocalDate> datas = movimentos.stream()
+                .map(movimento -> movimento.dataMovimentacao().toLocalDate())
+                .collect(Collectors.toSet());
+
+        Map<ChaveResumo, MovimentoEstoqueResumo> resumos = new HashMap<>();
+        movimentoEstoqueResumoRepository.findByProdutoIdInAndDataIn(produtoIds, datas)
+                .forEach(resumo -> resumos.put(new ChaveResumo(resumo.getProdutoId(), resumo.getData()), resumo));
+        return resumos;
+    }
+
+    private MovimentoEstoqueResumo novoResumo(ChaveResumo chave)
+    {
+        return MovimentoEstoqueResumo.builder()
+                .produtoId(chave.produtoId())
+                .data(chave.data())
+                .quantidadeMovimentos(0L)
+                .quantidadeEntrada(0L)
+                .quantidadeSaida(0L)
+                .valorVendas(BigDecimal.ZERO)
+                .build();
+    }
+
+    private void acumular(MovimentoEstoqueResumo resumo, MovimentoCompactacaoDto movimento)
+    {
+        resumo.setQuantidadeMovimentos(resumo.getQuantidadeMovimentos() + 1);
+
+        if (movimento.tipo() == TipoMovimentacao.ENTRADA)
+        {
+            resumo.setQuantidadeEntrada(resumo.getQuantidadeEntrada() + movimento.quantidade());
+        }
+        else
+        {
+            BigDecimal valorVenda = movimento.valorVenda() == null ? BigDecimal.ZERO : movimento.valorVenda();
+            resumo.setQuantidadeSaida(resumo.getQuantidadeSaida() + movimento.quantidade());
+            resumo.setValorVendas(resumo.getValorVendas().add(valorVenda.multiply(BigDecimal.valueOf(movimento.quantidade()))));
+        }
+
+        if (resumo.getUltimaMovimentacao() == null || movimento.dataMovimentacao().isAfter(resumo.getUltimaMovimentacao()))
+        {
+            resumo.setUltimaMovimentacao(movimento.dataMovimentacao());
+        }
+    }
+
+    private record ChaveResumo(Long produtoId, LocalDate data)
+    {
+    }
+}
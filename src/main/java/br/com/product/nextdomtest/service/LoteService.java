@@ -0,0 +1,359 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.dto.LoteDto;
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.OperacaoLoteDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.dto.ResultadoLoteDto;
+import br.com.product.nextdomtest.dto.ResultadoOperacaoLoteDto;
+import br.com.product.nextdomtest.enums.TipoOperacaoLote;
+import br.com.product.nextdomtest.exception.GlobalExceptionHandler;
+import br.com.product.nextdomtest.exception.OperacaoNaoPermitidaException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Executa em ordem uma lista de operações de produtos e movimentações, chamando os mesmos métodos de
+ * {@link ProdutoService} e {@link MovimentoEstoqueService} que os endpoints individuais.
+ * <p>
+ * Uma operação pode usar o ID resultante de uma anterior com {@code $n.id}, no campo {@code id} ou num campo de
+ * texto do corpo. Cada resultado traz o status HTTP que o endpoint individual responderia e, em caso de falha, o
+ * mesmo corpo de erro do {@link GlobalExceptionHandler}.
+ * <p>
+ * Sem {@code transacional}, cada operação confirma na própria transação e uma falha não impede as seguintes; as
+ * que dependem da operação que falhou respondem 424. Com {@code transacional}, todas rodam numa única transação,
+ * a primeira falha interrompe o lote e desfaz as anteriores, e os efeitos fora do banco (estoque em memória,
+ * journal, stream e caches) só acontecem no commit.
+ * <p>
+ * Antes de executar, cada operação passa pela cobrança recebida, que a conta no limite por cliente; uma recusa
+ * vira o resultado {@code 429} daquela operação.
+ */
+@Service
+public class LoteService
+{
+    private static final Pattern REFERENCIA = Pattern.compile("\\$(\\d{1,9})\\.id");
+
+    private final ProdutoService produtoService;
+    private final MovimentoEstoqueService movimentoEstoqueService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final GlobalExceptionHandler globalExceptionHandler;
+    private final ExceptionHandlerMethodResolver resolvedorErros;
+    private final TransactionTemplate transactionTemplate;
+    private final int maximoOperacoes;
+
+    @Autowired
+    public LoteService(ProdutoService produtoService,
+                       MovimentoEstoqueService movimentoEstoqueService,
+                       ObjectMapper objectMapper,
+                       Validator validator,
+                       GlobalExceptionHandler globalExceptionHandler,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${estoque.lote.maximo-operacoes:50}") int maximoOperacoes)
+    {
+        this.produtoService = produtoService;
+        this.movimentoEstoqueService = movimentoEstoqueService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.globalExceptionHandler = globalExceptionHandler;
+        this.resolvedorErros = new ExceptionHandlerMethodResolver(GlobalExceptionHandler.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maximoOperacoes = maximoOperacoes;
+    }
+
+    public ResultadoLoteDto executar(LoteDto lote, Consumer<TipoOperacaoLote> cobranca)
+    {
+        if (lote.operacoes().size() > maximoOperacoes)
+        {
+            throw new OperacaoNaoPermitidaException(
+                    "o lote aceita no máximo " + maximoOperacoes + " operações por requisição."
+            );
+        }
+        return lote.transacional()
+                ? executarTransacional(lote.operacoes(), cobranca)
+                : executarIndependentes(lote.operacoes(), cobranca);
+    }
+
+    private ResultadoLoteDto executarIndependentes(List<OperacaoLoteDto> operacoes, Consumer<TipoOperacaoLote> cobranca)
+    {
+        List<ResultadoOperacaoLoteDto> resultados = new ArrayList<>(operacoes.size());
+        for (int i = 0; i < operacoes.size(); i++)
+        {
+            resultados.add(executarOuRegistrarErro(i, operacoes.get(i), resultados, cobranca));
+        }
+
+        boolean sucesso = resultados.stream().allMatch(resultado -> resultado.erro() == null);
+        return new ResultadoLoteDto(false, sucesso, HttpStatus.OK.value(), resultados);
+    }
+
+    private ResultadoLoteDto executarTransacional(List<OperacaoLoteDto> operacoes, Consumer<TipoOperacaoLote> cobranca)
+    {
+        List<ResultadoOperacaoLoteDto> resultados = new ArrayList<>(operacoes.size());
+        try
+        {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < operacoes.size(); i++)
+                {
+                    ResultadoOperacaoLoteDto resultado = executarOuRegistrarErro(i, operacoes.get(i), resultados,
+                            cobranca);
+                    resultados.add(resultado);
+                    if (resultado.erro() != null)
+                    {
+                        status.setRollbackOnly();
+                        return;
+                    }
+                }
+            });
+        }
+        catch (RuntimeException e)
+        {
+            // A transação não chegou a abrir ou o commit falhou: nada do lote foi confirmado
+            ResponseEntity<?> erro = tratarErro(e);
+            List<ResultadoOperacaoLoteDto> desfeitas = new ArrayList<>(operacoes.size());
+            for (int i = 0; i < operacoes.size(); i++)
+            {
+                desfeitas.add(falha(i, operacoes.get(i), HttpStatus.FAILED_DEPENDENCY,
+                        "desfeita: a transação do lote falhou"));
+            }
+            return new ResultadoLoteDto(true, false, erro.getStatusCode().value(), desfeitas);
+        }
+
+        ResultadoOperacaoLoteDto falhou = resultados.get(resultados.size() - 1);
+        if (falhou.erro() == null)
+        {
+            return new ResultadoLoteDto(true, true, HttpStatus.OK.value(), resultados);
+        }
+
+        List<ResultadoOperacaoLoteDto> revertidos = new ArrayList<>(operacoes.size());
+        for (int i = 0; i < operacoes.size(); i++)
+        {
+            if (i < falhou.indice())
+            {
+                revertidos.add(falha(i, operacoes.get(i), HttpStatus.FAILED_DEPENDENCY,
+                        "desfeita: a operação " + falhou.indice() + " falhou e o lote foi revertido"));
+            }
+            else if (i == falhou.indice())
+            {
+                revertidos.add(falhou);
+            }
+            else
+            {
+                revertidos.add(falha(i, operacoes.get(i), HttpStatus.FAILED_DEPENDENCY,
+                        "não executada: a operação " + falhou.indice() + " falhou e o lote foi revertido"));
+            }
+        }
+        return new ResultadoLoteDto(true, false, falhou.status(), revertidos);
+    }
+
+    private ResultadoOperacaoLoteDto executarOuRegistrarErro(int indice, OperacaoLoteDto operacao,
+                                                             List<ResultadoOperacaoLoteDto> anteriores,
+                                                             Consumer<TipoOperacaoLote> cobranca)
+    {
+        try
+        {
+            cobranca.accept(operacao.operacao());
+            return executarOperacao(indice, operacao, anteriores);
+        }
+        catch (DependenciaFalhouException e)
+        {
+            return falha(indice, operacao, HttpStatus.FAILED_DEPENDENCY, e.getMessage());
+        }
+        catch (RuntimeException e)
+        {
+            ResponseEntity<?> erro = tratarErro(e);
+            return new ResultadoOperacaoLoteDto(indice, operacao.operacao(), erro.getStatusCode().value(), null,
+                    null, erro.getBody());
+        }
+    }
+
+    private ResultadoOperacaoLoteDto executarOperacao(int indice, OperacaoLoteDto operacao,
+                                                      List<ResultadoOperacaoLoteDto> anteriores)
+    {
+        return switch (operacao.operacao())
+        {
+            case CRIAR_PRODUTO ->
+            {
+                ProdutoDto produto = produtoService.salvar(corpo(operacao, ProdutoDto.class, anteriores));
+                yield sucesso(indice, operacao, HttpStatus.CREATED, produto.id(), produto);
+            }
+            case ATUALIZAR_PRODUTO ->
+            {
+                Long id = id(operacao, anteriores);
+                ProdutoDto produto = produtoService.atualizar(id, corpo(operacao, ProdutoDto.class, anteriores));
+                yield sucesso(indice, operacao, HttpStatus.OK, id, produto);
+            }
+            case EXCLUIR_PRODUTO ->
+            {
+                Long id = id(operacao, anteriores);
+                produtoService.deletar(id);
+                yield sucesso(indice, operacao, HttpStatus.NO_CONTENT, id, null);
+            }
+            case BUSCAR_PRODUTO ->
+            {
+                Long id = id(operacao, anteriores);
+                yield sucesso(indice, operacao, HttpStatus.OK, id, produtoService.buscarPorId(id));
+            }
+            case REGISTRAR_MOVIMENTO ->
+            {
+                MovimentoEstoqueDto movimento = movimentoEstoqueService.registrarMovimento(
+                        corpo(operacao, MovimentoEstoqueDto.class, anteriores));
+                yield sucesso(indice, operacao, HttpStatus.CREATED, movimento.id(), movimento);
+            }
+            case CONSULTAR_LUCRO ->
+            {
+                Long id = id(operacao, anteriores);
+                yield sucesso(indice, operacao, HttpStatus.OK, id, produtoService.consultarLucro(id));
+            }
+        };
+    }
+
+    private Long id(OperacaoLoteDto operacao, List<ResultadoOperacaoLoteDto> anteriores)
+    {
+        if (operacao.id() == null)
+        {
+            throw new OperacaoNaoPermitidaException("a operação " + operacao.operacao() + " exige o campo id.");
+        }
+        return resolverId(operacao.id(), anteriores);
+    }
+
+    private Long resolverId(String valor, List<ResultadoOperacaoLoteDto> anteriores)
+    {
+        Matcher referencia = REFERENCIA.matcher(valor);
+        if (!referencia.matches())
+        {
+            try
+            {
+                return Long.valueOf(valor);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new OperacaoNaoPermitidaException("id inválido no lote: " + valor + ".");
+            }
+        }
+
+        int indice = Integer.parseInt(referencia.group(1));
+        if (indice >= anteriores.size())
+        {
+            throw new OperacaoNaoPermitidaException("a referência " + valor + " deve apontar para uma operação anterior.");
+        }
+        ResultadoOperacaoLoteDto anterior = anteriores.get(indice);
+        if (anterior.erro() != null)
+        {
+            throw new DependenciaFalhouException("depende da operação " + indice + ", que falhou");
+        }
+        return anterior.id();
+    }
+
+    /**
+     * Converte e valida o corpo da operação como o {@code @Valid @RequestBody} do endpoint individual, depois de
+     * trocar as referências {@code $n.id} dos campos de texto pelos IDs resultantes.
+     */
+    private <T> T corpo(OperacaoLoteDto operacao, Class<T> tipo, List<ResultadoOperacaoLoteDto> anteriores)
+    {
+        if (operacao.corpo() == null || !operacao.corpo().isObject())
+        {
+            throw new OperacaoNaoPermitidaException("a operação " + operacao.operacao() + " exige um corpo JSON.");
+        }
+
+        ObjectNode corpo = operacao.corpo().deepCopy();
+        List<String> campos = new ArrayList<>();
+        corpo.fieldNames().forEachRemaining(campos::add);
+        for (String campo : campos)
+        {
+            JsonNode valor = corpo.get(campo);
+            if (valor.isTextual() && REFERENCIA.matcher(valor.textValue()).matches())
+            {
+                corpo.put(campo, resolverId(valor.textValue(), anteriores));
+            }
+        }
+
+        T dto;
+        try
+        {
+            dto = objectMapper.treeToValue(corpo, tipo);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new OperacaoNaoPermitidaException("corpo inválido para " + operacao.operacao() + ": "
+                    + e.getOriginalMessage());
+        }
+
+        Set<ConstraintViolation<T>> violacoes = validator.validate(dto);
+        if (!violacoes.isEmpty())
+        {
+            throw new OperacaoNaoPermitidaException("campos inválidos em " + operacao.operacao() + ": "
+                    + violacoes.stream()
+                            .map(violacao -> violacao.getPropertyPath() + " (" + violacao.getMessage() + ")")
+                            .sorted()
+                            .collect(Collectors.joining(", "))
+                    + ".");
+        }
+        return dto;
+    }
+
+    /**
+     * Resposta que o {@link GlobalExceptionHandler} daria para a exceção no endpoint individual.
+     */
+    private ResponseEntity<?> tratarErro(Exception e)
+    {
+        Method metodo = resolvedorErros.resolveMethodByThrowable(e);
+        try
+        {
+            return (ResponseEntity<?>) metodo.invoke(globalExceptionHandler, e);
+        }
+        catch (IllegalAccessException | InvocationTargetException falha)
+        {
+            throw new IllegalStateException("Falha ao tratar erro da operação do lote", falha);
+        }
+    }
+
+    private static ResultadoOperacaoLoteDto sucesso(int indice, OperacaoLoteDto operacao, HttpStatus status,
+                                                    Long id, Object corpo)
+    {
+        return new ResultadoOperacaoLoteDto(indice, operacao.operacao(), status.value(), id, corpo, null);
+    }
+
+    private static ResultadoOperacaoLoteDto falha(int indice, OperacaoLoteDto operacao, HttpStatus status,
+                                                  String mensagem)
+    {
+        Map<String, Object> erro = new HashMap<>();
+        erro.put("timestamp", LocalDateTime.now());
+        erro.put("status", status.value());
+        erro.put("error", status.getReasonPhrase());
+        erro.put("message", mensagem);
+        return new ResultadoOperacaoLoteDto(indice, operacao.operacao(), status.value(), null, null, erro);
+    }
+
+    private static final class DependenciaFalhouException extends RuntimeException
+    {
+        DependenciaFalhouException(String mensagem)
+        {
+            super(mensagem, null, false, false);
+        }
+    }
+}
@@ -1,42 +1,108 @@
 package br.com.product.nextdomtest.service;
 
+import br.com.product.nextdomtest.arquivo.ArquivoMovimentos;
+import br.com.product.nextdomtest.cache.EstoqueEmMemoria;
+import br.com.product.nextdomtest.cache.ProdutoCache;
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
 import br.com.product.nextdomtest.dto.CreatedMovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.MovimentoCompactacaoDto;
 import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.enums.CampoMovimento;
 import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.evento.MovimentoRegistradoEvento;
 import br.com.product.nextdomtest.exception.MovimentacaoNaoEncontradaException;
 import br.com.product.nextdomtest.exception.ProdutoNaoEncontradoException;
 import br.com.product.nextdomtest.exception.TipoMovimentacaoInvalidoException;
+import br.com.product.nextdomtest.journal.JournalEstoque;
 import br.com.product.nextdomtest.model.MovimentoEstoque;
 import br.com.product.nextdomtest.model.Produto;
 import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
 import br.com.product.nextdomtest.repository.ProdutoRepository;
 import br.com.product.nextdomtest.strategy.MovimentacaoStrategy;
 import br.com.product.nextdomtest.strategy.MovimentacaoStrategyFactory;
+import br.com.product.nextdomtest.transmissao.TransmissaoEstoque;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class MovimentoEstoqueService
 {
+    /**
+     * Movimentações arquivadas lidas por vez nas listagens completas.
+     */
+    static final int PAGINA_ARQUIVO = 1_000;
+
     private final MovimentoEstoqueRepository movimentoEstoqueRepository;
     private final ProdutoRepository produtoRepository;
     private final MovimentacaoStrategyFactory movimentacaoStrategyFactory;
+    private final VersaoCatalogo versaoCatalogo;
+    private final ProdutoCache produtoCache;
+    private final EstoqueEmMemoria estoqueEmMemoria;
+    private final JournalEstoque journalEstoque;
+    private final ArquivoMovimentos arquivoMovimentos;
+    private final TransmissaoEstoque transmissaoEstoque;
+    private final TransactionTemplate transactionTemplateLeitura;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Recebe cada página da listagem em stream, fora da transação que a leu.
+     */
+    @FunctionalInterface
+    public interface ConsumidorPagina
+    {
+        void aceitar(List<CreatedMovimentoEstoqueDto> pagina) throws IOException;
+    }
 
     @Autowired
     public MovimentoEstoqueService(
             MovimentoEstoqueRepository movimentoEstoqueRepository,
             ProdutoRepository produtoRepository,
-            MovimentacaoStrategyFactory movimentacaoStrategyFactory
+            MovimentacaoStrategyFactory movimentacaoStrategyFactory,
+            VersaoCatalogo versaoCatalogo,
+            ProdutoCache produtoCache,
+            EstoqueEmMemoria estoqueEmMemoria,
+            JournalEstoque journalEstoque,
+            ArquivoMovimentos arquivoMovimentos,
+            TransmissaoEstoque transmissaoEstoque,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher
     )
     {
         this.movimentoEstoqueRepository = movimentoEstoqueRepository;
         this.produtoRepository = produtoRepository;
         this.movimentacaoStrategyFactory = movimentacaoStrategyFactory;
+        this.versaoCatalogo = versaoCatalogo;
+        this.produtoCache = produtoCache;
+        this.estoqueEmMemoria = estoqueEmMemoria;
+        this.journalEstoque = journalEstoque;
+        this.arquivoMovimentos = arquivoMovimentos;
+        this.transmissaoEstoque = transmissaoEstoque;
+        this.transactionTemplateLeitura = new TransactionTemplate(transactionManager);
+        this.transactionTemplateLeitura.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -52,32 +118,299 @@ public class MovimentoEstoqueService
         definirDataMovimentacao(movimento);
 
         MovimentoEstoque movimentoSalvo = salvarMovimento(movimento);
+        versaoCatalogo.registrarAlteracao(produto.getId());
+        produtoCache.invalidar(produto.getId(), produto.getTipo());
+        estoqueEmMemoria.registrarMovimento(produto.getId(), produto.getQuantidadeEstoque(), movimentoSalvo.getId());
+        journalEstoque.registrarMovimento(movimentoSalvo, produto.getQuantidadeEstoque());
+        transmissaoEstoque.registrarMovimento(movimentoSalvo, produto.getQuantidadeEstoque());
+        eventPublisher.publishEvent(new MovimentoRegistradoEvento(produto.getId(), movimentoSalvo.getId()));
         return converterEntidadeParaDto(movimentoSalvo);
     }
+
+    /**
+     * Assina o stream de movimentações confirmadas, opcionalmente só de um produto ou de um tipo de produto.
+     */
+    public SseEmitter assinarAlteracoes(Long produtoId, TipoProduto tipoProduto)
+    {
+        if (produtoId != null)
+        {
+            verificarProduto(produtoId);
+        }
+        return transmissaoEstoque.assinar(produtoId, tipoProduto);
+    }
+
+    public void verificarProduto(Long produtoId)
+    {
+        if (!produtoRepository.existsById(produtoId))
+        {
+            throw new ProdutoNaoEncontradoException("Produto não encontrado com ID: " + produtoId);
+        }
+    }
+
     public MovimentoEstoqueDto buscarPorId(Long id)
     {
-        MovimentoEstoque movimento = movimentoEstoqueRepository.findById(id)
+        return movimentoEstoqueRepository.findById(id)
+                .map(this::converterEntidadeParaDto)
+                .or(() -> arquivoMovimentos.buscarPorId(id).map(this::converterProjecaoParaDto))
                 .orElseThrow(() -> new MovimentacaoNaoEncontradaException("Movimentação não encontrada com ID: " + id));
-
-        return converterEntidadeParaDto(movimento);
     }
 
+    @Transactional(readOnly = true)
     public List<CreatedMovimentoEstoqueDto> listarPorProduto(Long produtoId)
     {
         Produto produto = buscarProdutoPorId(produtoId);
+        List<MovimentoEstoque> movimentos = movimentoEstoqueRepository.findByProduto(produto);
 
-        return movimentoEstoqueRepository.findByProduto(produto)
-                .stream()
-                .map(this::converterEntidadeParaDetalhesDto)
-                .collect(Collectors.toList());
+        return mesclarComArquivo(movimentos, arquivoMovimentos.listarPorProduto(produtoId), id -> produto);
     }
 
+    @Transactional(readOnly = true)
     public List<CreatedMovimentoEstoqueDto> listarTodos()
     {
-        return movimentoEstoqueRepository.findAll()
-                .stream()
+        List<MovimentoEstoque> movimentos = movimentoEstoqueRepository.findAll();
+        List<CreatedMovimentoEstoqueDto> resultado = movimentos.stream()
+                .map(this::converterEntidadeParaDetalhesDto)
+                .collect(Collectors.toCollection(ArrayList::new));
+        List<MovimentoCompactacaoDto> arquivados = arquivoMovimentos.listarPagina(null, 0L, PAGINA_ARQUIVO);
+        if (arquivados.isEmpty())
+        {
+            return resultado;
+        }
+
+        Set<Long> idsNaTabela = movimentos.stream().map(MovimentoEstoque::getId).collect(Collectors.toSet());
+        while (!arquivados.isEmpty())
+        {
+            adicionarArquivados(resultado, idsNaTabela, arquivados, buscarProdutos(arquivados)::get);
+            arquivados = proximaPaginaArquivo(null, arquivados);
+        }
+        resultado.sort(Comparator.comparing(CreatedMovimentoEstoqueDto::id));
+        return resultado;
+    }
+
+    /**
+     * Percorre as movimentações em ordem de ID, todas ou só as de {@code produtoId}, entregando ao consumidor
+     * páginas de até {@code tamanhoPagina} itens. Cada página é lida numa transação curta a partir do último ID
+     * entregue, e a próxima só é lida depois que o consumidor devolve o controle: se ele escreve numa conexão
+     * lenta, a leitura espera, e a conexão com o banco fica livre durante a escrita. A listagem não é um
+     * snapshot: movimentações registradas durante o percurso com ID maior que o da página atual aparecem.
+     */
+    public void percorrer(Long produtoId, int tamanhoPagina, ConsumidorPagina consumidor) throws IOException
+    {
+        long aposId = 0L;
+        List<CreatedMovimentoEstoqueDto> pagina;
+        do
+        {
+            long cursor = aposId;
+            pagina = transactionTemplateLeitura.execute(status -> lerPagina(produtoId, cursor, tamanhoPagina));
+            if (pagina.isEmpty())
+            {
+                return;
+            }
+
+            consumidor.aceitar(pagina);
+            aposId = pagina.get(pagina.size() - 1).id();
+        }
+        while (pagina.size() == tamanhoPagina);
+    }
+
+    /**
+     * Uma página da tabela mesclada com uma página do arquivo a partir do mesmo ID. As primeiras
+     * {@code tamanhoPagina} linhas da mescla estão nas primeiras de cada parte; o que passa do tamanho é cortado.
+     * O arquivo é lido depois da tabela: uma linha que a compactação mova entre as duas leituras aparece nele.
+     */
+    private List<CreatedMovimentoEstoqueDto> lerPagina(Long produtoId, long aposId, int tamanhoPagina)
+    {
+        PageRequest primeiraPagina = PageRequest.of(0, tamanhoPagina);
+        List<MovimentoEstoque> movimentos = produtoId == null
+                ? movimentoEstoqueRepository.findAposId(aposId, primeiraPagina)
+                : movimentoEstoqueRepository.findPorProdutoAposId(produtoId, aposId, primeiraPagina);
+
+        List<MovimentoCompactacaoDto> arquivadosDaPagina = arquivoMovimentos.listarPagina(produtoId, aposId, tamanhoPagina);
+        if (arquivadosDaPagina.isEmpty())
+        {
+            return movimentos.stream().map(this::converterEntidadeParaDetalhesDto).toList();
+        }
+
+        List<CreatedMovimentoEstoqueDto> resultado = mesclarComArquivo(movimentos, arquivadosDaPagina,
+                buscarProdutos(arquivadosDaPagina)::get);
+        return resultado.size() > tamanhoPagina ? resultado.subList(0, tamanhoPagina) : resultado;
+    }
+
+    /**
+     * Uma página das movimentações de cada produto, com uma consulta: até {@code limite} por produto com ID maior
+     * que {@code aposId}, em ordem de ID e completadas com as arquivadas. Todo produto pedido tem entrada no mapa,
+     * com lista vazia se não tiver movimentações na página.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<MovimentoEstoqueDto>> listarPorProdutos(Collection<Long> produtoIds, long aposId, int limite)
+    {
+        Map<Long, List<MovimentoEstoqueDto>> resultado = new HashMap<>();
+        produtoIds.forEach(produtoId -> resultado.put(produtoId, new ArrayList<>()));
+        if (produtoIds.isEmpty())
+        {
+            return resultado;
+        }
+
+        NavigableMap<Long, MovimentoCompactacaoDto> movimentos = new TreeMap<>();
+        for (Long produtoId : produtoIds)
+        {
+            arquivoMovimentos.listarPagina(produtoId, aposId, limite)
+                    .forEach(arquivado -> movimentos.put(arquivado.id(), arquivado));
+        }
+        // A linha presente também na tabela vale pela tabela
+        movimentoEstoqueRepository.findPorProdutos(produtoIds, aposId, limite)
+                .forEach(movimento -> movimentos.put(movimento.id(), movimento));
+
+        // A primeira página da mescla está contida na primeira página de cada parte; o resto é cortado
+        movimentos.values().forEach(movimento -> {
+            List<MovimentoEstoqueDto> doProduto = resultado.get(movimento.produtoId());
+            if (doProduto.size() < limite)
+            {
+                doProduto.add(converterProjecaoParaDto(movimento));
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Listagem com só os campos pedidos, lidos do banco como projeção das colunas correspondentes.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> listarCampos(Set<CampoMovimento> campos)
+    {
+        return listarCamposComArquivo(campos, null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> listarCamposPorProduto(Long produtoId, Set<CampoMovimento> campos)
+    {
+        buscarProdutoPorId(produtoId);
+        return listarCamposComArquivo(campos, produtoId);
+    }
+
+    private List<Map<String, Object>> listarCamposComArquivo(Set<CampoMovimento> campos, Long produtoId)
+    {
+        List<MovimentoCompactacaoDto> arquivados = arquivoMovimentos.listarPagina(produtoId, 0L, PAGINA_ARQUIVO);
+        if (arquivados.isEmpty())
+        {
+            return movimentoEstoqueRepository.findCampos(campos, produtoId);
+        }
+
+        // O ID é necessário para descartar duplicatas e ordenar a mescla, mesmo que não tenha sido pedido
+        Set<CampoMovimento> consultados = EnumSet.copyOf(campos);
+        consultados.add(CampoMovimento.ID);
+        List<Map<String, Object>> resultado = new ArrayList<>(movimentoEstoqueRepository.findCampos(consultados, produtoId));
+        Set<Object> idsNaTabela = resultado.stream().map(linha -> linha.get(CampoMovimento.ID.nome())).collect(Collectors.toSet());
+
+        while (!arquivados.isEmpty())
+        {
+            Map<Long, Produto> produtos = campos.contains(CampoMovimento.PRODUTO) ? buscarProdutos(arquivados) : Map.of();
+            for (MovimentoCompactacaoDto arquivado : arquivados)
+            {
+                if (idsNaTabela.contains(arquivado.id())
+                        || campos.contains(CampoMovimento.PRODUTO) && !produtos.containsKey(arquivado.produtoId()))
+                {
+                    continue;
+                }
+
+                Map<String, Object> linha = new LinkedHashMap<>();
+                for (CampoMovimento campo : consultados)
+                {
+                    linha.put(campo.nome(), valorArquivado(campo, arquivado, produtos));
+                }
+                resultado.add(linha);
+            }
+            arquivados = proximaPaginaArquivo(produtoId, arquivados);
+        }
+
+        resultado.sort(Comparator.comparing(linha -> (Long) linha.get(CampoMovimento.ID.nome())));
+        if (!campos.contains(CampoMovimento.ID))
+        {
+            resultado.forEach(linha -> linha.remove(CampoMovimento.ID.nome()));
+        }
+        return resultado;
+    }
+
+    private static Object valorArquivado(CampoMovimento campo, MovimentoCompactacaoDto arquivado, Map<Long, Produto> produtos)
+    {
+        return switch (campo)
+        {
+            case ID -> arquivado.id();
+            case PRODUTO_ID -> arquivado.produtoId();
+            case PRODUTO -> produtos.get(arquivado.produtoId());
+            case TIPO -> arquivado.tipo();
+            case VALOR_VENDA -> arquivado.valorVenda();
+            case QUANTIDADE -> arquivado.quantidade();
+            case DATA_MOVIMENTACAO -> arquivado.dataMovimentacao();
+        };
+    }
+
+    /**
+     * Junta as movimentações da tabela com as da camada fria em ordem de ID. Uma linha presente nas duas
+     * (queda entre a gravação do segmento e o commit da compactação) vale pela tabela.
+     */
+    private List<CreatedMovimentoEstoqueDto> mesclarComArquivo(List<MovimentoEstoque> movimentos,
+                                                               List<MovimentoCompactacaoDto> arquivados,
+                                                               Function<Long, Produto> produtoPorId)
+    {
+        List<CreatedMovimentoEstoqueDto> resultado = movimentos.stream()
                 .map(this::converterEntidadeParaDetalhesDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (arquivados.isEmpty())
+        {
+            return resultado;
+        }
+
+        Set<Long> idsNaTabela = movimentos.stream().map(MovimentoEstoque::getId).collect(Collectors.toSet());
+        adicionarArquivados(resultado, idsNaTabela, arquivados, produtoPorId);
+        resultado.sort(Comparator.comparing(CreatedMovimentoEstoqueDto::id));
+        return resultado;
+    }
+
+    private static void adicionarArquivados(List<CreatedMovimentoEstoqueDto> resultado, Set<Long> idsNaTabela,
+                                            List<MovimentoCompactacaoDto> arquivados, Function<Long, Produto> produtoPorId)
+    {
+        for (MovimentoCompactacaoDto arquivado : arquivados)
+        {
+            Produto produto = produtoPorId.apply(arquivado.produtoId());
+            if (produto != null && !idsNaTabela.contains(arquivado.id()))
+            {
+                resultado.add(new CreatedMovimentoEstoqueDto(arquivado.id(), produto, arquivado.tipo(),
+                        arquivado.valorVenda(), arquivado.quantidade(), arquivado.dataMovimentacao()));
+            }
+        }
+    }
+
+    /**
+     * Próxima página do arquivo depois de {@code anterior}, ou vazia quando {@code anterior} já era a última.
+     * As listagens completas leem o arquivo assim, sem montar todas as movimentações arquivadas de uma vez.
+     */
+    private List<MovimentoCompactacaoDto> proximaPaginaArquivo(Long produtoId, List<MovimentoCompactacaoDto> anterior)
+    {
+        if (anterior.size() < PAGINA_ARQUIVO)
+        {
+            return List.of();
+        }
+        return arquivoMovimentos.listarPagina(produtoId, anterior.get(anterior.size() - 1).id(), PAGINA_ARQUIVO);
+    }
+
+    private Map<Long, Produto> buscarProdutos(List<MovimentoCompactacaoDto> arquivados)
+    {
+        Set<Long> produtoIds = arquivados.stream().map(MovimentoCompactacaoDto::produtoId).collect(Collectors.toSet());
+        return produtoRepository.findAllById(produtoIds).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+    }
+
+    private MovimentoEstoqueDto converterProjecaoParaDto(MovimentoCompactacaoDto movimento)
+    {
+        return new MovimentoEstoqueDto(
+                movimento.id(),
+                movimento.produtoId(),
+                movimento.tipo(),
+                movimento.valorVenda(),
+                movimento.quantidade(),
+                movimento.dataMovimentacao()
+        );
     }
 
     private MovimentoEstoqueDto converterEntidadeParaDto(MovimentoEstoque movimento)
@@ -118,6 +451,10 @@ public class MovimentoEstoqueService
         return movimento;
     }
 
+    /**
+     * Lê a entidade gerenciada direto do banco: o registro de movimento altera o estoque dela e a
+     * listagem a usa na consulta, então o {@code ProdutoCache} (que guarda DTOs) não se aplica aqui.
+     */
     private Produto buscarProdutoPorId(Long produtoId)
     {
         return produtoRepository.findById(produtoId)
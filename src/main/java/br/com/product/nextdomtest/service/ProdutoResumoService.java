@@ -0,0 +1,367 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
+import br.com.product.nextdomtest.dto.ProdutoResumoDto;
+import br.com.product.nextdomtest.dto.ReconstrucaoResumoDto;
+import br.com.product.nextdomtest.dto.VendaProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.evento.EventoProduto;
+import br.com.product.nextdomtest.exception.OperacaoNaoPermitidaException;
+import br.com.product.nextdomtest.model.Produto;
+import br.com.product.nextdomtest.model.ProdutoResumo;
+import br.com.product.nextdomtest.model.ProdutoResumoPendente;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.ProdutoRepository;
+import br.com.product.nextdomtest.repository.ProdutoResumoPendenteRepository;
+import br.com.product.nextdomtest.repository.ProdutoResumoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantém o modelo de leitura {@code produto_resumo}, uma linha por produto com estoque, vendas e lucro.
+ * <p>
+ * Cada {@link EventoProduto} publicado pelos serviços de escrita grava, antes do commit e na mesma transação,
+ * uma marca em {@code produto_resumo_pendente}; a escrita e a marca são confirmadas ou desfeitas juntas, e
+ * as marcas sobrevivem a uma queda do processo. A cada {@code estoque.resumo.intervalo} as marcas mais antigas
+ * são lidas em lotes e os produtos recalculados, com poucas consultas agregadas por lote; as marcas lidas são
+ * apagadas na mesma transação que grava os resumos. Uma escrita confirmada depois dessa leitura deixa a sua
+ * própria marca, então nenhuma alteração fica sem recálculo.
+ * <p>
+ * Como o resumo é sempre recalculado a partir das tabelas, e não incrementado pelo conteúdo do evento, eventos
+ * repetidos, fora de ordem ou agrupados produzem a mesma linha. Pelo mesmo motivo {@link #reconstruir()} pode
+ * refazer o modelo inteiro a qualquer momento.
+ */
+@Service
+public class ProdutoResumoService implements SmartInitializingSingleton
+{
+    private static final Logger log = LoggerFactory.getLogger(ProdutoResumoService.class);
+
+    private final ProdutoRepository produtoRepository;
+    private final MovimentoEstoqueRepository movimentoEstoqueRepository;
+    private final ProdutoResumoRepository produtoResumoRepository;
+    private final ProdutoResumoPendenteRepository produtoResumoPendenteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoLote;
+    // Duas atualizações concorrentes do mesmo produto poderiam gravar por último o cálculo mais antigo
+    private final ReentrantLock lockAtualizacao = new ReentrantLock();
+
+    @Autowired
+    public ProdutoResumoService(
+            ProdutoRepository produtoRepository,
+            MovimentoEstoqueRepository movimentoEstoqueRepository,
+            ProdutoResumoRepository produtoResumoRepository,
+            ProdutoResumoPendenteRepository produtoResumoPendenteRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${estoque.resumo.tamanho-lote:500}") int tamanhoLote
+    )
+    {
+        this.produtoRepository = produtoRepository;
+        this.movimentoEstoqueRepository = movimentoEstoqueRepository;
+        this.produtoResumoRepository = produtoResumoRepository;
+        this.produtoResumoPendenteRepository = produtoResumoPendenteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Reconstrói o modelo na inicialização quando ele não cobre o catálogo, como na primeira execução
+     * sobre um banco existente.
+     */
+    @Override
+    public void afterSingletonsInstantiated()
+    {
+        if (produtoResumoRepository.count() != produtoRepository.count())
+        {
+            reconstruir();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void registrarEvento(EventoProduto evento)
+    {
+        produtoResumoPendenteRepository.save(ProdutoResumoPendente.builder().produtoId(evento.produtoId()).build());
+    }
+
+    @Scheduled(fixedDelayString = "${estoque.resumo.intervalo:500ms}")
+    public void processarPendentes()
+    {
+        boolean loteCompleto = true;
+        while (loteCompleto)
+        {
+            try
+            {
+                loteCompleto = processarLotePendente();
+            }
+            catch (RuntimeException e)
+            {
+                // As marcas só são apagadas no commit, então continuam na fila para o próximo ciclo
+                log.error("Falha ao atualizar o resumo dos produtos pendentes; nova tentativa no próximo ciclo", e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lê as marcas mais antigas, recalcula os produtos e apaga as marcas lidas, tudo numa transação. As marcas
+     * são lidas antes das tabelas, então toda escrita que gerou uma delas já está visível no recálculo.
+     *
+     * @return se o lote veio completo e pode haver mais marcas na fila
+     */
+    private boolean processarLotePendente()
+    {
+        lockAtualizacao.lock();
+        try
+        {
+            Boolean loteCompleto = transactionTemplate.execute(status -> {
+                List<ProdutoResumoPendente> marcas =
+                        produtoResumoPendenteRepository.findAllByOrderById(PageRequest.of(0, tamanhoLote));
+                if (marcas.isEmpty())
+                {
+                    return false;
+                }
+
+                atualizarLote(marcas.stream().map(ProdutoResumoPendente::getProdutoId).distinct().toList());
+                produtoResumoPendenteRepository.deleteAllByIdInBatch(marcas.stream().map(ProdutoResumoPendente::getId).toList());
+                return marcas.size() == tamanhoLote;
+            });
+            return Boolean.TRUE.equals(loteCompleto);
+        }
+        finally
+        {
+            lockAtualizacao.unlock();
+        }
+    }
+
+    /**
+     * Recalcula, numa transação, o resumo dos produtos informados. Produtos que não existem mais têm o
+     * resumo removido.
+     */
+    public void atualizar(Collection<Long> produtoIds)
+    {
+        lockAtualizacao.lock();
+        try
+        {
+            transactionTemplate.executeWithoutResult(status -> atualizarLote(produtoIds));
+        }
+        finally
+        {
+            lockAtualizacao.unlock();
+        }
+    }
+
+    /**
+     * Refaz o modelo de leitura inteiro a partir das tabelas, percorrendo o catálogo em lotes por ID.
+     * As linhas existentes são sobrescritas no lugar, então as listagens continuam respondendo durante
+     * a reconstrução.
+     */
+    public ReconstrucaoResumoDto reconstruir()
+    {
+        long inicio = System.nanoTime();
+        long processados = 0;
+        long ultimoId = 0L;
+
+        List<EstoqueProdutoDto> pagina;
+        do
+        {
+            pagina = produtoRepository.findEstoquesAposId(ultimoId, PageRequest.of(0, tamanhoLote));
+            if (pagina.isEmpty())
+            {
+                break;
+            }
+
+            atualizar(pagina.stream().map(EstoqueProdutoDto::produtoId).toList());
+            processados += pagina.size();
+            ultimoId = pagina.get(pagina.size() - 1).produtoId();
+        }
+        while (pagina.size() == tamanhoLote);
+
+        lockAtualizacao.lock();
+        try
+        {
+            transactionTemplate.executeWithoutResult(status -> produtoResumoRepository.deleteSemProduto());
+        }
+        finally
+        {
+            lockAtualizacao.unlock();
+        }
+
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Resumo de produtos reconstruído: {} produtos em {} ms", processados, duracaoMs);
+        return new ReconstrucaoResumoDto(processados, duracaoMs);
+    }
+
+    /**
+     * Uma página de resumos ordenada por ID, opcionalmente filtrada por tipo.
+     */
+    @Transactional(readOnly = true)
+    public List<ProdutoResumoDto> listar(TipoProduto tipo, int pagina, int tamanho)
+    {
+        if (pagina < 0 || tamanho < 1 || tamanho > ProdutoService.TAMANHO_MAXIMO_PAGINA)
+        {
+            throw new OperacaoNaoPermitidaException(
+                    "a página deve ser maior ou igual a zero e o tamanho entre 1 e " + ProdutoService.TAMANHO_MAXIMO_PAGINA + "."
+            );
+        }
+
+        PageRequest paginacao = PageRequest.of(pagina, tamanho);
+        List<ProdutoResumo> resumos = tipo == null
+                ? produtoResumoRepository.findAllByOrderByProdutoId(paginacao)
+                : produtoResumoRepository.findByTipoOrderByProdutoId(tipo, paginacao);
+        return resumos.stream().map(this::converterEntidadeParaDto).toList();
+    }
+
+    /**
+     * Calcula o resumo dos produtos direto das tabelas, na transação corrente e sem gravar nada. Usado pelo
+     * relatório de lucro, que precisa dos valores do instante da leitura e não do modelo de leitura.
+     * Produtos inexistentes são ignorados. Fora de uma transação, abre uma só de leitura para todas as consultas.
+     */
+    @Transactional(readOnly = true)
+    public List<ProdutoResumoDto> calcular(Collection<Long> produtoIds)
+    {
+        DadosCalculo dados = carregar(produtoIds);
+        LocalDateTime agora = LocalDateTime.now();
+
+        List<ProdutoResumoDto> resumos = new ArrayList<>(dados.produtos().size());
+        for (Long produtoId : produtoIds)
+        {
+            Produto produto = dados.produtos().get(produtoId);
+            if (produto != null)
+            {
+                ProdutoResumo resumo = ProdutoResumo.builder().produtoId(produtoId).build();
+                preencher(resumo, produto, dados.vendas().get(produtoId), dados.primeirasEntradas().get(produtoId), agora);
+                resumos.add(converterEntidadeParaDto(resumo));
+            }
+        }
+        return resumos;
+    }
+
+    private DadosCalculo carregar(Collection<Long> produtoIds)
+    {
+        Map<Long, Produto> produtos = produtoRepository.findAllById(produtoIds).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+
+        List<Long> ativos = List.copyOf(produtos.keySet());
+        Map<Long, VendaProdutoDto> vendas = new HashMap<>();
+        Map<Long, Integer> primeirasEntradas = new HashMap<>();
+        if (!ativos.isEmpty())
+        {
+            // Movimentos e dias compactados numa só consulta, que a compactação não consegue dividir
+            movimentoEstoqueRepository.somarVendasPorProdutos(ativos)
+                    .forEach(venda -> vendas.put(venda.produtoId(), venda));
+            movimentoEstoqueRepository.findPrimeirasEntradas(ativos)
+                    .forEach(entrada -> primeirasEntradas.put(entrada.produtoId(), entrada.quantidade()));
+        }
+        return new DadosCalculo(produtos, vendas, primeirasEntradas);
+    }
+
+    private void atualizarLote(Collection<Long> produtoIds)
+    {
+        DadosCalculo dados = carregar(produtoIds);
+        Map<Long, Produto> produtos = dados.produtos();
+        Map<Long, VendaProdutoDto> vendas = dados.vendas();
+        Map<Long, Integer> primeirasEntradas = dados.primeirasEntradas();
+        Map<Long, ProdutoResumo> existentes = produtoResumoRepository.findAllById(produtoIds).stream()
+                .collect(Collectors.toMap(ProdutoResumo::getProdutoId, Function.identity()));
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<ProdutoResumo> novos = new ArrayList<>();
+        List<ProdutoResumo> removidos = new ArrayList<>();
+        for (Long produtoId : produtoIds)
+        {
+            Produto produto = produtos.get(produtoId);
+            ProdutoResumo resumo = existentes.get(produtoId);
+            if (produto == null)
+            {
+                if (resumo != null)
+                {
+                    removidos.add(resumo);
+                }
+                continue;
+            }
+
+            if (resumo == null)
+            {
+                resumo = ProdutoResumo.builder().produtoId(produtoId).build();
+                novos.add(resumo);
+            }
+            // Entidades já existentes estão gerenciadas e são gravadas no commit
+            preencher(resumo, produto, vendas.get(produtoId), primeirasEntradas.get(produtoId), agora);
+        }
+
+        produtoResumoRepository.saveAll(novos);
+        produtoResumoRepository.deleteAll(removidos);
+    }
+
+    /**
+     * Mesmas regras de {@link ProdutoService#consultarLucro}: o custo unitário é o valor do fornecedor
+     * dividido pela quantidade da primeira entrada, e o lucro total é
+     * {@code Σ valorVenda × quantidade − custoUnitário × Σ quantidade} sobre as saídas.
+     */
+    private void preencher(ProdutoResumo resumo, Produto produto, VendaProdutoDto venda, Integer primeiraEntrada,
+                           LocalDateTime agora)
+    {
+        long quantidadeVendida = venda == null ? 0L : venda.quantidade();
+        BigDecimal valorVendas = venda == null ? BigDecimal.ZERO : venda.valor();
+        BigDecimal valorCompraUnitario = primeiraEntrada == null
+                ? produto.getValorFornecedor()
+                : produto.getValorFornecedor().divide(BigDecimal.valueOf(primeiraEntrada), 2, RoundingMode.HALF_UP);
+
+        resumo.setCodigo(produto.getCodigo());
+        resumo.setDescricao(produto.getDescricao());
+        resumo.setTipo(produto.getTipo());
+        resumo.setValorFornecedor(produto.getValorFornecedor());
+        resumo.setQuantidadeEstoque(produto.getQuantidadeEstoque());
+        resumo.setQuantidadeVendida(quantidadeVendida);
+        resumo.setValorVendas(valorVendas);
+        resumo.setValorCompraUnitario(valorCompraUnitario);
+        resumo.setLucroTotal(valorVendas.subtract(valorCompraUnitario.multiply(BigDecimal.valueOf(quantidadeVendida))));
+        resumo.setUltimaVenda(venda == null ? null : venda.ultimaVenda());
+        resumo.setAtualizadoEm(agora);
+    }
+
+    private ProdutoResumoDto converterEntidadeParaDto(ProdutoResumo resumo)
+    {
+        return new ProdutoResumoDto(
+                resumo.getProdutoId(),
+                resumo.getCodigo(),
+                resumo.getDescricao(),
+                resumo.getTipo(),
+                resumo.getValorFornecedor(),
+                resumo.getQuantidadeEstoque(),
+                resumo.getQuantidadeVendida(),
+                resumo.getValorVendas(),
+                resumo.getValorCompraUnitario(),
+                resumo.getLucroTotal(),
+                resumo.getUltimaVenda(),
+                resumo.getAtualizadoEm()
+        );
+    }
+
+    private record DadosCalculo(Map<Long, Produto> produtos, Map<Long, VendaProdutoDto> vendas,
+                                Map<Long, Integer> primeirasEntradas)
+    {
+    }
+}
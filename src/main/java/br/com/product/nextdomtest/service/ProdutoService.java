@@ -1,37 +1,98 @@
 package br.com.product.nextdomtest.service;
 
+import br.com.product.nextdomtest.cache.ConsultasCompartilhadas;
+import br.com.product.nextdomtest.cache.EstoqueEmMemoria;
+import br.com.product.nextdomtest.cache.ProdutoCache;
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
+import br.com.product.nextdomtest.datasource.TransacaoSnapshot;
+import br.com.product.nextdomtest.dto.EstatisticaMovimentoDto;
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
+import br.com.product.nextdomtest.dto.ProdutoBuscaDto;
 import br.com.product.nextdomtest.dto.ProdutoDto;
 import br.com.product.nextdomtest.dto.LucroProdutoDto;
+import br.com.product.nextdomtest.enums.CampoProduto;
 import br.com.product.nextdomtest.enums.TipoMovimentacao;
 import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.evento.ProdutoAlteradoEvento;
 import br.com.product.nextdomtest.exception.ProdutoNaoEncontradoException;
+import br.com.product.nextdomtest.journal.JournalEstoque;
 import br.com.product.nextdomtest.exception.OperacaoNaoPermitidaException;
 import br.com.product.nextdomtest.model.MovimentoEstoque;
+import br.com.product.nextdomtest.model.MovimentoEstoqueResumo;
 import br.com.product.nextdomtest.model.Produto;
 import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueResumoRepository;
 import br.com.product.nextdomtest.repository.ProdutoRepository;
+import br.com.product.nextdomtest.repository.SaldoEstoqueRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class ProdutoService
 {
+    static final int LIMITE_IDS_POR_BUSCA = 1000;
+    static final int TAMANHO_LOTE_CONSULTA = 500;
+    static final int TAMANHO_MAXIMO_PAGINA = 500;
+
     private final ProdutoRepository produtoRepository;
     private final MovimentoEstoqueRepository movimentoEstoqueRepository;
+    private final MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository;
+    private final SaldoEstoqueRepository saldoEstoqueRepository;
+    private final VersaoCatalogo versaoCatalogo;
+    private final ProdutoCache produtoCache;
+    private final ConsultasCompartilhadas consultasCompartilhadas;
+    private final EstoqueEmMemoria estoqueEmMemoria;
+    private final JournalEstoque journalEstoque;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransacaoSnapshot transacaoSnapshot;
 
     @Autowired
     public ProdutoService(ProdutoRepository produtoRepository,
-                          MovimentoEstoqueRepository movimentoEstoqueRepository)
+                          MovimentoEstoqueRepository movimentoEstoqueRepository,
+                          MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository,
+                          SaldoEstoqueRepository saldoEstoqueRepository,
+                          VersaoCatalogo versaoCatalogo,
+                          ProdutoCache produtoCache,
+                          ConsultasCompartilhadas consultasCompartilhadas,
+                          EstoqueEmMemoria estoqueEmMemoria,
+                          JournalEstoque journalEstoque,
+                          ApplicationEventPublisher eventPublisher,
+                          ObjectMapper objectMapper,
+                          TransacaoSnapshot transacaoSnapshot)
     {
         this.produtoRepository = produtoRepository;
         this.movimentoEstoqueRepository = movimentoEstoqueRepository;
+        this.movimentoEstoqueResumoRepository = movimentoEstoqueResumoRepository;
+        this.saldoEstoqueRepository = saldoEstoqueRepository;
+        this.versaoCatalogo = versaoCatalogo;
+        this.produtoCache = produtoCache;
+        this.consultasCompartilhadas = consultasCompartilhadas;
+        this.estoqueEmMemoria = estoqueEmMemoria;
+        this.journalEstoque = journalEstoque;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transacaoSnapshot = transacaoSnapshot;
     }
 
     @Transactional
@@ -39,16 +100,64 @@ public class ProdutoService
     {
         Produto produto = converterDtoParaEntidade(dto);
         Produto produtoSalvo = produtoRepository.save(produto);
+        versaoCatalogo.registrarAlteracao(produtoSalvo.getId());
+        produtoCache.invalidar(produtoSalvo.getId(), produtoSalvo.getTipo());
+        if (produtoSalvo.getQuantidadeEstoque() != null)
+        {
+            estoqueEmMemoria.registrarCadastro(produtoSalvo.getId(), produtoSalvo.getQuantidadeEstoque());
+            journalEstoque.registrarCadastro(produtoSalvo.getId(), produtoSalvo.getQuantidadeEstoque());
+        }
+        eventPublisher.publishEvent(new ProdutoAlteradoEvento(produtoSalvo.getId()));
         return converterEntidadeParaDto(produtoSalvo);
     }
 
     public ProdutoDto buscarPorId(Long id)
     {
-        Produto produto = produtoRepository.findById(id)
-                .orElseThrow(() -> new ProdutoNaoEncontradoException(id));
-        return converterEntidadeParaDto(produto);
+        ProdutoDto produto = produtoCache.buscarPorId(id, this::carregarPorId);
+        if (produto == null)
+        {
+            throw new ProdutoNaoEncontradoException(id);
+        }
+        return produto;
+    }
+
+    /**
+     * JSON de {@link #buscarPorId}, guardado já serializado até a próxima alteração do produto.
+     */
+    public byte[] buscarJsonPorId(Long id)
+    {
+        return produtoCache.buscarJsonPorId(id, chave -> serializar(buscarPorId(chave)));
     }
 
+    /**
+     * Busca vários produtos de uma vez, na ordem dos IDs informados. Os que estão no cache não vão ao
+     * banco; os demais são lidos com consultas {@code IN} em lotes. IDs inexistentes retornam
+     * {@code encontrado = false}.
+     */
+    public List<ProdutoBuscaDto> buscarPorIds(List<Long> ids)
+    {
+        Set<Long> idsDistintos = new LinkedHashSet<>(ids);
+        idsDistintos.remove(null);
+        if (idsDistintos.size() > LIMITE_IDS_POR_BUSCA)
+        {
+            throw new OperacaoNaoPermitidaException(
+                    "a busca aceita no máximo " + LIMITE_IDS_POR_BUSCA + " IDs por requisição."
+            );
+        }
+
+        Map<Long, ProdutoDto> encontrados = new HashMap<>(produtoCache.buscarPresentes(idsDistintos));
+        idsDistintos.removeAll(encontrados.keySet());
+        carregarEmLotes(idsDistintos).forEach(produto -> encontrados.put(produto.id(), produto));
+
+        return ids.stream()
+                .map(id -> {
+                    ProdutoDto produto = encontrados.get(id);
+                    return new ProdutoBuscaDto(id, produto != null, produto);
+                })
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
     public List<ProdutoDto> listarTodos()
     {
         return produtoRepository.findAll()
@@ -57,12 +166,38 @@ public class ProdutoService
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Listagem com só os campos pedidos, lidos do banco como projeção das colunas correspondentes.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> listarCampos(Set<CampoProduto> campos)
+    {
+        return produtoRepository.findCampos(campos);
+    }
+
     public List<ProdutoDto> listarPorTipo(TipoProduto tipo)
     {
-        return produtoRepository.findByTipo(tipo)
+        return produtoCache.listarPorTipo(tipo, this::carregarPorTipo);
+    }
+
+    /**
+     * Até {@code limite} produtos do tipo com ID maior que {@code aposId}, em ordem de ID. A página é lida do
+     * banco, e não recortada da listagem em cache, que carregaria todos os produtos do tipo para devolver alguns.
+     */
+    public List<ProdutoDto> listarPorTipo(TipoProduto tipo, long aposId, int limite)
+    {
+        return produtoRepository.findByTipoAndIdGreaterThanOrderById(tipo, aposId, PageRequest.of(0, limite))
                 .stream()
                 .map(this::converterEntidadeParaDto)
-                .collect(Collectors.toList());
+                .toList();
+    }
+
+    /**
+     * JSON de {@link #listarPorTipo(TipoProduto)}, guardado já serializado até a próxima alteração de um produto do tipo.
+     */
+    public byte[] listarJsonPorTipo(TipoProduto tipo)
+    {
+        return produtoCache.listarJsonPorTipo(tipo, chave -> serializar(listarPorTipo(chave)));
     }
 
     @Transactional
@@ -71,7 +206,12 @@ public class ProdutoService
         validarExistenciaProduto(id);
         Produto produto = extrairAlteracoesDoDto(dto);
         produto.setId(id);
+        // A quantidade só muda por movimentação; sem ela o merge gravaria null por cima da atual
+        produto.setQuantidadeEstoque(produtoRepository.findQuantidadeEstoqueById(id).orElse(null));
         Produto produtoAtualizado = produtoRepository.save(produto);
+        versaoCatalogo.registrarAlteracao(id);
+        produtoCache.invalidar(id, null);
+        eventPublisher.publishEvent(new ProdutoAlteradoEvento(id));
         return converterEntidadeParaDto(produtoAtualizado);
     }
 
@@ -87,19 +227,147 @@ public class ProdutoService
             );
         }
 
+        saldoEstoqueRepository.deleteByProdutoId(id);
         produtoRepository.deleteById(id);
+        versaoCatalogo.registrarAlteracao(id);
+        produtoCache.invalidar(id, null);
+        estoqueEmMemoria.registrarExclusao(id);
+        journalEstoque.registrarExclusao(id);
+        eventPublisher.publishEvent(new ProdutoAlteradoEvento(id));
+    }
+
+    /**
+     * Consulta apenas a quantidade em estoque, servida pelo {@link EstoqueEmMemoria} sem acesso ao banco.
+     */
+    public EstoqueProdutoDto consultarEstoque(Long id)
+    {
+        int quantidade = estoqueEmMemoria.quantidade(id);
+        if (quantidade == EstoqueEmMemoria.AUSENTE)
+        {
+            throw new ProdutoNaoEncontradoException(id);
+        }
+        return new EstoqueProdutoDto(id, quantidade);
+    }
+
+    /**
+     * Consulta as quantidades de vários produtos, na ordem dos IDs informados.
+     * Produtos inexistentes retornam quantidade {@code null}.
+     */
+    public List<EstoqueProdutoDto> consultarEstoques(List<Long> ids)
+    {
+        return ids.stream()
+                .map(id -> {
+                    int quantidade = estoqueEmMemoria.quantidade(id);
+                    return new EstoqueProdutoDto(id, quantidade == EstoqueEmMemoria.AUSENTE ? null : quantidade);
+                })
+                .toList();
     }
 
+    /**
+     * Quantidade de movimentos, total de entradas, total de saídas e data da última movimentação
+     * do produto, calculados por agregação no banco sobre os movimentos e os resumos compactados.
+     * Chamadas simultâneas para a mesma versão do produto dividem uma única agregação.
+     */
+    public EstatisticaMovimentoDto consultarEstatisticas(Long produtoId)
+    {
+        return consultasCompartilhadas.executar("estatisticas",
+                List.of(produtoId, versaoCatalogo.versaoProduto(produtoId)),
+                () -> lerResumosEMovimentos("estatísticas do produto", () -> calcularEstatisticas(produtoId)));
+    }
+
+    /**
+     * Estatísticas de uma página de produtos com ID maior que {@code aposId}, ordenados por ID. A página de IDs
+     * é lida pela chave primária e só os seus produtos são agregados. Chamadas simultâneas para a mesma página
+     * e versão do catálogo dividem uma única consulta.
+     */
+    public List<EstatisticaMovimentoDto> listarEstatisticas(long aposId, int tamanho)
+    {
+        if (aposId < 0 || tamanho < 1 || tamanho > TAMANHO_MAXIMO_PAGINA)
+        {
+            throw new OperacaoNaoPermitidaException(
+                    "o ID inicial deve ser maior ou igual a zero e o tamanho entre 1 e " + TAMANHO_MAXIMO_PAGINA + "."
+            );
+        }
+        return consultasCompartilhadas.executar("estatisticas-pagina",
+                List.of(aposId, tamanho, versaoCatalogo.versaoCatalogo()),
+                () -> lerResumosEMovimentos("estatísticas dos produtos",
+                        () -> calcularEstatisticasPagina(aposId, tamanho)));
+    }
+
+    /**
+     * Lucro do produto. Chamadas simultâneas para a mesma versão do produto dividem um único cálculo, feito
+     * numa transação de leitura aberta só por quem executa: quem espera não segura conexão com o banco.
+     */
     public LucroProdutoDto consultarLucro(Long produtoId)
+    {
+        return consultasCompartilhadas.executar("lucro",
+                List.of(produtoId, versaoCatalogo.versaoProduto(produtoId)),
+                () -> lerResumosEMovimentos("lucro do produto", () -> calcularLucro(produtoId)));
+    }
+
+    /**
+     * Executa numa única foto do banco ({@link TransacaoSnapshot}) uma leitura que soma resumos compactados e
+     * movimentos em aberto. A compactação move movimentos de uma tabela para a outra numa transação, e consultas
+     * separadas em {@code READ COMMITTED} contariam esses movimentos duas vezes, ou nenhuma. Dentro de uma
+     * transação já aberta, como a de um lote, a leitura participa dela para enxergar as escritas ainda não
+     * confirmadas.
+     */
+    private <T> T lerResumosEMovimentos(String operacao, Supplier<T> leitura)
+    {
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+        {
+            return leitura.get();
+        }
+        return transacaoSnapshot.executar(operacao, status -> leitura.get());
+    }
+
+    private EstatisticaMovimentoDto calcularEstatisticas(Long produtoId)
+    {
+        buscarPorId(produtoId);
+
+        EstatisticaMovimentoDto estatisticas = new EstatisticaMovimentoDto(produtoId, 0L, 0L, 0L, null);
+        for (EstatisticaMovimentoDto parcial : movimentoEstoqueRepository.calcularEstatisticasPorProdutos(List.of(produtoId)))
+        {
+            estatisticas = combinarEstatisticas(estatisticas, parcial);
+        }
+        for (EstatisticaMovimentoDto parcial : movimentoEstoqueResumoRepository.calcularEstatisticasPorProdutos(List.of(produtoId)))
+        {
+            estatisticas = combinarEstatisticas(estatisticas, parcial);
+        }
+        return estatisticas;
+    }
+
+    private List<EstatisticaMovimentoDto> calcularEstatisticasPagina(long aposId, int tamanho)
+    {
+        List<Long> produtoIds = produtoRepository.findIdsAposId(aposId, PageRequest.of(0, tamanho));
+        if (produtoIds.isEmpty())
+        {
+            return List.of();
+        }
+
+        // Produtos sem movimentação não aparecem nas agregações e ficam com zeros
+        Map<Long, EstatisticaMovimentoDto> porProduto = new LinkedHashMap<>();
+        produtoIds.forEach(id -> porProduto.put(id, new EstatisticaMovimentoDto(id, 0L, 0L, 0L, null)));
+        movimentoEstoqueRepository.calcularEstatisticasPorProdutos(produtoIds)
+                .forEach(parcial -> porProduto.merge(parcial.produtoId(), parcial, this::combinarEstatisticas));
+        movimentoEstoqueResumoRepository.calcularEstatisticasPorProdutos(produtoIds)
+                .forEach(parcial -> porProduto.merge(parcial.produtoId(), parcial, this::combinarEstatisticas));
+        return new ArrayList<>(porProduto.values());
+    }
+
+    private LucroProdutoDto calcularLucro(Long produtoId)
     {
         Produto produto = produtoRepository.findById(produtoId)
                 .orElseThrow(() -> new ProdutoNaoEncontradoException("Produto não encontrado com ID: " + produtoId));
 
-        Integer quantidadeSaida = calcularQuantidadeSaida(produto);
+        // Movimentos antigos consolidados pela compactação entram somados aos movimentos ainda em aberto
+        List<MovimentoEstoqueResumo> resumos = movimentoEstoqueResumoRepository.findByProdutoId(produtoId);
+
+        Integer quantidadeSaida = calcularQuantidadeSaida(produto, resumos);
         BigDecimal valorCompraUnitario = calcularValorCompraUnitario(produto);
-        BigDecimal valorVendaUnitario = calcularValorVendaUnitario(produto);
+        BigDecimal valorVendaUnitario = calcularValorVendaUnitario(produto, resumos);
         BigDecimal resultado = valorVendaUnitario.subtract(valorCompraUnitario);
-        BigDecimal lucroUnitario = resultado.compareTo(BigDecimal.ZERO) < 0 ? BigDecimal.ZERO : resultado;        BigDecimal lucroTotal = calcularLucroProduto(produto);
+        BigDecimal lucroUnitario = resultado.compareTo(BigDecimal.ZERO) < 0 ? BigDecimal.ZERO : resultado;        BigDecimal lucroTotal = calcularLucroProduto(produto, resumos);
 
         return new LucroProdutoDto(
                 produto,
@@ -114,7 +382,8 @@ public class ProdutoService
 
     private boolean temMovimentacoes(Long produtoId)
     {
-        return movimentoEstoqueRepository.existsByProdutoId(produtoId);
+        return movimentoEstoqueRepository.existsByProdutoId(produtoId)
+                || movimentoEstoqueResumoRepository.existsByProdutoId(produtoId);
     }
 
     /**
@@ -141,25 +410,32 @@ public class ProdutoService
     /**
      * Calcula o valor médio de venda unitário do produto
      */
-    private BigDecimal calcularValorVendaUnitario(Produto produto)
+    private BigDecimal calcularValorVendaUnitario(Produto produto, List<MovimentoEstoqueResumo> resumos)
     {
         List<MovimentoEstoque> saidas = movimentoEstoqueRepository.findByProduto(produto)
                 .stream()
                 .filter(movimento -> movimento.getTipo() == TipoMovimentacao.SAIDA)
                 .toList();
 
-        if (saidas.isEmpty())
+        long quantidadeSaidaResumida = resumos.stream()
+                .mapToLong(MovimentoEstoqueResumo::getQuantidadeSaida)
+                .sum();
+
+        if (saidas.isEmpty() && quantidadeSaidaResumida == 0)
         {
             return BigDecimal.ZERO;
         }
 
         BigDecimal valorTotalVendas = saidas.stream()
                 .map(saida -> saida.getValorVenda().multiply(BigDecimal.valueOf(saida.getQuantidade())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .add(resumos.stream()
+                        .map(MovimentoEstoqueResumo::getValorVendas)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add));
 
-        int quantidadeTotalVendida = saidas.stream()
+        long quantidadeTotalVendida = saidas.stream()
                 .mapToInt(MovimentoEstoque::getQuantidade)
-                .sum();
+                .sum() + quantidadeSaidaResumida;
 
         return valorTotalVendas.divide(BigDecimal.valueOf(quantidadeTotalVendida), 2, RoundingMode.HALF_UP);
     }
@@ -167,25 +443,41 @@ public class ProdutoService
     /**
      * Retorna a quantidade total de saídas de um produto.
      */
-    private Integer calcularQuantidadeSaida(Produto produto)
+    private Integer calcularQuantidadeSaida(Produto produto, List<MovimentoEstoqueResumo> resumos)
     {
+        int quantidadeSaidaResumida = resumos.stream()
+                .mapToInt(resumo -> resumo.getQuantidadeSaida().intValue())
+                .sum();
+
         return movimentoEstoqueRepository.findByProduto(produto)
                 .stream()
                 .filter(movimento -> movimento.getTipo() == TipoMovimentacao.SAIDA)
                 .mapToInt(MovimentoEstoque::getQuantidade)
-                .sum();
+                .sum() + quantidadeSaidaResumida;
     }
 
     /**
      * Retorna o lucro total de um produto usando o valor unitário correto de compra.
      */
-    private BigDecimal calcularLucroProduto(Produto produto)
+    private BigDecimal calcularLucroProduto(Produto produto, List<MovimentoEstoqueResumo> resumos)
     {
-        return movimentoEstoqueRepository.findByProduto(produto)
+        BigDecimal lucroMovimentos = movimentoEstoqueRepository.findByProduto(produto)
                 .stream()
                 .filter(movimento -> movimento.getTipo() == TipoMovimentacao.SAIDA)
                 .map(movimento -> calcularLucroMovimentacao(movimento, produto))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        if (resumos.isEmpty())
+        {
+            return lucroMovimentos;
+        }
+
+        // Σ (venda - compra) × quantidade = Σ venda × quantidade - compra × Σ quantidade, sem perda de precisão
+        BigDecimal valorCompraUnitario = calcularValorCompraUnitario(produto);
+        return resumos.stream()
+                .map(resumo -> resumo.getValorVendas()
+                        .subtract(valorCompraUnitario.multiply(BigDecimal.valueOf(resumo.getQuantidadeSaida()))))
+                .reduce(lucroMovimentos, BigDecimal::add);
     }
 
     /**
@@ -198,6 +490,51 @@ public class ProdutoService
         return lucroUnitario.multiply(BigDecimal.valueOf(movimento.getQuantidade()));
     }
 
+    private EstatisticaMovimentoDto combinarEstatisticas(EstatisticaMovimentoDto a, EstatisticaMovimentoDto b)
+    {
+        LocalDateTime ultimaMovimentacao = a.ultimaMovimentacao();
+        if (ultimaMovimentacao == null || (b.ultimaMovimentacao() != null && b.ultimaMovimentacao().isAfter(ultimaMovimentacao)))
+        {
+            ultimaMovimentacao = b.ultimaMovimentacao();
+        }
+
+        return new EstatisticaMovimentoDto(
+                a.produtoId(),
+                a.quantidadeMovimentos() + b.quantidadeMovimentos(),
+                a.totalEntrada() + b.totalEntrada(),
+                a.totalSaida() + b.totalSaida(),
+                ultimaMovimentacao
+        );
+    }
+
+    private ProdutoDto carregarPorId(Long id)
+    {
+        return produtoRepository.findById(id)
+                .map(this::converterEntidadeParaDto)
+                .orElse(null);
+    }
+
+    private List<ProdutoDto> carregarEmLotes(Set<Long> ids)
+    {
+        List<Long> pendentes = List.copyOf(ids);
+        List<ProdutoDto> produtos = new ArrayList<>(pendentes.size());
+        for (int inicio = 0; inicio < pendentes.size(); inicio += TAMANHO_LOTE_CONSULTA)
+        {
+            List<Long> lote = pendentes.subList(inicio, Math.min(inicio + TAMANHO_LOTE_CONSULTA, pendentes.size()));
+            produtoRepository.findAllById(lote)
+                    .forEach(produto -> produtos.add(converterEntidadeParaDto(produto)));
+        }
+        return produtos;
+    }
+
+    private List<ProdutoDto> carregarPorTipo(TipoProduto tipo)
+    {
+        return produtoRepository.findByTipo(tipo)
+                .stream()
+                .map(this::converterEntidadeParaDto)
+                .toList();
+    }
+
     private ProdutoDto converterEntidadeParaDto(Produto produto)
     {
         return new ProdutoDto(
@@ -240,4 +577,16 @@ public class ProdutoService
             throw new ProdutoNaoEncontradoException("Produto não encontrado com ID: " + id);
         }
     }
-}
\ No newline at end of file
+
+    private byte[] serializar(Object resposta)
+    {
+        try
+        {
+            return objectMapper.writeValueAsBytes(resposta);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new IllegalStateException("Falha ao serializar resposta de produto", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.datasource.TransacaoSnapshot;
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
+import br.com.product.nextdomtest.dto.ProdutoResumoDto;
+import br.com.product.nextdomtest.dto.RelatorioLucroDto;
+import br.com.product.nextdomtest.repository.ProdutoRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relatório de lucro de todo o catálogo calculado direto das tabelas de produto e movimentação.
+ * <p>
+ * O catálogo é percorrido em lotes por ID, todos dentro de uma única {@link TransacaoSnapshot}: estoque,
+ * vendas e custo de cada produto vêm do mesmo instante, mesmo com movimentações sendo registradas durante
+ * o relatório, e essas escritas não esperam por ele.
+ */
+@Service
+public class RelatorioLucroService
+{
+    private final ProdutoRepository produtoRepository;
+    private final ProdutoResumoService produtoResumoService;
+    private final TransacaoSnapshot transacaoSnapshot;
+    private final EntityManager entityManager;
+    private final int tamanhoLote;
+
+    @Autowired
+    public RelatorioLucroService(
+            ProdutoRepository produtoRepository,
+            ProdutoResumoService produtoResumoService,
+            TransacaoSnapshot transacaoSnapshot,
+            EntityManager entityManager,
+            @Value("${estoque.relatorio.tamanho-lote:500}") int tamanhoLote
+    )
+    {
+        this.produtoRepository = produtoRepository;
+        this.produtoResumoService = produtoResumoService;
+        this.transacaoSnapshot = transacaoSnapshot;
+        this.entityManager = entityManager;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    public RelatorioLucroDto gerar()
+    {
+        return transacaoSnapshot.executar("relatório de lucro", status -> gerarNoSnapshot());
+    }
+
+    private RelatorioLucroDto gerarNoSnapshot()
+    {
+        long inicio = System.nanoTime();
+        LocalDateTime geradoEm = LocalDateTime.now();
+        List<ProdutoResumoDto> produtos = new ArrayList<>();
+        long quantidadeVendida = 0;
+        BigDecimal valorVendas = BigDecimal.ZERO;
+        BigDecimal lucroTotal = BigDecimal.ZERO;
+
+        long ultimoId = 0L;
+        List<EstoqueProdutoDto> pagina;
+        do
+        {
+            pagina = produtoRepository.findEstoquesAposId(ultimoId, PageRequest.of(0, tamanhoLote));
+            if (pagina.isEmpty())
+            {
+                break;
+            }
+
+            for (ProdutoResumoDto resumo : produtoResumoService.calcular(pagina.stream().map(EstoqueProdutoDto::produtoId).toList()))
+            {
+                produtos.add(resumo);
+                quantidadeVendida += resumo.quantidadeVendida();
+                valorVendas = valorVendas.add(resumo.valorVendas());
+                lucroTotal = lucroTotal.add(resumo.lucroTotal());
+            }
+            // Os produtos do lote já foram convertidos; não precisam ficar no contexto de persistência
+            entityManager.clear();
+            ultimoId = pagina.get(pagina.size() - 1).produtoId();
+        }
+        while (pagina.size() == tamanhoLote);
+
+        return new RelatorioLucroDto(geradoEm, produtos.size(), quantidadeVendida, valorVendas, lucroTotal,
+                (System.nanoTime() - inicio) / 1_000_000, produtos);
+    }
+}
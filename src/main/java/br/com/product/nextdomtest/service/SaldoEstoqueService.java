@@ -0,0 +1,232 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.datasource.TransacaoSnapshot;
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
+import br.com.product.nextdomtest.dto.SaldoEstoqueDto;
+import br.com.product.nextdomtest.dto.SaldoMovimentoDto;
+import br.com.product.nextdomtest.exception.ProdutoNaoEncontradoException;
+import br.com.product.nextdomtest.model.Produto;
+import br.com.product.nextdomtest.model.SaldoEstoque;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueResumoRepository;
+import br.com.product.nextdomtest.repository.ProdutoRepository;
+import br.com.product.nextdomtest.repository.SaldoEstoqueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Saldos diários de estoque e consulta do estoque de um produto em uma data passada.
+ * <p>
+ * Todo dia é registrado o saldo de cada produto no início do dia. A consulta parte do saldo registrado
+ * mais próximo da data pedida e soma apenas os movimentos entre os dois instantes, usando o índice
+ * {@code (produto_id, data_movimentacao)}; o custo fica limitado ao intervalo entre registros, e não ao
+ * histórico inteiro. Dias já compactados entram pelos resumos diários, que cobrem dias inteiros.
+ * <p>
+ * A quantidade atual, os saldos registrados e os movimentos das duas tabelas são lidos numa única foto do
+ * banco ({@link TransacaoSnapshot}); em leituras separadas, um movimento confirmado ou compactado entre elas
+ * entraria na conta duas vezes, ou nenhuma.
+ */
+@Service
+public class SaldoEstoqueService
+{
+    private static final Logger log = LoggerFactory.getLogger(SaldoEstoqueService.class);
+
+    private final ProdutoRepository produtoRepository;
+    private final MovimentoEstoqueRepository movimentoEstoqueRepository;
+    private final MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository;
+    private final SaldoEstoqueRepository saldoEstoqueRepository;
+    private final TransacaoSnapshot transacaoSnapshot;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoLote;
+
+    @Autowired
+    public SaldoEstoqueService(
+            ProdutoRepository produtoRepository,
+            MovimentoEstoqueRepository movimentoEstoqueRepository,
+            MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository,
+            SaldoEstoqueRepository saldoEstoqueRepository,
+            TransacaoSnapshot transacaoSnapshot,
+            PlatformTransactionManager transactionManager,
+            @Value("${estoque.saldo.tamanho-lote:1000}") int tamanhoLote
+    )
+    {
+        this.produtoRepository = produtoRepository;
+        this.movimentoEstoqueRepository = movimentoEstoqueRepository;
+        this.movimentoEstoqueResumoRepository = movimentoEstoqueResumoRepository;
+        this.saldoEstoqueRepository = saldoEstoqueRepository;
+        this.transacaoSnapshot = transacaoSnapshot;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    @Scheduled(cron = "${estoque.saldo.cron:0 5 0 * * *}")
+    public void registrarSaldosAgendado()
+    {
+        registrarSaldos(LocalDate.now());
+    }
+
+    /**
+     * Registra, em lotes, o saldo de todos os produtos no início do dia informado.
+     * Produtos que já têm saldo nessa data são ignorados, então a execução pode ser repetida.
+     * <p>
+     * Cada lote é calculado numa foto do banco e gravado depois, numa transação de escrita própria. O saldo
+     * calculado continua certo mesmo com escritas entre as duas, porque descreve um instante já passado; a
+     * verificação dos já registrados fica na transação de escrita, que é quem esbarraria na chave única.
+     *
+     * @return quantidade de saldos registrados
+     */
+    public long registrarSaldos(LocalDate dia)
+    {
+        LocalDateTime referencia = dia.atStartOfDay();
+        long ultimoId = 0L;
+        long total = 0;
+
+        while (true)
+        {
+            long inicioLote = ultimoId;
+            LoteSaldos lote = transacaoSnapshot.executar("registro de saldos",
+                    status -> calcularLote(inicioLote, referencia));
+            if (lote.ultimoId() == null)
+            {
+                break;
+            }
+
+            Integer registrados = transactionTemplate.execute(status -> gravarLote(lote.saldos(), referencia));
+            total += registrados == null ? 0 : registrados;
+            ultimoId = lote.ultimoId();
+        }
+
+        log.info("Saldos de estoque de {} registrados para {} produtos", dia, total);
+        return total;
+    }
+
+    /**
+     * Quantidade em estoque do produto ao final do dia informado.
+     */
+    public SaldoEstoqueDto consultarSaldoEm(Long produtoId, LocalDate data)
+    {
+        return transacaoSnapshot.executar("saldo em data", status -> calcularSaldoEm(produtoId, data));
+    }
+
+    private SaldoEstoqueDto calcularSaldoEm(Long produtoId, LocalDate data)
+    {
+        Produto produto = produtoRepository.findById(produtoId)
+                .orElseThrow(() -> new ProdutoNaoEncontradoException(produtoId));
+
+        LocalDateTime limite = data.plusDays(1).atStartOfDay();
+
+        Optional<SaldoEstoque> anterior = saldoEstoqueRepository
+                .findFirstByProdutoIdAndDataReferenciaLessThanEqualOrderByDataReferenciaDesc(produtoId, limite);
+        if (anterior.isPresent())
+        {
+            SaldoEstoque saldo = anterior.get();
+            long quantidade = saldo.getQuantidade() + somarPeriodo(produtoId, saldo.getDataReferencia(), limite);
+            return new SaldoEstoqueDto(produtoId, data, Math.toIntExact(quantidade));
+        }
+
+        // Data anterior ao primeiro saldo registrado: desconta o que aconteceu até o registro seguinte
+        Optional<SaldoEstoque> posterior = saldoEstoqueRepository
+                .findFirstByProdutoIdAndDataReferenciaGreaterThanOrderByDataReferenciaAsc(produtoId, limite);
+        if (posterior.isPresent())
+        {
+            SaldoEstoque saldo = posterior.get();
+            long quantidade = saldo.getQuantidade() - somarPeriodo(produtoId, limite, saldo.getDataReferencia());
+            return new SaldoEstoqueDto(produtoId, data, Math.toIntExact(quantidade));
+        }
+
+        // Produto ainda sem saldo registrado: desconta da quantidade atual
+        long quantidade = quantidadeAtual(produto) - somarAPartirDe(Set.of(produtoId), limite).getOrDefault(produtoId, 0L);
+        return new SaldoEstoqueDto(produtoId, data, Math.toIntExact(quantidade));
+    }
+
+    private LoteSaldos calcularLote(long ultimoId, LocalDateTime referencia)
+    {
+        List<EstoqueProdutoDto> lote = produtoRepository.findEstoquesAposId(ultimoId, PageRequest.of(0, tamanhoLote));
+        if (lote.isEmpty())
+        {
+            return new LoteSaldos(null, List.of());
+        }
+
+        Set<Long> produtoIds = lote.stream()
+                .map(EstoqueProdutoDto::produtoId)
+                .collect(Collectors.toSet());
+
+        // Movimentos feitos depois da referência (o job roda após a virada do dia) são descontados
+        Map<Long, Long> movimentosPosteriores = somarAPartirDe(produtoIds, referencia);
+
+        List<SaldoEstoque> saldos = lote.stream()
+                .map(estoque -> SaldoEstoque.builder()
+                        .produtoId(estoque.produtoId())
+                        .dataReferencia(referencia)
+                        .quantidade(Math.toIntExact(valorOuZero(estoque.quantidadeEstoque())
+                                - movimentosPosteriores.getOrDefault(estoque.produtoId(), 0L)))
+                        .build())
+                .toList();
+        return new LoteSaldos(lote.get(lote.size() - 1).produtoId(), saldos);
+    }
+
+    private int gravarLote(List<SaldoEstoque> saldos, LocalDateTime referencia)
+    {
+        Set<Long> jaRegistrados = saldoEstoqueRepository.findByProdutoIdInAndDataReferencia(
+                        saldos.stream().map(SaldoEstoque::getProdutoId).collect(Collectors.toSet()), referencia)
+                .stream()
+                .map(SaldoEstoque::getProdutoId)
+                .collect(Collectors.toSet());
+
+        List<SaldoEstoque> novos = saldos.stream()
+                .filter(saldo -> !jaRegistrados.contains(saldo.getProdutoId()))
+                .toList();
+        saldoEstoqueRepository.saveAll(novos);
+        return novos.size();
+    }
+
+    private long somarPeriodo(Long produtoId, LocalDateTime inicio, LocalDateTime fim)
+    {
+        return movimentoEstoqueRepository.somarSaldoNoPeriodo(produtoId, inicio, fim)
+                + movimentoEstoqueResumoRepository.somarSaldoNoPeriodo(produtoId, inicio.toLocalDate(), fim.toLocalDate());
+    }
+
+    private Map<Long, Long> somarAPartirDe(Set<Long> produtoIds, LocalDateTime inicio)
+    {
+        Map<Long, Long> saldos = new HashMap<>();
+        for (SaldoMovimentoDto saldo : movimentoEstoqueRepository.somarSaldoPorProdutos(produtoIds, inicio))
+        {
+            saldos.merge(saldo.produtoId(), saldo.saldo(), Long::sum);
+        }
+        for (SaldoMovimentoDto saldo : movimentoEstoqueResumoRepository.somarSaldoPorProdutos(produtoIds, inicio.toLocalDate()))
+        {
+            saldos.merge(saldo.produtoId(), saldo.saldo(), Long::sum);
+        }
+        return saldos;
+    }
+
+    private long quantidadeAtual(Produto produto)
+    {
+        return valorOuZero(produto.getQuantidadeEstoque());
+    }
+
+    private long valorOuZero(Integer quantidade)
+    {
+        return quantidade == null ? 0L : quantidade;
+    }
+
+    private record LoteSaldos(Long ultimoId, List<SaldoEstoque> saldos)
+    {
+    }
+}
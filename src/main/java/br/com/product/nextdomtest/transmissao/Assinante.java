@@ -0,0 +1,163 @@
+package br.com.product.nextdomtest.transmissao;
+
+import br.com.product.nextdomtest.dto.AlteracaoEstoqueDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Conexão SSE aberta e o que ainda falta enviar para ela.
+ * <p>
+ * As alterações pendentes ficam num mapa por produto limitado a {@code capacidade} entradas: uma nova
+ * alteração de um produto que já está pendente substitui a anterior, porque o cliente só precisa da quantidade
+ * mais recente. Quando o mapa enche com produtos distintos, o produto pendente há mais tempo é descartado e o
+ * cliente é avisado no próximo envio para recarregar a lista.
+ * <p>
+ * A escrita em andamento é marcada com o seu início, para que a {@link TransmissaoEstoque} abandone o assinante
+ * que não lê a conexão dentro do timeout de escrita.
+ */
+final class Assinante
+{
+    enum Enfileiramento
+    {
+        ENFILEIRADA,
+        COALESCIDA,
+        DESCARTADA
+    }
+
+    record Lote(List<AlteracaoEstoqueDto> alteracoes, int descartadas, boolean heartbeat)
+    {
+        boolean vazio()
+        {
+            return alteracoes.isEmpty() && descartadas == 0 && !heartbeat;
+        }
+    }
+
+    private final SseEmitter emitter;
+    private final Long produtoId;
+    private final TipoProduto tipoProduto;
+    private final int capacidade;
+    private final AtomicBoolean enviando = new AtomicBoolean();
+
+    private final LinkedHashMap<Long, AlteracaoEstoqueDto> pendentes = new LinkedHashMap<>();
+    private int descartadas;
+    private boolean heartbeat;
+    private boolean escrevendo;
+    private long escritaDesde;
+    private boolean abandonado;
+
+    Assinante(SseEmitter emitter, Long produtoId, TipoProduto tipoProduto, int capacidade)
+    {
+        this.emitter = emitter;
+        this.produtoId = produtoId;
+        this.tipoProduto = tipoProduto;
+        this.capacidade = capacidade;
+    }
+
+    SseEmitter emitter()
+    {
+        return emitter;
+    }
+
+    boolean aceita(AlteracaoEstoqueDto alteracao)
+    {
+        return (produtoId == null || produtoId.equals(alteracao.produtoId()))
+                && (tipoProduto == null || tipoProduto == alteracao.tipoProduto());
+    }
+
+    synchronized Enfileiramento enfileirar(AlteracaoEstoqueDto alteracao)
+    {
+        AlteracaoEstoqueDto anterior = pendentes.get(alteracao.produtoId());
+        if (anterior != null)
+        {
+            // Commits concorrentes podem chegar fora de ordem: fica o movimento mais novo
+            if (anterior.movimentoId() < alteracao.movimentoId())
+            {
+                pendentes.put(alteracao.produtoId(), alteracao);
+            }
+            return Enfileiramento.COALESCIDA;
+        }
+
+        Enfileiramento resultado = Enfileiramento.ENFILEIRADA;
+        if (pendentes.size() >= capacidade)
+        {
+            Iterator<AlteracaoEstoqueDto> maisAntiga = pendentes.values().iterator();
+            maisAntiga.next();
+            maisAntiga.remove();
+            descartadas++;
+            resultado = Enfileiramento.DESCARTADA;
+        }
+        pendentes.put(alteracao.produtoId(), alteracao);
+        return resultado;
+    }
+
+    synchronized void solicitarHeartbeat()
+    {
+        heartbeat = true;
+    }
+
+    synchronized Lote retirar()
+    {
+        Lote lote = new Lote(new ArrayList<>(pendentes.values()), descartadas, heartbeat);
+        pendentes.clear();
+        descartadas = 0;
+        heartbeat = false;
+        return lote;
+    }
+
+    synchronized boolean possuiPendentes()
+    {
+        return !pendentes.isEmpty() || descartadas > 0 || heartbeat;
+    }
+
+    /**
+     * Garante um único envio em andamento por assinante, para que os eventos saiam na ordem retirada.
+     */
+    boolean iniciarEnvio()
+    {
+        return enviando.compareAndSet(false, true);
+    }
+
+    void encerrarEnvio()
+    {
+        enviando.set(false);
+    }
+
+    synchronized void iniciarEscrita(long agora)
+    {
+        escrevendo = true;
+        escritaDesde = agora;
+    }
+
+    /**
+     * @return se o assinante foi abandonado durante a escrita e a conexão deve ser encerrada
+     */
+    synchronized boolean concluirEscrita()
+    {
+        escrevendo = false;
+        return abandonado;
+    }
+
+    synchronized boolean escrevendo()
+    {
+        return escrevendo;
+    }
+
+    /**
+     * Abandona o assinante se a escrita em andamento começou há mais de {@code limiteNanos}.
+     */
+    synchronized boolean abandonarSeTravado(long agora, long limiteNanos)
+    {
+        if (escrevendo && !abandonado && agora - escritaDesde > limiteNanos)
+        {
+            abandonado = true;
+            return true;
+        }
+        return false;
+    }
+}
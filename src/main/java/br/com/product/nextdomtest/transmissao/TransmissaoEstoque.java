@@ -0,0 +1,331 @@
+package br.com.product.nextdomtest.transmissao;
+
+import br.com.product.nextdomtest.dto.AlteracaoEstoqueDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.model.MovimentoEstoque;
+import br.com.product.nextdomtest.model.Produto;
+import br.com.product.nextdomtest.util.AposCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Transmite por Server-Sent Events as movimentações confirmadas e a nova quantidade em estoque do produto.
+ * <p>
+ * A publicação acontece após o commit e só enfileira a alteração nos assinantes interessados; a escrita nas
+ * conexões é feita por um pool pequeno ({@code estoque.stream.threads-envio}), com no máximo um envio em
+ * andamento por assinante. Assim um cliente lento não atrasa a transação nem os demais clientes: suas
+ * alterações pendentes se acumulam em {@link Assinante}, são agrupadas por produto e, passando de
+ * {@code estoque.stream.capacidade-assinante} produtos, as mais antigas são descartadas e o cliente recebe o
+ * evento {@code descartadas}. Conexões ociosas não ocupam thread, apenas o {@link SseEmitter} e o mapa vazio.
+ * <p>
+ * A escrita no servlet é bloqueante: um cliente que não lê a conexão prende a thread do envio até o contêiner
+ * desistir. Por isso uma escrita que passa de {@code estoque.stream.timeout-escrita} faz o assinante ser
+ * abandonado: ele sai da lista, deixa de receber alterações e, quando a escrita enfim retorna, a conexão é
+ * encerrada (o {@code EventSource} reconecta). Enquanto a thread continua presa, o pool ganha uma thread no
+ * lugar dela, até {@code estoque.stream.maximo-abandonados} a mais, para que os demais assinantes não esperem.
+ * <p>
+ * A cada {@code estoque.stream.heartbeat} um comentário é enviado a quem não tem eventos pendentes, o que mantém a
+ * conexão aberta em proxies e detecta clientes que já desconectaram.
+ */
+@Component
+public class TransmissaoEstoque
+{
+    static final String EVENTO_ESTOQUE = "estoque";
+    static final String EVENTO_DESCARTADAS = "descartadas";
+    static final String COMENTARIO_HEARTBEAT = "heartbeat";
+
+    private static final Logger log = LoggerFactory.getLogger(TransmissaoEstoque.class);
+
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    // Abandonados cuja escrita ainda não retornou, cada um prendendo uma thread do pool
+    private final Set<Assinante> abandonados = ConcurrentHashMap.newKeySet();
+    private final int capacidadeAssinante;
+    private final Duration timeout;
+    private final long timeoutEscritaNanos;
+    private final int maximoAbandonados;
+    private final ThreadPoolExecutor envio;
+    private final int threadsEnvio;
+    private final Counter abandonos;
+    private final Map<Assinante.Enfileiramento, Counter> enfileiramentos = new EnumMap<>(Assinante.Enfileiramento.class);
+
+    @Autowired
+    public TransmissaoEstoque(@Value("${estoque.stream.capacidade-assinante:256}") int capacidadeAssinante,
+                              @Value("${estoque.stream.timeout:30m}") Duration timeout,
+                              @Value("${estoque.stream.timeout-escrita:5s}") Duration timeoutEscrita,
+                              @Value("${estoque.stream.threads-envio:4}") int threadsEnvio,
+                              @Value("${estoque.stream.maximo-abandonados:64}") int maximoAbandonados,
+                              MeterRegistry meterRegistry)
+    {
+        this(capacidadeAssinante, timeout, timeoutEscrita,
+                (ThreadPoolExecutor) Executors.newFixedThreadPool(threadsEnvio, fabricaThreads()), maximoAbandonados,
+                meterRegistry);
+    }
+
+    TransmissaoEstoque(int capacidadeAssinante, Duration timeout, Duration timeoutEscrita, ThreadPoolExecutor envio,
+                       int maximoAbandonados, MeterRegistry meterRegistry)
+    {
+        this.capacidadeAssinante = capacidadeAssinante;
+        this.timeout = timeout;
+        this.timeoutEscritaNanos = timeoutEscrita.toNanos();
+        this.maximoAbandonados = maximoAbandonados;
+        this.envio = envio;
+        this.threadsEnvio = envio.getCorePoolSize();
+
+        Gauge.builder("estoque.stream.assinantes", assinantes, Set::size)
+                .description("Conexões abertas no stream de estoque")
+                .register(meterRegistry);
+        this.abandonos = Counter.builder("estoque.stream.abandonados")
+                .description("Assinantes abandonados por não lerem a conexão dentro do timeout de escrita")
+                .register(meterRegistry);
+        for (Assinante.Enfileiramento resultado : Assinante.Enfileiramento.values())
+        {
+            enfileiramentos.put(resultado, Counter.builder("estoque.stream.alteracoes")
+                    .description("Alterações de estoque enfileiradas para os assinantes do stream")
+                    .tag("resultado", resultado.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Abre uma assinatura filtrada pelo produto e/ou pelo tipo de produto; {@code null} aceita todos.
+     */
+    public SseEmitter assinar(Long produtoId, TipoProduto tipoProduto)
+    {
+        return registrar(new SseEmitter(timeout.toMillis()), produtoId, tipoProduto);
+    }
+
+    SseEmitter registrar(SseEmitter emitter, Long produtoId, TipoProduto tipoProduto)
+    {
+        Assinante assinante = new Assinante(emitter, produtoId, tipoProduto, capacidadeAssinante);
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(() -> assinantes.remove(assinante));
+        emitter.onError(erro -> assinantes.remove(assinante));
+        assinantes.add(assinante);
+
+        // O primeiro comentário envia os cabeçalhos, e o EventSource do navegador considera a conexão aberta
+        assinante.solicitarHeartbeat();
+        agendar(assinante);
+        return emitter;
+    }
+
+    public int assinantes()
+    {
+        return assinantes.size();
+    }
+
+    /**
+     * Publica a movimentação após o commit da transação corrente.
+     */
+    public void registrarMovimento(MovimentoEstoque movimento, int quantidadeResultante)
+    {
+        Produto produto = movimento.getProduto();
+        AlteracaoEstoqueDto alteracao = new AlteracaoEstoqueDto(
+                movimento.getId(),
+                produto.getId(),
+                produto.getTipo(),
+                movimento.getTipo(),
+                movimento.getQuantidade(),
+                movimento.getValorVenda(),
+                movimento.getDataMovimentacao(),
+                quantidadeResultante
+        );
+        AposCommit.executar(() -> publicar(alteracao));
+    }
+
+    /**
+     * Enfileira a alteração nos assinantes interessados, na thread de quem publica: enfileirar não bloqueia, e
+     * alterações publicadas em sequência chegam a cada assinante na mesma ordem.
+     */
+    void publicar(AlteracaoEstoqueDto alteracao)
+    {
+        for (Assinante assinante : assinantes)
+        {
+            if (assinante.aceita(alteracao))
+            {
+                enfileiramentos.get(assinante.enfileirar(alteracao)).increment();
+                agendar(assinante);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${estoque.stream.heartbeat:15s}")
+    public void enviarHeartbeat()
+    {
+        for (Assinante assinante : assinantes)
+        {
+            assinante.solicitarHeartbeat();
+            agendar(assinante);
+        }
+    }
+
+    /**
+     * Abandona os assinantes com escrita acima do timeout e ajusta o pool: uma thread a mais para cada
+     * abandonado cuja escrita ainda não retornou, até {@code maximoAbandonados}.
+     */
+    @Scheduled(fixedDelayString = "${estoque.stream.timeout-escrita:5s}")
+    public void verificarEscritas()
+    {
+        long agora = System.nanoTime();
+        for (Assinante assinante : assinantes)
+        {
+            if (assinante.abandonarSeTravado(agora, timeoutEscritaNanos))
+            {
+                abandonados.add(assinante);
+                assinantes.remove(assinante);
+                abandonos.increment();
+                log.warn("Assinante do stream abandonado: escrita parada há mais de {} ms",
+                        timeoutEscritaNanos / 1_000_000);
+            }
+        }
+        abandonados.removeIf(assinante -> !assinante.escrevendo());
+
+        int tamanho = threadsEnvio + Math.min(abandonados.size(), maximoAbandonados);
+        if (tamanho > envio.getMaximumPoolSize())
+        {
+            envio.setMaximumPoolSize(tamanho);
+            envio.setCorePoolSize(tamanho);
+        }
+        else if (tamanho < envio.getCorePoolSize())
+        {
+            envio.setCorePoolSize(tamanho);
+            envio.setMaximumPoolSize(tamanho);
+        }
+    }
+
+    int threadsEnvio()
+    {
+        return envio.getCorePoolSize();
+    }
+
+    @PreDestroy
+    public void encerrar()
+    {
+        envio.shutdownNow();
+        for (Assinante assinante : assinantes)
+        {
+            assinante.emitter().complete();
+        }
+        assinantes.clear();
+    }
+
+    private void agendar(Assinante assinante)
+    {
+        if (!assinante.iniciarEnvio())
+        {
+            // O envio em andamento retira o que acabou de ser enfileirado
+            return;
+        }
+
+        try
+        {
+            envio.execute(() -> enviar(assinante));
+        }
+        catch (RejectedExecutionException e)
+        {
+            assinante.encerrarEnvio();
+        }
+    }
+
+    private void enviar(Assinante assinante)
+    {
+        try
+        {
+            Assinante.Lote lote = assinante.retirar();
+            while (!lote.vazio())
+            {
+                boolean abandonado;
+                assinante.iniciarEscrita(System.nanoTime());
+                try
+                {
+                    assinante.emitter().send(eventos(lote));
+                }
+                finally
+                {
+                    abandonado = assinante.concluirEscrita();
+                }
+
+                if (abandonado)
+                {
+                    // O cliente voltou a ler depois de abandonado: encerra para que reconecte e recarregue
+                    assinante.emitter().complete();
+                    return;
+                }
+                lote = assinante.retirar();
+            }
+        }
+        catch (IOException | IllegalStateException e)
+        {
+            // Cliente desconectado ou emitter encerrado: o contêiner conclui a requisição assíncrona
+            assinantes.remove(assinante);
+            return;
+        }
+        finally
+        {
+            assinante.encerrarEnvio();
+        }
+
+        // Alteração enfileirada entre a última retirada e o fim do envio
+        if (assinante.possuiPendentes())
+        {
+            agendar(assinante);
+        }
+    }
+
+    /**
+     * Junta os eventos do lote numa única escrita, com um único flush na conexão.
+     */
+    private static Set<ResponseBodyEmitter.DataWithMediaType> eventos(Assinante.Lote lote)
+    {
+        Set<ResponseBodyEmitter.DataWithMediaType> eventos = new LinkedHashSet<>();
+        if (lote.descartadas() > 0)
+        {
+            eventos.addAll(SseEmitter.event()
+                    .name(EVENTO_DESCARTADAS)
+                    .data(lote.descartadas())
+                    .build());
+        }
+        for (AlteracaoEstoqueDto alteracao : lote.alteracoes())
+        {
+            eventos.addAll(SseEmitter.event()
+                    .id(String.valueOf(alteracao.movimentoId()))
+                    .name(EVENTO_ESTOQUE)
+                    .data(alteracao, MediaType.APPLICATION_JSON)
+                    .build());
+        }
+        if (eventos.isEmpty())
+        {
+            eventos.addAll(SseEmitter.event().comment(COMENTARIO_HEARTBEAT).build());
+        }
+        return eventos;
+    }
+
+    private static CustomizableThreadFactory fabricaThreads()
+    {
+        CustomizableThreadFactory fabrica = new CustomizableThreadFactory("transmissao-estoque-");
+        fabrica.setDaemon(true);
+        return fabrica;
+    }
+}
@@ -0,0 +1,32 @@
+package br.com.product.nextdomtest.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Adia uma ação até o commit da transação corrente. Sem transação ativa, executa imediatamente.
+ */
+public final class AposCommit
+{
+    private AposCommit()
+    {
+    }
+
+    public static void executar(Runnable acao)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            acao.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+        {
+            @Override
+            public void afterCommit()
+            {
+                acao.run();
+            }
+        });
+    }
+}
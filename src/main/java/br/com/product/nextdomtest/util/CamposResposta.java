@@ -0,0 +1,49 @@
+package br.com.product.nextdomtest.util;
+
+import br.com.product.nextdomtest.exception.OperacaoNaoPermitidaException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Interpreta o parâmetro {@code fields} das listagens: nomes separados por vírgula, na grafia da resposta.
+ */
+public final class CamposResposta
+{
+    private CamposResposta()
+    {
+    }
+
+    public static <E extends Enum<E>> EnumSet<E> interpretar(String campos, Class<E> tipo, Function<E, String> nome)
+    {
+        Map<String, E> porNome = Arrays.stream(tipo.getEnumConstants())
+                .collect(Collectors.toMap(nome, Function.identity()));
+
+        EnumSet<E> selecionados = EnumSet.noneOf(tipo);
+        for (String campo : campos.split(","))
+        {
+            String aparado = campo.trim();
+            if (aparado.isEmpty())
+            {
+                continue;
+            }
+
+            E encontrado = porNome.get(aparado);
+            if (encontrado == null)
+            {
+                throw new OperacaoNaoPermitidaException("Campo desconhecido: " + aparado + ". Campos disponíveis: "
+                        + String.join(", ", porNome.keySet().stream().sorted().toList()));
+            }
+            selecionados.add(encontrado);
+        }
+
+        if (selecionados.isEmpty())
+        {
+            throw new OperacaoNaoPermitidaException("Informe ao menos um campo em fields");
+        }
+        return selecionados;
+    }
+}
@@ -0,0 +1,3 @@
+CREATE INDEX idx_movimento_estoque_produto_id ON movimento_estoque (produto_id);
+
+CREATE INDEX idx_produto_tipo ON produto (tipo);
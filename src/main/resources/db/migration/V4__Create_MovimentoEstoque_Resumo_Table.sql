@@ -0,0 +1,12 @@
+CREATE TABLE movimento_estoque_resumo (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    produto_id BIGINT NOT NULL,
+    data DATE NOT NULL,
+    quantidade_movimentos BIGINT NOT NULL,
+    quantidade_entrada BIGINT NOT NULL,
+    quantidade_saida BIGINT NOT NULL,
+    valor_vendas DECIMAL(19, 2) NOT NULL,
+    ultima_movimentacao TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    FOREIGN KEY (produto_id) REFERENCES produto(id),
+    CONSTRAINT uk_movimento_estoque_resumo_produto_data UNIQUE (produto_id, data)
+);
@@ -0,0 +1,13 @@
+CREATE TABLE saldo_estoque (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    produto_id BIGINT NOT NULL,
+    data_referencia TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    quantidade INTEGER NOT NULL,
+    FOREIGN KEY (produto_id) REFERENCES produto(id),
+    CONSTRAINT uk_saldo_estoque_produto_data UNIQUE (produto_id, data_referencia)
+);
+
+-- O índice composto atende também as buscas só por produto_id
+CREATE INDEX idx_movimento_estoque_produto_data ON movimento_estoque (produto_id, data_movimentacao);
+
+DROP INDEX idx_movimento_estoque_produto_id;
@@ -0,0 +1,8 @@
+-- Marca de tempo gravada periodicamente no primário; o atraso da réplica de leitura é a idade
+-- da marca que ela já recebeu pela replicação.
+CREATE TABLE replica_heartbeat (
+    id INTEGER PRIMARY KEY,
+    marcado_em BIGINT NOT NULL
+);
+
+INSERT INTO replica_heartbeat (id, marcado_em) VALUES (1, 0);
@@ -0,0 +1,18 @@
+-- Modelo de leitura desnormalizado: uma linha por produto com estoque e vendas já consolidados,
+-- atualizado a partir dos eventos de produto e de movimentação
+CREATE TABLE produto_resumo (
+    produto_id BIGINT PRIMARY KEY,
+    codigo VARCHAR(255) NOT NULL,
+    descricao VARCHAR(255) NOT NULL,
+    tipo VARCHAR(255) NOT NULL,
+    valor_fornecedor DECIMAL(19, 2) NOT NULL,
+    quantidade_estoque INTEGER NOT NULL,
+    quantidade_vendida BIGINT NOT NULL,
+    valor_vendas DECIMAL(19, 2) NOT NULL,
+    valor_compra_unitario DECIMAL(19, 2) NOT NULL,
+    lucro_total DECIMAL(19, 2) NOT NULL,
+    ultima_venda TIMESTAMP WITHOUT TIME ZONE,
+    atualizado_em TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_produto_resumo_tipo ON produto_resumo (tipo, produto_id);
@@ -0,0 +1,2 @@
+-- Listagem em stream por produto: cada página continua do último ID enviado, na ordem do índice
+CREATE INDEX idx_movimento_estoque_produto_movimento ON movimento_estoque (produto_id, id);
@@ -0,0 +1,11 @@
+-- Produtos com o resumo a recalcular. A linha é gravada na mesma transação da escrita que alterou o
+-- produto e só é apagada pela atualização do resumo que a leu, então uma queda do processo não perde
+-- nenhuma alteração.
+CREATE TABLE produto_resumo_pendente (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    produto_id BIGINT NOT NULL
+);
+
+-- Antes desta tabela as pendências ficavam só em memória e se perdiam numa queda; marca o catálogo inteiro
+-- para o primeiro ciclo após a migração corrigir resumos que ficaram para trás
+INSERT INTO produto_resumo_pendente (produto_id) SELECT id FROM produto;
@@ -0,0 +1,155 @@
+package br.com.product.nextdomtest.admissao;
+
+import br.com.product.nextdomtest.datasource.ContextoConexao;
+import br.com.product.nextdomtest.datasource.MetricasPoolConexoes;
+import br.com.product.nextdomtest.exception.GlobalExceptionHandler;
+import br.com.product.nextdomtest.exception.ServicoSobrecarregadoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes da admissão de requisições")
+class AdmissaoRequisicaoInterceptorTest
+{
+    @Mock
+    private MetricasPoolConexoes metricasPoolConexoes;
+
+    @Mock
+    private HandlerMethod handler;
+
+    private MeterRegistry meterRegistry;
+    private AdmissaoRequisicaoInterceptor interceptor;
+
+    @BeforeEach
+    void setUp()
+    {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new AdmissaoRequisicaoInterceptor(metricasPoolConexoes, meterRegistry, 1,
+                Duration.ofMillis(100), Duration.ofMillis(10), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        ContextoConexao.limparEndpoint();
+    }
+
+    @Test
+    @DisplayName("Deve admitir, identificar o endpoint e liberar a vaga ao concluir")
+    void admitirELiberar()
+    {
+        MockHttpServletRequest request = requisicao();
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler));
+        assertEquals("GET /api/produtos/{id}", ContextoConexao.endpoint());
+        assertEquals(0, interceptor.vagasDisponiveis());
+
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), handler, null);
+        assertEquals(ContextoConexao.NENHUM, ContextoConexao.endpoint());
+        assertEquals(1, interceptor.vagasDisponiveis());
+    }
+
+    @Test
+    @DisplayName("Deve recusar de imediato quando o pool está saturado")
+    void recusarPoolSaturado()
+    {
+        when(metricasPoolConexoes.saturado(Duration.ofMillis(100))).thenReturn(true);
+        when(metricasPoolConexoes.pendentes()).thenReturn(7);
+
+        ServicoSobrecarregadoException ex = assertThrows(ServicoSobrecarregadoException.class,
+                () -> interceptor.preHandle(requisicao(), new MockHttpServletResponse(), handler));
+
+        assertTrue(ex.getMessage().contains("7 requisições aguardando conexão"));
+        assertEquals(1, interceptor.vagasDisponiveis());
+        assertEquals(1.0, meterRegistry.get("estoque.admissao.recusadas")
+                .tags("endpoint", "GET /api/produtos/{id}", "motivo", "pool-saturado").counter().count());
+    }
+
+    @Test
+    @DisplayName("Deve recusar quando não abre vaga dentro da espera da fila")
+    void recusarFilaCheia()
+    {
+        assertTrue(interceptor.preHandle(requisicao(), new MockHttpServletResponse(), handler));
+
+        assertThrows(ServicoSobrecarregadoException.class,
+                () -> interceptor.preHandle(requisicao(), new MockHttpServletResponse(), handler));
+        assertEquals(1.0, meterRegistry.get("estoque.admissao.recusadas").tag("motivo", "fila-cheia").counter().count());
+    }
+
+    @Test
+    @DisplayName("Requisições assíncronas devem liberar a vaga quando saem da thread da requisição")
+    void liberarEmRequisicaoAssincrona()
+    {
+        MockHttpServletRequest request = requisicao();
+        interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), handler);
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), handler, null);
+
+        assertEquals(1, interceptor.vagasDisponiveis());
+    }
+
+    @Test
+    @DisplayName("Handlers que não são de controller não devem passar pela admissão")
+    void ignorarRecursosEstaticos()
+    {
+        assertTrue(interceptor.preHandle(requisicao(), new MockHttpServletResponse(), new Object()));
+        verify(metricasPoolConexoes, never()).saturado(any());
+        assertEquals(1, interceptor.vagasDisponiveis());
+    }
+
+    @Test
+    @DisplayName("Rotas funcionais, como o endpoint GraphQL, devem passar pela admissão")
+    void admitirRotaFuncional()
+    {
+        HandlerFunction<ServerResponse> rota = request -> ServerResponse.ok().build();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), rota));
+        assertEquals("POST /graphql", ContextoConexao.endpoint());
+        assertEquals(0, interceptor.vagasDisponiveis());
+
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), rota, null);
+        assertEquals(1, interceptor.vagasDisponiveis());
+    }
+
+    @Test
+    @DisplayName("A recusa deve virar 503 com Retry-After")
+    void respostaServicoIndisponivel()
+    {
+        ResponseEntity<?> resposta = new GlobalExceptionHandler()
+                .handleServicoSobrecarregado(new ServicoSobrecarregadoException("teste", Duration.ofSeconds(2)));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, resposta.getStatusCode());
+        assertEquals("2", resposta.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    private MockHttpServletRequest requisicao()
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/produtos/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/produtos/{id}");
+        return request;
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.product.nextdomtest.admissao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes dos baldes de tokens por cliente")
+class BaldesTokensTest
+{
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Deve aceitar a rajada de uma vez e depois um pedido a cada intervalo")
+    void consumir_RajadaEReposicao()
+    {
+        BaldesTokens baldes = new BaldesTokens(10, 3, 100);
+        long agora = 0;
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(0, baldes.consumir("a", agora));
+        }
+        assertEquals(SEGUNDO / 10, baldes.consumir("a", agora));
+        assertEquals(SEGUNDO / 20, baldes.consumir("a", agora + SEGUNDO / 20));
+
+        assertEquals(0, baldes.consumir("a", agora + SEGUNDO / 10));
+        assertTrue(baldes.consumir("a", agora + SEGUNDO / 10) > 0);
+    }
+
+    @Test
+    @DisplayName("Cada cliente deve ter o seu próprio balde")
+    void consumir_ClientesIndependentes()
+    {
+        BaldesTokens baldes = new BaldesTokens(1, 1, 100);
+
+        assertEquals(0, baldes.consumir("a", 0));
+        assertTrue(baldes.consumir("a", 0) > 0);
+        assertEquals(0, baldes.consumir("b", 0));
+    }
+
+    @Test
+    @DisplayName("Recusas não devem consumir tokens")
+    void consumir_RecusaNaoConsome()
+    {
+        BaldesTokens baldes = new BaldesTokens(1, 1, 100);
+        assertEquals(0, baldes.consumir("a", 0));
+
+        for (int i = 0; i < 1_000; i++)
+        {
+            assertTrue(baldes.consumir("a", SEGUNDO / 2) > 0);
+        }
+        assertEquals(0, baldes.consumir("a", SEGUNDO));
+    }
+
+    @Test
+    @DisplayName("Acima do máximo de clientes, os novos devem dividir um balde até a limpeza")
+    void consumir_Excedente()
+    {
+        BaldesTokens baldes = new BaldesTokens(1, 1, 2);
+        assertEquals(0, baldes.consumir("a", 0));
+        assertEquals(0, baldes.consumir("b", 0));
+
+        assertEquals(0, baldes.consumir("c", 0));
+        assertTrue(baldes.consumir("d", 0) > 0);
+        assertEquals(2, baldes.clientes());
+
+        baldes.limpar(SEGUNDO);
+        assertEquals(0, baldes.clientes());
+        assertEquals(0, baldes.consumir("d", SEGUNDO));
+        assertEquals(1, baldes.clientes());
+    }
+
+    @Test
+    @DisplayName("A limpeza deve manter os baldes que ainda não encheram")
+    void limpar_MantemBaldesEmUso()
+    {
+        BaldesTokens baldes = new BaldesTokens(1, 5, 100);
+        baldes.consumir("a", 0);
+        baldes.consumir("b", 0);
+        baldes.consumir("b", 0);
+
+        baldes.limpar(SEGUNDO);
+
+        assertEquals(1, baldes.clientes());
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(0, baldes.consumir("b", SEGUNDO));
+        }
+        assertTrue(baldes.consumir("b", SEGUNDO) > 0);
+    }
+
+    @Test
+    @DisplayName("Threads concorrentes não devem consumir mais que a rajada")
+    void consumir_Concorrente() throws Exception
+    {
+        BaldesTokens baldes = new BaldesTokens(0.001, 1_000, 100);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Integer>> aceitos = new ArrayList<>();
+            for (int t = 0; t < 8; t++)
+            {
+                aceitos.add(threads.submit(() -> {
+                    int total = 0;
+                    for (int i = 0; i < 10_000; i++)
+                    {
+                        total += baldes.consumir("a", 0) == 0 ? 1 : 0;
+                    }
+                    return total;
+                }));
+            }
+
+            int total = 0;
+            for (Future<Integer> parcial : aceitos)
+            {
+                total += parcial.get();
+            }
+            assertEquals(1_000, total);
+        }
+        finally
+        {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Taxa e rajada devem ser positivas")
+    void construir_ParametrosInvalidos()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new BaldesTokens(0, 1, 100));
+        assertThrows(IllegalArgumentException.class, () -> new BaldesTokens(1, 0, 100));
+    }
+}
@@ -0,0 +1,205 @@
+package br.com.product.nextdomtest.admissao;
+
+import br.com.product.nextdomtest.exception.GlobalExceptionHandler;
+import br.com.product.nextdomtest.exception.LimiteRequisicoesExcedidoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do limite de requisições por cliente")
+class LimiteRequisicoesInterceptorTest
+{
+    private MeterRegistry meterRegistry;
+    private LimiteRequisicoesInterceptor interceptor;
+
+    @BeforeEach
+    void setUp()
+    {
+        meterRegistry = new SimpleMeterRegistry();
+        // Taxa mínima: dentro do teste nenhum token é reposto
+        interceptor = new LimiteRequisicoesInterceptor(meterRegistry, "X-API-Key", Set.of("integracao-a", "10.0.0.1"),
+                0.001, 2, 0.001, 1, 3);
+    }
+
+    @Test
+    @DisplayName("Escritas acima da rajada devem ser recusadas com o tempo até o próximo token")
+    void escritaAcimaDoLimite()
+    {
+        assertTrue(admitir("POST", "/api/movimentos"));
+        assertTrue(admitir("PUT", "/api/produtos/{id}"));
+
+        LimiteRequisicoesExcedidoException ex = assertThrows(LimiteRequisicoesExcedidoException.class,
+                () -> admitir("DELETE", "/api/produtos/{id}"));
+
+        assertTrue(ex.getMessage().contains("escrita"));
+        assertTrue(ex.getTentarNovamenteEm().compareTo(Duration.ofSeconds(900)) > 0);
+        assertEquals(1.0, meterRegistry.get("estoque.limite.recusadas").tag("orcamento", "escrita").counter().count());
+    }
+
+    @Test
+    @DisplayName("Leituras pesadas devem ter orçamento próprio, e as demais leituras não devem ser limitadas")
+    void orcamentosSeparados()
+    {
+        assertTrue(admitir("GET", "/api/produtos/{id}/lucro"));
+        assertThrows(LimiteRequisicoesExcedidoException.class, () -> admitir("POST", "/graphql"));
+        assertThrows(LimiteRequisicoesExcedidoException.class, () -> admitir("GET", "/api/produtos/estatisticas"));
+        assertThrows(LimiteRequisicoesExcedidoException.class, () -> admitir("GET", "/api/movimentos"));
+
+        assertTrue(admitir("POST", "/api/movimentos"));
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue(admitir("GET", "/api/produtos/{id}"));
+        }
+        assertEquals(3.0, meterRegistry.get("estoque.limite.recusadas").tag("orcamento", "leitura-pesada").counter().count());
+    }
+
+    @Test
+    @DisplayName("Clientes devem ser separados pela chave da API ou, sem ela, pelo endereço remoto")
+    void clientePorChaveOuEndereco()
+    {
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "10.0.0.1", null)));
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "10.0.0.1", null)));
+        assertThrows(LimiteRequisicoesExcedidoException.class,
+                () -> admitir(requisicao("POST", "/api/movimentos", "10.0.0.1", null)));
+
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "10.0.0.2", null)));
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "10.0.0.1", "integracao-a")));
+        // A chave não se confunde com o endereço de mesmo valor
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "10.0.0.3", "10.0.0.1")));
+    }
+
+    @Test
+    @DisplayName("Chave desconhecida deve contar como o endereço, sem criar balde novo")
+    void chaveDesconhecidaUsaEndereco()
+    {
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "10.0.0.1", "inventada-1")));
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "10.0.0.1", "inventada-2")));
+        assertThrows(LimiteRequisicoesExcedidoException.class,
+                () -> admitir(requisicao("POST", "/api/movimentos", "10.0.0.1", "inventada-3")));
+
+        assertEquals(1.0, meterRegistry.get("estoque.limite.clientes").tag("orcamento", "escrita").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Endereços IPv6 do mesmo prefixo /64 devem dividir o balde")
+    void enderecoIpv6PorPrefixo()
+    {
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "2001:db8:1:2::1", null)));
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "2001:db8:1:2:ffff:0:0:7", null)));
+        assertThrows(LimiteRequisicoesExcedidoException.class,
+                () -> admitir(requisicao("POST", "/api/movimentos", "2001:0db8:0001:0002::abcd", null)));
+
+        assertTrue(admitir(requisicao("POST", "/api/movimentos", "2001:db8:1:3::1", null)));
+    }
+
+    @Test
+    @DisplayName("Com o limite de endereços atingido, as chaves configuradas devem continuar com balde próprio")
+    void chavesForaDoExcedente()
+    {
+        // Três endereços enchem o mapa; o quarto consome o único token do balde de excedente
+        for (int i = 1; i <= 4; i++)
+        {
+            assertTrue(admitir(requisicao("GET", "/api/movimentos", "10.1.0." + i, null)));
+        }
+        assertThrows(LimiteRequisicoesExcedidoException.class,
+                () -> admitir(requisicao("GET", "/api/movimentos", "10.1.0.5", null)));
+
+        assertTrue(admitir(requisicao("GET", "/api/movimentos", "10.1.0.5", "integracao-a")));
+    }
+
+    @Test
+    @DisplayName("O lote deve ser cobrado por operação, do orçamento do endpoint individual equivalente")
+    void lotePorOperacao()
+    {
+        MockHttpServletRequest lote = requisicao("POST", "/api/batch", "127.0.0.1", null);
+        assertTrue(admitir(lote));
+
+        interceptor.cobrar(lote, "POST", "/api/movimentos");
+        interceptor.cobrar(lote, "PUT", "/api/produtos/{id}");
+        assertThrows(LimiteRequisicoesExcedidoException.class, () -> interceptor.cobrar(lote, "POST", "/api/produtos"));
+
+        interceptor.cobrar(lote, "GET", "/api/produtos/{id}/lucro");
+        assertThrows(LimiteRequisicoesExcedidoException.class,
+                () -> interceptor.cobrar(lote, "GET", "/api/produtos/{id}/lucro"));
+        for (int i = 0; i < 100; i++)
+        {
+            interceptor.cobrar(lote, "GET", "/api/produtos/{id}");
+        }
+
+        // A entrada do lote não gasta token; o orçamento esgotado pelas operações vale para o resto do cliente
+        assertTrue(admitir("POST", "/api/batch"));
+        assertThrows(LimiteRequisicoesExcedidoException.class, () -> admitir("POST", "/api/movimentos"));
+        assertEquals(2.0, meterRegistry.get("estoque.limite.recusadas").tag("orcamento", "escrita").counter().count());
+    }
+
+    @Test
+    @DisplayName("Sem passar pela interceptor, como com o limite desligado, as operações do lote não devem ser cobradas")
+    void loteSemLimite()
+    {
+        MockHttpServletRequest lote = requisicao("POST", "/api/batch", "127.0.0.1", null);
+
+        for (int i = 0; i < 10; i++)
+        {
+            interceptor.cobrar(lote, "POST", "/api/movimentos");
+        }
+        assertTrue(admitir("POST", "/api/movimentos"));
+    }
+
+    @Test
+    @DisplayName("O despacho assíncrono de um stream não deve ser cobrado de novo")
+    void ignorarDespachoAssincrono()
+    {
+        assertTrue(admitir("GET", "/api/movimentos"));
+
+        MockHttpServletRequest despacho = requisicao("GET", "/api/movimentos", "127.0.0.1", null);
+        despacho.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(admitir(despacho));
+    }
+
+    @Test
+    @DisplayName("A recusa deve virar 429 com Retry-After arredondado para cima")
+    void respostaLimiteExcedido()
+    {
+        ResponseEntity<?> resposta = new GlobalExceptionHandler().handleLimiteRequisicoesExcedido(
+                new LimiteRequisicoesExcedidoException("teste", Duration.ofMillis(1_200)));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, resposta.getStatusCode());
+        assertEquals("2", resposta.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    private boolean admitir(String metodo, String padrao)
+    {
+        return admitir(requisicao(metodo, padrao, "127.0.0.1", null));
+    }
+
+    private boolean admitir(MockHttpServletRequest request)
+    {
+        return interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+    }
+
+    private static MockHttpServletRequest requisicao(String metodo, String padrao, String endereco, String chave)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, padrao);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, padrao);
+        request.setRemoteAddr(endereco);
+        if (chave != null)
+        {
+            request.addHeader("X-API-Key", chave);
+        }
+        return request;
+    }
+}
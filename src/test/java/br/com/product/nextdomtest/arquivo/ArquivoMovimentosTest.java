@@ -0,0 +1,223 @@
+package br.com.product.nextdomtest.arquivo;
+
+import br.com.product.nextdomtest.dto.MovimentoCompactacaoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do arquivo de movimentações")
+class ArquivoMovimentosTest
+{
+    private static final LocalDateTime INICIO = LocalDateTime.of(2022, 1, 3, 8, 15, 30, 123_456_000);
+
+    @TempDir
+    Path diretorio;
+
+    @AfterEach
+    void tearDown()
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reler por produto exatamente as movimentações gravadas, inclusive valores nulos e negativos")
+    void gravarEReler() throws IOException
+    {
+        List<MovimentoCompactacaoDto> movimentos = List.of(
+                movimento(10L, 1L, TipoMovimentacao.ENTRADA, null, 40, INICIO),
+                movimento(11L, 2L, TipoMovimentacao.SAIDA, new BigDecimal("1999.99"), 3, INICIO.plusMinutes(1)),
+                movimento(12L, 1L, TipoMovimentacao.SAIDA, new BigDecimal("15.5"), 7, INICIO.minusDays(2)),
+                movimento(15L, 1L, TipoMovimentacao.SAIDA, new BigDecimal("0.00"), 1, INICIO.plusYears(1))
+        );
+
+        ArquivoMovimentos arquivo = abrir(1000);
+        arquivo.arquivar(movimentos);
+
+        assertEquals(List.of(movimentos.get(0), movimentos.get(2), movimentos.get(3)), arquivo.listarPorProduto(1L));
+        assertEquals(List.of(movimentos.get(1)), arquivo.listarPorProduto(2L));
+        assertEquals(List.of(), arquivo.listarPorProduto(3L));
+        assertEquals(List.of(10L, 11L, 12L, 15L), ids(arquivo.listarPagina(null, 0L, 100)));
+        assertEquals(movimentos.get(2), arquivo.buscarPorId(12L).orElseThrow());
+        assertTrue(arquivo.buscarPorId(13L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve ler páginas por faixa de IDs entre segmentos, sem repetir IDs e só com o produto pedido")
+    void listarPagina() throws IOException
+    {
+        ArquivoMovimentos arquivo = abrir(1000);
+        arquivo.arquivar(lote(21, 30));
+        arquivo.arquivar(lote(1, 10));
+        arquivo.arquivar(lote(8, 12));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(arquivo.listarPagina(null, 0L, 4)));
+        assertEquals(List.of(9L, 10L, 11L, 12L, 21L, 22L), ids(arquivo.listarPagina(null, 8L, 6)));
+        assertEquals(List.of(29L, 30L), ids(arquivo.listarPagina(null, 28L, 6)));
+        assertEquals(List.of(), arquivo.listarPagina(null, 30L, 6));
+        assertEquals(List.of(6L, 9L, 12L, 21L), ids(arquivo.listarPagina(0L, 3L, 4)));
+        assertEquals(List.of(), arquivo.listarPagina(7L, 0L, 4));
+        assertTrue(ArquivoMovimentos.desabilitado().listarPagina(null, 0L, 4).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve ler a página sem abrir segmentos que começam depois dela")
+    void listarPaginaParaNoFimDaPagina() throws IOException
+    {
+        ArquivoMovimentos arquivo = abrir(1000);
+        arquivo.arquivar(lote(1, 10));
+        arquivo.arquivar(lote(11, 20));
+        Files.delete(arquivo.segmentos().get(1).arquivo());
+
+        assertEquals(List.of(6L, 7L, 8L), ids(arquivo.listarPagina(null, 5L, 3)));
+        assertThrows(UncheckedIOException.class, () -> arquivo.listarPagina(null, 5L, 10));
+    }
+
+    @Test
+    @DisplayName("Segmento só deve ser lido após o commit e deve ser apagado quando a transação é desfeita")
+    void segmentoSegueATransacao() throws IOException
+    {
+        ArquivoMovimentos arquivo = abrir(1000);
+
+        TransactionSynchronizationManager.initSynchronization();
+        arquivo.arquivar(List.of(movimento(1L, 1L, TipoMovimentacao.SAIDA, BigDecimal.TEN, 1, INICIO)));
+        assertTrue(arquivo.listarPagina(null, 0L, 100).isEmpty());
+        assertEquals(1, arquivosSegmento().size());
+        concluir(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTrue(arquivosSegmento().isEmpty());
+        assertTrue(arquivo.listarPagina(null, 0L, 100).isEmpty());
+
+        TransactionSynchronizationManager.initSynchronization();
+        arquivo.arquivar(List.of(movimento(1L, 1L, TipoMovimentacao.SAIDA, BigDecimal.TEN, 1, INICIO)));
+        concluir(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(1, arquivo.listarPagina(null, 0L, 100).size());
+    }
+
+    @Test
+    @DisplayName("Deve juntar segmentos pequenos vizinhos até o limite, descartando IDs repetidos")
+    void consolidar() throws IOException
+    {
+        ArquivoMovimentos arquivo = abrir(5);
+        arquivo.arquivar(lote(1, 2));
+        arquivo.arquivar(lote(3, 4));
+        arquivo.arquivar(lote(3, 4));
+        arquivo.arquivar(lote(5, 6));
+        arquivo.arquivar(lote(7, 12));
+
+        // [1-2, 3-4] e [3-4, 5-6] viram dois segmentos de 4 linhas; 7-12 já tem o tamanho alvo
+        assertEquals(4, arquivo.consolidar());
+
+        assertEquals(List.of(4, 4, 6), arquivo.segmentos().stream().map(SegmentoMovimentos.Segmento::movimentos).toList());
+        assertEquals(3, arquivosSegmento().size());
+        assertEquals(12, arquivo.listarPagina(null, 0L, 100).size());
+        assertEquals(0, arquivo.consolidar());
+    }
+
+    @Test
+    @DisplayName("Deve recarregar os segmentos ao reabrir e descartar gravações interrompidas")
+    void reabrir() throws IOException
+    {
+        abrir(1000).arquivar(lote(1, 20));
+        Files.write(diretorio.resolve("movimentos-x.seg.tmp"), new byte[]{1, 2, 3});
+
+        ArquivoMovimentos reaberto = abrir(1000);
+
+        assertEquals(20, reaberto.listarPagina(null, 0L, 100).size());
+        assertEquals(1, arquivosSegmento().size());
+        assertFalse(Files.exists(diretorio.resolve("movimentos-x.seg.tmp")));
+        assertTrue(ArquivoMovimentos.desabilitado().listarPorProduto(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve detectar bloco corrompido pelo CRC")
+    void blocoCorrompido() throws IOException
+    {
+        abrir(1000).arquivar(lote(1, 20));
+        Path segmento = arquivosSegmento().get(0);
+        byte[] conteudo = Files.readAllBytes(segmento);
+        conteudo[conteudo.length - 3] ^= 0x55;
+        Files.write(segmento, conteudo);
+
+        ArquivoMovimentos reaberto = abrir(1000);
+        assertThrows(IllegalStateException.class, () -> reaberto.listarPagina(null, 0L, 100));
+    }
+
+    @Test
+    @DisplayName("Histórico regular deve ocupar poucos bytes por movimentação")
+    void compressao() throws IOException
+    {
+        List<MovimentoCompactacaoDto> movimentos = new ArrayList<>();
+        for (int i = 1; i <= 20_000; i++)
+        {
+            boolean entrada = i % 10 == 0;
+            movimentos.add(movimento(i, i % 50, entrada ? TipoMovimentacao.ENTRADA : TipoMovimentacao.SAIDA,
+                    entrada ? null : new BigDecimal("49.90"), 1 + i % 5, INICIO.plusMinutes(i * 7L)));
+        }
+
+        abrir(100_000).arquivar(movimentos);
+
+        long bytes = Files.size(arquivosSegmento().get(0));
+        assertTrue(bytes < movimentos.size() * 6L, "segmento com " + bytes + " bytes");
+    }
+
+    private ArquivoMovimentos abrir(int movimentosPorSegmento) throws IOException
+    {
+        return new ArquivoMovimentos(true, diretorio.toString(), movimentosPorSegmento);
+    }
+
+    private void concluir(int status)
+    {
+        List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizacoes.forEach(sincronizacao -> sincronizacao.afterCompletion(status));
+    }
+
+    private List<MovimentoCompactacaoDto> lote(long primeiroId, long ultimoId)
+    {
+        List<MovimentoCompactacaoDto> movimentos = new ArrayList<>();
+        for (long id = primeiroId; id <= ultimoId; id++)
+        {
+            movimentos.add(movimento(id, id % 3, TipoMovimentacao.SAIDA, new BigDecimal("9.90"), 1, INICIO.plusHours(id)));
+        }
+        return movimentos;
+    }
+
+    private static List<Long> ids(List<MovimentoCompactacaoDto> movimentos)
+    {
+        return movimentos.stream().map(MovimentoCompactacaoDto::id).toList();
+    }
+
+    private List<Path> arquivosSegmento() throws IOException
+    {
+        try (Stream<Path> arquivos = Files.list(diretorio))
+        {
+            return arquivos.sorted().toList();
+        }
+    }
+
+    private static MovimentoCompactacaoDto movimento(long id, long produtoId, TipoMovimentacao tipo, BigDecimal valor,
+                                                     int quantidade, LocalDateTime data)
+    {
+        return new MovimentoCompactacaoDto(id, produtoId, tipo, valor, quantidade, data);
+    }
+}
@@ -0,0 +1,260 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.ProdutoService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Carga HTTP com {@code benchmark.clientes} clientes simultâneos (padrão 400) durante {@code benchmark.duracao-carga}
+ * segundos (padrão 20): 80% listagens de movimentos por produto e 20% entradas de estoque. Cada comando JDBC
+ * espera {@code benchmark.latencia-banco-ms} (padrão 2 ms), simulando a ida e volta até um banco remoto, para que
+ * as requisições passem o tempo bloqueadas no JDBC como em produção. Respostas {@code 503} da admissão são
+ * contadas à parte e ficam fora da latência. Todos os clientes saem do mesmo endereço, então as subclasses
+ * desligam o limite por cliente ({@code estoque.limite.habilitado}).
+ * <p>
+ * As subclasses só mudam {@code spring.threads.virtual.enabled}; compare as duas saídas.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class CargaHttpBenchmark
+{
+    private static final int CLIENTES = Integer.getInteger("benchmark.clientes", 400);
+    private static final Duration DURACAO = Duration.ofSeconds(Long.getLong("benchmark.duracao-carga", 20));
+    private static final int PRODUTOS = 100;
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    private final List<Long> produtos = new ArrayList<>();
+
+    @BeforeAll
+    void popularProdutos()
+    {
+        for (int i = 0; i < PRODUTOS; i++)
+        {
+            produtos.add(produtoService.salvar(new ProdutoDto(null, "CARGA-" + i, "Produto " + i,
+                    TipoProduto.ELETRONICO, new BigDecimal("10.00"), 1_000)).id());
+        }
+    }
+
+    @Test
+    void carga() throws Exception
+    {
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        executar(cliente, Duration.ofSeconds(5));
+        Resultado resultado = executar(cliente, DURACAO);
+
+        long[] latencias = resultado.latenciasNanos();
+        Arrays.sort(latencias);
+        System.out.printf("%s: %d clientes, %.0f respostas 2xx/s, %d recusadas (503), %d outras; p50 %.1f ms, p99 %.1f ms%n",
+                modo(), CLIENTES, latencias.length / (double) DURACAO.toSeconds(), resultado.recusadas(),
+                resultado.outras(), percentil(latencias, 0.50), percentil(latencias, 0.99));
+
+        assertTrue(latencias.length > 0);
+        assertTrue(resultado.outras() == 0, resultado.outras() + " respostas inesperadas");
+    }
+
+    private String modo()
+    {
+        return getClass().getSimpleName().replace("BenchmarkTest", "");
+    }
+
+    private Resultado executar(HttpClient cliente, Duration duracao) throws Exception
+    {
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        try
+        {
+            long fim = System.nanoTime() + duracao.toNanos();
+            List<Future<Resultado>> parciais = new ArrayList<>(CLIENTES);
+            for (int i = 0; i < CLIENTES; i++)
+            {
+                parciais.add(clientes.submit(() -> executarCliente(cliente, fim)));
+            }
+
+            long[] latencias = new long[0];
+            long recusadas = 0;
+            long outras = 0;
+            for (Future<Resultado> parcial : parciais)
+            {
+                Resultado resultado = parcial.get();
+                long[] juntas = Arrays.copyOf(latencias, latencias.length + resultado.latenciasNanos().length);
+                System.arraycopy(resultado.latenciasNanos(), 0, juntas, latencias.length, resultado.latenciasNanos().length);
+                latencias = juntas;
+                recusadas += resultado.recusadas();
+                outras += resultado.outras();
+            }
+            return new Resultado(latencias, recusadas, outras);
+        }
+        finally
+        {
+            clientes.shutdownNow();
+        }
+    }
+
+    private Resultado executarCliente(HttpClient cliente, long fim) throws Exception
+    {
+        long[] latencias = new long[1024];
+        int total = 0;
+        long recusadas = 0;
+        long outras = 0;
+        while (System.nanoTime() < fim)
+        {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            Long produtoId = produtos.get(aleatorio.nextInt(produtos.size()));
+            HttpRequest requisicao = aleatorio.nextInt(5) == 0
+                    ? HttpRequest.newBuilder(uri("/api/movimentos"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"produtoId\":" + produtoId
+                                    + ",\"tipo\":\"ENTRADA\",\"quantidade\":1}"))
+                            .build()
+                    : HttpRequest.newBuilder(uri("/api/movimentos/produto/" + produtoId)).GET().build();
+
+            long inicio = System.nanoTime();
+            int status = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+            long duracao = System.nanoTime() - inicio;
+
+            if (status == 503)
+            {
+                recusadas++;
+            }
+            else if (status / 100 != 2)
+            {
+                outras++;
+            }
+            else
+            {
+                if (total == latencias.length)
+                {
+                    latencias = Arrays.copyOf(latencias, total * 2);
+                }
+                latencias[total++] = duracao;
+            }
+        }
+        return new Resultado(Arrays.copyOf(latencias, total), recusadas, outras);
+    }
+
+    private URI uri(String caminho)
+    {
+        return URI.create("http://localhost:" + porta + caminho);
+    }
+
+    private static double percentil(long[] ordenadas, double percentil)
+    {
+        if (ordenadas.length == 0)
+        {
+            return Double.NaN;
+        }
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+
+    private record Resultado(long[] latenciasNanos, long recusadas, long outras)
+    {
+    }
+
+    /**
+     * Atrasa cada comando JDBC e cada commit em {@code benchmark.latencia-banco-ms}.
+     */
+    @TestConfiguration
+    static class LatenciaBanco
+    {
+        private static final long LATENCIA_MS = Long.getLong("benchmark.latencia-banco-ms", 2);
+
+        @Bean
+        static BeanPostProcessor latenciaBanco()
+        {
+            return new BeanPostProcessor()
+            {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName)
+                {
+                    if (bean instanceof HikariDataSource hikari)
+                    {
+                        return new DelegatingDataSource(hikari)
+                        {
+                            @Override
+                            public Connection getConnection() throws SQLException
+                            {
+                                return comLatencia(Connection.class, super.getConnection());
+                            }
+                        };
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static <T> T comLatencia(Class<T> tipo, T alvo)
+        {
+            Object proxy = Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (instancia, metodo, args) -> {
+                String nome = metodo.getName();
+                if (nome.startsWith("execute") || nome.equals("commit"))
+                {
+                    Thread.sleep(LATENCIA_MS);
+                }
+
+                Object resultado;
+                try
+                {
+                    resultado = metodo.invoke(alvo, args);
+                }
+                catch (InvocationTargetException e)
+                {
+                    throw e.getCause();
+                }
+
+                if (resultado instanceof CallableStatement chamada)
+                {
+                    return comLatencia(CallableStatement.class, chamada);
+                }
+                if (resultado instanceof PreparedStatement preparado)
+                {
+                    return comLatencia(PreparedStatement.class, preparado);
+                }
+                if (resultado instanceof Statement comando)
+                {
+                    return comLatencia(Statement.class, comando);
+                }
+                return resultado;
+            });
+            return tipo.cast(proxy);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.product.nextdomtest.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+/**
+ * {@link CargaHttpBenchmark} com o pool de threads de plataforma padrão do Tomcat.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "spring.threads.virtual.enabled=false",
+                "estoque.limite.habilitado=false"})
+@Import(CargaHttpBenchmark.LatenciaBanco.class)
+@DisplayName("Benchmark de carga HTTP com threads de plataforma")
+class CargaThreadsPlataformaBenchmarkTest extends CargaHttpBenchmark
+{
+}
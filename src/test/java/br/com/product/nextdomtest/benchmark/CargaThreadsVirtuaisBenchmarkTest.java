@@ -0,0 +1,21 @@
+package br.com.product.nextdomtest.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+/**
+ * {@link CargaHttpBenchmark} com requisições em threads virtuais; só roda no Java 21 ou posterior.
+ * Executar com {@code mvn test -Pbenchmark,java21}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "spring.threads.virtual.enabled=true",
+                "estoque.limite.habilitado=false"})
+@Import(CargaHttpBenchmark.LatenciaBanco.class)
+@EnabledForJreRange(min = JRE.JAVA_21)
+@DisplayName("Benchmark de carga HTTP com threads virtuais")
+class CargaThreadsVirtuaisBenchmarkTest extends CargaHttpBenchmark
+{
+}
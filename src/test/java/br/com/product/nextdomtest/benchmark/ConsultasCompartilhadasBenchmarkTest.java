@@ -0,0 +1,142 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.ProdutoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dispara {@code benchmark.usuarios} consultas de lucro simultâneas (padrão 50), como no fechamento do mês, e
+ * compara o tempo até a última resposta quando todas pedem o mesmo produto, que são compartilhadas, com o tempo
+ * quando cada uma pede um produto diferente com o mesmo volume, que executam todas. Cada produto tem
+ * {@code benchmark.movimentos-produto} movimentações (padrão 200). A versão do produto avança a cada rodada,
+ * para que o resultado da rodada anterior não seja reaproveitado.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@DisplayName("Benchmark das consultas de lucro simultâneas")
+class ConsultasCompartilhadasBenchmarkTest
+{
+    private static final int USUARIOS = Integer.getInteger("benchmark.usuarios", 50);
+    private static final int MOVIMENTOS = Integer.getInteger("benchmark.movimentos-produto", 200);
+    private static final int RODADAS = 5;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Long> produtos = new ArrayList<>();
+
+    @BeforeAll
+    void popularMovimentos()
+    {
+        for (int i = 0; i < USUARIOS; i++)
+        {
+            Long produtoId = produtoService.salvar(new ProdutoDto(null, "FECHAMENTO-" + i, "Produto " + i,
+                    TipoProduto.ELETRONICO, new BigDecimal("100.00"), 0)).id();
+            jdbcTemplate.update("""
+                    INSERT INTO movimento_estoque (produto_id, tipo, valor_venda, quantidade, data_movimentacao)
+                    SELECT ?, CASE WHEN X = 1 OR MOD(X, 2) = 0 THEN 'ENTRADA' ELSE 'SAIDA' END, 15.00, 1,
+                           DATEADD('MINUTE', X, TIMESTAMP '2024-01-01 00:00:00')
+                    FROM SYSTEM_RANGE(1, ?)
+                    """, produtoId, MOVIMENTOS);
+            produtos.add(produtoId);
+        }
+    }
+
+    @Test
+    @DisplayName("Tempo até a última resposta com o mesmo produto e com produtos diferentes")
+    void compararMesmoProdutoEProdutosDiferentes() throws Exception
+    {
+        ExecutorService usuarios = Executors.newFixedThreadPool(USUARIOS);
+        try
+        {
+            medir(usuarios, usuario -> produtos.get(0));
+            medir(usuarios, produtos::get);
+
+            double antesExecutadas = contador("executada");
+            double antesCompartilhadas = contador("compartilhada");
+            double msMesmoProduto = medir(usuarios, usuario -> produtos.get(0));
+            double executadas = contador("executada") - antesExecutadas;
+            double compartilhadas = contador("compartilhada") - antesCompartilhadas;
+            double msProdutosDiferentes = medir(usuarios, produtos::get);
+
+            System.out.printf("%d consultas simultâneas: mesmo produto %.1f ms, produtos diferentes %.1f ms; "
+                            + "mesmo produto: %.0f execuções, %.0f compartilhadas (%.0f%%)%n",
+                    USUARIOS, msMesmoProduto, msProdutosDiferentes, executadas, compartilhadas,
+                    100 * compartilhadas / (executadas + compartilhadas));
+            assertTrue(executadas < USUARIOS * RODADAS, "nenhuma consulta foi compartilhada");
+        }
+        finally
+        {
+            usuarios.shutdownNow();
+        }
+    }
+
+    /**
+     * Média, entre as rodadas, do tempo do disparo até a última resposta.
+     */
+    private double medir(ExecutorService usuarios, IntFunction<Long> produtoDoUsuario) throws Exception
+    {
+        long totalNanos = 0;
+        for (int rodada = 0; rodada < RODADAS; rodada++)
+        {
+            produtos.forEach(versaoCatalogo::registrarAlteracao);
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> consultas = new ArrayList<>(USUARIOS);
+            for (int usuario = 0; usuario < USUARIOS; usuario++)
+            {
+                Long produtoId = produtoDoUsuario.apply(usuario);
+                consultas.add(usuarios.submit(() -> {
+                    largada.await();
+                    return produtoService.consultarLucro(produtoId);
+                }));
+            }
+
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> consulta : consultas)
+            {
+                consulta.get();
+            }
+            totalNanos += System.nanoTime() - inicio;
+        }
+        return totalNanos / 1e6 / RODADAS;
+    }
+
+    private double contador(String resultado)
+    {
+        var contador = meterRegistry.find("estoque.consultas").tags("consulta", "lucro", "resultado", resultado).counter();
+        return contador == null ? 0 : contador.count();
+    }
+}
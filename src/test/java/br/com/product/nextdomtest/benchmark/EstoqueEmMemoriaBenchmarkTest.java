@@ -0,0 +1,80 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.cache.EstoqueEmMemoria;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mede consultas por segundo ao {@link EstoqueEmMemoria} com leitores concorrentes e um escritor
+ * simulando movimentações. Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark do estoque em memória")
+class EstoqueEmMemoriaBenchmarkTest
+{
+    private static final int PRODUTOS = 1_000_000;
+    private static final int CONSULTAS_POR_LEITOR = 20_000_000;
+
+    @Test
+    @DisplayName("Consultas concorrentes com escritas em paralelo")
+    void medirConsultasConcorrentes() throws Exception
+    {
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria();
+        for (long id = 1; id <= PRODUTOS; id++)
+        {
+            estoque.carregar(id, (int) (id % 500));
+        }
+
+        int leitores = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(leitores + 1);
+        try
+        {
+            Future<?> escritor = executor.submit(() -> {
+                long movimento = 1;
+                while (!Thread.currentThread().isInterrupted())
+                {
+                    estoque.registrarMovimento(1 + ThreadLocalRandom.current().nextInt(PRODUTOS), 10, movimento++);
+                }
+            });
+
+            long inicio = System.nanoTime();
+            List<Future<Long>> resultados = new ArrayList<>();
+            for (int i = 0; i < leitores; i++)
+            {
+                resultados.add(executor.submit(() -> {
+                    long soma = 0;
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    for (int j = 0; j < CONSULTAS_POR_LEITOR; j++)
+                    {
+                        soma += estoque.quantidade(1 + aleatorio.nextInt(PRODUTOS));
+                    }
+                    return soma;
+                }));
+            }
+            for (Future<Long> resultado : resultados)
+            {
+                resultado.get();
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            escritor.cancel(true);
+
+            double consultasPorSegundo = (double) leitores * CONSULTAS_POR_LEITOR / segundos;
+            System.out.printf("%d leitores: %,.0f consultas/s%n", leitores, consultasPorSegundo);
+            assertTrue(consultasPorSegundo > 1_000_000);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
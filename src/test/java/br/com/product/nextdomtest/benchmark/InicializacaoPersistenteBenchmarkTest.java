@@ -0,0 +1,83 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.cache.EstoqueEmMemoria;
+import br.com.product.nextdomtest.persistencia.AplicacaoPersistente;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mede o tempo de inicialização do perfil {@code persistente} sobre um banco em arquivo já populado,
+ * carregando o estoque em memória do banco e do journal. O volume padrão é de 1 milhão de produtos e
+ * 50 milhões de movimentações; use {@code -Dbenchmark.produtos} e {@code -Dbenchmark.movimentos} para
+ * reduzir. Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark de inicialização com banco persistente")
+class InicializacaoPersistenteBenchmarkTest
+{
+    private static final int PRODUTOS = Integer.getInteger("benchmark.produtos", 1_000_000);
+    private static final long MOVIMENTOS = Long.getLong("benchmark.movimentos", 50_000_000L);
+    private static final long LOTE_MOVIMENTOS = 1_000_000;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Inicialização carregando o estoque do banco e do journal")
+    void medirInicializacao()
+    {
+        long inicio = System.nanoTime();
+        try (ConfigurableApplicationContext contexto = AplicacaoPersistente.iniciar(diretorio, "estoque.journal.habilitado=false"))
+        {
+            popular(contexto.getBean(JdbcTemplate.class));
+        }
+        System.out.printf("Carga de %,d produtos e %,d movimentações: %,d ms%n", PRODUTOS, MOVIMENTOS, milissegundos(inicio));
+
+        medir("banco, sem journal", "estoque.journal.habilitado=false");
+        medir("banco, gravando checkpoint do journal");
+        medir("journal");
+    }
+
+    private void popular(JdbcTemplate jdbcTemplate)
+    {
+        jdbcTemplate.update("""
+                INSERT INTO produto (id, codigo, descricao, tipo, valor_fornecedor, quantidade_estoque)
+                SELECT X, 'P' || X, 'Produto ' || X, 'ELETRONICO', 10.00, MOD(X, 500) FROM SYSTEM_RANGE(1, ?)
+                """, PRODUTOS);
+        jdbcTemplate.execute("ALTER TABLE produto ALTER COLUMN id RESTART WITH " + (PRODUTOS + 1));
+
+        for (long primeiro = 1; primeiro <= MOVIMENTOS; primeiro += LOTE_MOVIMENTOS)
+        {
+            jdbcTemplate.update("""
+                    INSERT INTO movimento_estoque (id, produto_id, tipo, valor_venda, quantidade, data_movimentacao)
+                    SELECT X, MOD(X, ?) + 1, 'ENTRADA', NULL, 1, DATEADD('SECOND', -X, CURRENT_TIMESTAMP)
+                    FROM SYSTEM_RANGE(?, ?)
+                    """, PRODUTOS, primeiro, Math.min(primeiro + LOTE_MOVIMENTOS - 1, MOVIMENTOS));
+        }
+        jdbcTemplate.execute("ALTER TABLE movimento_estoque ALTER COLUMN id RESTART WITH " + (MOVIMENTOS + 1));
+    }
+
+    private void medir(String descricao, String... propriedades)
+    {
+        long inicio = System.nanoTime();
+        try (ConfigurableApplicationContext contexto = AplicacaoPersistente.iniciar(diretorio, propriedades))
+        {
+            long tempo = milissegundos(inicio);
+            assertEquals(PRODUTOS, contexto.getBean(EstoqueEmMemoria.class).tamanho());
+            System.out.printf("Inicialização (%s): %,d ms%n", descricao, tempo);
+        }
+    }
+
+    private static long milissegundos(long inicio)
+    {
+        return (System.nanoTime() - inicio) / 1_000_000;
+    }
+}
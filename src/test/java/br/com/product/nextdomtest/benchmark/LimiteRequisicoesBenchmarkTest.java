@@ -0,0 +1,123 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.admissao.LimiteRequisicoesInterceptor;
+import br.com.product.nextdomtest.exception.LimiteRequisicoesExcedidoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mede o custo da {@link LimiteRequisicoesInterceptor} por requisição, com uma thread por processador: escritas
+ * aceitas de {@code benchmark.clientes-limite} clientes (padrão 10.000), escritas aceitas de um único cliente, em
+ * que todas as threads disputam o mesmo balde, e escritas recusadas, incluindo a criação da exceção que vira o 429.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark do limite de requisições por cliente")
+class LimiteRequisicoesBenchmarkTest
+{
+    private static final int CLIENTES = Integer.getInteger("benchmark.clientes-limite", 10_000);
+    private static final int REQUISICOES_POR_THREAD = 5_000_000;
+
+    @Test
+    @DisplayName("Custo por requisição aceita e recusada")
+    void medirCustoPorRequisicao() throws Exception
+    {
+        LimiteRequisicoesInterceptor semLimite = criar(1e9, 1_000_000_000);
+        LimiteRequisicoesInterceptor esgotado = criar(0.001, 1);
+
+        List<MockHttpServletRequest> variosClientes = requisicoes(CLIENTES);
+        List<MockHttpServletRequest> umCliente = requisicoes(1);
+        esgotado.preHandle(umCliente.get(0), new MockHttpServletResponse(), new Object());
+
+        for (int aquecimento = 0; aquecimento < 2; aquecimento++)
+        {
+            double nsVarios = medir(semLimite, variosClientes);
+            double nsUm = medir(semLimite, umCliente);
+            double nsRecusa = medir(esgotado, umCliente);
+            if (aquecimento == 1)
+            {
+                System.out.printf("Aceita, %d clientes: %.0f ns; aceita, um cliente disputado: %.0f ns; recusada: %.0f ns%n",
+                        CLIENTES, nsVarios, nsUm, nsRecusa);
+                assertTrue(nsVarios < 1_000, "custo por requisição aceita: " + nsVarios + " ns");
+            }
+        }
+    }
+
+    /**
+     * Nanossegundos de uma thread por requisição, com todas as threads rodando ao mesmo tempo.
+     */
+    private static double medir(LimiteRequisicoesInterceptor interceptor, List<MockHttpServletRequest> requisicoes)
+            throws Exception
+    {
+        int threads = Runtime.getRuntime().availableProcessors();
+        MockHttpServletResponse resposta = new MockHttpServletResponse();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            long inicio = System.nanoTime();
+            List<Future<Integer>> aceitas = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++)
+            {
+                int deslocamento = t * 7_919;
+                aceitas.add(executor.submit(() -> {
+                    int total = 0;
+                    for (int i = 0; i < REQUISICOES_POR_THREAD; i++)
+                    {
+                        try
+                        {
+                            interceptor.preHandle(requisicoes.get((i + deslocamento) % requisicoes.size()), resposta, null);
+                            total++;
+                        }
+                        catch (LimiteRequisicoesExcedidoException e)
+                        {
+                            // Recusa esperada no cenário esgotado
+                        }
+                    }
+                    return total;
+                }));
+            }
+            for (Future<Integer> parcial : aceitas)
+            {
+                parcial.get();
+            }
+            return (double) (System.nanoTime() - inicio) / REQUISICOES_POR_THREAD;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static LimiteRequisicoesInterceptor criar(double taxa, int rajada)
+    {
+        return new LimiteRequisicoesInterceptor(new SimpleMeterRegistry(), "X-API-Key", Set.of(), taxa, rajada, taxa, rajada,
+                CLIENTES + 1);
+    }
+
+    private static List<MockHttpServletRequest> requisicoes(int clientes)
+    {
+        List<MockHttpServletRequest> requisicoes = new ArrayList<>(clientes);
+        for (int i = 0; i < clientes; i++)
+        {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/movimentos");
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/movimentos");
+            request.setRemoteAddr("10." + (i >> 16) + "." + ((i >> 8) & 0xFF) + "." + (i & 0xFF));
+            requisicoes.add(request);
+        }
+        return requisicoes;
+    }
+}
@@ -0,0 +1,181 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.ProdutoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara a listagem de {@code benchmark.movimentos} movimentações (padrão 20.000) em JSON, montada inteira antes
+ * da escrita, com a mesma listagem em NDJSON, escrita página a página. Mede a leitura completa por um cliente
+ * rápido e a memória ocupada por {@code benchmark.clientes-lentos} clientes (padrão 20) que recebem o começo da
+ * resposta e param de ler, como numa rede lenta: no JSON cada um segura a lista inteira no servidor até o fim da
+ * escrita, no NDJSON só a página corrente.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "estoque.admissao.habilitada=false",
+                "estoque.limite.habilitado=false"})
+@DisplayName("Benchmark da listagem de movimentações em JSON e em NDJSON")
+class ListagemStreamBenchmarkTest
+{
+    private static final int MOVIMENTOS = Integer.getInteger("benchmark.movimentos", 20_000);
+    private static final int CLIENTES_LENTOS = Integer.getInteger("benchmark.clientes-lentos", 20);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String JSON = "application/json";
+
+    private final HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void popularMovimentos()
+    {
+        Long produtoId = produtoService.salvar(new ProdutoDto(null, "LISTAGEM-1", "Produto da listagem",
+                TipoProduto.ELETRONICO, new BigDecimal("10.00"), 0)).id();
+        jdbcTemplate.update("""
+                INSERT INTO movimento_estoque (produto_id, tipo, valor_venda, quantidade, data_movimentacao)
+                SELECT ?, CASE MOD(X, 2) WHEN 0 THEN 'ENTRADA' ELSE 'SAIDA' END, 15.00, 1,
+                       DATEADD('MINUTE', X, TIMESTAMP '2024-01-01 00:00:00')
+                FROM SYSTEM_RANGE(1, ?)
+                """, produtoId, MOVIMENTOS);
+    }
+
+    @Test
+    @DisplayName("Leitura completa e memória por cliente lento em JSON e em NDJSON")
+    void compararFormatos() throws Exception
+    {
+        for (String formato : List.of(JSON, NDJSON, JSON, NDJSON))
+        {
+            lerCompleto(formato);
+        }
+
+        for (String formato : List.of(JSON, NDJSON))
+        {
+            LeituraCompleta leitura = lerCompleto(formato);
+            long memoriaPorCliente = medirClientesLentos(formato);
+
+            System.out.printf("%-20s primeiro byte em %4.0f ms, leitura completa em %5.0f ms (%.1f MB); "
+                            + "%d clientes lentos: %.0f KB por cliente%n",
+                    formato, leitura.msPrimeiroByte(), leitura.msTotal(), leitura.bytes() / 1e6,
+                    CLIENTES_LENTOS, memoriaPorCliente / 1024.0);
+        }
+    }
+
+    private LeituraCompleta lerCompleto(String formato) throws Exception
+    {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/movimentos"))
+                .header("Accept", formato)
+                .GET()
+                .build();
+        long inicio = System.nanoTime();
+        HttpResponse<InputStream> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, resposta.statusCode());
+
+        try (InputStream entrada = resposta.body())
+        {
+            byte[] buffer = new byte[64 * 1024];
+            int lidos = entrada.read(buffer);
+            double msPrimeiroByte = (System.nanoTime() - inicio) / 1e6;
+
+            long bytes = 0;
+            int quebras = 0;
+            while (lidos >= 0)
+            {
+                bytes += lidos;
+                for (int i = 0; i < lidos; i++)
+                {
+                    quebras += buffer[i] == '\n' ? 1 : 0;
+                }
+                lidos = entrada.read(buffer);
+            }
+            double msTotal = (System.nanoTime() - inicio) / 1e6;
+
+            assertEquals(formato.equals(NDJSON) ? MOVIMENTOS : 0, quebras, formato + ": linhas no corpo");
+            return new LeituraCompleta(msPrimeiroByte, msTotal, bytes);
+        }
+    }
+
+    /**
+     * Abre os clientes, lê só o primeiro trecho de cada resposta e mede a memória com todos parados.
+     */
+    private long medirClientesLentos(String formato) throws Exception
+    {
+        long memoriaAntes = memoriaUsada();
+        List<Socket> conexoes = new ArrayList<>(CLIENTES_LENTOS);
+        try
+        {
+            for (int i = 0; i < CLIENTES_LENTOS; i++)
+            {
+                Socket conexao = abrir(formato);
+                assertTrue(conexao.getInputStream().read(new byte[8192]) > 0);
+                conexoes.add(conexao);
+            }
+            // Tempo para o servidor encher os buffers do socket e bloquear na escrita
+            Thread.sleep(2_000);
+            return (memoriaUsada() - memoriaAntes) / CLIENTES_LENTOS;
+        }
+        finally
+        {
+            for (Socket conexao : conexoes)
+            {
+                conexao.close();
+            }
+            Thread.sleep(1_000);
+        }
+    }
+
+    private Socket abrir(String formato) throws IOException
+    {
+        Socket conexao = new Socket();
+        conexao.setReceiveBufferSize(16 * 1024);
+        conexao.connect(new InetSocketAddress("localhost", porta));
+        conexao.getOutputStream().write(("GET /api/movimentos HTTP/1.1\r\nHost: localhost\r\nAccept: " + formato
+                + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        return conexao;
+    }
+
+    private static long memoriaUsada()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private record LeituraCompleta(double msPrimeiroByte, double msTotal, long bytes)
+    {
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.repository.ProdutoRepository;
+import br.com.product.nextdomtest.service.ProdutoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara a vazão de leitura de produtos por ID com e sem o {@code ProdutoCache}.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Benchmark do cache de produtos")
+class ProdutoCacheBenchmarkTest
+{
+    private static final int PRODUTOS = 1_000;
+    private static final int LEITURAS = 200_000;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private long primeiroId;
+
+    @BeforeAll
+    void popularProdutos()
+    {
+        for (int i = 0; i < PRODUTOS; i++)
+        {
+            ProdutoDto produto = produtoService.salvar(new ProdutoDto(
+                    null, "BENCH-" + i, "Produto " + i, TipoProduto.ELETRONICO, new BigDecimal("10.00"), 100));
+            if (i == 0)
+            {
+                primeiroId = produto.id();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Leitura por ID: cache vs repositório")
+    void compararVazaoDeLeitura()
+    {
+        medir("aquecimento sem cache", id -> produtoRepository.findById(id).orElseThrow());
+        medir("aquecimento com cache", produtoService::buscarPorId);
+
+        double semCache = medir("sem cache", id -> produtoRepository.findById(id).orElseThrow());
+        double comCache = medir("com cache", produtoService::buscarPorId);
+
+        System.out.printf("Ganho do cache: %.1fx%n", comCache / semCache);
+        assertTrue(comCache > semCache, "O cache deveria ser mais rápido que o repositório");
+    }
+
+    private double medir(String cenario, LongConsumer leitura)
+    {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < LEITURAS; i++)
+        {
+            leitura.accept(primeiroId + aleatorio.nextInt(PRODUTOS));
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        double opsPorSegundo = LEITURAS / segundos;
+        System.out.printf("%-22s %,12.0f leituras/s%n", cenario, opsPorSegundo);
+        return opsPorSegundo;
+    }
+}
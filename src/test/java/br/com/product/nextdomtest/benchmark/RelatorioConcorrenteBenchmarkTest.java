@@ -0,0 +1,130 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import br.com.product.nextdomtest.service.RelatorioLucroService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mede a vazão de saídas de estoque sozinhas e com relatórios de lucro em snapshot sendo gerados sem parar
+ * durante {@code benchmark.duracao-relatorio} segundos (padrão 30).
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Benchmark de escrita durante relatório longo")
+class RelatorioConcorrenteBenchmarkTest
+{
+    private static final Duration DURACAO = Duration.ofSeconds(Long.getLong("benchmark.duracao-relatorio", 30));
+    private static final int PRODUTOS = 2_000;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Autowired
+    private RelatorioLucroService relatorioLucroService;
+
+    private final List<Long> produtos = new ArrayList<>();
+
+    @BeforeAll
+    void popularProdutos()
+    {
+        for (int i = 0; i < PRODUTOS; i++)
+        {
+            produtos.add(produtoService.salvar(new ProdutoDto(null, "RELAT-" + i, "Produto " + i,
+                    TipoProduto.ELETRONICO, new BigDecimal("10.00"), 1_000_000)).id());
+        }
+    }
+
+    @Test
+    @DisplayName("Saídas por segundo sem e com relatórios em andamento")
+    void compararVazao() throws Exception
+    {
+        medirSaidas(Duration.ofSeconds(5));
+        double semRelatorio = medirSaidas(DURACAO);
+
+        ExecutorService relatorio = Executors.newSingleThreadExecutor();
+        try
+        {
+            long fimRelatorios = System.nanoTime() + DURACAO.toNanos();
+            Future<Integer> relatoriosGerados = relatorio.submit(() -> {
+                int gerados = 0;
+                while (System.nanoTime() < fimRelatorios)
+                {
+                    relatorioLucroService.gerar();
+                    gerados++;
+                }
+                return gerados;
+            });
+            double comRelatorio = medirSaidas(DURACAO);
+
+            System.out.printf("Sem relatório: %,10.0f saídas/s%n", semRelatorio);
+            System.out.printf("Com relatório: %,10.0f saídas/s (%d relatórios de %d produtos em sequência)%n",
+                    comRelatorio, relatoriosGerados.get(), PRODUTOS);
+            assertTrue(comRelatorio > semRelatorio * 0.5,
+                    "O relatório não deveria reduzir a vazão de escrita à metade");
+        }
+        finally
+        {
+            relatorio.shutdownNow();
+        }
+    }
+
+    private double medirSaidas(Duration duracao) throws Exception
+    {
+        AtomicLong saidas = new AtomicLong();
+        long fim = System.nanoTime() + duracao.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try
+        {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++)
+            {
+                int deslocamento = t;
+                tarefas.add(executor.submit(() -> {
+                    for (int i = deslocamento; System.nanoTime() < fim; i += THREADS)
+                    {
+                        movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null,
+                                produtos.get(i % PRODUTOS), TipoMovimentacao.SAIDA, new BigDecimal("15.00"), 1, null));
+                        saidas.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas)
+            {
+                tarefa.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return saidas.get() / (duracao.toNanos() / 1e9);
+    }
+}
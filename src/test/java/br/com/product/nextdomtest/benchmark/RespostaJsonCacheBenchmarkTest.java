@@ -0,0 +1,119 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.ProdutoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara, numa única thread, o trabalho de cada resposta de {@code GET /api/produtos/{id}} e
+ * {@code GET /api/produtos/tipo/{tipo}}: DTO do {@code ProdutoCache} escrito pelo conversor Jackson, como
+ * antes, contra o JSON já serializado escrito pelo conversor de bytes.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Benchmark do cache de JSON serializado")
+class RespostaJsonCacheBenchmarkTest
+{
+    private static final int PRODUTOS = 900;
+    private static final int RESPOSTAS_POR_ID = 500_000;
+    private static final int RESPOSTAS_POR_TIPO = 5_000;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter conversorJson;
+
+    private final ByteArrayHttpMessageConverter conversorBytes = new ByteArrayHttpMessageConverter();
+    private long primeiroId;
+
+    @BeforeAll
+    void popularProdutos()
+    {
+        for (int i = 0; i < PRODUTOS; i++)
+        {
+            ProdutoDto produto = produtoService.salvar(new ProdutoDto(null, "JSON-" + i, "Produto de teste " + i,
+                    TipoProduto.values()[i % TipoProduto.values().length], new BigDecimal("10.00"), 100));
+            if (i == 0)
+            {
+                primeiroId = produto.id();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Respostas por segundo: DTO + Jackson vs JSON em cache")
+    void compararRespostas()
+    {
+        LongConsumer porIdDto = id -> escrever(conversorJson, produtoService.buscarPorId(id));
+        LongConsumer porIdJson = id -> escrever(conversorBytes, produtoService.buscarJsonPorId(id));
+        LongConsumer porTipoDto = indice -> escrever(conversorJson, produtoService.listarPorTipo(tipo(indice)));
+        LongConsumer porTipoJson = indice -> escrever(conversorBytes, produtoService.listarJsonPorTipo(tipo(indice)));
+
+        medir("aquecimento", RESPOSTAS_POR_ID, porIdDto);
+        medir("aquecimento", RESPOSTAS_POR_ID, porIdJson);
+        medir("aquecimento", RESPOSTAS_POR_TIPO, porTipoDto);
+        medir("aquecimento", RESPOSTAS_POR_TIPO, porTipoJson);
+
+        double ganhoPorId = medir("por ID, JSON em cache", RESPOSTAS_POR_ID, porIdJson)
+                / medir("por ID, DTO + Jackson", RESPOSTAS_POR_ID, porIdDto);
+        double ganhoPorTipo = medir("por tipo, JSON em cache", RESPOSTAS_POR_TIPO, porTipoJson)
+                / medir("por tipo, DTO + Jackson", RESPOSTAS_POR_TIPO, porTipoDto);
+
+        System.out.printf("Ganho por ID: %.1fx   por tipo: %.1fx%n", ganhoPorId, ganhoPorTipo);
+        assertTrue(ganhoPorId > 1 && ganhoPorTipo > 1, "O JSON em cache deveria ser mais rápido que serializar o DTO");
+    }
+
+    private double medir(String cenario, int respostas, LongConsumer resposta)
+    {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < respostas; i++)
+        {
+            resposta.accept(primeiroId + aleatorio.nextInt(PRODUTOS));
+        }
+        double respostasPorSegundo = respostas / ((System.nanoTime() - inicio) / 1e9);
+        System.out.printf("%-26s %,12.0f respostas/s%n", cenario, respostasPorSegundo);
+        return respostasPorSegundo;
+    }
+
+    private static TipoProduto tipo(long indice)
+    {
+        return TipoProduto.values()[(int) (indice % TipoProduto.values().length)];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void escrever(HttpMessageConverter conversor, Object corpo)
+    {
+        try
+        {
+            conversor.write(corpo, MediaType.APPLICATION_JSON, new MockHttpOutputMessage());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.dto.CreatedMovimentoEstoqueDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.model.Produto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara tamanho e tempo de escrita e leitura de 10 mil movimentações em JSON, CBOR e Smile, com o
+ * {@code ObjectMapper} montado como nos conversores HTTP.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark de serialização das listagens")
+class SerializacaoBenchmarkTest
+{
+    private static final int MOVIMENTOS = 10_000;
+    private static final int PRODUTOS = 200;
+    private static final int REPETICOES = 50;
+
+    @Test
+    @DisplayName("Bytes e tempo por 10 mil movimentações em cada formato")
+    void compararFormatos() throws Exception
+    {
+        CreatedMovimentoEstoqueDto[] movimentos = gerarMovimentos();
+
+        int bytesJson = medir("JSON", new JsonFactory(), movimentos);
+        int bytesCbor = medir("CBOR", new CBORFactory(), movimentos);
+        int bytesSmile = medir("Smile", new SmileFactory(), movimentos);
+
+        assertTrue(bytesCbor < bytesJson);
+        assertTrue(bytesSmile < bytesJson);
+    }
+
+    private int medir(String formato, JsonFactory fabrica, CreatedMovimentoEstoqueDto[] movimentos) throws Exception
+    {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(fabrica).build();
+        byte[] conteudo = mapper.writeValueAsBytes(movimentos);
+
+        // Aquecimento
+        for (int i = 0; i < REPETICOES; i++)
+        {
+            mapper.readValue(mapper.writeValueAsBytes(movimentos), CreatedMovimentoEstoqueDto[].class);
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < REPETICOES; i++)
+        {
+            conteudo = mapper.writeValueAsBytes(movimentos);
+        }
+        double escritaMs = (System.nanoTime() - inicio) / 1e6 / REPETICOES;
+
+        CreatedMovimentoEstoqueDto[] lidos = null;
+        inicio = System.nanoTime();
+        for (int i = 0; i < REPETICOES; i++)
+        {
+            lidos = mapper.readValue(conteudo, CreatedMovimentoEstoqueDto[].class);
+        }
+        double leituraMs = (System.nanoTime() - inicio) / 1e6 / REPETICOES;
+
+        assertEquals(MOVIMENTOS, lidos.length);
+        System.out.printf("%-6s %,10d bytes   escrita: %7.2f ms   leitura: %7.2f ms%n",
+                formato, conteudo.length, escritaMs, leituraMs);
+        return conteudo.length;
+    }
+
+    private static CreatedMovimentoEstoqueDto[] gerarMovimentos()
+    {
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < PRODUTOS; i++)
+        {
+            produtos.add(new Produto((long) i + 1, "SER-" + i, "Produto de teste " + i,
+                    TipoProduto.values()[i % TipoProduto.values().length], new BigDecimal("149.90"), 1_000 + i));
+        }
+
+        LocalDateTime data = LocalDateTime.of(2024, 1, 1, 8, 0);
+        CreatedMovimentoEstoqueDto[] movimentos = new CreatedMovimentoEstoqueDto[MOVIMENTOS];
+        for (int i = 0; i < MOVIMENTOS; i++)
+        {
+            boolean saida = i % 3 != 0;
+            movimentos[i] = new CreatedMovimentoEstoqueDto((long) i + 1, produtos.get(i % PRODUTOS),
+                    saida ? TipoMovimentacao.SAIDA : TipoMovimentacao.ENTRADA,
+                    saida ? new BigDecimal("219.90") : null, 1 + i % 7, data.plusMinutes(i * 17L));
+        }
+        return movimentos;
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import br.com.product.nextdomtest.transmissao.TransmissaoEstoque;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Abre {@code benchmark.assinantes} conexões (padrão 10.000) em {@code /api/movimentos/stream} e mede a
+ * memória e as threads que elas ocupam paradas, e quanto tempo uma movimentação e um heartbeat levam para
+ * chegar a todas. Cliente e servidor rodam na mesma JVM, então cada assinante usa dois descritores de arquivo:
+ * o {@code ulimit -n} precisa comportar o dobro do número de assinantes.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "estoque.stream.heartbeat=1h"})
+@DisplayName("Benchmark de assinantes ociosos do stream de estoque")
+class TransmissaoEstoqueBenchmarkTest
+{
+    private static final int ASSINANTES = Integer.getInteger("benchmark.assinantes", 10_000);
+    private static final long LIMITE_ESPERA_NANOS = 60_000_000_000L;
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Autowired
+    private TransmissaoEstoque transmissaoEstoque;
+
+    @Test
+    @DisplayName("Memória, threads e latência de entrega com assinantes ociosos")
+    void assinantesOciosos() throws Exception
+    {
+        Long produtoId = produtoService.salvar(new ProdutoDto(null, "STREAM-1", "Produto do stream",
+                TipoProduto.ELETRONICO, new BigDecimal("10.00"), 1_000)).id();
+
+        long memoriaAntes = memoriaUsada();
+        int threadsAntes = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        List<SocketChannel> conexoes = new ArrayList<>(ASSINANTES);
+        try (Selector seletor = Selector.open())
+        {
+            long inicio = System.nanoTime();
+            byte[] requisicao = ("GET /api/movimentos/stream HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Accept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < ASSINANTES; i++)
+            {
+                SocketChannel conexao = SocketChannel.open(new InetSocketAddress("localhost", porta));
+                conexao.write(ByteBuffer.wrap(requisicao));
+                conexao.configureBlocking(false);
+                conexao.register(seletor, SelectionKey.OP_READ, new StringBuilder());
+                conexoes.add(conexao);
+            }
+            aguardarTodos(seletor, ":heartbeat");
+            double segundosAssinatura = (System.nanoTime() - inicio) / 1e9;
+            assertEquals(ASSINANTES, transmissaoEstoque.assinantes());
+
+            long memoriaPorAssinante = (memoriaUsada() - memoriaAntes) / ASSINANTES;
+            int threadsAdicionais = ManagementFactory.getThreadMXBean().getThreadCount() - threadsAntes;
+
+            inicio = System.nanoTime();
+            movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null, produtoId, TipoMovimentacao.SAIDA,
+                    new BigDecimal("15.00"), 1, null));
+            aguardarTodos(seletor, "event:estoque");
+            double msMovimento = (System.nanoTime() - inicio) / 1e6;
+
+            inicio = System.nanoTime();
+            transmissaoEstoque.enviarHeartbeat();
+            aguardarTodos(seletor, ":heartbeat");
+            double msHeartbeat = (System.nanoTime() - inicio) / 1e6;
+
+            System.out.printf("Assinantes: %d abertos em %.1f s%n", ASSINANTES, segundosAssinatura);
+            System.out.printf("Memória por assinante (servidor e cliente): %.1f KB; threads adicionais: %d%n",
+                    memoriaPorAssinante / 1024.0, threadsAdicionais);
+            System.out.printf("Movimentação entregue a todos em %.0f ms; heartbeat em %.0f ms%n", msMovimento, msHeartbeat);
+
+            // O pool do Tomcat cresce durante a abertura, mas conexões paradas não ocupam uma thread cada
+            assertTrue(threadsAdicionais < ASSINANTES / 10, "threads adicionais: " + threadsAdicionais);
+        }
+        finally
+        {
+            for (SocketChannel conexao : conexoes)
+            {
+                conexao.close();
+            }
+        }
+    }
+
+    /**
+     * Lê de todas as conexões até cada uma ter recebido o trecho esperado desde a última chamada.
+     */
+    private static void aguardarTodos(Selector seletor, String esperado) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        int pendentes = seletor.keys().size();
+        List<SelectionKey> recebidas = new ArrayList<>(pendentes);
+        long limite = System.nanoTime() + LIMITE_ESPERA_NANOS;
+        while (pendentes > 0)
+        {
+            assertTrue(System.nanoTime() < limite, pendentes + " assinantes sem receber " + esperado);
+            seletor.select(1_000);
+            for (SelectionKey chave : seletor.selectedKeys())
+            {
+                buffer.clear();
+                int lidos = ((SocketChannel) chave.channel()).read(buffer);
+                assertTrue(lidos >= 0, "conexão encerrada pelo servidor");
+                StringBuilder recebido = (StringBuilder) chave.attachment();
+                recebido.append(new String(buffer.array(), 0, lidos, StandardCharsets.UTF_8));
+                if (recebido.indexOf(esperado) >= 0)
+                {
+                    recebido.setLength(0);
+                    chave.interestOps(0);
+                    recebidas.add(chave);
+                    pendentes--;
+                }
+            }
+            seletor.selectedKeys().clear();
+        }
+        recebidas.forEach(chave -> chave.interestOps(SelectionKey.OP_READ));
+    }
+
+    private static long memoriaUsada()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.product.nextdomtest.benchmark;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.persistencia.AplicacaoPersistente;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compara a vazão de registro de movimentações entre o banco em memória padrão e o perfil
+ * {@code persistente}, com e sem o journal de estoque, com uma e com várias threads.
+ * Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark de vazão de escrita com banco persistente")
+class VazaoPersistenteBenchmarkTest
+{
+    private static final int MOVIMENTOS_POR_THREAD = Integer.getInteger("benchmark.movimentos-por-thread", 5_000);
+    private static final int THREADS = 8;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Movimentações por segundo em memória e em arquivo")
+    void medirVazao() throws Exception
+    {
+        medir("memória", () -> AplicacaoPersistente.iniciarComPropriedades(
+                "spring.datasource.url=jdbc:h2:mem:vazao;DB_CLOSE_DELAY=-1"));
+        medir("arquivo, WRITE_DELAY=0, sem journal", () -> AplicacaoPersistente.iniciar(
+                diretorio.resolve("sem-journal"), "estoque.journal.habilitado=false"));
+        medir("arquivo, WRITE_DELAY=0, com journal", () -> AplicacaoPersistente.iniciar(
+                diretorio.resolve("com-journal")));
+    }
+
+    private void medir(String descricao, Inicializacao inicializacao) throws Exception
+    {
+        try (ConfigurableApplicationContext contexto = inicializacao.iniciar())
+        {
+            ProdutoService produtoService = contexto.getBean(ProdutoService.class);
+            MovimentoEstoqueService movimentoEstoqueService = contexto.getBean(MovimentoEstoqueService.class);
+            List<Long> produtos = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++)
+            {
+                produtos.add(produtoService.salvar(new ProdutoDto(null, "VAZAO-" + i, "Produto " + i,
+                        TipoProduto.ELETRONICO, new BigDecimal("10.00"), 0)).id());
+            }
+
+            // Aquecimento
+            registrar(movimentoEstoqueService, produtos.get(0), MOVIMENTOS_POR_THREAD / 5);
+
+            long inicio = System.nanoTime();
+            registrar(movimentoEstoqueService, produtos.get(0), MOVIMENTOS_POR_THREAD);
+            double umaThread = MOVIMENTOS_POR_THREAD / ((System.nanoTime() - inicio) / 1e9);
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try
+            {
+                inicio = System.nanoTime();
+                List<Future<?>> tarefas = new ArrayList<>();
+                for (Long produtoId : produtos)
+                {
+                    tarefas.add(executor.submit(() -> registrar(movimentoEstoqueService, produtoId, MOVIMENTOS_POR_THREAD)));
+                }
+                for (Future<?> tarefa : tarefas)
+                {
+                    tarefa.get();
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+            double variasThreads = (double) THREADS * MOVIMENTOS_POR_THREAD / ((System.nanoTime() - inicio) / 1e9);
+
+            System.out.printf("%-40s 1 thread: %,8.0f mov/s   %d threads: %,8.0f mov/s%n",
+                    descricao, umaThread, THREADS, variasThreads);
+        }
+    }
+
+    private static void registrar(MovimentoEstoqueService movimentoEstoqueService, Long produtoId, int quantidade)
+    {
+        for (int i = 0; i < quantidade; i++)
+        {
+            movimentoEstoqueService.registrarMovimento(
+                    new MovimentoEstoqueDto(null, produtoId, TipoMovimentacao.ENTRADA, null, 1, null));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Inicializacao
+    {
+        ConfigurableApplicationContext iniciar();
+    }
+}
@@ -0,0 +1,169 @@
+package br.com.product.nextdomtest.cache;
+
+import br.com.product.nextdomtest.exception.ProdutoNaoEncontradoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes das consultas compartilhadas")
+class ConsultasCompartilhadasTest
+{
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService threads = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown()
+    {
+        threads.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Chamadas simultâneas com a mesma chave devem dividir uma única execução e o seu resultado")
+    void executar_CompartilhaExecucaoEmAndamento() throws Exception
+    {
+        ConsultasCompartilhadas consultas = new ConsultasCompartilhadas(Duration.ZERO, 100, meterRegistry);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger execucoes = new AtomicInteger();
+
+        List<Future<String>> resultados = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            resultados.add(threads.submit(() -> consultas.executar("lucro", List.of(1L, 0L), () -> {
+                execucoes.incrementAndGet();
+                aguardar(liberar);
+                return "lucro-1";
+            })));
+        }
+        aguardarContagem("compartilhada", 7);
+        liberar.countDown();
+
+        for (Future<String> resultado : resultados)
+        {
+            assertEquals("lucro-1", resultado.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, execucoes.get());
+        assertEquals(1.0, contador("executada"));
+        assertEquals(0, consultas.emAndamento());
+    }
+
+    @Test
+    @DisplayName("Chaves diferentes devem executar em paralelo, e uma chamada depois do fim deve executar de novo")
+    void executar_ChavesIndependentes()
+    {
+        ConsultasCompartilhadas consultas = new ConsultasCompartilhadas(Duration.ZERO, 100, meterRegistry);
+        AtomicInteger execucoes = new AtomicInteger();
+
+        consultas.executar("lucro", List.of(1L, 0L), execucoes::incrementAndGet);
+        consultas.executar("lucro", List.of(1L, 1L), execucoes::incrementAndGet);
+        consultas.executar("estatisticas", List.of(1L, 1L), execucoes::incrementAndGet);
+        consultas.executar("lucro", List.of(1L, 1L), execucoes::incrementAndGet);
+
+        assertEquals(4, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("A exceção da execução deve chegar a todos que esperavam por ela")
+    void executar_PropagaExcecao() throws Exception
+    {
+        ConsultasCompartilhadas consultas = new ConsultasCompartilhadas(Duration.ZERO, 100, meterRegistry);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        List<Future<Object>> resultados = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            resultados.add(threads.submit(() -> consultas.executar("lucro", List.of(9L, 0L), () -> {
+                aguardar(liberar);
+                throw new ProdutoNaoEncontradoException(9L);
+            })));
+        }
+        aguardarContagem("compartilhada", 2);
+        liberar.countDown();
+
+        for (Future<Object> resultado : resultados)
+        {
+            Exception ex = assertThrows(Exception.class, () -> resultado.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ProdutoNaoEncontradoException.class, ex.getCause());
+        }
+        assertEquals(0, consultas.emAndamento());
+    }
+
+    @Test
+    @DisplayName("Com TTL, o resultado pronto deve ser reaproveitado pela mesma chave")
+    void executar_ReaproveitaResultadoDentroDoTtl()
+    {
+        ConsultasCompartilhadas consultas = new ConsultasCompartilhadas(Duration.ofMinutes(1), 100, meterRegistry);
+        AtomicInteger execucoes = new AtomicInteger();
+
+        assertEquals(1, consultas.executar("lucro", List.of(1L, 0L), execucoes::incrementAndGet));
+        assertEquals(1, consultas.executar("lucro", List.of(1L, 0L), execucoes::incrementAndGet));
+        assertEquals(2, consultas.executar("lucro", List.of(1L, 1L), execucoes::incrementAndGet));
+
+        assertEquals(2, execucoes.get());
+        assertEquals(1.0, contador("cache"));
+    }
+
+    @Test
+    @DisplayName("Dentro de uma transação a consulta deve executar direto, sem usar nem alimentar o cache")
+    void executar_DentroDeTransacao()
+    {
+        ConsultasCompartilhadas consultas = new ConsultasCompartilhadas(Duration.ofMinutes(1), 100, meterRegistry);
+        AtomicInteger execucoes = new AtomicInteger();
+        consultas.executar("lucro", List.of(1L, 0L), execucoes::incrementAndGet);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try
+        {
+            assertEquals(2, consultas.executar("lucro", List.of(1L, 0L), execucoes::incrementAndGet));
+        }
+        finally
+        {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(1, consultas.executar("lucro", List.of(1L, 0L), execucoes::incrementAndGet));
+        assertEquals(1.0, contador("transacao"));
+    }
+
+    private double contador(String resultado)
+    {
+        return meterRegistry.get("estoque.consultas").tags("consulta", "lucro", "resultado", resultado).counter().count();
+    }
+
+    private void aguardarContagem(String resultado, int esperado)
+    {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.find("estoque.consultas").tag("resultado", resultado).counter() == null
+                || contador(resultado) < esperado)
+        {
+            assertTrue(System.nanoTime() < limite, "chamadas não chegaram à execução em andamento em 5 s");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void aguardar(CountDownLatch liberar)
+    {
+        try
+        {
+            assertTrue(liberar.await(5, TimeUnit.SECONDS));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.product.nextdomtest.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da classe EstoqueEmMemoria")
+class EstoqueEmMemoriaTest
+{
+    private EstoqueEmMemoria estoque;
+
+    @BeforeEach
+    void setUp()
+    {
+        estoque = new EstoqueEmMemoria();
+    }
+
+    @Test
+    @DisplayName("Deve retornar AUSENTE para produto desconhecido")
+    void quantidade_ProdutoAusente()
+    {
+        assertEquals(EstoqueEmMemoria.AUSENTE, estoque.quantidade(42L));
+    }
+
+    @Test
+    @DisplayName("Deve ignorar movimento mais antigo que o último aplicado")
+    void registrarMovimento_IgnoraForaDeOrdem()
+    {
+        estoque.registrarCadastro(1L, 10);
+        estoque.registrarMovimento(1L, 7, 5L);
+        estoque.registrarMovimento(1L, 9, 4L);
+
+        assertEquals(7, estoque.quantidade(1L));
+    }
+
+    @Test
+    @DisplayName("Carga inicial não deve sobrescrever valor gravado por movimento")
+    void carregar_NaoSobrescreve()
+    {
+        estoque.registrarMovimento(1L, 3, 10L);
+        estoque.carregar(1L, 50);
+
+        assertEquals(3, estoque.quantidade(1L));
+    }
+
+    @Test
+    @DisplayName("Deve manter o mesmo conteúdo de um HashMap com inserções, remoções e redimensionamentos")
+    void operacoesAleatorias_ConsistentesComHashMap()
+    {
+        Map<Long, Integer> esperado = new HashMap<>();
+        Random aleatorio = new Random(7);
+
+        for (int i = 0; i < 50_000; i++)
+        {
+            long id = 1 + aleatorio.nextInt(5_000);
+            if (aleatorio.nextInt(4) == 0)
+            {
+                estoque.registrarExclusao(id);
+                esperado.remove(id);
+            }
+            else
+            {
+                int quantidade = aleatorio.nextInt(1_000);
+                estoque.registrarMovimento(id, quantidade, i + 1L);
+                esperado.put(id, quantidade);
+            }
+        }
+
+        assertEquals(esperado.size(), estoque.tamanho());
+        for (long id = 1; id <= 5_000; id++)
+        {
+            Integer quantidade = esperado.get(id);
+            assertEquals(quantidade == null ? EstoqueEmMemoria.AUSENTE : quantidade, estoque.quantidade(id));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.product.nextdomtest.config;
+
+import br.com.product.nextdomtest.dto.CreatedMovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:formatos-binarios;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@DisplayName("Negociação de formatos binários")
+class FormatosBinariosConfigTest
+{
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Test
+    @DisplayName("A listagem de movimentações em CBOR e Smile deve ter o mesmo conteúdo do JSON em menos bytes")
+    void listagemEmFormatosBinarios() throws Exception
+    {
+        Long produtoId = produtoService.salvar(new ProdutoDto(null, "BIN-1", "Monitor", TipoProduto.ELETRONICO,
+                new BigDecimal("700.00"), 0)).id();
+        for (int i = 0; i < 20; i++)
+        {
+            movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null, produtoId, TipoMovimentacao.ENTRADA,
+                    null, 10, null));
+            movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null, produtoId, TipoMovimentacao.SAIDA,
+                    new BigDecimal("999.90"), 3, null));
+        }
+
+        byte[] json = listar(produtoId, MediaType.APPLICATION_JSON);
+        byte[] cbor = listar(produtoId, MediaType.APPLICATION_CBOR);
+        byte[] smile = listar(produtoId, FormatosBinariosConfig.APPLICATION_SMILE);
+
+        JsonNode esperado = objectMapper.readTree(json);
+        assertEquals(40, esperado.size());
+        assertEquals(esperado, comoJson(cbor, new CBORFactory()));
+        assertEquals(esperado, comoJson(smile, new SmileFactory()));
+        assertTrue(cbor.length < json.length);
+        assertTrue(smile.length < json.length);
+    }
+
+    @Test
+    @DisplayName("Deve aceitar corpo em CBOR no cadastro de produto")
+    void cadastroEmCbor() throws Exception
+    {
+        byte[] corpo = new ObjectMapper(new CBORFactory()).writeValueAsBytes(new ProdutoDto(null, "BIN-2", "Mesa",
+                TipoProduto.MOVEL, new BigDecimal("300.00"), 2));
+
+        mockMvc.perform(post("/api/produtos").contentType(MediaType.APPLICATION_CBOR).content(corpo))
+                .andExpect(status().isCreated());
+
+        assertEquals("Mesa", produtoService.listarTodos().stream()
+                .filter(produto -> "BIN-2".equals(produto.codigo()))
+                .findFirst().orElseThrow().descricao());
+    }
+
+    /**
+     * Lê os DTOs no formato binário e os escreve em JSON, para comparar sem depender de como cada formato
+     * representa números decimais.
+     */
+    private JsonNode comoJson(byte[] conteudo, JsonFactory formato) throws Exception
+    {
+        ObjectMapper leitor = jackson2ObjectMapperBuilder.factory(formato).build();
+        CreatedMovimentoEstoqueDto[] movimentos = leitor.readValue(conteudo, CreatedMovimentoEstoqueDto[].class);
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(movimentos));
+    }
+
+    private byte[] listar(Long produtoId, MediaType formato) throws Exception
+    {
+        return mockMvc.perform(get("/api/movimentos/produto/{produtoId}", produtoId).accept(formato))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(formato))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.product.nextdomtest.controller;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.CompactacaoMovimentoService;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:listagemarquivo;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "estoque.limite.habilitado=false",
+        "estoque.arquivo.habilitado=true",
+        "estoque.listagem.tamanho-pagina-stream=3"
+})
+@AutoConfigureMockMvc
+@DisplayName("Listagem de movimentações com o arquivo habilitado")
+class ListagemArquivoTest
+{
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Autowired
+    private CompactacaoMovimentoService compactacaoMovimentoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void diretorioArquivo(DynamicPropertyRegistry registry) throws IOException
+    {
+        String diretorio = Files.createTempDirectory("listagem-arquivo").toString();
+        registry.add("estoque.arquivo.diretorio", () -> diretorio);
+    }
+
+    @Test
+    @DisplayName("O stream deve entregar arquivados e da tabela intercalados, em ordem de ID e sem faltar nenhum")
+    void streamMesclaArquivo() throws Exception
+    {
+        Long produtoId = produtoService.salvar(new ProdutoDto(null, "ARQ-1", "Produto ARQ-1", TipoProduto.ELETRONICO,
+                new BigDecimal("40.00"), 0)).id();
+        Long outroId = produtoService.salvar(new ProdutoDto(null, "ARQ-2", "Produto ARQ-2", TipoProduto.MOVEL,
+                new BigDecimal("40.00"), 0)).id();
+        // A primeira entrada de cada produto nunca é compactada
+        List<Long> doProduto = new ArrayList<>(List.of(movimentar(produtoId)));
+        List<Long> ids = new ArrayList<>(List.of(doProduto.get(0), movimentar(outroId)));
+        for (int i = 0; i < 12; i++)
+        {
+            Long id = movimentar(i % 4 == 3 ? outroId : produtoId);
+            ids.add(id);
+            if (i % 4 != 3)
+            {
+                doProduto.add(id);
+            }
+            // Metade antiga, alternando em blocos de dois: páginas com linhas das duas camadas
+            if (i % 4 < 2)
+            {
+                jdbcTemplate.update("UPDATE movimento_estoque SET data_movimentacao = ? WHERE id = ?",
+                        LocalDateTime.of(2023, 6, 1, 10, 0).plusMinutes(i), id);
+            }
+        }
+
+        assertEquals(6, compactacaoMovimentoService.compactar(LocalDateTime.of(2024, 1, 1, 0, 0)));
+        assertEquals(8, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movimento_estoque", Long.class));
+
+        assertEquals(ids, idsDoStream("/api/movimentos"));
+        assertEquals(doProduto, idsDoStream("/api/movimentos/produto/" + produtoId));
+    }
+
+    private List<Long> idsDoStream(String url) throws Exception
+    {
+        MvcResult inicio = mockMvc.perform(get(url).accept(MediaType.APPLICATION_NDJSON)).andReturn();
+        String corpo = mockMvc.perform(asyncDispatch(inicio)).andReturn().getResponse().getContentAsString();
+
+        List<Long> ids = new ArrayList<>();
+        for (String linha : corpo.split("\n"))
+        {
+            ids.add(objectMapper.readTree(linha).get("id").asLong());
+        }
+        return ids;
+    }
+
+    private Long movimentar(Long produtoId)
+    {
+        return movimentoEstoqueService.registrarMovimento(
+                new MovimentoEstoqueDto(null, produtoId, TipoMovimentacao.ENTRADA, null, 5, null)).id();
+    }
+}
@@ -0,0 +1,229 @@
+package br.com.product.nextdomtest.controller;
+
+import br.com.product.nextdomtest.dto.LoteDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.dto.ResultadoLoteDto;
+import br.com.product.nextdomtest.enums.TipoOperacaoLote;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.exception.LimiteRequisicoesExcedidoException;
+import br.com.product.nextdomtest.service.LoteService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lote;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "estoque.limite.habilitado=false",
+        "estoque.lote.maximo-operacoes=5"
+})
+@AutoConfigureMockMvc
+@DisplayName("Lote de operações")
+class LoteControllerTest
+{
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private LoteService loteService;
+
+    @Test
+    @DisplayName("Operações devem executar em ordem usando o ID resultante das anteriores")
+    void executar_ReferenciasEntreOperacoes() throws Exception
+    {
+        JsonNode resposta = executar(200, """
+                {"operacoes": [
+                    {"operacao": "CRIAR_PRODUTO", "corpo": %s},
+                    {"operacao": "REGISTRAR_MOVIMENTO", "corpo": {"produtoId": "$0.id", "tipo": "ENTRADA", "quantidade": 10}},
+                    {"operacao": "REGISTRAR_MOVIMENTO", "corpo": {"produtoId": "$0.id", "tipo": "SAIDA", "valorVenda": 15.00, "quantidade": 2}},
+                    {"operacao": "ATUALIZAR_PRODUTO", "id": "$0.id", "corpo": %s},
+                    {"operacao": "CONSULTAR_LUCRO", "id": "$0.id"}
+                ]}
+                """.formatted(produto("LOTE-1", "100.00"), produto("LOTE-1", "120.00")));
+
+        assertTrue(resposta.get("sucesso").asBoolean());
+        JsonNode resultados = resposta.get("resultados");
+        long produtoId = resultados.get(0).get("id").asLong();
+        assertEquals(201, resultados.get(0).get("status").asInt());
+        assertEquals(201, resultados.get(1).get("status").asInt());
+        assertEquals(produtoId, resultados.get(1).get("corpo").get("produtoId").asLong());
+        assertEquals(200, resultados.get(3).get("status").asInt());
+        assertEquals(produtoId, resultados.get(4).get("id").asLong());
+        assertEquals(2, resultados.get(4).get("corpo").get("quantidadeSaida").asInt());
+        assertEquals(0, new BigDecimal("120.00").compareTo(produtoService.buscarPorId(produtoId).valorFornecedor()));
+    }
+
+    @Test
+    @DisplayName("Lote transacional deve desfazer as operações anteriores quando uma falha")
+    void executar_TransacionalDesfazAoFalhar() throws Exception
+    {
+        JsonNode resposta = executar(400, """
+                {"transacional": true, "operacoes": [
+                    {"operacao": "CRIAR_PRODUTO", "corpo": %s},
+                    {"operacao": "REGISTRAR_MOVIMENTO", "corpo": {"produtoId": "$0.id", "tipo": "SAIDA", "valorVenda": 10, "quantidade": 5}},
+                    {"operacao": "BUSCAR_PRODUTO", "id": "$0.id"}
+                ]}
+                """.formatted(produto("LOTE-2", "50.00")));
+
+        assertFalse(resposta.get("sucesso").asBoolean());
+        JsonNode resultados = resposta.get("resultados");
+        assertEquals(424, resultados.get(0).get("status").asInt());
+        assertTrue(resultados.get(0).get("id").isNull());
+        assertEquals(400, resultados.get(1).get("status").asInt());
+        assertEquals(424, resultados.get(2).get("status").asInt());
+        assertTrue(resultados.get(2).get("erro").get("message").asText().startsWith("não executada"));
+
+        // O código é único: criar de novo só funciona porque o produto do lote foi desfeito
+        JsonNode busca = executar(200, """
+                {"operacoes": [{"operacao": "CRIAR_PRODUTO", "corpo": %s}]}
+                """.formatted(produto("LOTE-2", "50.00")));
+        assertEquals(201, busca.get("resultados").get(0).get("status").asInt());
+    }
+
+    @Test
+    @DisplayName("Sem transação, uma falha não deve impedir as operações independentes")
+    void executar_IndependentesContinuamAposFalha() throws Exception
+    {
+        Long existente = produtoService.salvar(new ProdutoDto(null, "LOTE-3", "Produto", TipoProduto.MOVEL,
+                new BigDecimal("30.00"), 0)).id();
+
+        JsonNode resposta = executar(200, """
+                {"operacoes": [
+                    {"operacao": "CRIAR_PRODUTO", "corpo": {"codigo": "LOTE-4", "tipo": "MOVEL"}},
+                    {"operacao": "BUSCAR_PRODUTO", "id": "$0.id"},
+                    {"operacao": "BUSCAR_PRODUTO", "id": "%d"},
+                    {"operacao": "EXCLUIR_PRODUTO", "id": "999999"},
+                    {"operacao": "BUSCAR_PRODUTO", "id": "$9.id"}
+                ]}
+                """.formatted(existente));
+
+        assertFalse(resposta.get("sucesso").asBoolean());
+        JsonNode resultados = resposta.get("resultados");
+        assertEquals(400, resultados.get(0).get("status").asInt());
+        assertTrue(resultados.get(0).get("erro").get("message").asText().contains("descricao"));
+        assertEquals(424, resultados.get(1).get("status").asInt());
+        assertEquals(200, resultados.get(2).get("status").asInt());
+        assertEquals("LOTE-3", resultados.get(2).get("corpo").get("codigo").asText());
+        assertEquals(404, resultados.get(3).get("status").asInt());
+        assertEquals(400, resultados.get(4).get("status").asInt());
+    }
+
+    @Test
+    @DisplayName("Dentro do lote a leitura deve ver a própria escrita, e o cache não deve guardar o que foi desfeito")
+    void executar_CacheIgnoradoNaTransacao() throws Exception
+    {
+        Long produtoId = produtoService.salvar(new ProdutoDto(null, "LOTE-5", "Produto", TipoProduto.MOVEL,
+                new BigDecimal("10.00"), 0)).id();
+        produtoService.buscarPorId(produtoId);
+
+        JsonNode resposta = executar(404, """
+                {"transacional": true, "operacoes": [
+                    {"operacao": "ATUALIZAR_PRODUTO", "id": "%d", "corpo": %s},
+                    {"operacao": "BUSCAR_PRODUTO", "id": "%d"},
+                    {"operacao": "BUSCAR_PRODUTO", "id": "999999"}
+                ]}
+                """.formatted(produtoId, produto("LOTE-5", "20.00"), produtoId));
+
+        // A busca viu 20,00 antes de o lote ser desfeito, mas o resultado não é devolvido
+        assertEquals(424, resposta.get("resultados").get(1).get("status").asInt());
+        assertEquals(0, new BigDecimal("10.00").compareTo(produtoService.buscarPorId(produtoId).valorFornecedor()));
+
+        JsonNode confirmado = executar(200, """
+                {"transacional": true, "operacoes": [
+                    {"operacao": "ATUALIZAR_PRODUTO", "id": "%d", "corpo": %s},
+                    {"operacao": "BUSCAR_PRODUTO", "id": "%d"}
+                ]}
+                """.formatted(produtoId, produto("LOTE-5", "20.00"), produtoId));
+
+        assertTrue(confirmado.get("sucesso").asBoolean());
+        assertEquals(0, new BigDecimal("20.00").compareTo(
+                confirmado.get("resultados").get(1).get("corpo").get("valorFornecedor").decimalValue()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(produtoService.buscarPorId(produtoId).valorFornecedor()));
+    }
+
+    @Test
+    @DisplayName("Lote acima do máximo de operações deve ser recusado sem executar nenhuma")
+    void executar_LimiteDeOperacoes() throws Exception
+    {
+        StringBuilder operacoes = new StringBuilder();
+        for (int i = 0; i < 6; i++)
+        {
+            operacoes.append(i == 0 ? "" : ",").append("{\"operacao\": \"CRIAR_PRODUTO\", \"corpo\": ")
+                    .append(produto("LOTE-LIMITE-" + i, "1.00")).append("}");
+        }
+
+        executar(400, "{\"operacoes\": [" + operacoes + "]}");
+
+        assertTrue(produtoService.listarTodos().stream().noneMatch(p -> p.codigo().startsWith("LOTE-LIMITE")));
+    }
+
+    @Test
+    @DisplayName("Operação recusada pelo limite por cliente deve responder 429 e desfazer o lote transacional")
+    void executar_OperacaoRecusadaPeloLimite() throws Exception
+    {
+        LoteDto lote = objectMapper.readValue("""
+                {"transacional": true, "operacoes": [
+                    {"operacao": "CRIAR_PRODUTO", "corpo": %s},
+                    {"operacao": "BUSCAR_PRODUTO", "id": "$0.id"},
+                    {"operacao": "CONSULTAR_LUCRO", "id": "$0.id"}
+                ]}
+                """.formatted(produto("LOTE-6", "10.00")), LoteDto.class);
+        List<TipoOperacaoLote> cobradas = new ArrayList<>();
+
+        ResultadoLoteDto resultado = loteService.executar(lote, operacao -> {
+            cobradas.add(operacao);
+            if (operacao == TipoOperacaoLote.CONSULTAR_LUCRO)
+            {
+                throw new LimiteRequisicoesExcedidoException("orçamento de leitura-pesada do cliente esgotado",
+                        Duration.ofSeconds(1));
+            }
+        });
+
+        assertEquals(List.of(TipoOperacaoLote.CRIAR_PRODUTO, TipoOperacaoLote.BUSCAR_PRODUTO,
+                TipoOperacaoLote.CONSULTAR_LUCRO), cobradas);
+        assertEquals(429, resultado.status());
+        assertEquals(429, resultado.resultados().get(2).status());
+        assertTrue(produtoService.listarTodos().stream().noneMatch(p -> p.codigo().equals("LOTE-6")));
+    }
+
+    private JsonNode executar(int status, String lote) throws Exception
+    {
+        MockHttpServletResponse resposta = mockMvc.perform(post("/api/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(lote))
+                .andReturn()
+                .getResponse();
+        String corpo = resposta.getContentAsString();
+        assertEquals(status, resposta.getStatus(), corpo);
+        return objectMapper.readTree(corpo);
+    }
+
+    private static String produto(String codigo, String valorFornecedor)
+    {
+        return """
+                {"codigo": "%s", "descricao": "Produto %s", "tipo": "ELETRONICO", "valorFornecedor": %s, "quantidadeEstoque": 0}
+                """.formatted(codigo, codigo, valorFornecedor).strip();
+    }
+}
@@ -0,0 +1,244 @@
+package br.com.product.nextdomtest.controller;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:graphql;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // As estatísticas do Hibernate são globais: a atualização do resumo em segundo plano não pode rodar junto
+        "estoque.resumo.intervalo=1h"
+})
+@AutoConfigureGraphQlTester
+@DisplayName("Endpoint GraphQL de produtos")
+class ProdutoGraphQlControllerTest
+{
+    private static final String PRODUTOS_COM_MOVIMENTOS_E_LUCRO = """
+            query($ids: [ID!]!) {
+                produtos(ids: $ids) {
+                    id
+                    codigo
+                    movimentos { id tipo quantidade valorVenda }
+                    lucro { quantidadeVendida lucroTotal }
+                }
+            }
+            """;
+
+    @Autowired
+    private ExecutionGraphQlServiceTester graphQlTester;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Movimentos e lucro de vários produtos devem custar o mesmo número de consultas que de um só")
+    void produtos_CarregaCamposEmLote()
+    {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+        {
+            Long produtoId = produtoService.salvar(new ProdutoDto(null, "GQL-" + i, "Produto " + i,
+                    TipoProduto.ELETRONICO, new BigDecimal("100.00"), 0)).id();
+            movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null, produtoId, TipoMovimentacao.ENTRADA,
+                    null, 10, null));
+            movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null, produtoId, TipoMovimentacao.SAIDA,
+                    new BigDecimal("15.00"), 2, null));
+            ids.add(produtoId);
+        }
+
+        long consultasUmProduto = contarConsultas(ids.subList(0, 1));
+        long consultasSeisProdutos = contarConsultas(ids);
+
+        assertEquals(consultasUmProduto, consultasSeisProdutos);
+
+        graphQlTester.document(PRODUTOS_COM_MOVIMENTOS_E_LUCRO)
+                .variable("ids", ids)
+                .execute()
+                .path("produtos[5].codigo").entity(String.class).isEqualTo("GQL-5")
+                .path("produtos[5].movimentos[*].tipo").entityList(String.class).containsExactly("ENTRADA", "SAIDA")
+                .path("produtos[5].movimentos[1].valorVenda").entity(BigDecimal.class).isEqualTo(new BigDecimal("15.00"))
+                .path("produtos[5].lucro.quantidadeVendida").entity(Integer.class).isEqualTo(2)
+                // Custo unitário 100,00 / 10 = 10,00; lucro = 2 × 15,00 − 2 × 10,00
+                .path("produtos[5].lucro.lucroTotal").entity(BigDecimal.class).isEqualTo(new BigDecimal("10.00"));
+    }
+
+    @Test
+    @DisplayName("Produto inexistente deve voltar como null na posição pedida")
+    void produtos_IdInexistente()
+    {
+        Long produtoId = produtoService.salvar(new ProdutoDto(null, "GQL-EXISTE", "Produto",
+                TipoProduto.MOVEL, new BigDecimal("50.00"), 0)).id();
+
+        graphQlTester.document(PRODUTOS_COM_MOVIMENTOS_E_LUCRO)
+                .variable("ids", List.of(999_999L, produtoId))
+                .execute()
+                .path("produtos[0]").valueIsNull()
+                .path("produtos[1].movimentos").entityList(Object.class).hasSize(0)
+                .path("produtos[1].lucro.quantidadeVendida").entity(Integer.class).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Consulta acima da complexidade máxima deve ser recusada sem executar")
+    void produtos_ComplexidadeExcedida()
+    {
+        List<Long> ids = LongStream.rangeClosed(1, 1000).boxed().toList();
+        Statistics estatisticas = estatisticas();
+        long antes = estatisticas.getPrepareStatementCount();
+
+        graphQlTester.document(PRODUTOS_COM_MOVIMENTOS_E_LUCRO)
+                .variable("ids", ids)
+                .execute()
+                .errors()
+                .satisfy(erros -> {
+                    assertEquals(1, erros.size());
+                    assertTrue(erros.get(0).getMessage().contains("maximum query complexity"), erros.get(0).getMessage());
+                });
+
+        assertEquals(antes, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Busca com mais IDs que o permitido deve retornar erro de requisição inválida")
+    void produtos_LimiteDeIds()
+    {
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        graphQlTester.document("query($ids: [ID!]!) { produtos(ids: $ids) { id } }")
+                .variable("ids", ids)
+                .execute()
+                .errors()
+                .satisfy(erros -> {
+                    assertEquals(1, erros.size());
+                    assertEquals("BAD_REQUEST", erros.get(0).getErrorType().toString());
+                });
+    }
+
+    @Test
+    @DisplayName("Produtos por tipo e movimentos devem ser paginados por first e after em ordem de ID")
+    void produtosPorTipo_Paginacao()
+    {
+        List<Long> produtoIds = new ArrayList<>();
+        List<Long> movimentoIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            Long produtoId = produtoService.salvar(new ProdutoDto(null, "GQL-PAG-" + i, "Produto " + i,
+                    TipoProduto.ELETRODOMESTICO, new BigDecimal("80.00"), 0)).id();
+            movimentoIds.add(movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null, produtoId,
+                    TipoMovimentacao.ENTRADA, null, 10, null)).id());
+            for (int venda = 1; venda <= 2; venda++)
+            {
+                movimentoIds.add(movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null, produtoId,
+                        TipoMovimentacao.SAIDA, new BigDecimal("90.00"), venda, null)).id());
+            }
+            produtoIds.add(produtoId);
+        }
+        String porTipo = """
+                query($after: ID, $movimentosApos: ID) {
+                    produtosPorTipo(tipo: ELETRODOMESTICO, first: 2, after: $after) {
+                        id
+                        movimentos(first: 2, after: $movimentosApos) { id }
+                    }
+                }
+                """;
+
+        graphQlTester.document(porTipo)
+                .execute()
+                .path("produtosPorTipo[*].id").entityList(Long.class).containsExactly(produtoIds.get(0), produtoIds.get(1))
+                .path("produtosPorTipo[0].movimentos[*].id").entityList(Long.class)
+                .containsExactly(movimentoIds.get(0), movimentoIds.get(1))
+                .path("produtosPorTipo[1].movimentos[*].id").entityList(Long.class)
+                .containsExactly(movimentoIds.get(3), movimentoIds.get(4));
+
+        graphQlTester.document(porTipo)
+                .variable("after", produtoIds.get(1))
+                .variable("movimentosApos", movimentoIds.get(7))
+                .execute()
+                .path("produtosPorTipo[*].id").entityList(Long.class).containsExactly(produtoIds.get(2))
+                .path("produtosPorTipo[0].movimentos[*].id").entityList(Long.class).containsExactly(movimentoIds.get(8));
+    }
+
+    @Test
+    @DisplayName("Página maior que o máximo deve retornar erro de requisição inválida")
+    void produtosPorTipo_PaginaAcimaDoMaximo()
+    {
+        graphQlTester.document("{ produtosPorTipo(tipo: MOVEL, first: 101) { id } }")
+                .execute()
+                .errors()
+                .satisfy(erros -> {
+                    assertEquals(1, erros.size());
+                    assertEquals("BAD_REQUEST", erros.get(0).getErrorType().toString());
+                });
+    }
+
+    @Test
+    @DisplayName("O custo de listas aninhadas deve contar o first de cada uma")
+    void produtosPorTipo_ComplexidadeDaPagina()
+    {
+        Statistics estatisticas = estatisticas();
+        long antes = estatisticas.getPrepareStatementCount();
+
+        graphQlTester.document("""
+                        {
+                            produtosPorTipo(tipo: ELETRONICO, first: 100) {
+                                movimentos(first: 100) { id quantidade }
+                                lucro { lucroTotal }
+                            }
+                        }
+                        """)
+                .execute()
+                .errors()
+                .satisfy(erros -> {
+                    assertEquals(1, erros.size());
+                    assertTrue(erros.get(0).getMessage().contains("maximum query complexity"), erros.get(0).getMessage());
+                });
+        assertEquals(antes, estatisticas.getPrepareStatementCount());
+
+        graphQlTester.document("{ produtosPorTipo(tipo: ELETRONICO) { movimentos { id quantidade } lucro { lucroTotal } } }")
+                .execute()
+                .errors()
+                .verify();
+    }
+
+    private long contarConsultas(List<Long> ids)
+    {
+        Statistics estatisticas = estatisticas();
+        long antes = estatisticas.getPrepareStatementCount();
+        graphQlTester.document(PRODUTOS_COM_MOVIMENTOS_E_LUCRO)
+                .variable("ids", ids)
+                .execute()
+                .errors().verify();
+        return estatisticas.getPrepareStatementCount() - antes;
+    }
+
+    private Statistics estatisticas()
+    {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
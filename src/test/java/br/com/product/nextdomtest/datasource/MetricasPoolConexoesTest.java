@@ -0,0 +1,58 @@
+package br.com.product.nextdomtest.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricas-pool;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@DisplayName("Métricas do pool de conexões")
+class MetricasPoolConexoesTest
+{
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MetricasPoolConexoes metricasPoolConexoes;
+
+    @Test
+    @DisplayName("A espera por conexão deve ser medida por endpoint e método de serviço, mantendo as métricas do Hikari")
+    void esperaPorEndpointEMetodo() throws Exception
+    {
+        mockMvc.perform(post("/api/produtos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"codigo": "POOL-1", "descricao": "Cadeira", "tipo": "MOVEL",
+                                 "valorFornecedor": 120.00, "quantidadeEstoque": 4}
+                                """))
+                .andExpect(status().isCreated());
+
+        Timer aquisicao = meterRegistry.get("estoque.conexao.aquisicao")
+                .tags("endpoint", "POST /api/produtos", "metodo", "ProdutoService.salvar")
+                .timer();
+        assertTrue(aquisicao.count() >= 1);
+        assertNotNull(meterRegistry.find("hikaricp.connections.pending").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer());
+
+        assertEquals(0, metricasPoolConexoes.pendentes());
+        assertFalse(metricasPoolConexoes.saturado(Duration.ZERO));
+    }
+}
@@ -0,0 +1,173 @@
+package br.com.product.nextdomtest.datasource;
+
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.ProdutoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sobe a aplicação com duas instâncias H2 independentes como primário e réplica. Não há replicação entre
+ * elas: o teste grava diretamente na réplica o que a replicação entregaria, inclusive o heartbeat.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:roteamento-primario;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "estoque.replica.habilitada=true",
+        "estoque.replica.datasource.jdbc-url=jdbc:h2:mem:roteamento-replica;DB_CLOSE_DELAY=-1",
+        "estoque.replica.migrar=true",
+        "estoque.replica.atraso-maximo=5s",
+        "estoque.replica.intervalo-verificacao=1h"
+})
+@DisplayName("Roteamento entre primário e réplica de leitura")
+class RoteamentoDataSourceTest
+{
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MonitorAtrasoReplica monitorAtrasoReplica;
+
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+
+    @Autowired
+    @Qualifier("dataSourcePrimario")
+    private DataSource primario;
+
+    @Autowired
+    @Qualifier("dataSourceReplica")
+    private DataSource replica;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Leituras somente leitura devem ir para a réplica em dia e escritas para o primário")
+    void leituraNaReplicaEEscritaNoPrimario()
+    {
+        produtoService.salvar(produto("ROTA-PRIMARIO-1"));
+        inserirSomenteNaReplica(900_001L, "ROTA-REPLICA-1");
+        replicarHeartbeat(Duration.ZERO);
+
+        List<String> codigos = codigos(produtoService.listarTodos());
+
+        assertTrue(codigos.contains("ROTA-REPLICA-1"));
+        assertFalse(codigos.contains("ROTA-PRIMARIO-1"));
+        assertEquals(1, contarNoPrimario("ROTA-PRIMARIO-1"));
+    }
+
+    @Test
+    @DisplayName("Leituras devem voltar ao primário quando a réplica passa do atraso máximo")
+    void leituraNoPrimarioComReplicaAtrasada()
+    {
+        produtoService.salvar(produto("ROTA-PRIMARIO-2"));
+        inserirSomenteNaReplica(900_002L, "ROTA-REPLICA-2");
+        replicarHeartbeat(Duration.ofMinutes(1));
+
+        List<String> codigos = codigos(produtoService.listarTodos());
+
+        assertFalse(monitorAtrasoReplica.replicaEmDia());
+        assertTrue(codigos.contains("ROTA-PRIMARIO-2"));
+        assertFalse(codigos.contains("ROTA-REPLICA-2"));
+    }
+
+    @Test
+    @DisplayName("Leituras devem ficar no primário até a réplica receber a última escrita")
+    void leituraNoPrimarioAteReplicarEscrita()
+    {
+        replicarHeartbeat(Duration.ZERO);
+        produtoService.salvar(produto("ROTA-PRIMARIO-3"));
+        inserirSomenteNaReplica(900_003L, "ROTA-REPLICA-3");
+        double desviadasAntes = leiturasAposEscrita();
+
+        List<String> antesDaReplicacao = codigos(produtoService.listarTodos());
+
+        assertTrue(monitorAtrasoReplica.replicaEmDia());
+        assertTrue(antesDaReplicacao.contains("ROTA-PRIMARIO-3"));
+        assertFalse(antesDaReplicacao.contains("ROTA-REPLICA-3"));
+        assertEquals(desviadasAntes + 1, leiturasAposEscrita());
+
+        replicarHeartbeat(Duration.ZERO);
+
+        assertTrue(codigos(produtoService.listarTodos()).contains("ROTA-REPLICA-3"));
+    }
+
+    @Test
+    @DisplayName("Deve publicar o uso de cada pool e as decisões de roteamento")
+    void metricasPorRota()
+    {
+        replicarHeartbeat(Duration.ZERO);
+        double antes = leiturasNaReplica();
+
+        produtoService.listarTodos();
+
+        assertEquals(antes + 1, leiturasNaReplica());
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "primario").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "replica").gauge());
+        assertNotNull(meterRegistry.find("estoque.replica.atraso").gauge());
+    }
+
+    /**
+     * Simula a chegada, pela replicação, do heartbeat gravado há {@code atraso} no primário. Com atraso zero, o
+     * heartbeat é posterior a todas as escritas feitas até aqui, como seria numa replicação em ordem.
+     */
+    private void replicarHeartbeat(Duration atraso)
+    {
+        long agora = System.currentTimeMillis();
+        while (agora <= versaoCatalogo.ultimaAlteracaoEm())
+        {
+            Thread.onSpinWait();
+            agora = System.currentTimeMillis();
+        }
+        new JdbcTemplate(replica).update("UPDATE replica_heartbeat SET marcado_em = ? WHERE id = 1",
+                agora - atraso.toMillis());
+        monitorAtrasoReplica.verificar();
+    }
+
+    private void inserirSomenteNaReplica(Long id, String codigo)
+    {
+        new JdbcTemplate(replica).update("""
+                INSERT INTO produto (id, codigo, descricao, tipo, valor_fornecedor, quantidade_estoque)
+                VALUES (?, ?, 'Produto só na réplica', 'ELETRONICO', 10.00, 0)
+                """, id, codigo);
+    }
+
+    private Integer contarNoPrimario(String codigo)
+    {
+        return new JdbcTemplate(primario).queryForObject("SELECT COUNT(*) FROM produto WHERE codigo = ?", Integer.class, codigo);
+    }
+
+    private double leiturasAposEscrita()
+    {
+        return meterRegistry.get("estoque.datasource.roteamento").tag("motivo", "escrita-nao-replicada").counter().count();
+    }
+
+    private double leiturasNaReplica()
+    {
+        return meterRegistry.get("estoque.datasource.roteamento").tag("rota", "replica").counter().count();
+    }
+
+    private static ProdutoDto produto(String codigo)
+    {
+        return new ProdutoDto(null, codigo, "Produto " + codigo, TipoProduto.ELETRONICO, new BigDecimal("10.00"), 0);
+    }
+
+    private static List<String> codigos(List<ProdutoDto> produtos)
+    {
+        return produtos.stream().map(ProdutoDto::codigo).toList();
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.product.nextdomtest.datasource;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.dto.ProdutoResumoDto;
+import br.com.product.nextdomtest.dto.RelatorioLucroDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.exception.TempoLimiteExcedidoException;
+import br.com.product.nextdomtest.repository.ProdutoRepository;
+import br.com.product.nextdomtest.repository.ProdutoResumoRepository;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoResumoService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import br.com.product.nextdomtest.service.RelatorioLucroService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "estoque.relatorio.tamanho-lote=2"
+})
+@DisplayName("Leituras de relatório em snapshot consistente")
+class TransacaoSnapshotTest
+{
+    @Autowired
+    private TransacaoSnapshot transacaoSnapshot;
+
+    @Autowired
+    private RelatorioLucroService relatorioLucroService;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Autowired
+    private ProdutoResumoService produtoResumoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ProdutoResumoRepository produtoResumoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    @DisplayName("Saída confirmada durante a leitura não deve aparecer nela, mesmo em tabelas lidas depois dela, nem esperar pela leitura")
+    void snapshotIsolaEscritaConcorrente()
+    {
+        Long produtoId = criarProduto("SNAP-1", 100);
+
+        ProdutoResumoDto resumo = transacaoSnapshot.executar("teste", status -> {
+            // produto_resumo não tem chave estrangeira para produto: no REPEATABLE_READ do H2 as tabelas
+            // de produto e movimentação só seriam fixadas depois da escrita concorrente
+            produtoResumoRepository.count();
+
+            CompletableFuture.runAsync(() -> vender(produtoId, 5)).orTimeout(10, TimeUnit.SECONDS).join();
+
+            return produtoResumoService.calcular(List.of(produtoId)).get(0);
+        });
+
+        assertEquals(100, resumo.quantidadeEstoque());
+        assertEquals(0L, resumo.quantidadeVendida());
+        assertEquals(95, produtoService.consultarEstoque(produtoId).quantidadeEstoque());
+    }
+
+    @Test
+    @DisplayName("Leitura que passa do tempo limite deve falhar com TempoLimiteExcedidoException")
+    void tempoLimiteExcedido()
+    {
+        TransacaoSnapshot curta = new TransacaoSnapshot(transactionManager, dataSource, Duration.ofSeconds(1));
+
+        assertThrows(TempoLimiteExcedidoException.class, () -> curta.executar("teste", status -> {
+            aguardar(Duration.ofMillis(1_100));
+            return produtoRepository.count();
+        }));
+    }
+
+    @Test
+    @DisplayName("O relatório deve percorrer todo o catálogo em lotes e somar as vendas de cada produto")
+    void relatorioLucro()
+    {
+        Long primeiro = criarProduto("SNAP-REL-1", 50);
+        Long segundo = criarProduto("SNAP-REL-2", 50);
+        Long terceiro = criarProduto("SNAP-REL-3", 50);
+        vender(primeiro, 2);
+        vender(terceiro, 3);
+
+        RelatorioLucroDto relatorio = relatorioLucroService.gerar();
+
+        Map<Long, ProdutoResumoDto> porProduto = relatorio.produtos().stream()
+                .collect(Collectors.toMap(ProdutoResumoDto::produtoId, Function.identity()));
+        assertEquals(produtoRepository.count(), relatorio.totalProdutos().longValue());
+        assertEquals(relatorio.totalProdutos(), porProduto.size());
+        // (20,00 - 8,00) × quantidade
+        assertEquals(0, new BigDecimal("24.00").compareTo(porProduto.get(primeiro).lucroTotal()));
+        assertEquals(0L, porProduto.get(segundo).quantidadeVendida());
+        assertEquals(0, new BigDecimal("36.00").compareTo(porProduto.get(terceiro).lucroTotal()));
+        assertEquals(relatorio.produtos().stream().mapToLong(ProdutoResumoDto::quantidadeVendida).sum(),
+                relatorio.quantidadeVendida());
+    }
+
+    private Long criarProduto(String codigo, int quantidade)
+    {
+        return produtoService.salvar(new ProdutoDto(null, codigo, "Produto " + codigo, TipoProduto.ELETRONICO,
+                new BigDecimal("8.00"), quantidade)).id();
+    }
+
+    private static void aguardar(Duration duracao)
+    {
+        try
+        {
+            Thread.sleep(duracao.toMillis());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void vender(Long produtoId, int quantidade)
+    {
+        movimentoEstoqueService.registrarMovimento(new MovimentoEstoqueDto(null, produtoId, TipoMovimentacao.SAIDA,
+                new BigDecimal("20.00"), quantidade, null));
+    }
+}
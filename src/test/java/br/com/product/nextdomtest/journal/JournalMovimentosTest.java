@@ -0,0 +1,288 @@
+package br.com.product.nextdomtest.journal;
+
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.model.MovimentoEstoque;
+import br.com.product.nextdomtest.model.Produto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do journal de estoque")
+class JournalMovimentosTest
+{
+    private static final int SEGMENTO = 4096;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve reler os registros anexados na mesma ordem e com os mesmos valores")
+    void anexarEReler() throws IOException
+    {
+        List<RegistroJournal> gravados = List.of(
+                registro(RegistroJournal.Tipo.CADASTRO, 1L, 0L, 10),
+                new RegistroJournal(RegistroJournal.Tipo.SAIDA, 1L, 7L, 3, 7, 1_700_000_000_000L, new BigDecimal("15.50")),
+                registro(RegistroJournal.Tipo.EXCLUSAO, 2L, 0L, 0)
+        );
+
+        try (JournalMovimentos journal = JournalMovimentos.abrir(diretorio, SEGMENTO, registro -> {}))
+        {
+            for (RegistroJournal registro : gravados)
+            {
+                journal.sincronizar(journal.anexar(registro));
+            }
+        }
+
+        List<RegistroJournal> lidos = new ArrayList<>();
+        JournalMovimentos.Leitura leitura = JournalMovimentos.ler(diretorio, lidos::add);
+
+        assertEquals(gravados, lidos);
+        assertEquals(3, leitura.registros());
+        assertFalse(leitura.caudaDescartada());
+    }
+
+    @Test
+    @DisplayName("Deve abrir novos segmentos quando o corrente enche")
+    void rotacionarSegmentos() throws IOException
+    {
+        int segmentoPequeno = JournalMovimentos.TAMANHO_CABECALHO + 3 * JournalMovimentos.TAMANHO_REGISTRO;
+
+        try (JournalMovimentos journal = JournalMovimentos.abrir(diretorio, segmentoPequeno, registro -> {}))
+        {
+            for (int i = 1; i <= 10; i++)
+            {
+                journal.anexar(registro(RegistroJournal.Tipo.ENTRADA, 1L, i, i));
+            }
+        }
+
+        EstadoJournal estado = new EstadoJournal();
+        JournalMovimentos.Leitura leitura = JournalMovimentos.ler(diretorio, estado::aplicar);
+
+        assertEquals(4, leitura.segmentos());
+        assertEquals(10, estado.registros());
+        assertEquals(10, estado.quantidades().get(1L));
+        assertEquals(10L, estado.ultimoMovimentoId());
+    }
+
+    @Test
+    @DisplayName("Deve descartar o registro interrompido ao truncar o segmento no meio dele e continuar gravando")
+    void recuperarSegmentoTruncado() throws IOException
+    {
+        try (JournalMovimentos journal = JournalMovimentos.abrir(diretorio, SEGMENTO, registro -> {}))
+        {
+            for (int i = 1; i <= 5; i++)
+            {
+                journal.anexar(registro(RegistroJournal.Tipo.ENTRADA, 1L, i, i * 10));
+            }
+        }
+
+        // Simula queda durante a escrita do quinto registro
+        Path segmento = unicoSegmento();
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE))
+        {
+            canal.truncate(JournalMovimentos.TAMANHO_CABECALHO + 4L * JournalMovimentos.TAMANHO_REGISTRO + 20);
+        }
+
+        JournalMovimentos.Leitura somenteLeitura = JournalMovimentos.ler(diretorio, registro -> {});
+        assertEquals(4, somenteLeitura.registros());
+        assertTrue(somenteLeitura.caudaDescartada());
+
+        EstadoJournal estado = new EstadoJournal();
+        try (JournalMovimentos journal = JournalMovimentos.abrir(diretorio, SEGMENTO, estado::aplicar))
+        {
+            assertEquals(40, estado.quantidades().get(1L));
+            journal.sincronizar(journal.anexar(registro(RegistroJournal.Tipo.ENTRADA, 1L, 6L, 60)));
+        }
+
+        List<RegistroJournal> lidos = new ArrayList<>();
+        JournalMovimentos.Leitura leitura = JournalMovimentos.ler(diretorio, lidos::add);
+
+        assertFalse(leitura.caudaDescartada());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 6L), lidos.stream().map(RegistroJournal::movimentoId).toList());
+    }
+
+    @Test
+    @DisplayName("Deve falhar ao encontrar registro corrompido fora do último segmento")
+    void corrupcaoEmSegmentoAnterior() throws IOException
+    {
+        int segmentoPequeno = JournalMovimentos.TAMANHO_CABECALHO + 2 * JournalMovimentos.TAMANHO_REGISTRO;
+        try (JournalMovimentos journal = JournalMovimentos.abrir(diretorio, segmentoPequeno, registro -> {}))
+        {
+            for (int i = 1; i <= 4; i++)
+            {
+                journal.anexar(registro(RegistroJournal.Tipo.ENTRADA, 1L, i, i));
+            }
+        }
+
+        Path primeiro = segmentos().get(0);
+        byte[] conteudo = Files.readAllBytes(primeiro);
+        conteudo[JournalMovimentos.TAMANHO_CABECALHO + 12] ^= 0x7F;
+        Files.write(primeiro, conteudo);
+
+        assertThrows(IllegalStateException.class, () -> JournalMovimentos.ler(diretorio, registro -> {}));
+    }
+
+    @Test
+    @DisplayName("Deve substituir o conteúdo do journal por um checkpoint e apagar os segmentos anteriores")
+    void checkpoint() throws IOException
+    {
+        try (JournalMovimentos journal = JournalMovimentos.abrir(diretorio, SEGMENTO, registro -> {}))
+        {
+            journal.anexar(registro(RegistroJournal.Tipo.CADASTRO, 1L, 0L, 10));
+            journal.anexar(registro(RegistroJournal.Tipo.CADASTRO, 2L, 0L, 20));
+            journal.checkpoint(registro(RegistroJournal.Tipo.INICIO_CHECKPOINT, 0L, 99L, 0),
+                    List.of(registro(RegistroJournal.Tipo.CHECKPOINT, 3L, 99L, 30)));
+            journal.anexar(registro(RegistroJournal.Tipo.SAIDA, 3L, 100L, 25));
+        }
+
+        EstadoJournal estado = new EstadoJournal();
+        JournalMovimentos.ler(diretorio, estado::aplicar);
+
+        assertEquals(1, segmentos().size());
+        assertEquals(Map.of(3L, 25), estado.quantidades());
+        assertEquals(100L, estado.ultimoMovimentoId());
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir o estoque gravado pelo componente após reabrir o journal")
+    void reconstruirEstadoDoComponente() throws IOException
+    {
+        Produto produto = new Produto();
+        produto.setId(5L);
+        MovimentoEstoque movimento = new MovimentoEstoque();
+        movimento.setId(11L);
+        movimento.setProduto(produto);
+        movimento.setTipo(TipoMovimentacao.SAIDA);
+        movimento.setQuantidade(4);
+        movimento.setValorVenda(new BigDecimal("12.00"));
+
+        JournalEstoque journalEstoque = new JournalEstoque(true, diretorio.toString(), DataSize.ofKilobytes(4));
+        journalEstoque.registrarCadastro(5L, 10);
+        journalEstoque.registrarCadastro(6L, 3);
+        journalEstoque.registrarMovimento(movimento, 6);
+        journalEstoque.registrarExclusao(6L);
+        journalEstoque.fechar();
+
+        JournalEstoque reaberto = new JournalEstoque(true, diretorio.toString(), DataSize.ofKilobytes(4));
+        EstadoJournal estado = reaberto.estadoRecuperado().orElseThrow();
+        reaberto.fechar();
+
+        assertEquals(Map.of(5L, 6), estado.quantidades());
+        assertEquals(11L, estado.ultimoMovimentoId());
+        assertTrue(estado.fechadoCorretamente());
+        assertTrue(JournalEstoque.desabilitado().estadoRecuperado().isEmpty());
+    }
+
+    @Test
+    @DisplayName("O fechamento deve esperar as transações que registraram e só então marcar o journal como completo")
+    void fechamentoAguardaTransacoes() throws Exception
+    {
+        JournalEstoque journalEstoque = new JournalEstoque(true, diretorio.toString(), DataSize.ofKilobytes(4));
+        CompletableFuture<Void> fechamento;
+        TransactionSynchronizationManager.initSynchronization();
+        try
+        {
+            journalEstoque.registrarCadastro(1L, 10);
+
+            // Sem o fechamento, como depois de uma queda, o journal não é confiável
+            EstadoJournal semFechamento = new EstadoJournal();
+            JournalMovimentos.ler(diretorio, semFechamento::aplicar);
+            assertFalse(semFechamento.fechadoCorretamente());
+
+            fechamento = CompletableFuture.runAsync(() -> {
+                try
+                {
+                    journalEstoque.fechar();
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            assertThrows(TimeoutException.class, () -> fechamento.get(200, TimeUnit.MILLISECONDS));
+
+            for (TransactionSynchronization sincronizacao : TransactionSynchronizationManager.getSynchronizations())
+            {
+                sincronizacao.afterCommit();
+                sincronizacao.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        }
+        finally
+        {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        fechamento.get(5, TimeUnit.SECONDS);
+
+        assertThrows(IllegalStateException.class, () -> journalEstoque.registrarCadastro(2L, 3));
+        EstadoJournal estado = new EstadoJournal();
+        JournalMovimentos.ler(diretorio, estado::aplicar);
+        assertTrue(estado.fechadoCorretamente());
+        assertEquals(Map.of(1L, 10), estado.quantidades());
+    }
+
+    @Test
+    @DisplayName("A ferramenta de replay deve listar o estoque por produto e sinalizar cauda interrompida")
+    void ferramentaReplay() throws IOException
+    {
+        try (JournalMovimentos journal = JournalMovimentos.abrir(diretorio, SEGMENTO, registro -> {}))
+        {
+            journal.anexar(registro(RegistroJournal.Tipo.CADASTRO, 2L, 0L, 8));
+            journal.anexar(registro(RegistroJournal.Tipo.CADASTRO, 1L, 0L, 5));
+        }
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        int codigo = FerramentaReplayJournal.executar(diretorio, false, new PrintStream(saida, true, StandardCharsets.UTF_8));
+
+        assertEquals(0, codigo);
+        assertTrue(saida.toString(StandardCharsets.UTF_8).endsWith("1\t5" + System.lineSeparator() + "2\t8" + System.lineSeparator()));
+
+        try (FileChannel canal = FileChannel.open(unicoSegmento(), StandardOpenOption.WRITE))
+        {
+            canal.truncate(JournalMovimentos.TAMANHO_CABECALHO + JournalMovimentos.TAMANHO_REGISTRO + 5);
+        }
+        assertEquals(1, FerramentaReplayJournal.executar(diretorio, false, new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    private RegistroJournal registro(RegistroJournal.Tipo tipo, long produtoId, long movimentoId, int quantidadeResultante)
+    {
+        return new RegistroJournal(tipo, produtoId, movimentoId, 1, quantidadeResultante, 1_700_000_000_000L, null);
+    }
+
+    private Path unicoSegmento() throws IOException
+    {
+        List<Path> segmentos = segmentos();
+        assertEquals(1, segmentos.size());
+        return segmentos.get(0);
+    }
+
+    private List<Path> segmentos() throws IOException
+    {
+        try (Stream<Path> arquivos = Files.list(diretorio))
+        {
+            return arquivos.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.product.nextdomtest.persistencia;
+
+import br.com.product.nextdomtest.NextdomtestApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sobe a aplicação sem servidor web, para testes que precisam controlar o ciclo de vida do contexto
+ * (reinícios, processos filhos) em vez de usar {@code @SpringBootTest}.
+ */
+public final class AplicacaoPersistente
+{
+    private AplicacaoPersistente()
+    {
+    }
+
+    /**
+     * Sobe a aplicação com o perfil {@code persistente} usando o diretório de dados informado.
+     */
+    public static ConfigurableApplicationContext iniciar(Path diretorio, String... propriedades)
+    {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "spring.profiles.active=persistente",
+                "estoque.dados.diretorio=" + diretorio.toAbsolutePath()));
+        argumentos.addAll(List.of(propriedades));
+        return iniciarComPropriedades(argumentos.toArray(String[]::new));
+    }
+
+    public static ConfigurableApplicationContext iniciarComPropriedades(String... propriedades)
+    {
+        // O reinício do devtools chamaria de novo o main do processo filho com estes argumentos
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.jpa.show-sql=false"));
+        for (String propriedade : propriedades)
+        {
+            argumentos.add("--" + propriedade);
+        }
+        return SpringApplication.run(NextdomtestApplication.class, argumentos.toArray(String[]::new));
+    }
+}
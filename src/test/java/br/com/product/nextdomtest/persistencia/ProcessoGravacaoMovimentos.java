@@ -0,0 +1,41 @@
+package br.com.product.nextdomtest.persistencia;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.service.MovimentoEstoqueService;
+import br.com.product.nextdomtest.service.ProdutoService;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+/**
+ * Processo filho do {@link QuedaProcessoPersistenteTest}: registra entradas sem parar e imprime
+ * {@code CONFIRMADO <id>} assim que cada uma retorna do serviço, até ser morto.
+ */
+public final class ProcessoGravacaoMovimentos
+{
+    private ProcessoGravacaoMovimentos()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        ConfigurableApplicationContext contexto = AplicacaoPersistente.iniciar(Path.of(args[0]));
+        ProdutoService produtoService = contexto.getBean(ProdutoService.class);
+        MovimentoEstoqueService movimentoEstoqueService = contexto.getBean(MovimentoEstoqueService.class);
+
+        ProdutoDto produto = produtoService.salvar(new ProdutoDto(
+                null, "QUEDA-1", "Produto do teste de queda", TipoProduto.ELETRONICO, new BigDecimal("10.00"), 0));
+        System.out.println("PRODUTO " + produto.id());
+
+        while (true)
+        {
+            MovimentoEstoqueDto movimento = movimentoEstoqueService.registrarMovimento(
+                    new MovimentoEstoqueDto(null, produto.id(), TipoMovimentacao.ENTRADA, null, 1, null));
+            System.out.println("CONFIRMADO " + movimento.id());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.product.nextdomtest.persistencia;
+
+import br.com.product.nextdomtest.cache.EstoqueEmMemoria;
+import br.com.product.nextdomtest.journal.EstadoJournal;
+import br.com.product.nextdomtest.journal.JournalMovimentos;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mata com {@code kill -9} um processo que grava movimentações no perfil {@code persistente} e verifica,
+ * ao reabrir os mesmos arquivos, que toda movimentação confirmada ao chamador está no banco e que o journal,
+ * sem registro de fechamento, é descartado em favor do banco.
+ */
+@DisplayName("Queda do processo com o perfil persistente")
+class QuedaProcessoPersistenteTest
+{
+    private static final int CONFIRMACOES_ANTES_DA_QUEDA = 150;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @Timeout(value = 3, unit = TimeUnit.MINUTES)
+    @DisplayName("Nenhuma movimentação confirmada deve se perder após kill -9")
+    void nenhumMovimentoConfirmadoSePerde() throws Exception
+    {
+        Process processo = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                ProcessoGravacaoMovimentos.class.getName(),
+                diretorio.toString())
+                .redirectErrorStream(true)
+                .start();
+
+        long produtoId = -1;
+        List<Long> confirmados = new ArrayList<>();
+        try (BufferedReader saida = new BufferedReader(new InputStreamReader(processo.getInputStream(), StandardCharsets.UTF_8)))
+        {
+            String linha;
+            while (confirmados.size() < CONFIRMACOES_ANTES_DA_QUEDA && (linha = saida.readLine()) != null)
+            {
+                if (linha.startsWith("PRODUTO "))
+                {
+                    produtoId = Long.parseLong(linha.substring("PRODUTO ".length()));
+                }
+                else if (linha.startsWith("CONFIRMADO "))
+                {
+                    confirmados.add(Long.parseLong(linha.substring("CONFIRMADO ".length())));
+                }
+            }
+
+            // SIGKILL no Linux: o processo não executa ganchos de desligamento nem fecha o banco
+            processo.destroyForcibly();
+            assertTrue(processo.waitFor(30, TimeUnit.SECONDS));
+        }
+
+        assertEquals(CONFIRMACOES_ANTES_DA_QUEDA, confirmados.size(), "O processo terminou antes das confirmações");
+
+        EstadoJournal journal = new EstadoJournal();
+        JournalMovimentos.ler(diretorio.resolve("journal"), journal::aplicar);
+        assertFalse(journal.fechadoCorretamente(), "O journal de um processo derrubado não pode parecer completo");
+
+        try (ConfigurableApplicationContext contexto = AplicacaoPersistente.iniciar(diretorio))
+        {
+            JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+            Set<Long> gravados = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT id FROM movimento_estoque WHERE produto_id = ?", Long.class, produtoId));
+            Integer quantidade = jdbcTemplate.queryForObject(
+                    "SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, produtoId);
+
+            assertTrue(gravados.containsAll(confirmados), "O banco perdeu movimentações confirmadas");
+            assertEquals(gravados.size(), quantidade, "Estoque do produto diverge das movimentações gravadas");
+            assertEquals(quantidade, contexto.getBean(EstoqueEmMemoria.class).quantidade(produtoId));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.product.nextdomtest.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registra o SQL gerado pelo Hibernate enquanto a captura estiver ativa na thread corrente.
+ */
+public class CapturadorSql implements StatementInspector
+{
+    private static final ThreadLocal<List<String>> CAPTURADAS = new ThreadLocal<>();
+
+    static void iniciar()
+    {
+        CAPTURADAS.set(new ArrayList<>());
+    }
+
+    static List<String> finalizar()
+    {
+        List<String> capturadas = CAPTURADAS.get();
+        CAPTURADAS.remove();
+        return capturadas == null ? List.of() : capturadas;
+    }
+
+    @Override
+    public String inspect(String sql)
+    {
+        List<String> capturadas = CAPTURADAS.get();
+        if (capturadas != null)
+        {
+            capturadas.add(sql);
+        }
+        return sql;
+    }
+}
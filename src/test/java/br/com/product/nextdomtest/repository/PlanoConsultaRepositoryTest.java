@@ -0,0 +1,326 @@
+package br.com.product.nextdomtest.repository;
+
+import br.com.product.nextdomtest.enums.CampoMovimento;
+import br.com.product.nextdomtest.enums.CampoProduto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.model.Produto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica, com uma massa de dados grande, o plano de execução do H2 para cada método declarado em
+ * {@link ProdutoRepository}, {@link MovimentoEstoqueRepository}, {@link MovimentoEstoqueResumoRepository},
+ * {@link SaldoEstoqueRepository}, {@link ProdutoResumoRepository} e {@link ProdutoResumoPendenteRepository}.
+ * O SQL gerado pelo Hibernate é capturado e submetido a {@code EXPLAIN}; o teste falha se alguma tabela for
+ * lida por inteiro sem que o caso declare essa leitura como intencional.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:planos;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=br.com.product.nextdomtest.repository.CapturadorSql"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Planos de consulta dos repositórios")
+class PlanoConsultaRepositoryTest
+{
+    private static final int PRODUTOS = 20_000;
+    private static final int MOVIMENTOS = 200_000;
+
+    // Trecho do plano do H2: "PUBLIC"."TABELA" "ALIAS" /* PUBLIC.INDICE: CONDICAO */
+    private static final Pattern ACESSO_TABELA =
+            Pattern.compile("\"PUBLIC\"\\.\"(\\w+)\"(?: \"\\w+\")?\\s*/\\* ([^*]+) \\*/");
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private MovimentoEstoqueRepository movimentoEstoqueRepository;
+
+    @Autowired
+    private MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository;
+
+    @Autowired
+    private SaldoEstoqueRepository saldoEstoqueRepository;
+
+    @Autowired
+    private ProdutoResumoRepository produtoResumoRepository;
+
+    @Autowired
+    private ProdutoResumoPendenteRepository produtoResumoPendenteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private record Caso(String metodo, Runnable chamada, Set<String> leiturasCompletasPermitidas)
+    {
+        @Override
+        public String toString()
+        {
+            return metodo;
+        }
+    }
+
+    @BeforeAll
+    void popularMassaDeDados()
+    {
+        jdbcTemplate.execute("""
+                INSERT INTO produto (codigo, descricao, tipo, valor_fornecedor, quantidade_estoque)
+                SELECT CONCAT('PLANO-', X), CONCAT('Produto ', X),
+                       CASE MOD(X, 3) WHEN 0 THEN 'MOVEL' WHEN 1 THEN 'ELETRONICO' ELSE 'ELETRODOMESTICO' END,
+                       100.00, 1000
+                FROM SYSTEM_RANGE(1, %d)
+                """.formatted(PRODUTOS));
+        jdbcTemplate.execute("""
+                INSERT INTO movimento_estoque (produto_id, tipo, valor_venda, quantidade, data_movimentacao)
+                SELECT MOD(X, %d) + 1, CASE MOD(X, 2) WHEN 0 THEN 'ENTRADA' ELSE 'SAIDA' END,
+                       15.00, 1, DATEADD('MINUTE', X, TIMESTAMP '2024-01-01 00:00:00')
+                FROM SYSTEM_RANGE(1, %d)
+                """.formatted(PRODUTOS, MOVIMENTOS));
+        jdbcTemplate.execute("""
+                INSERT INTO movimento_estoque_resumo (produto_id, data, quantidade_movimentos, quantidade_entrada,
+                                                      quantidade_saida, valor_vendas, ultima_movimentacao)
+                SELECT MOD(X, %d) + 1, DATEADD('DAY', X / %d, DATE '2023-01-01'), 10, 5, 5, 75.00,
+                       DATEADD('DAY', X / %d, TIMESTAMP '2023-01-01 12:00:00')
+                FROM SYSTEM_RANGE(0, %d)
+                """.formatted(PRODUTOS, PRODUTOS, PRODUTOS, MOVIMENTOS - 1));
+        jdbcTemplate.execute("""
+                INSERT INTO saldo_estoque (produto_id, data_referencia, quantidade)
+                SELECT MOD(X, %d) + 1, DATEADD('DAY', X / %d, TIMESTAMP '2024-01-01 00:00:00'), 1000
+                FROM SYSTEM_RANGE(0, %d)
+                """.formatted(PRODUTOS, PRODUTOS, MOVIMENTOS - 1));
+        jdbcTemplate.execute("""
+                INSERT INTO produto_resumo (produto_id, codigo, descricao, tipo, valor_fornecedor, quantidade_estoque,
+                                            quantidade_vendida, valor_vendas, valor_compra_unitario, lucro_total,
+                                            ultima_venda, atualizado_em)
+                SELECT id, codigo, descricao, tipo, valor_fornecedor, quantidade_estoque, 10, 150.00, 100.00, 50.00,
+                       TIMESTAMP '2024-01-01 00:00:00', TIMESTAMP '2024-01-01 00:00:00'
+                FROM produto
+                """);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    Stream<Caso> casos()
+    {
+        Produto produto = produtoRepository.findById(1L).orElseThrow();
+
+        return Stream.of(
+                new Caso("findByTipo", () -> produtoRepository.findByTipo(TipoProduto.MOVEL), Set.of()),
+                new Caso("findByTipoAndIdGreaterThanOrderById",
+                        () -> produtoRepository.findByTipoAndIdGreaterThanOrderById(TipoProduto.MOVEL, 100L, PageRequest.of(0, 20)),
+                        Set.of()),
+                new Caso("findIdsAposId", () -> produtoRepository.findIdsAposId(100L, PageRequest.of(0, 50)), Set.of()),
+                new Caso("findAllEstoques", produtoRepository::findAllEstoques, Set.of("PRODUTO")),
+                new Caso("findCampos", () -> produtoRepository.findCampos(EnumSet.of(CampoProduto.ID, CampoProduto.CODIGO)),
+                        Set.of("PRODUTO")),
+                new Caso("findByProduto", () -> movimentoEstoqueRepository.findByProduto(produto), Set.of()),
+                new Caso("findCampos",
+                        () -> movimentoEstoqueRepository.findCampos(EnumSet.of(CampoMovimento.ID, CampoMovimento.PRODUTO), 1L),
+                        Set.of()),
+                new Caso("existsByProdutoId", () -> movimentoEstoqueRepository.existsByProdutoId(1L), Set.of()),
+                new Caso("countByProdutoId", () -> movimentoEstoqueRepository.countByProdutoId(1L), Set.of()),
+                new Caso("calcularEstatisticasPorProdutos",
+                        () -> movimentoEstoqueRepository.calcularEstatisticasPorProdutos(List.of(1L, 2L, 3L)), Set.of()),
+                // Job noturno: percorre a tabela pela chave primária e para ao completar o lote
+                new Caso("findCompactaveis",
+                        () -> movimentoEstoqueRepository.findCompactaveis(LocalDateTime.of(2024, 2, 1, 0, 0), PageRequest.of(0, 1000)),
+                        Set.of("MOVIMENTO_ESTOQUE")),
+                new Caso("deleteByIdIn",
+                        () -> transactionTemplate.executeWithoutResult(status -> {
+                            movimentoEstoqueRepository.deleteByIdIn(List.of(-1L, -2L));
+                            status.setRollbackOnly();
+                        }),
+                        Set.of()),
+                new Caso("findByProdutoId", () -> movimentoEstoqueResumoRepository.findByProdutoId(1L), Set.of()),
+                new Caso("existsByProdutoId", () -> movimentoEstoqueResumoRepository.existsByProdutoId(1L), Set.of()),
+                new Caso("findByProdutoIdInAndDataIn",
+                        () -> movimentoEstoqueResumoRepository.findByProdutoIdInAndDataIn(
+                                List.of(1L, 2L), List.of(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 2))),
+                        Set.of()),
+                new Caso("calcularEstatisticasPorProdutos",
+                        () -> movimentoEstoqueResumoRepository.calcularEstatisticasPorProdutos(List.of(1L, 2L, 3L)), Set.of()),
+                new Caso("findUltimoId", movimentoEstoqueRepository::findUltimoId, Set.of()),
+                new Caso("findEstoquesAposId",
+                        () -> produtoRepository.findEstoquesAposId(10_000L, PageRequest.of(0, 1000)), Set.of()),
+                new Caso("findQuantidadeEstoqueById", () -> produtoRepository.findQuantidadeEstoqueById(1L), Set.of()),
+                new Caso("somarSaldoNoPeriodo",
+                        () -> movimentoEstoqueRepository.somarSaldoNoPeriodo(1L,
+                                LocalDateTime.of(2024, 2, 1, 0, 0), LocalDateTime.of(2024, 2, 2, 0, 0)),
+                        Set.of()),
+                new Caso("somarSaldoPorProdutos",
+                        () -> movimentoEstoqueRepository.somarSaldoPorProdutos(List.of(1L, 2L, 3L), LocalDateTime.of(2024, 2, 1, 0, 0)),
+                        Set.of()),
+                new Caso("somarSaldoNoPeriodo",
+                        () -> movimentoEstoqueResumoRepository.somarSaldoNoPeriodo(1L, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 2, 1)),
+                        Set.of()),
+                new Caso("somarSaldoPorProdutos",
+                        () -> movimentoEstoqueResumoRepository.somarSaldoPorProdutos(List.of(1L, 2L, 3L), LocalDate.of(2023, 1, 1)),
+                        Set.of()),
+                new Caso("findFirstByProdutoIdAndDataReferenciaLessThanEqualOrderByDataReferenciaDesc",
+                        () -> saldoEstoqueRepository.findFirstByProdutoIdAndDataReferenciaLessThanEqualOrderByDataReferenciaDesc(
+                                1L, LocalDateTime.of(2024, 1, 5, 0, 0)),
+                        Set.of()),
+                new Caso("findFirstByProdutoIdAndDataReferenciaGreaterThanOrderByDataReferenciaAsc",
+                        () -> saldoEstoqueRepository.findFirstByProdutoIdAndDataReferenciaGreaterThanOrderByDataReferenciaAsc(
+                                1L, LocalDateTime.of(2024, 1, 5, 0, 0)),
+                        Set.of()),
+                new Caso("findByProdutoIdInAndDataReferencia",
+                        () -> saldoEstoqueRepository.findByProdutoIdInAndDataReferencia(
+                                List.of(1L, 2L), LocalDateTime.of(2024, 1, 5, 0, 0)),
+                        Set.of()),
+                new Caso("deleteByProdutoId",
+                        () -> transactionTemplate.executeWithoutResult(status -> {
+                            saldoEstoqueRepository.deleteByProdutoId(1L);
+                            status.setRollbackOnly();
+                        }),
+                        Set.of()),
+                new Caso("somarVendasPorProdutos",
+                        () -> movimentoEstoqueRepository.somarVendasPorProdutos(List.of(1L, 2L, 3L)), Set.of()),
+                new Caso("findPrimeirasEntradas",
+                        () -> movimentoEstoqueRepository.findPrimeirasEntradas(List.of(1L, 2L, 3L)), Set.of()),
+                new Caso("findPorProdutos",
+                        () -> movimentoEstoqueRepository.findPorProdutos(List.of(1L, 2L, 3L), 0L, 20), Set.of()),
+                new Caso("findAposId",
+                        () -> movimentoEstoqueRepository.findAposId(100_000L, PageRequest.of(0, 500)), Set.of()),
+                new Caso("findPorProdutoAposId",
+                        () -> movimentoEstoqueRepository.findPorProdutoAposId(1L, 0L, PageRequest.of(0, 500)), Set.of()),
+                // Listagem paginada pela chave primária: percorre o índice e para ao completar a página
+                new Caso("findAllByOrderByProdutoId",
+                        () -> produtoResumoRepository.findAllByOrderByProdutoId(PageRequest.of(0, 50)),
+                        Set.of("PRODUTO_RESUMO")),
+                new Caso("findByTipoOrderByProdutoId",
+                        () -> produtoResumoRepository.findByTipoOrderByProdutoId(TipoProduto.MOVEL, PageRequest.of(0, 50)),
+                        Set.of()),
+                // Fim da reconstrução: confere todos os resumos contra a chave primária de produto
+                new Caso("deleteSemProduto",
+                        () -> transactionTemplate.executeWithoutResult(status -> {
+                            produtoResumoRepository.deleteSemProduto();
+                            status.setRollbackOnly();
+                        }),
+                        Set.of("PRODUTO_RESUMO")),
+                // Fila de resumos pendentes: lê as marcas mais antigas pela chave primária e para ao completar o lote
+                new Caso("findAllByOrderById",
+                        () -> produtoResumoPendenteRepository.findAllByOrderById(PageRequest.of(0, 500)),
+                        Set.of("PRODUTO_RESUMO_PENDENTE"))
+        );
+    }
+
+    @Test
+    @DisplayName("Todo método declarado nos repositórios deve ter um caso de plano")
+    void todosOsMetodosPossuemCaso()
+    {
+        Set<String> declarados = Stream.of(ProdutoRepository.class, ProdutoCamposRepository.class,
+                        MovimentoEstoqueRepository.class, MovimentoEstoqueCamposRepository.class,
+                        MovimentoEstoqueResumoRepository.class, SaldoEstoqueRepository.class, ProdutoResumoRepository.class,
+                        ProdutoResumoPendenteRepository.class)
+                .flatMap(repositorio -> Arrays.stream(repositorio.getDeclaredMethods()))
+                .map(Method::getName)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Set<String> cobertos = casos()
+                .map(Caso::metodo)
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        assertEquals(declarados, cobertos);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("casos")
+    @DisplayName("O plano não deve ler tabelas inteiras sem necessidade")
+    void planoSemLeituraCompleta(Caso caso)
+    {
+        CapturadorSql.iniciar();
+        caso.chamada().run();
+        List<String> sqls = CapturadorSql.finalizar();
+
+        assertFalse(sqls.isEmpty(), "Nenhum SQL capturado para " + caso.metodo());
+        for (String sql : sqls)
+        {
+            String plano = explicar(sql);
+            List<String> leiturasCompletas = tabelasLidasPorInteiro(plano);
+            leiturasCompletas.removeAll(caso.leiturasCompletasPermitidas());
+
+            assertTrue(leiturasCompletas.isEmpty(),
+                    caso.metodo() + " lê por inteiro " + leiturasCompletas + ":\n" + plano);
+        }
+    }
+
+    @Test
+    @DisplayName("A listagem com campos selecionados deve ler só as colunas pedidas")
+    void projecaoDeCampos()
+    {
+        CapturadorSql.iniciar();
+        List<Map<String, Object>> movimentos = movimentoEstoqueRepository.findCampos(
+                EnumSet.of(CampoMovimento.ID, CampoMovimento.TIPO, CampoMovimento.QUANTIDADE), 1L);
+        List<String> sqls = CapturadorSql.finalizar();
+
+        assertEquals(1, sqls.size());
+        String colunas = sqls.get(0).toLowerCase().split(" from ")[0];
+        assertTrue(colunas.contains("tipo") && colunas.contains("quantidade"), colunas);
+        assertFalse(colunas.contains("valor_venda") || colunas.contains("data_movimentacao") || colunas.contains("codigo"), colunas);
+        assertFalse(movimentos.isEmpty());
+        assertEquals(List.of("id", "tipo", "quantidade"), List.copyOf(movimentos.get(0).keySet()));
+    }
+
+    private String explicar(String sql)
+    {
+        return jdbcTemplate.execute((ConnectionCallback<String>) conexao -> {
+            try (PreparedStatement explain = conexao.prepareStatement("EXPLAIN " + sql);
+                 ResultSet resultado = explain.executeQuery())
+            {
+                resultado.next();
+                return resultado.getString(1);
+            }
+        });
+    }
+
+    /**
+     * Uma tabela é lida por inteiro quando o H2 usa {@code tableScan} ou percorre um índice sem condição.
+     * {@code direct lookup} (MIN/MAX resolvidos pela ponta do índice) lê uma única entrada.
+     */
+    private List<String> tabelasLidasPorInteiro(String plano)
+    {
+        List<String> tabelas = new ArrayList<>();
+        Matcher acesso = ACESSO_TABELA.matcher(plano);
+        while (acesso.find())
+        {
+            String indice = acesso.group(2);
+            boolean buscaDireta = plano.substring(acesso.end()).stripLeading().startsWith("/* direct lookup */");
+            if (!buscaDireta && (indice.contains("tableScan") || !indice.contains(":")))
+            {
+                tabelas.add(acesso.group(1));
+            }
+        }
+        return tabelas;
+    }
+}
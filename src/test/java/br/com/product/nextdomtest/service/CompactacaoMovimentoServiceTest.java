@@ -0,0 +1,171 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.arquivo.ArquivoMovimentos;
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
+import br.com.product.nextdomtest.dto.MovimentoCompactacaoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.evento.MovimentosCompactadosEvento;
+import br.com.product.nextdomtest.model.MovimentoEstoqueResumo;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueResumoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes da classe CompactacaoMovimentoService")
+class CompactacaoMovimentoServiceTest
+{
+    private static final LocalDateTime LIMITE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Mock
+    private MovimentoEstoqueRepository movimentoEstoqueRepository;
+
+    @Mock
+    private MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private VersaoCatalogo versaoCatalogo;
+
+    @Mock
+    private ArquivoMovimentos arquivoMovimentos;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CompactacaoMovimentoService compactacaoMovimentoService;
+
+    @BeforeEach
+    void setUp()
+    {
+        when(transactionTemplate.execute(any())).thenAnswer(invocacao ->
+                invocacao.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        compactacaoMovimentoService = new CompactacaoMovimentoService(
+                movimentoEstoqueRepository,
+                movimentoEstoqueResumoRepository,
+                transactionTemplate,
+                versaoCatalogo,
+                arquivoMovimentos,
+                eventPublisher,
+                365,
+                2
+        );
+    }
+
+    @Test
+    @DisplayName("Deve consolidar movimentos em resumos diários e apagar os originais, lote a lote")
+    @SuppressWarnings("unchecked")
+    void compactar()
+    {
+        LocalDateTime dia = LocalDateTime.of(2023, 5, 10, 9, 0);
+        MovimentoCompactacaoDto saida1 = new MovimentoCompactacaoDto(10L, 1L, TipoMovimentacao.SAIDA, new BigDecimal("15.00"), 3, dia);
+        MovimentoCompactacaoDto saida2 = new MovimentoCompactacaoDto(11L, 1L, TipoMovimentacao.SAIDA, new BigDecimal("18.00"), 2, dia.plusHours(5));
+        MovimentoCompactacaoDto entrada = new MovimentoCompactacaoDto(12L, 1L, TipoMovimentacao.ENTRADA, null, 7, dia.plusDays(1));
+
+        when(movimentoEstoqueRepository.findCompactaveis(eq(LIMITE), any()))
+                .thenReturn(List.of(saida1, saida2))
+                .thenReturn(List.of(entrada))
+                .thenReturn(List.of());
+        when(movimentoEstoqueResumoRepository.findByProdutoIdInAndDataIn(any(), any())).thenReturn(List.of());
+
+        long compactados = compactacaoMovimentoService.compactar(LIMITE);
+
+        assertEquals(3, compactados);
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(movimentoEstoqueRepository).deleteByIdIn(List.of(10L, 11L));
+        verify(movimentoEstoqueRepository).deleteByIdIn(List.of(12L));
+        verify(versaoCatalogo, times(2)).registrarAlteracao(1L);
+        verify(eventPublisher, times(2)).publishEvent(new MovimentosCompactadosEvento(1L));
+
+        InOrder ordem = inOrder(arquivoMovimentos, movimentoEstoqueRepository);
+        ordem.verify(arquivoMovimentos).arquivar(List.of(saida1, saida2));
+        ordem.verify(movimentoEstoqueRepository).deleteByIdIn(List.of(10L, 11L));
+        ordem.verify(arquivoMovimentos).arquivar(List.of(entrada));
+        ordem.verify(movimentoEstoqueRepository).deleteByIdIn(List.of(12L));
+        ordem.verify(arquivoMovimentos).consolidar();
+
+        ArgumentCaptor<Iterable<MovimentoEstoqueResumo>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(movimentoEstoqueResumoRepository, times(2)).saveAll(captor.capture());
+        List<MovimentoEstoqueResumo> salvos = new ArrayList<>();
+        captor.getAllValues().forEach(lote -> lote.forEach(salvos::add));
+        salvos.sort(Comparator.comparing(MovimentoEstoqueResumo::getData));
+
+        MovimentoEstoqueResumo resumoSaidas = salvos.get(0);
+        assertEquals(LocalDate.of(2023, 5, 10), resumoSaidas.getData());
+        assertEquals(2L, resumoSaidas.getQuantidadeMovimentos());
+        assertEquals(5L, resumoSaidas.getQuantidadeSaida());
+        assertEquals(0L, resumoSaidas.getQuantidadeEntrada());
+        assertEquals(0, new BigDecimal("81.00").compareTo(resumoSaidas.getValorVendas()));
+        assertEquals(dia.plusHours(5), resumoSaidas.getUltimaMovimentacao());
+
+        MovimentoEstoqueResumo resumoEntrada = salvos.get(1);
+        assertEquals(7L, resumoEntrada.getQuantidadeEntrada());
+        assertEquals(0, BigDecimal.ZERO.compareTo(resumoEntrada.getValorVendas()));
+    }
+
+    @Test
+    @DisplayName("Deve acumular no resumo já existente do mesmo produto e dia")
+    void compactar_ResumoExistente()
+    {
+        LocalDateTime dia = LocalDateTime.of(2023, 5, 10, 9, 0);
+        MovimentoEstoqueResumo existente = MovimentoEstoqueResumo.builder()
+                .id(5L)
+                .produtoId(1L)
+                .data(dia.toLocalDate())
+                .quantidadeMovimentos(4L)
+                .quantidadeEntrada(10L)
+                .quantidadeSaida(2L)
+                .valorVendas(new BigDecimal("30.00"))
+                .ultimaMovimentacao(dia.plusHours(8))
+                .build();
+
+        when(movimentoEstoqueRepository.findCompactaveis(eq(LIMITE), any()))
+                .thenReturn(List.of(new MovimentoCompactacaoDto(20L, 1L, TipoMovimentacao.SAIDA, new BigDecimal("20.00"), 1, dia)))
+                .thenReturn(List.of());
+        when(movimentoEstoqueResumoRepository.findByProdutoIdInAndDataIn(any(), any())).thenReturn(List.of(existente));
+
+        compactacaoMovimentoService.compactar(LIMITE);
+
+        assertEquals(5L, existente.getQuantidadeMovimentos());
+        assertEquals(3L, existente.getQuantidadeSaida());
+        assertEquals(0, new BigDecimal("50.00").compareTo(existente.getValorVendas()));
+        assertEquals(dia.plusHours(8), existente.getUltimaMovimentacao());
+        verify(movimentoEstoqueResumoRepository).saveAll(argThat(resumos ->
+                resumos.iterator().next() == existente));
+    }
+
+    @Test
+    @DisplayName("Não deve alterar nada quando não há movimentos anteriores ao limite")
+    void compactar_SemMovimentos()
+    {
+        when(movimentoEstoqueRepository.findCompactaveis(eq(LIMITE), any())).thenReturn(List.of());
+
+        assertEquals(0, compactacaoMovimentoService.compactar(LIMITE));
+        verify(movimentoEstoqueRepository, never()).deleteByIdIn(any());
+        verify(movimentoEstoqueResumoRepository, never()).saveAll(any());
+        verifyNoInteractions(versaoCatalogo, arquivoMovimentos, eventPublisher);
+    }
+}
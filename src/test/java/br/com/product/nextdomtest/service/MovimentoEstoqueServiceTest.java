@@ -1,18 +1,28 @@
 package br.com.product.nextdomtest.service;
 
+import br.com.product.nextdomtest.arquivo.ArquivoMovimentos;
+import br.com.product.nextdomtest.cache.EstoqueEmMemoria;
+import br.com.product.nextdomtest.cache.ProdutoCache;
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
 import br.com.product.nextdomtest.dto.CreatedMovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.MovimentoCompactacaoDto;
 import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.enums.CampoMovimento;
 import br.com.product.nextdomtest.enums.TipoMovimentacao;
 import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.evento.MovimentoRegistradoEvento;
 import br.com.product.nextdomtest.exception.MovimentacaoNaoEncontradaException;
 import br.com.product.nextdomtest.exception.ProdutoNaoEncontradoException;
 import br.com.product.nextdomtest.exception.TipoMovimentacaoInvalidoException;
+import br.com.product.nextdomtest.journal.JournalEstoque;
 import br.com.product.nextdomtest.model.MovimentoEstoque;
 import br.com.product.nextdomtest.model.Produto;
 import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
 import br.com.product.nextdomtest.repository.ProdutoRepository;
 import br.com.product.nextdomtest.strategy.MovimentacaoStrategy;
 import br.com.product.nextdomtest.strategy.MovimentacaoStrategyFactory;
+import br.com.product.nextdomtest.transmissao.TransmissaoEstoque;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,12 +30,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -48,6 +68,30 @@ class MovimentoEstoqueServiceTest
     @Mock
     private MovimentacaoStrategy movimentacaoStrategy;
 
+    @Spy
+    private VersaoCatalogo versaoCatalogo = new VersaoCatalogo();
+
+    @Spy
+    private ProdutoCache produtoCache = new ProdutoCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+    @Spy
+    private EstoqueEmMemoria estoqueEmMemoria = new EstoqueEmMemoria();
+
+    @Spy
+    private JournalEstoque journalEstoque = JournalEstoque.desabilitado();
+
+    @Spy
+    private ArquivoMovimentos arquivoMovimentos = ArquivoMovimentos.desabilitado();
+
+    @Mock
+    private TransmissaoEstoque transmissaoEstoque;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MovimentoEstoqueService movimentoEstoqueService;
 
@@ -114,6 +158,27 @@ class MovimentoEstoqueServiceTest
         verify(movimentoEstoqueRepository, times(1)).save(any(MovimentoEstoque.class));
     }
 
+    @Test
+    @DisplayName("Deve avançar a versão, invalidar o cache e atualizar o estoque em memória ao registrar movimento")
+    void registrarMovimento_AtualizaVersaoCacheEEstoque()
+    {
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(movimentacaoStrategyFactory.getStrategy(TipoMovimentacao.ENTRADA))
+                .thenReturn(movimentacaoStrategy);
+        when(movimentoEstoqueRepository.save(any(MovimentoEstoque.class)))
+                .thenReturn(movimentoEstoque);
+
+        long versaoAnterior = versaoCatalogo.versaoProduto(1L);
+
+        movimentoEstoqueService.registrarMovimento(movimentoEstoqueDto);
+
+        assertEquals(versaoAnterior + 1, versaoCatalogo.versaoProduto(1L));
+        verify(produtoCache, times(1)).invalidar(1L, TipoProduto.ELETRONICO);
+        assertEquals(100, estoqueEmMemoria.quantidade(1L));
+        verify(eventPublisher).publishEvent(new MovimentoRegistradoEvento(1L, movimentoEstoque.getId()));
+        verify(transmissaoEstoque).registrarMovimento(movimentoEstoque, 100);
+    }
+
     @Test
     @DisplayName("Deve lançar exceção quando produto não for encontrado ao registrar movimento")
     void registrarMovimento_ProdutoNaoEncontrado()
@@ -192,6 +257,23 @@ class MovimentoEstoqueServiceTest
         verify(movimentoEstoqueRepository, times(1)).findById(id);
     }
 
+    @Test
+    @DisplayName("Deve buscar no arquivo a movimentação que já saiu da tabela")
+    void buscarPorId_Arquivada()
+    {
+        LocalDateTime data = LocalDateTime.of(2022, 3, 4, 10, 30);
+        when(movimentoEstoqueRepository.findById(7L)).thenReturn(Optional.empty());
+        doReturn(Optional.of(new MovimentoCompactacaoDto(7L, 1L, TipoMovimentacao.SAIDA, new BigDecimal("12.50"), 2, data)))
+                .when(arquivoMovimentos).buscarPorId(7L);
+
+        MovimentoEstoqueDto result = movimentoEstoqueService.buscarPorId(7L);
+
+        assertEquals(7L, result.id());
+        assertEquals(1L, result.produtoId());
+        assertEquals(new BigDecimal("12.50"), result.valorVenda());
+        assertEquals(data, result.dataMovimentacao());
+    }
+
     @Test
     @DisplayName("Deve lançar exceção quando movimento não for encontrado por ID")
     void buscarPorId_MovimentoNaoEncontrado()
@@ -243,6 +325,45 @@ class MovimentoEstoqueServiceTest
         verify(movimentoEstoqueRepository, times(1)).findByProduto(produto);
     }
 
+    @Test
+    @DisplayName("Deve juntar movimentos arquivados e da tabela em ordem de ID, sem repetir")
+    void listarPorProduto_MesclaArquivo()
+    {
+        LocalDateTime data = LocalDateTime.of(2022, 3, 4, 10, 30);
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(movimentoEstoqueRepository.findByProduto(produto)).thenReturn(List.of(movimentoEstoque));
+        doReturn(List.of(
+                new MovimentoCompactacaoDto(0L, 1L, TipoMovimentacao.ENTRADA, null, 50, data),
+                new MovimentoCompactacaoDto(movimentoEstoque.getId(), 1L, TipoMovimentacao.SAIDA, BigDecimal.ONE, 1, data)))
+                .when(arquivoMovimentos).listarPorProduto(1L);
+
+        List<CreatedMovimentoEstoqueDto> result = movimentoEstoqueService.listarPorProduto(1L);
+
+        assertEquals(List.of(0L, movimentoEstoque.getId()), result.stream().map(CreatedMovimentoEstoqueDto::id).toList());
+        assertEquals(movimentoEstoque.getTipo(), result.get(1).tipo());
+        assertSame(produto, result.get(0).produto());
+    }
+
+    @Test
+    @DisplayName("Deve listar só os campos pedidos e completar com os arquivados, sem devolver o ID não pedido")
+    void listarCamposPorProduto_MesclaArquivo()
+    {
+        LocalDateTime data = LocalDateTime.of(2022, 3, 4, 10, 30);
+        Map<String, Object> daTabela = new LinkedHashMap<>(Map.of("id", 5L, "quantidade", 10));
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(movimentoEstoqueRepository.findCampos(EnumSet.of(CampoMovimento.ID, CampoMovimento.QUANTIDADE), 1L))
+                .thenReturn(List.of(daTabela));
+        doReturn(List.of(
+                new MovimentoCompactacaoDto(2L, 1L, TipoMovimentacao.ENTRADA, null, 50, data),
+                new MovimentoCompactacaoDto(5L, 1L, TipoMovimentacao.SAIDA, BigDecimal.ONE, 1, data)))
+                .when(arquivoMovimentos).listarPagina(1L, 0L, MovimentoEstoqueService.PAGINA_ARQUIVO);
+
+        List<Map<String, Object>> result = movimentoEstoqueService.listarCamposPorProduto(1L, EnumSet.of(CampoMovimento.QUANTIDADE));
+
+        assertEquals(List.of(Map.of("quantidade", 50), Map.of("quantidade", 10)), result);
+        verify(produtoRepository, never()).findAllById(any());
+    }
+
     @Test
     @DisplayName("Deve lançar exceção ao listar movimentos de produto inexistente")
     void listarPorProduto_ProdutoNaoEncontrado()
@@ -261,6 +382,18 @@ class MovimentoEstoqueServiceTest
         verify(movimentoEstoqueRepository, never()).findByProduto(any());
     }
 
+    @Test
+    @DisplayName("Deve recusar a assinatura do stream de produto inexistente")
+    void assinarAlteracoes_ProdutoNaoEncontrado()
+    {
+        when(produtoRepository.existsById(999L)).thenReturn(false);
+
+        assertThrows(ProdutoNaoEncontradoException.class,
+                () -> movimentoEstoqueService.assinarAlteracoes(999L, null));
+
+        verifyNoInteractions(transmissaoEstoque);
+    }
+
     @Test
     @DisplayName("Deve retornar lista vazia quando produto não possui movimentos")
     void listarPorProduto_SemMovimentos()
@@ -329,6 +462,83 @@ class MovimentoEstoqueServiceTest
         verify(movimentoEstoqueRepository, times(1)).findAll();
     }
 
+    @Test
+    @DisplayName("Deve completar a listagem com o arquivo lido página a página, sem repetir IDs da tabela")
+    void listarTodos_ArquivoEmPaginas()
+    {
+        LocalDateTime data = LocalDateTime.of(2022, 3, 4, 10, 30);
+        List<MovimentoCompactacaoDto> primeiraPagina = new ArrayList<>();
+        for (long id = 2; id < 2 + MovimentoEstoqueService.PAGINA_ARQUIVO; id++)
+        {
+            primeiraPagina.add(new MovimentoCompactacaoDto(id, 1L, TipoMovimentacao.SAIDA, BigDecimal.ONE, 2, data));
+        }
+        long ultimoDaPrimeira = 1L + MovimentoEstoqueService.PAGINA_ARQUIVO;
+        when(movimentoEstoqueRepository.findAll()).thenReturn(List.of(movimento(1L), movimento(5L)));
+        doReturn(primeiraPagina).when(arquivoMovimentos).listarPagina(null, 0L, MovimentoEstoqueService.PAGINA_ARQUIVO);
+        doReturn(List.of(new MovimentoCompactacaoDto(ultimoDaPrimeira + 1, 1L, TipoMovimentacao.ENTRADA, null, 5, data)))
+                .when(arquivoMovimentos).listarPagina(null, ultimoDaPrimeira, MovimentoEstoqueService.PAGINA_ARQUIVO);
+        when(produtoRepository.findAllById(any())).thenReturn(List.of(produto));
+
+        List<CreatedMovimentoEstoqueDto> result = movimentoEstoqueService.listarTodos();
+
+        assertEquals(MovimentoEstoqueService.PAGINA_ARQUIVO + 2, result.size());
+        for (int i = 0; i < result.size(); i++)
+        {
+            assertEquals(i + 1L, result.get(i).id());
+        }
+        assertEquals(2, result.get(2).quantidade());
+        assertEquals(1, result.get(4).quantidade());
+        assertEquals(TipoMovimentacao.ENTRADA, result.get(result.size() - 1).tipo());
+        verify(arquivoMovimentos, times(2)).listarPagina(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os movimentos em páginas, continuando do último ID entregue")
+    void percorrer_PaginasPorId() throws IOException
+    {
+        when(movimentoEstoqueRepository.findAposId(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(movimento(1L), movimento(2L)));
+        when(movimentoEstoqueRepository.findAposId(2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(movimento(3L)));
+        List<List<Long>> paginas = new ArrayList<>();
+
+        movimentoEstoqueService.percorrer(null, 2, pagina -> paginas.add(pagina.stream().map(CreatedMovimentoEstoqueDto::id).toList()));
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)), paginas);
+        verify(movimentoEstoqueRepository, times(2)).findAposId(anyLong(), any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Deve mesclar cada página da tabela com uma página do arquivo a partir do mesmo ID, sem passar do tamanho")
+    void percorrer_MesclaArquivo() throws IOException
+    {
+        LocalDateTime data = LocalDateTime.of(2022, 3, 4, 10, 30);
+        List<MovimentoCompactacaoDto> arquivados = List.of(
+                new MovimentoCompactacaoDto(1L, 1L, TipoMovimentacao.ENTRADA, null, 50, data),
+                new MovimentoCompactacaoDto(3L, 1L, TipoMovimentacao.SAIDA, BigDecimal.ONE, 1, data),
+                new MovimentoCompactacaoDto(6L, 1L, TipoMovimentacao.SAIDA, BigDecimal.ONE, 1, data));
+        doAnswer(invocation -> arquivados.stream()
+                .filter(arquivado -> arquivado.id() > invocation.<Long>getArgument(1))
+                .limit(invocation.<Integer>getArgument(2))
+                .toList())
+                .when(arquivoMovimentos).listarPagina(eq(1L), anyLong(), anyInt());
+        when(movimentoEstoqueRepository.findPorProdutoAposId(1L, 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(movimento(2L), movimento(4L)));
+        when(movimentoEstoqueRepository.findPorProdutoAposId(1L, 2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(movimento(4L), movimento(5L)));
+        when(movimentoEstoqueRepository.findPorProdutoAposId(1L, 4L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(movimento(5L)));
+        when(produtoRepository.findAllById(any())).thenReturn(List.of(produto));
+        List<List<Long>> paginas = new ArrayList<>();
+
+        movimentoEstoqueService.percorrer(1L, 2, pagina -> paginas.add(pagina.stream().map(CreatedMovimentoEstoqueDto::id).toList()));
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L, 4L), List.of(5L, 6L)), paginas);
+        verify(movimentoEstoqueRepository).findPorProdutoAposId(1L, 6L, PageRequest.of(0, 2));
+        verify(arquivoMovimentos, times(4)).listarPagina(eq(1L), anyLong(), eq(2));
+    }
+
     @Test
     @DisplayName("Deve registrar movimento de saída com sucesso")
     void registrarMovimento_Saida()
@@ -555,4 +765,16 @@ class MovimentoEstoqueServiceTest
         assertEquals(new BigDecimal("15.00"), movimentoCapturado.getValorVenda());
         assertNotNull(movimentoCapturado.getDataMovimentacao());
     }
-}
\ No newline at end of file
+
+    private MovimentoEstoque movimento(Long id)
+    {
+        MovimentoEstoque movimento = new MovimentoEstoque();
+        movimento.setId(id);
+        movimento.setProduto(produto);
+        movimento.setTipo(TipoMovimentacao.SAIDA);
+        movimento.setQuantidade(1);
+        movimento.setValorVenda(new BigDecimal("15.00"));
+        movimento.setDataMovimentacao(LocalDateTime.of(2024, 5, 10, 14, 0));
+        return movimento;
+    }
+}
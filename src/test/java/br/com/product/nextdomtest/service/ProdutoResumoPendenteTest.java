@@ -0,0 +1,118 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.dto.MovimentoEstoqueDto;
+import br.com.product.nextdomtest.dto.ProdutoDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.model.ProdutoResumo;
+import br.com.product.nextdomtest.model.ProdutoResumoPendente;
+import br.com.product.nextdomtest.repository.ProdutoResumoPendenteRepository;
+import br.com.product.nextdomtest.repository.ProdutoResumoRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:resumopendente;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "estoque.resumo.intervalo=1h"
+})
+@DisplayName("Marcas persistentes do resumo de produtos")
+class ProdutoResumoPendenteTest
+{
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Autowired
+    private CompactacaoMovimentoService compactacaoMovimentoService;
+
+    @Autowired
+    private ProdutoResumoService produtoResumoService;
+
+    @Autowired
+    private ProdutoResumoRepository produtoResumoRepository;
+
+    @Autowired
+    private ProdutoResumoPendenteRepository produtoResumoPendenteRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("A marca deve ser gravada junto com a escrita e desfeita junto com ela")
+    void marcaNaTransacaoDaEscrita()
+    {
+        Long confirmado = criarProduto("PEND-1");
+        Long desfeito = transactionTemplate.execute(status -> {
+            Long id = criarProduto("PEND-2");
+            status.setRollbackOnly();
+            return id;
+        });
+
+        assertTrue(possuiMarca(confirmado));
+        assertFalse(possuiMarca(desfeito));
+
+        produtoResumoService.processarPendentes();
+
+        assertFalse(possuiMarca(confirmado));
+        assertTrue(produtoResumoRepository.existsById(confirmado));
+    }
+
+    @Test
+    @DisplayName("A compactação deve marcar o produto, e o recálculo deve somar as vendas das duas tabelas")
+    void compactacaoMarcaProduto()
+    {
+        Long produtoId = criarProduto("PEND-3");
+        movimentar(produtoId, TipoMovimentacao.ENTRADA, null, 10);
+        Long antiga = movimentar(produtoId, TipoMovimentacao.SAIDA, new BigDecimal("20.00"), 3);
+        movimentar(produtoId, TipoMovimentacao.SAIDA, new BigDecimal("25.00"), 2);
+        jdbcTemplate.update("UPDATE movimento_estoque SET data_movimentacao = ? WHERE id = ?",
+                LocalDateTime.of(2023, 6, 1, 10, 0), antiga);
+        produtoResumoService.processarPendentes();
+
+        // Resumo calculado com uma leitura que a compactação dividiu ao meio
+        jdbcTemplate.update("UPDATE produto_resumo SET quantidade_vendida = 0 WHERE produto_id = ?", produtoId);
+        assertEquals(1, compactacaoMovimentoService.compactar(LocalDateTime.of(2024, 1, 1, 0, 0)));
+        assertTrue(possuiMarca(produtoId));
+
+        produtoResumoService.processarPendentes();
+
+        ProdutoResumo resumo = produtoResumoRepository.findById(produtoId).orElseThrow();
+        assertEquals(5L, resumo.getQuantidadeVendida());
+        assertEquals(0, new BigDecimal("110.00").compareTo(resumo.getValorVendas()));
+        assertFalse(possuiMarca(produtoId));
+    }
+
+    private boolean possuiMarca(Long produtoId)
+    {
+        return produtoResumoPendenteRepository.findAll().stream()
+                .map(ProdutoResumoPendente::getProdutoId)
+                .anyMatch(produtoId::equals);
+    }
+
+    private Long criarProduto(String codigo)
+    {
+        return produtoService.salvar(new ProdutoDto(null, codigo, "Produto " + codigo, TipoProduto.ELETRONICO,
+                new BigDecimal("40.00"), 0)).id();
+    }
+
+    private Long movimentar(Long produtoId, TipoMovimentacao tipo, BigDecimal valorVenda, int quantidade)
+    {
+        return movimentoEstoqueService.registrarMovimento(
+                new MovimentoEstoqueDto(null, produtoId, tipo, valorVenda, quantidade, null)).id();
+    }
+}
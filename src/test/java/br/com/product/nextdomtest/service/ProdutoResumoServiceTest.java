@@ -0,0 +1,228 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
+import br.com.product.nextdomtest.dto.PrimeiraEntradaDto;
+import br.com.product.nextdomtest.dto.ReconstrucaoResumoDto;
+import br.com.product.nextdomtest.dto.VendaProdutoDto;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.evento.MovimentoRegistradoEvento;
+import br.com.product.nextdomtest.exception.OperacaoNaoPermitidaException;
+import br.com.product.nextdomtest.model.Produto;
+import br.com.product.nextdomtest.model.ProdutoResumo;
+import br.com.product.nextdomtest.model.ProdutoResumoPendente;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.ProdutoRepository;
+import br.com.product.nextdomtest.repository.ProdutoResumoPendenteRepository;
+import br.com.product.nextdomtest.repository.ProdutoResumoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes da classe ProdutoResumoService")
+class ProdutoResumoServiceTest
+{
+    private static final LocalDateTime VENDA_RECENTE = LocalDateTime.of(2024, 5, 10, 14, 0);
+
+    @Mock
+    private ProdutoRepository produtoRepository;
+
+    @Mock
+    private MovimentoEstoqueRepository movimentoEstoqueRepository;
+
+    @Mock
+    private ProdutoResumoRepository produtoResumoRepository;
+
+    @Mock
+    private ProdutoResumoPendenteRepository produtoResumoPendenteRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProdutoResumoService produtoResumoService;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp()
+    {
+        produtoResumoService = new ProdutoResumoService(
+                produtoRepository,
+                movimentoEstoqueRepository,
+                produtoResumoRepository,
+                produtoResumoPendenteRepository,
+                transactionManager,
+                2
+        );
+
+        produto = new Produto(1L, "P001", "Notebook", TipoProduto.ELETRONICO, new BigDecimal("1000.00"), 7);
+    }
+
+    @Test
+    @DisplayName("Deve gravar as vendas somadas e calcular o lucro pela primeira entrada")
+    void atualizar_NovoResumo()
+    {
+        when(produtoRepository.findAllById(List.of(1L))).thenReturn(List.of(produto));
+        when(produtoResumoRepository.findAllById(List.of(1L))).thenReturn(List.of());
+        when(movimentoEstoqueRepository.somarVendasPorProdutos(List.of(1L)))
+                .thenReturn(List.of(new VendaProdutoDto(1L, 5L, new BigDecimal("710.00"), VENDA_RECENTE)));
+        when(movimentoEstoqueRepository.findPrimeirasEntradas(List.of(1L)))
+                .thenReturn(List.of(new PrimeiraEntradaDto(1L, 10)));
+
+        produtoResumoService.atualizar(List.of(1L));
+
+        ProdutoResumo resumo = unicoSalvo();
+        assertEquals(1L, resumo.getProdutoId());
+        assertEquals("Notebook", resumo.getDescricao());
+        assertEquals(7, resumo.getQuantidadeEstoque());
+        assertEquals(5L, resumo.getQuantidadeVendida());
+        assertEquals(new BigDecimal("710.00"), resumo.getValorVendas());
+        assertEquals(new BigDecimal("100.00"), resumo.getValorCompraUnitario());
+        // 710,00 - 100,00 × 5
+        assertEquals(new BigDecimal("210.00"), resumo.getLucroTotal());
+        assertEquals(VENDA_RECENTE, resumo.getUltimaVenda());
+        assertNotNull(resumo.getAtualizadoEm());
+    }
+
+    @Test
+    @DisplayName("Produto sem movimentações deve ter vendas zeradas e custo igual ao valor do fornecedor")
+    void atualizar_SemMovimentacoes()
+    {
+        when(produtoRepository.findAllById(List.of(1L))).thenReturn(List.of(produto));
+        when(produtoResumoRepository.findAllById(List.of(1L))).thenReturn(List.of());
+
+        produtoResumoService.atualizar(List.of(1L));
+
+        ProdutoResumo resumo = unicoSalvo();
+        assertEquals(0L, resumo.getQuantidadeVendida());
+        assertEquals(BigDecimal.ZERO, resumo.getValorVendas());
+        assertEquals(new BigDecimal("1000.00"), resumo.getValorCompraUnitario());
+        assertEquals(0, BigDecimal.ZERO.compareTo(resumo.getLucroTotal()));
+        assertNull(resumo.getUltimaVenda());
+    }
+
+    @Test
+    @DisplayName("Deve alterar no lugar o resumo existente e remover o resumo de produto excluído")
+    void atualizar_ExistenteERemovido()
+    {
+        ProdutoResumo existente = ProdutoResumo.builder().produtoId(1L).quantidadeEstoque(99).build();
+        ProdutoResumo orfao = ProdutoResumo.builder().produtoId(2L).build();
+        when(produtoRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(produto));
+        when(produtoResumoRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(existente, orfao));
+
+        produtoResumoService.atualizar(List.of(1L, 2L));
+
+        assertEquals(7, existente.getQuantidadeEstoque());
+        assertEquals(List.of(), salvos());
+        verify(produtoResumoRepository).deleteAll(List.of(orfao));
+        verify(movimentoEstoqueRepository).somarVendasPorProdutos(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("O evento deve gravar uma marca de resumo pendente para o produto")
+    void registrarEvento_GravaMarca()
+    {
+        produtoResumoService.registrarEvento(new MovimentoRegistradoEvento(3L, 13L));
+
+        verify(produtoResumoPendenteRepository).save(argThat(marca -> marca.getId() == null && marca.getProdutoId() == 3L));
+    }
+
+    @Test
+    @DisplayName("Marcas repetidas do mesmo produto devem ser processadas uma única vez por lote e apagadas")
+    void processarPendentes_AgrupaMarcas()
+    {
+        when(produtoResumoPendenteRepository.findAllByOrderById(PageRequest.of(0, 2)))
+                .thenReturn(List.of(marca(1L, 1L), marca(2L, 1L)))
+                .thenReturn(List.of(marca(3L, 2L)));
+        when(produtoRepository.findAllById(any())).thenReturn(List.of());
+
+        produtoResumoService.processarPendentes();
+
+        InOrder ordem = inOrder(produtoResumoPendenteRepository, produtoRepository);
+        ordem.verify(produtoResumoPendenteRepository).findAllByOrderById(PageRequest.of(0, 2));
+        ordem.verify(produtoRepository).findAllById(List.of(1L));
+        ordem.verify(produtoResumoPendenteRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        ordem.verify(produtoResumoPendenteRepository).findAllByOrderById(PageRequest.of(0, 2));
+        ordem.verify(produtoRepository).findAllById(List.of(2L));
+        ordem.verify(produtoResumoPendenteRepository).deleteAllByIdInBatch(List.of(3L));
+        // O segundo lote veio incompleto: a fila acabou
+        verifyNoMoreInteractions(produtoResumoPendenteRepository);
+    }
+
+    @Test
+    @DisplayName("Lote que falha deve manter as marcas para o próximo ciclo")
+    void processarPendentes_FalhaMantemMarcas()
+    {
+        when(produtoResumoPendenteRepository.findAllByOrderById(any())).thenReturn(List.of(marca(1L, 1L)));
+        when(produtoRepository.findAllById(any())).thenThrow(new IllegalStateException("banco indisponível"));
+
+        produtoResumoService.processarPendentes();
+
+        verify(produtoRepository).findAllById(List.of(1L));
+        verify(produtoResumoPendenteRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    @DisplayName("A reconstrução deve percorrer o catálogo em lotes por ID e remover resumos sem produto")
+    void reconstruir()
+    {
+        when(produtoRepository.findEstoquesAposId(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(new EstoqueProdutoDto(1L, 7), new EstoqueProdutoDto(2L, 3)));
+        when(produtoRepository.findEstoquesAposId(2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(new EstoqueProdutoDto(5L, 0)));
+
+        ReconstrucaoResumoDto resultado = produtoResumoService.reconstruir();
+
+        assertEquals(3L, resultado.produtosProcessados());
+        verify(produtoRepository).findAllById(List.of(1L, 2L));
+        verify(produtoRepository).findAllById(List.of(5L));
+        verify(produtoRepository, never()).findEstoquesAposId(eq(5L), any());
+        verify(produtoResumoRepository).deleteSemProduto();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar paginação inválida na listagem de resumos")
+    void listar_PaginacaoInvalida()
+    {
+        assertThrows(OperacaoNaoPermitidaException.class, () -> produtoResumoService.listar(null, -1, 50));
+        assertThrows(OperacaoNaoPermitidaException.class,
+                () -> produtoResumoService.listar(TipoProduto.MOVEL, 0, ProdutoService.TAMANHO_MAXIMO_PAGINA + 1));
+        verifyNoInteractions(produtoResumoRepository);
+    }
+
+    private static ProdutoResumoPendente marca(Long id, Long produtoId)
+    {
+        return ProdutoResumoPendente.builder().id(id).produtoId(produtoId).build();
+    }
+
+    private ProdutoResumo unicoSalvo()
+    {
+        List<ProdutoResumo> salvos = salvos();
+        assertEquals(1, salvos.size());
+        return salvos.get(0);
+    }
+
+    private List<ProdutoResumo> salvos()
+    {
+        ArgumentCaptor<Iterable<ProdutoResumo>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(produtoResumoRepository).saveAll(captor.capture());
+        List<ProdutoResumo> salvos = new ArrayList<>();
+        captor.getValue().forEach(salvos::add);
+        return salvos;
+    }
+}
@@ -1,27 +1,50 @@
 package br.com.product.nextdomtest.service;
 
+import br.com.product.nextdomtest.cache.ConsultasCompartilhadas;
+import br.com.product.nextdomtest.cache.EstoqueEmMemoria;
+import br.com.product.nextdomtest.cache.ProdutoCache;
+import br.com.product.nextdomtest.cache.VersaoCatalogo;
+import br.com.product.nextdomtest.datasource.TransacaoSnapshot;
+import br.com.product.nextdomtest.dto.EstatisticaMovimentoDto;
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
+import br.com.product.nextdomtest.dto.ProdutoBuscaDto;
 import br.com.product.nextdomtest.dto.ProdutoDto;
 import br.com.product.nextdomtest.dto.LucroProdutoDto;
 import br.com.product.nextdomtest.enums.TipoMovimentacao;
 import br.com.product.nextdomtest.enums.TipoProduto;
+import br.com.product.nextdomtest.evento.ProdutoAlteradoEvento;
 import br.com.product.nextdomtest.exception.ProdutoNaoEncontradoException;
 import br.com.product.nextdomtest.exception.OperacaoNaoPermitidaException;
+import br.com.product.nextdomtest.journal.JournalEstoque;
 import br.com.product.nextdomtest.model.MovimentoEstoque;
+import br.com.product.nextdomtest.model.MovimentoEstoqueResumo;
 import br.com.product.nextdomtest.model.Produto;
 import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueResumoRepository;
 import br.com.product.nextdomtest.repository.ProdutoRepository;
+import br.com.product.nextdomtest.repository.SaldoEstoqueRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,6 +60,37 @@ class ProdutoServiceTest
     @Mock
     private MovimentoEstoqueRepository movimentoEstoqueRepository;
 
+    @Mock
+    private MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository;
+
+    @Mock
+    private SaldoEstoqueRepository saldoEstoqueRepository;
+
+    @Spy
+    private VersaoCatalogo versaoCatalogo = new VersaoCatalogo();
+
+    @Spy
+    private ProdutoCache produtoCache = new ProdutoCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+    @Spy
+    private ConsultasCompartilhadas consultasCompartilhadas =
+            new ConsultasCompartilhadas(Duration.ZERO, 100, new SimpleMeterRegistry());
+
+    @Spy
+    private EstoqueEmMemoria estoqueEmMemoria = new EstoqueEmMemoria();
+
+    @Spy
+    private JournalEstoque journalEstoque = JournalEstoque.desabilitado();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TransacaoSnapshot transacaoSnapshot;
+
     @InjectMocks
     private ProdutoService produtoService;
 
@@ -48,6 +102,9 @@ class ProdutoServiceTest
     @BeforeEach
     void setUp()
     {
+        lenient().when(transacaoSnapshot.executar(anyString(), any()))
+                .thenAnswer(invocacao -> invocacao.<TransactionCallback<?>>getArgument(1).doInTransaction(null));
+
         produto = new Produto();
         produto.setId(1L);
         produto.setCodigo("P001");
@@ -166,6 +223,136 @@ class ProdutoServiceTest
         verify(produtoRepository, times(1)).findById(id);
     }
 
+    @Test
+    @DisplayName("Deve servir buscas repetidas por ID a partir do cache")
+    void buscarPorId_UsaCache()
+    {
+        Long id = 1L;
+        when(produtoRepository.findById(id)).thenReturn(Optional.of(produto));
+
+        ProdutoDto primeira = produtoService.buscarPorId(id);
+        ProdutoDto segunda = produtoService.buscarPorId(id);
+
+        assertEquals(primeira, segunda);
+        verify(produtoRepository, times(1)).findById(id);
+    }
+
+    @Test
+    @DisplayName("Deve recarregar o produto do banco após atualização")
+    void buscarPorId_InvalidaCacheAoAtualizar()
+    {
+        Long id = 1L;
+        when(produtoRepository.findById(id)).thenReturn(Optional.of(produto));
+        when(produtoRepository.existsById(id)).thenReturn(true);
+        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
+
+        produtoService.buscarPorId(id);
+        produtoService.atualizar(id, produtoDto);
+        produtoService.buscarPorId(id);
+
+        verify(produtoRepository, times(2)).findById(id);
+    }
+
+    @Test
+    @DisplayName("Deve serializar o produto uma vez e servir o mesmo JSON até a próxima atualização")
+    void buscarJsonPorId_UsaCacheAteAtualizar() throws Exception
+    {
+        Long id = 1L;
+        when(produtoRepository.findById(id)).thenReturn(Optional.of(produto));
+        when(produtoRepository.existsById(id)).thenReturn(true);
+        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
+
+        byte[] primeira = produtoService.buscarJsonPorId(id);
+        byte[] segunda = produtoService.buscarJsonPorId(id);
+        produtoService.atualizar(id, produtoDto);
+        produtoService.buscarJsonPorId(id);
+
+        assertSame(primeira, segunda);
+        assertEquals(produtoService.buscarPorId(id), objectMapper.readValue(primeira, ProdutoDto.class));
+        verify(objectMapper, times(2)).writeValueAsBytes(any());
+        verify(produtoRepository, times(2)).findById(id);
+    }
+
+    @Test
+    @DisplayName("Busca JSON de produto inexistente deve lançar exceção sem deixar entrada no cache")
+    void buscarJsonPorId_ProdutoNaoEncontrado()
+    {
+        when(produtoRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(ProdutoNaoEncontradoException.class, () -> produtoService.buscarJsonPorId(999L));
+        assertThrows(ProdutoNaoEncontradoException.class, () -> produtoService.buscarJsonPorId(999L));
+        verify(produtoRepository, times(2)).findById(999L);
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários produtos na ordem informada marcando os inexistentes")
+    void buscarPorIds()
+    {
+        Produto produto2 = new Produto();
+        produto2.setId(2L);
+        produto2.setCodigo("P002");
+        produto2.setDescricao("Produto Teste 2");
+        produto2.setTipo(TipoProduto.MOVEL);
+        produto2.setValorFornecedor(new BigDecimal("5.00"));
+        produto2.setQuantidadeEstoque(50);
+
+        when(produtoRepository.findAllById(List.of(2L, 999L, 1L))).thenReturn(List.of(produto, produto2));
+
+        List<ProdutoBuscaDto> result = produtoService.buscarPorIds(List.of(2L, 999L, 1L, 2L));
+
+        assertEquals(4, result.size());
+        assertEquals(2L, result.get(0).id());
+        assertTrue(result.get(0).encontrado());
+        assertEquals("P002", result.get(0).produto().codigo());
+        assertEquals(999L, result.get(1).id());
+        assertFalse(result.get(1).encontrado());
+        assertNull(result.get(1).produto());
+        assertEquals("P001", result.get(2).produto().codigo());
+        assertEquals(result.get(0), result.get(3));
+        verify(produtoRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Deve buscar no banco apenas os produtos ausentes do cache")
+    void buscarPorIds_UsaCache()
+    {
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(produtoRepository.findAllById(List.of(3L))).thenReturn(List.of());
+
+        produtoService.buscarPorId(1L);
+        List<ProdutoBuscaDto> result = produtoService.buscarPorIds(List.of(1L, 3L));
+
+        assertTrue(result.get(0).encontrado());
+        assertFalse(result.get(1).encontrado());
+        verify(produtoRepository, times(1)).findAllById(List.of(3L));
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco em lotes quando a lista de IDs é grande")
+    void buscarPorIds_ConsultaEmLotes()
+    {
+        List<Long> ids = LongStream.rangeClosed(1, ProdutoService.TAMANHO_LOTE_CONSULTA + 1)
+                .boxed()
+                .toList();
+        when(produtoRepository.findAllById(any())).thenReturn(List.of());
+
+        produtoService.buscarPorIds(ids);
+
+        verify(produtoRepository, times(2)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar busca com IDs acima do limite")
+    void buscarPorIds_AcimaDoLimite()
+    {
+        List<Long> ids = LongStream.rangeClosed(1, ProdutoService.LIMITE_IDS_POR_BUSCA + 1)
+                .boxed()
+                .toList();
+
+        assertThrows(OperacaoNaoPermitidaException.class, () -> produtoService.buscarPorIds(ids));
+        verify(produtoRepository, never()).findAllById(any());
+    }
+
     @Test
     @DisplayName("Deve listar todos os produtos")
     void listarTodos()
@@ -227,6 +414,36 @@ class ProdutoServiceTest
         verify(produtoRepository, times(1)).findByTipo(tipo);
     }
 
+    @Test
+    @DisplayName("Deve servir listagens repetidas por tipo a partir do cache")
+    void listarPorTipo_UsaCache()
+    {
+        TipoProduto tipo = TipoProduto.ELETRONICO;
+        when(produtoRepository.findByTipo(tipo)).thenReturn(List.of(produto));
+
+        produtoService.listarPorTipo(tipo);
+        List<ProdutoDto> result = produtoService.listarPorTipo(tipo);
+
+        assertEquals(1, result.size());
+        verify(produtoRepository, times(1)).findByTipo(tipo);
+    }
+
+    @Test
+    @DisplayName("Deve servir o JSON da listagem por tipo do cache até uma movimentação de produto do tipo")
+    void listarJsonPorTipo_UsaCacheAteInvalidar() throws Exception
+    {
+        TipoProduto tipo = TipoProduto.ELETRONICO;
+        when(produtoRepository.findByTipo(tipo)).thenReturn(List.of(produto));
+
+        byte[] primeira = produtoService.listarJsonPorTipo(tipo);
+        assertSame(primeira, produtoService.listarJsonPorTipo(tipo));
+        produtoCache.invalidar(produto.getId(), tipo);
+        produtoService.listarJsonPorTipo(tipo);
+
+        assertEquals(1, objectMapper.readValue(primeira, ProdutoDto[].class).length);
+        verify(produtoRepository, times(2)).findByTipo(tipo);
+    }
+
     @Test
     @DisplayName("Deve retornar lista vazia quando não há produtos do tipo especificado")
     void listarPorTipo_SemProdutos()
@@ -281,6 +498,39 @@ class ProdutoServiceTest
         verify(produtoRepository, times(1)).save(any(Produto.class));
     }
 
+    @Test
+    @DisplayName("Deve avançar a versão do produto e do catálogo ao atualizar")
+    void atualizar_AvancaVersao()
+    {
+        Long id = 1L;
+        String etagProdutoAnterior = versaoCatalogo.etagProduto(id);
+        String etagCatalogoAnterior = versaoCatalogo.etagCatalogo();
+
+        when(produtoRepository.existsById(id)).thenReturn(true);
+        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
+
+        produtoService.atualizar(id, produtoDto);
+
+        assertNotEquals(etagProdutoAnterior, versaoCatalogo.etagProduto(id));
+        assertNotEquals(etagCatalogoAnterior, versaoCatalogo.etagCatalogo());
+        assertEquals(versaoCatalogo.etagProduto(2L), versaoCatalogo.etagProduto(2L));
+        verify(versaoCatalogo, times(1)).registrarAlteracao(id);
+    }
+
+    @Test
+    @DisplayName("Atualização cadastral deve manter a quantidade em estoque atual, ignorando a do corpo")
+    void atualizar_PreservaQuantidadeEstoque()
+    {
+        Long id = 1L;
+        when(produtoRepository.existsById(id)).thenReturn(true);
+        when(produtoRepository.findQuantidadeEstoqueById(id)).thenReturn(Optional.of(42));
+        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
+
+        produtoService.atualizar(id, produtoDto);
+
+        verify(produtoRepository).save(argThat(salvo -> salvo.getId().equals(id) && salvo.getQuantidadeEstoque() == 42));
+    }
+
     @Test
     @DisplayName("Deve lançar exceção ao tentar atualizar produto inexistente")
     void atualizar_ProdutoNaoEncontrado()
@@ -310,7 +560,9 @@ class ProdutoServiceTest
 
         verify(produtoRepository, times(1)).existsById(id);
         verify(movimentoEstoqueRepository, times(1)).existsByProdutoId(id);
+        verify(saldoEstoqueRepository, times(1)).deleteByProdutoId(id);
         verify(produtoRepository, times(1)).deleteById(id);
+        verify(eventPublisher).publishEvent(new ProdutoAlteradoEvento(id));
     }
 
     @Test
@@ -330,6 +582,122 @@ class ProdutoServiceTest
         verify(movimentoEstoqueRepository, never()).existsByProdutoId(any());
     }
 
+    @Test
+    @DisplayName("Deve consultar estoque em memória após cadastro sem acessar o banco")
+    void consultarEstoque()
+    {
+        when(produtoRepository.save(any(Produto.class))).thenReturn(produto);
+        produtoService.salvar(produtoDto);
+
+        EstoqueProdutoDto result = produtoService.consultarEstoque(1L);
+
+        assertEquals(1L, result.produtoId());
+        assertEquals(100, result.quantidadeEstoque());
+        verify(produtoRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção ao consultar estoque de produto inexistente")
+    void consultarEstoque_ProdutoNaoEncontrado()
+    {
+        assertThrows(ProdutoNaoEncontradoException.class, () -> produtoService.consultarEstoque(999L));
+    }
+
+    @Test
+    @DisplayName("Deve consultar estoques na ordem informada com nulo para inexistentes")
+    void consultarEstoques()
+    {
+        estoqueEmMemoria.carregar(1L, 10);
+        estoqueEmMemoria.carregar(2L, 20);
+
+        List<EstoqueProdutoDto> result = produtoService.consultarEstoques(List.of(2L, 999L, 1L));
+
+        assertEquals(List.of(
+                new EstoqueProdutoDto(2L, 20),
+                new EstoqueProdutoDto(999L, null),
+                new EstoqueProdutoDto(1L, 10)
+        ), result);
+    }
+
+    @Test
+    @DisplayName("Deve consultar estatísticas de movimentação do produto")
+    void consultarEstatisticas()
+    {
+        LocalDateTime ultima = LocalDateTime.of(2025, 1, 10, 8, 30);
+        EstatisticaMovimentoDto estatisticas = new EstatisticaMovimentoDto(1L, 3L, 10L, 4L, ultima);
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(movimentoEstoqueRepository.calcularEstatisticasPorProdutos(List.of(1L))).thenReturn(List.of(estatisticas));
+
+        EstatisticaMovimentoDto result = produtoService.consultarEstatisticas(1L);
+
+        assertEquals(estatisticas, result);
+        verify(movimentoEstoqueRepository, never()).findByProduto(any());
+        // Movimentos em aberto e resumos compactados lidos numa mesma foto, sem a compactação no meio
+        verify(transacaoSnapshot).executar(eq("estatísticas do produto"), any());
+    }
+
+    @Test
+    @DisplayName("Deve retornar estatísticas zeradas para produto sem movimentações")
+    void consultarEstatisticas_SemMovimentacoes()
+    {
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(movimentoEstoqueRepository.calcularEstatisticasPorProdutos(List.of(1L))).thenReturn(List.of());
+
+        EstatisticaMovimentoDto result = produtoService.consultarEstatisticas(1L);
+
+        assertEquals(new EstatisticaMovimentoDto(1L, 0L, 0L, 0L, null), result);
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção ao consultar estatísticas de produto inexistente")
+    void consultarEstatisticas_ProdutoNaoEncontrado()
+    {
+        when(produtoRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(ProdutoNaoEncontradoException.class, () -> produtoService.consultarEstatisticas(999L));
+        verify(movimentoEstoqueRepository, never()).calcularEstatisticasPorProdutos(any());
+    }
+
+    @Test
+    @DisplayName("Deve listar estatísticas da página de IDs após o cursor, com zeros para produtos sem movimentação")
+    void listarEstatisticas()
+    {
+        LocalDateTime data = LocalDateTime.of(2024, 5, 10, 14, 0);
+        when(produtoRepository.findIdsAposId(10L, PageRequest.of(0, 3))).thenReturn(List.of(11L, 12L, 14L));
+        when(movimentoEstoqueRepository.calcularEstatisticasPorProdutos(List.of(11L, 12L, 14L)))
+                .thenReturn(List.of(new EstatisticaMovimentoDto(14L, 2L, 10L, 3L, data)));
+        when(movimentoEstoqueResumoRepository.calcularEstatisticasPorProdutos(List.of(11L, 12L, 14L)))
+                .thenReturn(List.of(new EstatisticaMovimentoDto(11L, 1L, 0L, 4L, data.minusDays(1)),
+                        new EstatisticaMovimentoDto(14L, 1L, 5L, 0L, data.minusDays(2))));
+
+        List<EstatisticaMovimentoDto> result = produtoService.listarEstatisticas(10L, 3);
+
+        assertEquals(List.of(
+                new EstatisticaMovimentoDto(11L, 1L, 0L, 4L, data.minusDays(1)),
+                new EstatisticaMovimentoDto(12L, 0L, 0L, 0L, null),
+                new EstatisticaMovimentoDto(14L, 3L, 15L, 3L, data)), result);
+    }
+
+    @Test
+    @DisplayName("Deve devolver página vazia de estatísticas sem agregar quando não há produtos após o cursor")
+    void listarEstatisticas_FimDoCatalogo()
+    {
+        when(produtoRepository.findIdsAposId(99L, PageRequest.of(0, 20))).thenReturn(List.of());
+
+        assertTrue(produtoService.listarEstatisticas(99L, 20).isEmpty());
+        verify(movimentoEstoqueRepository, never()).calcularEstatisticasPorProdutos(any());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar página de estatísticas com tamanho inválido")
+    void listarEstatisticas_TamanhoInvalido()
+    {
+        assertThrows(OperacaoNaoPermitidaException.class,
+                () -> produtoService.listarEstatisticas(0, ProdutoService.TAMANHO_MAXIMO_PAGINA + 1));
+        assertThrows(OperacaoNaoPermitidaException.class, () -> produtoService.listarEstatisticas(-1, 20));
+        verify(produtoRepository, never()).findIdsAposId(any(), any());
+    }
+
     @Test
     @DisplayName("Deve consultar lucro do produto com sucesso")
     void consultarLucro()
@@ -381,6 +749,80 @@ class ProdutoServiceTest
         verify(movimentoEstoqueRepository, atLeast(2)).findByProduto(produto);
     }
 
+    @Test
+    @DisplayName("O lucro deve ser compartilhado por versão do produto, para nunca reaproveitar um cálculo anterior a uma alteração")
+    void consultarLucro_ChavePorVersao()
+    {
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(movimentoEstoqueRepository.findByProduto(produto)).thenReturn(List.of());
+
+        produtoService.consultarLucro(1L);
+        versaoCatalogo.registrarAlteracao(1L);
+        produtoService.consultarLucro(1L);
+
+        verify(consultasCompartilhadas).executar(eq("lucro"), eq(List.of(1L, 0L)), any());
+        verify(consultasCompartilhadas).executar(eq("lucro"), eq(List.of(1L, 1L)), any());
+        verify(transacaoSnapshot, times(2)).executar(eq("lucro do produto"), any());
+    }
+
+    @Test
+    @DisplayName("Deve somar os resumos compactados ao lucro do produto")
+    void consultarLucro_ComResumosCompactados()
+    {
+        Long produtoId = 1L;
+
+        MovimentoEstoque saida = new MovimentoEstoque();
+        saida.setId(2L);
+        saida.setProduto(produto);
+        saida.setTipo(TipoMovimentacao.SAIDA);
+        saida.setQuantidade(2);
+        saida.setValorVenda(new BigDecimal("18.00"));
+
+        MovimentoEstoque entrada = new MovimentoEstoque();
+        entrada.setId(1L);
+        entrada.setProduto(produto);
+        entrada.setTipo(TipoMovimentacao.ENTRADA);
+        entrada.setQuantidade(10);
+
+        // Três saídas compactadas a 15.00
+        MovimentoEstoqueResumo resumo = MovimentoEstoqueResumo.builder()
+                .produtoId(produtoId)
+                .data(LocalDate.of(2024, 1, 10))
+                .quantidadeMovimentos(1L)
+                .quantidadeEntrada(0L)
+                .quantidadeSaida(3L)
+                .valorVendas(new BigDecimal("45.00"))
+                .build();
+
+        when(produtoRepository.findById(produtoId)).thenReturn(Optional.of(produto));
+        when(movimentoEstoqueRepository.findByProduto(produto)).thenReturn(List.of(entrada, saida));
+        when(movimentoEstoqueResumoRepository.findByProdutoId(produtoId)).thenReturn(List.of(resumo));
+
+        LucroProdutoDto result = produtoService.consultarLucro(produtoId);
+
+        // Mesmo resultado de consultarLucro() com as saídas ainda não compactadas
+        assertEquals(5, result.quantidadeSaida());
+        assertEquals(0, new BigDecimal("31.00").compareTo(result.lucroTotal()));
+        assertEquals(0, new BigDecimal("16.20").compareTo(result.valorVendaUnitario()));
+        verify(movimentoEstoqueResumoRepository, times(1)).findByProdutoId(produtoId);
+    }
+
+    @Test
+    @DisplayName("Deve combinar estatísticas dos movimentos e dos resumos compactados")
+    void consultarEstatisticas_ComResumosCompactados()
+    {
+        LocalDateTime recente = LocalDateTime.of(2025, 3, 1, 10, 0);
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(movimentoEstoqueRepository.calcularEstatisticasPorProdutos(List.of(1L)))
+                .thenReturn(List.of(new EstatisticaMovimentoDto(1L, 2L, 10L, 4L, recente)));
+        when(movimentoEstoqueResumoRepository.calcularEstatisticasPorProdutos(List.of(1L)))
+                .thenReturn(List.of(new EstatisticaMovimentoDto(1L, 5L, 20L, 7L, recente.minusYears(1))));
+
+        EstatisticaMovimentoDto result = produtoService.consultarEstatisticas(1L);
+
+        assertEquals(new EstatisticaMovimentoDto(1L, 7L, 30L, 11L, recente), result);
+    }
+
     @Test
     @DisplayName("Deve consultar lucro zero quando não há movimentos de saída")
     void consultarLucro_SemMovimentosSaida()
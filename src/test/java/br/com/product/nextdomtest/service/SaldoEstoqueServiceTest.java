@@ -0,0 +1,194 @@
+package br.com.product.nextdomtest.service;
+
+import br.com.product.nextdomtest.datasource.TransacaoSnapshot;
+import br.com.product.nextdomtest.dto.EstoqueProdutoDto;
+import br.com.product.nextdomtest.dto.SaldoEstoqueDto;
+import br.com.product.nextdomtest.dto.SaldoMovimentoDto;
+import br.com.product.nextdomtest.exception.ProdutoNaoEncontradoException;
+import br.com.product.nextdomtest.model.Produto;
+import br.com.product.nextdomtest.model.SaldoEstoque;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueRepository;
+import br.com.product.nextdomtest.repository.MovimentoEstoqueResumoRepository;
+import br.com.product.nextdomtest.repository.ProdutoRepository;
+import br.com.product.nextdomtest.repository.SaldoEstoqueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes da classe SaldoEstoqueService")
+class SaldoEstoqueServiceTest
+{
+    private static final LocalDate DATA = LocalDate.of(2024, 5, 10);
+    private static final LocalDateTime FIM_DO_DIA = DATA.plusDays(1).atStartOfDay();
+
+    @Mock
+    private ProdutoRepository produtoRepository;
+
+    @Mock
+    private MovimentoEstoqueRepository movimentoEstoqueRepository;
+
+    @Mock
+    private MovimentoEstoqueResumoRepository movimentoEstoqueResumoRepository;
+
+    @Mock
+    private SaldoEstoqueRepository saldoEstoqueRepository;
+
+    @Mock
+    private TransacaoSnapshot transacaoSnapshot;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SaldoEstoqueService saldoEstoqueService;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp()
+    {
+        lenient().when(transacaoSnapshot.executar(anyString(), any()))
+                .thenAnswer(invocacao -> invocacao.<TransactionCallback<?>>getArgument(1).doInTransaction(null));
+
+        saldoEstoqueService = new SaldoEstoqueService(
+                produtoRepository,
+                movimentoEstoqueRepository,
+                movimentoEstoqueResumoRepository,
+                saldoEstoqueRepository,
+                transacaoSnapshot,
+                transactionManager,
+                2
+        );
+
+        produto = new Produto();
+        produto.setId(1L);
+        produto.setQuantidadeEstoque(20);
+    }
+
+    @Test
+    @DisplayName("Deve partir do saldo anterior mais próximo e somar só os movimentos até a data")
+    void consultarSaldoEm_SaldoAnterior()
+    {
+        LocalDateTime referencia = DATA.atStartOfDay();
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(saldoEstoqueRepository.findFirstByProdutoIdAndDataReferenciaLessThanEqualOrderByDataReferenciaDesc(1L, FIM_DO_DIA))
+                .thenReturn(Optional.of(saldo(1L, referencia, 50)));
+        when(movimentoEstoqueRepository.somarSaldoNoPeriodo(1L, referencia, FIM_DO_DIA)).thenReturn(-5L);
+        when(movimentoEstoqueResumoRepository.somarSaldoNoPeriodo(1L, DATA, DATA.plusDays(1))).thenReturn(0L);
+
+        SaldoEstoqueDto result = saldoEstoqueService.consultarSaldoEm(1L, DATA);
+
+        assertEquals(new SaldoEstoqueDto(1L, DATA, 45), result);
+        verify(transacaoSnapshot).executar(eq("saldo em data"), any());
+        verify(saldoEstoqueRepository, never()).findFirstByProdutoIdAndDataReferenciaGreaterThanOrderByDataReferenciaAsc(any(), any());
+        verify(movimentoEstoqueRepository, never()).somarSaldoPorProdutos(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve descontar os movimentos até o saldo seguinte quando a data é anterior ao primeiro saldo")
+    void consultarSaldoEm_SaldoPosterior()
+    {
+        LocalDateTime referencia = DATA.plusDays(3).atStartOfDay();
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(saldoEstoqueRepository.findFirstByProdutoIdAndDataReferenciaLessThanEqualOrderByDataReferenciaDesc(1L, FIM_DO_DIA))
+                .thenReturn(Optional.empty());
+        when(saldoEstoqueRepository.findFirstByProdutoIdAndDataReferenciaGreaterThanOrderByDataReferenciaAsc(1L, FIM_DO_DIA))
+                .thenReturn(Optional.of(saldo(1L, referencia, 50)));
+        when(movimentoEstoqueRepository.somarSaldoNoPeriodo(1L, FIM_DO_DIA, referencia)).thenReturn(3L);
+        when(movimentoEstoqueResumoRepository.somarSaldoNoPeriodo(1L, DATA.plusDays(1), DATA.plusDays(3))).thenReturn(2L);
+
+        SaldoEstoqueDto result = saldoEstoqueService.consultarSaldoEm(1L, DATA);
+
+        assertEquals(45, result.quantidadeEstoque());
+    }
+
+    @Test
+    @DisplayName("Deve descontar da quantidade atual quando o produto ainda não tem saldo registrado")
+    void consultarSaldoEm_SemSaldoRegistrado()
+    {
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(saldoEstoqueRepository.findFirstByProdutoIdAndDataReferenciaLessThanEqualOrderByDataReferenciaDesc(1L, FIM_DO_DIA))
+                .thenReturn(Optional.empty());
+        when(saldoEstoqueRepository.findFirstByProdutoIdAndDataReferenciaGreaterThanOrderByDataReferenciaAsc(1L, FIM_DO_DIA))
+                .thenReturn(Optional.empty());
+        when(movimentoEstoqueRepository.somarSaldoPorProdutos(anyCollection(), eq(FIM_DO_DIA)))
+                .thenReturn(List.of(new SaldoMovimentoDto(1L, 8L)));
+        when(movimentoEstoqueResumoRepository.somarSaldoPorProdutos(anyCollection(), eq(DATA.plusDays(1))))
+                .thenReturn(List.of());
+
+        SaldoEstoqueDto result = saldoEstoqueService.consultarSaldoEm(1L, DATA);
+
+        assertEquals(12, result.quantidadeEstoque());
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção ao consultar saldo de produto inexistente")
+    void consultarSaldoEm_ProdutoNaoEncontrado()
+    {
+        when(produtoRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(ProdutoNaoEncontradoException.class, () -> saldoEstoqueService.consultarSaldoEm(999L, DATA));
+        verifyNoInteractions(saldoEstoqueRepository);
+    }
+
+    @Test
+    @DisplayName("Deve registrar saldos em lotes, descontando movimentos posteriores e ignorando os já registrados")
+    @SuppressWarnings("unchecked")
+    void registrarSaldos()
+    {
+        LocalDateTime referencia = DATA.atStartOfDay();
+        when(produtoRepository.findEstoquesAposId(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(new EstoqueProdutoDto(1L, 20), new EstoqueProdutoDto(2L, 7)));
+        when(produtoRepository.findEstoquesAposId(2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(new EstoqueProdutoDto(3L, null)));
+        when(produtoRepository.findEstoquesAposId(3L, PageRequest.of(0, 2))).thenReturn(List.of());
+        when(saldoEstoqueRepository.findByProdutoIdInAndDataReferencia(anyCollection(), eq(referencia)))
+                .thenReturn(List.of(saldo(2L, referencia, 7)))
+                .thenReturn(List.of());
+        when(movimentoEstoqueRepository.somarSaldoPorProdutos(anyCollection(), eq(referencia)))
+                .thenReturn(List.of(new SaldoMovimentoDto(1L, 4L)))
+                .thenReturn(List.of());
+        when(movimentoEstoqueResumoRepository.somarSaldoPorProdutos(anyCollection(), eq(DATA))).thenReturn(List.of());
+
+        long registrados = saldoEstoqueService.registrarSaldos(DATA);
+
+        assertEquals(2, registrados);
+        verify(transacaoSnapshot, times(3)).executar(eq("registro de saldos"), any());
+        ArgumentCaptor<Iterable<SaldoEstoque>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(saldoEstoqueRepository, times(2)).saveAll(captor.capture());
+        List<SaldoEstoque> salvos = new ArrayList<>();
+        captor.getAllValues().forEach(lote -> lote.forEach(salvos::add));
+
+        assertEquals(2, salvos.size());
+        assertEquals(1L, salvos.get(0).getProdutoId());
+        assertEquals(16, salvos.get(0).getQuantidade());
+        assertEquals(referencia, salvos.get(0).getDataReferencia());
+        assertEquals(3L, salvos.get(1).getProdutoId());
+        assertEquals(0, salvos.get(1).getQuantidade());
+    }
+
+    private SaldoEstoque saldo(Long produtoId, LocalDateTime referencia, int quantidade)
+    {
+        return SaldoEstoque.builder()
+                .produtoId(produtoId)
+                .dataReferencia(referencia)
+                .quantidade(quantidade)
+                .build();
+    }
+}
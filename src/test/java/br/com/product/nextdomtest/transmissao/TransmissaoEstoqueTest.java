@@ -0,0 +1,268 @@
+package br.com.product.nextdomtest.transmissao;
+
+import br.com.product.nextdomtest.dto.AlteracaoEstoqueDto;
+import br.com.product.nextdomtest.enums.TipoMovimentacao;
+import br.com.product.nextdomtest.enums.TipoProduto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da transmissão de estoque por SSE")
+class TransmissaoEstoqueTest
+{
+    private static final Duration TIMEOUT_ESCRITA = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransmissaoEstoque transmissao;
+
+    @AfterEach
+    void tearDown()
+    {
+        transmissao.encerrar();
+    }
+
+    @Test
+    @DisplayName("Cada assinante deve receber só as alterações do produto ou do tipo filtrado")
+    void publicar_AplicaFiltros()
+    {
+        transmissao = criar(16, 2);
+        EmitterCapturado todos = registrar(null, null);
+        EmitterCapturado produto = registrar(2L, null);
+        EmitterCapturado moveis = registrar(null, TipoProduto.MOVEL);
+
+        transmissao.publicar(alteracao(1L, 1L, TipoProduto.ELETRONICO, 9));
+        transmissao.publicar(alteracao(2L, 2L, TipoProduto.MOVEL, 4));
+        transmissao.publicar(alteracao(3L, 3L, TipoProduto.MOVEL, 1));
+
+        aguardar(() -> todos.alteracoes.size() == 3 && produto.alteracoes.size() == 1 && moveis.alteracoes.size() == 2);
+        assertEquals(List.of(2L), produto.alteracoes.stream().map(AlteracaoEstoqueDto::movimentoId).toList());
+        assertEquals(List.of(2L, 3L), moveis.alteracoes.stream().map(AlteracaoEstoqueDto::movimentoId).toList());
+        assertTrue(todos.texto().contains("event:estoque\n"));
+        assertTrue(todos.texto().contains("id:1\n"));
+    }
+
+    @Test
+    @DisplayName("Assinante lento deve receber só a alteração mais recente de cada produto e o aviso de descarte, sem atrasar os demais")
+    void publicar_AssinanteLento() throws InterruptedException
+    {
+        transmissao = criar(2, 2);
+        EmitterCapturado rapido = registrar(null, null);
+        EmitterCapturado lento = registrar(null, null);
+        aguardar(() -> lento.envios() == 1);
+
+        lento.bloquear();
+        publicarEAguardar(rapido, alteracao(1L, 1L, TipoProduto.ELETRONICO, 10));
+        assertTrue(lento.bloqueado.await(5, TimeUnit.SECONDS));
+
+        // Com o envio preso, o produto 1 é agrupado e depois descartado junto com o 2 ao chegarem 3 e 4
+        publicarEAguardar(rapido, alteracao(2L, 1L, TipoProduto.ELETRONICO, 9));
+        publicarEAguardar(rapido, alteracao(3L, 1L, TipoProduto.ELETRONICO, 8));
+        publicarEAguardar(rapido, alteracao(4L, 2L, TipoProduto.ELETRONICO, 5));
+        publicarEAguardar(rapido, alteracao(5L, 3L, TipoProduto.ELETRONICO, 6));
+        publicarEAguardar(rapido, alteracao(6L, 4L, TipoProduto.ELETRONICO, 7));
+
+        assertEquals(6, rapido.alteracoes.size());
+        assertEquals(1, lento.alteracoes.size());
+
+        lento.liberar();
+        aguardar(() -> lento.alteracoes.size() == 3);
+        assertEquals(List.of(1L, 5L, 6L), lento.alteracoes.stream().map(AlteracaoEstoqueDto::movimentoId).toList());
+        assertTrue(lento.texto().contains("event:descartadas\ndata:2\n"));
+        assertEquals(2.0, contador("descartada"));
+        assertEquals(1.0, contador("coalescida"));
+    }
+
+    @Test
+    @DisplayName("Deve enviar heartbeat na assinatura e periodicamente")
+    void enviarHeartbeat()
+    {
+        transmissao = criar(16, 1);
+        EmitterCapturado emitter = registrar(null, null);
+        aguardar(() -> emitter.envios() == 1);
+
+        transmissao.enviarHeartbeat();
+
+        aguardar(() -> emitter.envios() == 2);
+        assertEquals(":heartbeat\n\n:heartbeat\n\n", emitter.texto());
+    }
+
+    @Test
+    @DisplayName("Deve remover o assinante cuja conexão falhou")
+    void publicar_RemoveConexaoEncerrada()
+    {
+        transmissao = criar(16, 1);
+        EmitterCapturado ativo = registrar(null, null);
+        EmitterCapturado encerrado = registrar(null, null);
+        aguardar(() -> ativo.envios() == 1 && encerrado.envios() == 1);
+        encerrado.falhar = true;
+
+        transmissao.publicar(alteracao(1L, 1L, TipoProduto.ELETRONICO, 3));
+
+        aguardar(() -> transmissao.assinantes() == 1 && ativo.alteracoes.size() == 1);
+    }
+
+    @Test
+    @DisplayName("Assinante que não lê deve ser abandonado, e o pool deve ganhar uma thread enquanto a escrita estiver presa")
+    void verificarEscritas_AbandonaAssinanteTravado()
+    {
+        transmissao = criar(16, 1);
+        EmitterCapturado rapido = registrar(null, null);
+        EmitterCapturado lento = registrar(null, null);
+        aguardar(() -> rapido.envios() == 1 && lento.envios() == 1);
+
+        lento.bloquear();
+        transmissao.publicar(alteracao(1L, 1L, TipoProduto.ELETRONICO, 10));
+        aguardar(() -> lento.bloqueado.getCount() == 0);
+
+        long limite = System.nanoTime() + TIMEOUT_ESCRITA.toNanos();
+        aguardar(() -> System.nanoTime() > limite);
+        transmissao.verificarEscritas();
+
+        assertEquals(1, transmissao.assinantes());
+        assertEquals(2, transmissao.threadsEnvio());
+        // A única thread original segue presa no lento: o envio ao rápido sai pela thread extra
+        publicarEAguardar(rapido, alteracao(2L, 2L, TipoProduto.ELETRONICO, 4));
+        assertEquals(1, lento.alteracoes.size());
+        assertEquals(1.0, meterRegistry.get("estoque.stream.abandonados").counter().count());
+
+        lento.liberar();
+        aguardar(() -> lento.concluido);
+        transmissao.verificarEscritas();
+        assertEquals(1, transmissao.threadsEnvio());
+    }
+
+    private TransmissaoEstoque criar(int capacidade, int threads)
+    {
+        return new TransmissaoEstoque(capacidade, Duration.ofMinutes(1), TIMEOUT_ESCRITA,
+                (ThreadPoolExecutor) Executors.newFixedThreadPool(threads), 1, meterRegistry);
+    }
+
+    private EmitterCapturado registrar(Long produtoId, TipoProduto tipoProduto)
+    {
+        EmitterCapturado emitter = new EmitterCapturado();
+        transmissao.registrar(emitter, produtoId, tipoProduto);
+        return emitter;
+    }
+
+    private void publicarEAguardar(EmitterCapturado emitter, AlteracaoEstoqueDto alteracao)
+    {
+        transmissao.publicar(alteracao);
+        aguardar(() -> emitter.alteracoes.contains(alteracao));
+    }
+
+    private double contador(String resultado)
+    {
+        return meterRegistry.get("estoque.stream.alteracoes").tag("resultado", resultado).counter().count();
+    }
+
+    private static AlteracaoEstoqueDto alteracao(long movimentoId, long produtoId, TipoProduto tipoProduto, int quantidadeEstoque)
+    {
+        return new AlteracaoEstoqueDto(movimentoId, produtoId, tipoProduto, TipoMovimentacao.SAIDA, 1,
+                new BigDecimal("10.00"), LocalDateTime.of(2024, 5, 10, 14, 0), quantidadeEstoque);
+    }
+
+    private static void aguardar(BooleanSupplier condicao)
+    {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicao.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() < limite, "condição não atingida em 5 s");
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Registra o que seria escrito na conexão e permite simular um cliente que não lê.
+     */
+    private static final class EmitterCapturado extends SseEmitter
+    {
+        final List<AlteracaoEstoqueDto> alteracoes = new CopyOnWriteArrayList<>();
+        private final List<String> envios = new CopyOnWriteArrayList<>();
+        final CountDownLatch bloqueado = new CountDownLatch(1);
+        private volatile CountDownLatch liberacao;
+        volatile boolean falhar;
+        volatile boolean concluido;
+
+        void bloquear()
+        {
+            liberacao = new CountDownLatch(1);
+        }
+
+        void liberar()
+        {
+            liberacao.countDown();
+        }
+
+        int envios()
+        {
+            return envios.size();
+        }
+
+        String texto()
+        {
+            return String.join("", envios);
+        }
+
+        @Override
+        public void complete()
+        {
+            concluido = true;
+            super.complete();
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException
+        {
+            if (falhar)
+            {
+                throw new IOException("Broken pipe");
+            }
+
+            StringBuilder texto = new StringBuilder();
+            for (DataWithMediaType item : items)
+            {
+                if (item.getData() instanceof AlteracaoEstoqueDto alteracao)
+                {
+                    alteracoes.add(alteracao);
+                    texto.append("{movimento ").append(alteracao.movimentoId()).append('}');
+                }
+                else
+                {
+                    texto.append(item.getData());
+                }
+            }
+            envios.add(texto.toString());
+
+            CountDownLatch espera = liberacao;
+            if (espera != null)
+            {
+                bloqueado.countDown();
+                try
+                {
+                    espera.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}